@@ -0,0 +1,69 @@
+package dipas.eaj.ufrn;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada de target/benchmarks.jar: executa os benchmarks JMH com o perfilador de GC (taxa de alocação),
+ * aceitando as mesmas opções da linha de comando do JMH (por exemplo "Binary -p size=640x480 -p density=0.5").
+ * Para medir os núcleos vetoriais (ver Kernels), acrescente -jvmArgsAppend "--add-modules jdk.incubator.vector";
+ * para compará-los com os escalares, acrescente também -Dimaj.simd=false, ou execute KernelBenchmark, que mede as
+ * duas implementações.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * Converte um tamanho no formato "LARGURAxALTURA" em {altura, largura}.
+     */
+    static int[] size(String size) {
+        String[] parts = size.split("x");
+        return new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[0])};
+    }
+
+    /**
+     * Imagem colorida com gradientes e ruído, para que compressão e limiarização não sejam triviais.
+     */
+    static int[][][] rgb(int height, int width, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        int[][][] im = new int[height][width][3];
+        for (int i = 0; i < height; i++)
+            for (int j = 0; j < width; j++) {
+                int base = (i * 255 / height + j * 255 / width) / 2;
+                im[i][j][0] = Math.min(255, base + random.nextInt(32));
+                im[i][j][1] = Math.min(255, (base * 3 / 4) + random.nextInt(32));
+                im[i][j][2] = Math.min(255, (255 - base) + random.nextInt(32)) & 0xFF;
+            }
+        return im;
+    }
+
+    /**
+     * Máscara com regiões contíguas cobrindo aproximadamente a fração density da imagem: ruído suavizado
+     * limiarizado no percentil correspondente.
+     */
+    static boolean[][] mask(int height, int width, double density, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        int[][] noise = new int[height][width];
+        for (int[] row : noise)
+            for (int j = 0; j < width; j++)
+                row[j] = random.nextInt(256);
+        int[][] smooth = Image.imGaussian(noise, 9);
+        int[] hist = Image.imHist(smooth);
+        long target = Math.round((1 - density) * height * width), seen = 0;
+        int limiar = 0;
+        while (limiar < 255 && seen + hist[limiar] <= target)
+            seen += hist[limiar++];
+        return Image.im2bw(smooth, limiar - 1, true);
+    }
+}
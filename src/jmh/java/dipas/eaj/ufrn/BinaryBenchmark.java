@@ -0,0 +1,152 @@
+package dipas.eaj.ufrn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das operações sobre imagens binárias (rotulação, propriedades das regiões, morfologia, esqueleto e
+ * pontos característicos), para máscaras com diferentes proporções de pixels verdadeiros.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class BinaryBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000", "6000x4000"})
+    public String size;
+
+    @Param({"0.05", "0.5", "0.9"})
+    public double density;
+
+    private boolean[][] bw, skeleton;
+    private BitMask bits;
+    private PackedImage packed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] hw = Benchmarks.size(size);
+        bw = Benchmarks.mask(hw[0], hw[1], density, 1);
+        skeleton = Image.skeletonize(bw);
+        bits = BitMask.fromArray(bw);
+        packed = PackedImage.fromArray(bw);
+    }
+
+    @Benchmark
+    public int[][] bwLabel() {
+        return Image.bwLabel(bw);
+    }
+
+    @Benchmark
+    public int[][] bwLabel4() {
+        return Image.bwLabel(bw, 4);
+    }
+
+    @Benchmark
+    public PackedImage bwLabelPacked() {
+        return Image.bwLabel(packed);
+    }
+
+    @Benchmark
+    public ArrayList<Properties> regionProps() {
+        return Image.regionProps(bw);
+    }
+
+    @Benchmark
+    public boolean[][] bwErode() {
+        return Image.bwErode(bw, 5);
+    }
+
+    @Benchmark
+    public boolean[][] bwDilate() {
+        return Image.bwDilate(bw, 5);
+    }
+
+    @Benchmark
+    public boolean[][] bwOpen() {
+        return Image.bwOpen(bw, 5);
+    }
+
+    @Benchmark
+    public boolean[][] bwClose() {
+        return Image.bwClose(bw, 5);
+    }
+
+    @Benchmark
+    public BitMask bwErodeBits() {
+        return Image.bwErode(bits, 5);
+    }
+
+    @Benchmark
+    public BitMask bwOpenBits() {
+        return Image.bwOpen(bits, 5);
+    }
+
+    @Benchmark
+    public PackedImage bwErodePacked() {
+        return Image.bwErode(packed, 5);
+    }
+
+    @Benchmark
+    public boolean[][] skeletonize() {
+        return Image.skeletonize(bw);
+    }
+
+    @Benchmark
+    public boolean[][] bwEndPoints() {
+        return Image.bwEndPoints(skeleton);
+    }
+
+    @Benchmark
+    public ArrayList<int[]> bwEndPointsArray() {
+        return Image.bwEndPointsArray(skeleton);
+    }
+
+    @Benchmark
+    public boolean[][] bwBranchPoints() {
+        return Image.bwBranchPoints(skeleton);
+    }
+
+    @Benchmark
+    public boolean[][] bwIsolatedPoints() {
+        return Image.bwIsolatedPoints(bw);
+    }
+
+    @Benchmark
+    public boolean[][] bwLine() {
+        return Image.bwLine(bw, new int[]{0, 0, bw.length - 1, bw[0].length - 1});
+    }
+
+    @Benchmark
+    public PackedImage bwLinePacked() {
+        return Image.bwLine(packed, new int[]{0, 0, packed.height - 1, packed.width - 1});
+    }
+
+    @Benchmark
+    public boolean[][] sumBinary() {
+        return Image.sum(bw, skeleton);
+    }
+
+    @Benchmark
+    public boolean[][] logical() {
+        return Image.logical(Image.bwLabel(bw));
+    }
+}
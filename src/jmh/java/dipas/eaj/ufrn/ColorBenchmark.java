@@ -0,0 +1,243 @@
+package dipas.eaj.ufrn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das conversões de cor, histogramas e operações pixel a pixel de imagens coloridas e em tons de cinza.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ColorBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000", "6000x4000"})
+    public String size;
+
+    private int[][][] rgb, rgb2, ycbcrRgb;
+    private int[][] gray, gray2;
+    private PackedImage packed, packed2, packedGray, packedGray2, ycbcr;
+    private double[][][] hsv;
+    private ByteImage bytes, bytesHsv;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] hw = Benchmarks.size(size);
+        rgb = Benchmarks.rgb(hw[0], hw[1], 1);
+        rgb2 = Benchmarks.rgb(hw[0], hw[1], 2);
+        gray = Image.rgb2gray(rgb);
+        gray2 = Image.rgb2gray(rgb2);
+        packed = PackedImage.fromArray(rgb);
+        packed2 = PackedImage.fromArray(rgb2);
+        packedGray = PackedImage.fromArray(gray);
+        packedGray2 = PackedImage.fromArray(gray2);
+        ycbcr = Image.rgb2ycbcr(packed);
+        ycbcrRgb = ycbcr.toArray3();
+        hsv = Image.rgb2hsv(rgb);
+        bytes = ByteImage.of(packed);
+        bytesHsv = Image.rgb2hsv(bytes);
+    }
+
+    @Benchmark
+    public int[][] rgb2gray() {
+        return Image.rgb2gray(rgb);
+    }
+
+    @Benchmark
+    public PackedImage rgb2grayPacked() {
+        return Image.rgb2gray(packed);
+    }
+
+    @Benchmark
+    public int[][][] rgb2cmyk() {
+        return Image.rgb2cmyk(rgb);
+    }
+
+    @Benchmark
+    public PackedImage rgb2cmykPacked() {
+        return Image.rgb2cmyk(packed);
+    }
+
+    @Benchmark
+    public double[][][] rgb2hsv() {
+        return Image.rgb2hsv(rgb);
+    }
+
+    @Benchmark
+    public double[][][] rgb2hsvPacked() {
+        return Image.rgb2hsv(packed);
+    }
+
+    @Benchmark
+    public ByteImage rgb2grayBytes() {
+        return Image.rgb2gray(bytes);
+    }
+
+    @Benchmark
+    public ByteImage rgb2hsvBytes() {
+        return Image.rgb2hsv(bytes);
+    }
+
+    @Benchmark
+    public int[][][] hsv2rgb() {
+        return Image.hsv2rgb(hsv);
+    }
+
+    @Benchmark
+    public ByteImage hsv2rgbBytes() {
+        return Image.hsv2rgb(bytesHsv);
+    }
+
+    @Benchmark
+    public int[][][] rgb2ycbcr() {
+        return Image.rgb2ycbcr(rgb);
+    }
+
+    @Benchmark
+    public PackedImage rgb2ycbcrPacked() {
+        return Image.rgb2ycbcr(packed);
+    }
+
+    @Benchmark
+    public int[][][] ycbcr2rgb() {
+        return Image.ycbcr2rgb(ycbcrRgb);
+    }
+
+    @Benchmark
+    public PackedImage ycbcr2rgbPacked() {
+        return Image.ycbcr2rgb(ycbcr);
+    }
+
+    @Benchmark
+    public int[][][] gray2rgb() {
+        return Image.gray2rgb(gray);
+    }
+
+    @Benchmark
+    public PackedImage gray2rgbPacked() {
+        return Image.gray2rgb(packedGray);
+    }
+
+    @Benchmark
+    public int graythresh() {
+        return Image.graythresh(gray);
+    }
+
+    @Benchmark
+    public int graythreshPacked() {
+        return Image.graythresh(packedGray);
+    }
+
+    @Benchmark
+    public int[][] imHistRgb() {
+        return Image.imHist(rgb);
+    }
+
+    @Benchmark
+    public int[] imHistGray() {
+        return Image.imHist(gray);
+    }
+
+    @Benchmark
+    public int[][] imHistPacked() {
+        return Image.imHist(packed);
+    }
+
+    @Benchmark
+    public int[][] splitChannel() {
+        return Image.splitChannel(rgb, 1);
+    }
+
+    @Benchmark
+    public boolean[][] im2bw() {
+        return Image.im2bw(gray, 120, true);
+    }
+
+    @Benchmark
+    public PackedImage im2bwPacked() {
+        return Image.im2bw(Image.rgb2gray(packed), 120, true);
+    }
+
+    @Benchmark
+    public int minMax() {
+        return Image.min(gray) + Image.max(gray);
+    }
+
+    @Benchmark
+    public Stats stats() {
+        return Stats.of(gray);
+    }
+
+    @Benchmark
+    public int[][][] sumRgb() {
+        return Image.sum(rgb, rgb2);
+    }
+
+    @Benchmark
+    public int[][] subGray() {
+        return Image.sub(gray, gray2);
+    }
+
+    @Benchmark
+    public PackedImage sumPacked() {
+        return Image.sum(packed, packed2);
+    }
+
+    @Benchmark
+    public int[][] imAdd() {
+        return Image.imAdd(gray, gray2);
+    }
+
+    @Benchmark
+    public int[][] imSubtract() {
+        return Image.imSubtract(gray, gray2);
+    }
+
+    @Benchmark
+    public PackedImage imAddPacked() {
+        return Image.imAdd(packedGray, packedGray2);
+    }
+
+    @Benchmark
+    public PackedImage imSubtractPacked() {
+        return Image.imSubtract(packedGray, packedGray2);
+    }
+
+    @Benchmark
+    public int[][][] copy() {
+        return Image.copy(rgb);
+    }
+
+    @Benchmark
+    public int[][][] imCrop() {
+        return Image.imCrop(rgb, 0, 0, rgb.length / 2, rgb[0].length / 2);
+    }
+
+    @Benchmark
+    public int[][][] imResize() {
+        return Image._imResize(rgb);
+    }
+
+    @Benchmark
+    public int[][] zeros() {
+        return Image.zeros(gray.length, gray[0].length);
+    }
+}
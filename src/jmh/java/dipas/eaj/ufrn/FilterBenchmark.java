@@ -0,0 +1,84 @@
+package dipas.eaj.ufrn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks dos filtros de suavização e da sequência preguiçosa (Pipeline).
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class FilterBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000", "6000x4000"})
+    public String size;
+
+    @Param({"3", "15"})
+    public int tam;
+
+    private int[][][] rgb;
+    private int[][] gray;
+    private PackedImage packed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] hw = Benchmarks.size(size);
+        rgb = Benchmarks.rgb(hw[0], hw[1], 1);
+        gray = Image.rgb2gray(rgb);
+        packed = PackedImage.fromArray(rgb);
+    }
+
+    @Benchmark
+    public int[][] imGaussianGray() {
+        return Image.imGaussian(gray, tam);
+    }
+
+    @Benchmark
+    public int[][][] imGaussianRgb() {
+        return Image.imGaussian(rgb, tam);
+    }
+
+    @Benchmark
+    public PackedImage imGaussianPacked() {
+        return Image.imGaussian(packed, tam);
+    }
+
+    @Benchmark
+    public int[][] imGaussianSigma() {
+        return Image.imGaussian(gray, tam / 3.0, Border.REFLECT);
+    }
+
+    @Benchmark
+    public int[][] imBoxFilter() {
+        return Image.imBoxFilter(gray, tam, Border.REFLECT);
+    }
+
+    @Benchmark
+    public boolean[][] eagerChain() {
+        return Image.bwErode(Image.im2bw(Image.imGaussian(Image.rgb2gray(rgb), tam), 120, true), 3);
+    }
+
+    @Benchmark
+    public boolean[][] pipelineChain() {
+        return Pipeline.of(rgb).rgb2gray().gaussian(tam).im2bw(120).erode(3).toBinary();
+    }
+}
@@ -0,0 +1,145 @@
+package dipas.eaj.ufrn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de leitura, gravação e conversão entre BufferedImage e os arrays do ImaJ.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class IoBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000", "6000x4000"})
+    public String size;
+
+    private int[][][] rgb;
+    private int[][] gray;
+    private PackedImage packed;
+    private BufferedImage buffered;
+    private File dir;
+    private String png, jpeg, raw;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int[] hw = Benchmarks.size(size);
+        rgb = Benchmarks.rgb(hw[0], hw[1], 1);
+        gray = Image.rgb2gray(rgb);
+        packed = PackedImage.fromArray(rgb);
+        buffered = Image.image2BufferedImage(rgb);
+        dir = Files.createTempDirectory("imaj-bench").toFile();
+        png = new File(dir, "in.png").getPath();
+        jpeg = new File(dir, "in.jpeg").getPath();
+        raw = new File(dir, "in.imj").getPath();
+        ImageEncoder.write(buffered, png, EncodeOptions.DEFAULT);
+        ImageEncoder.write(buffered, jpeg, EncodeOptions.DEFAULT);
+        RawImage.write(packed, raw);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File f : dir.listFiles())
+            f.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public int[][][] bufferedImage2Image() {
+        return Image.bufferedImage2Image(buffered);
+    }
+
+    @Benchmark
+    public BufferedImage image2BufferedImageRgb() {
+        return Image.image2BufferedImage(rgb);
+    }
+
+    @Benchmark
+    public BufferedImage image2BufferedImageGray() {
+        return Image.image2BufferedImage(gray);
+    }
+
+    @Benchmark
+    public BufferedImage image2BufferedImagePacked() {
+        return Image.image2BufferedImage(packed);
+    }
+
+    @Benchmark
+    public int[][][] imReadPng() {
+        return Image.imRead(png);
+    }
+
+    @Benchmark
+    public int[][][] imReadJpeg() {
+        return Image.imRead(jpeg);
+    }
+
+    @Benchmark
+    public PackedImage imReadPackedJpeg() {
+        return Image.imReadPacked(jpeg);
+    }
+
+    @Benchmark
+    public PackedImage imReadPackedRaw() {
+        return Image.imReadPacked(raw);
+    }
+
+    @Benchmark
+    public PackedImage imReadPackedRegion() {
+        int[] hw = Benchmarks.size(size);
+        return Image.imReadPacked(jpeg, hw[0] / 4, hw[1] / 4, hw[0] / 2, hw[1] / 2, 1);
+    }
+
+    @Benchmark
+    public PackedImage imReadPackedThumbnail() {
+        return Image.imReadPacked(jpeg, 4);
+    }
+
+    @Benchmark
+    public int[][][] imReadHalf() {
+        return Image.imRead(jpeg, 2);
+    }
+
+    @Benchmark
+    public int[][][] imReadThenResize() {
+        return Image._imResize(Image.imRead(jpeg));
+    }
+
+    @Benchmark
+    public void imWritePng() {
+        Image.imWrite(rgb, new File(dir, "out.png").getPath());
+    }
+
+    @Benchmark
+    public void imWriteJpeg() {
+        Image.imWrite(rgb, new File(dir, "out.jpeg").getPath());
+    }
+
+    @Benchmark
+    public void imWriteRaw() {
+        Image.imWrite(packed, new File(dir, "out.imj").getPath());
+    }
+}
@@ -0,0 +1,89 @@
+package dipas.eaj.ufrn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das operações que usam os núcleos de Kernels (somas saturadas, conversão para cinza e limiarização),
+ * com a implementação vetorial (simd=true) e com a escalar (simd=false). Como Kernels escolhe a implementação uma
+ * única vez por JVM, cada valor de simd roda em sua própria JVM, com o módulo jdk.incubator.vector sempre presente,
+ * e a propriedade imaj.simd é definida antes do primeiro uso de Kernels.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000", "6000x4000"})
+    public String size;
+
+    @Param({"true", "false"})
+    public boolean simd;
+
+    private int[][] gray, gray2;
+    private PackedImage packed, packedGray, packedGray2;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("imaj.simd", String.valueOf(simd));
+        if (Kernels.INSTANCE.name().startsWith("vector") != simd)
+            throw new IllegalStateException("Expected " + (simd ? "vector" : "scalar") + " kernels, got "
+                    + Kernels.INSTANCE.name());
+
+        int[] hw = Benchmarks.size(size);
+        int[][][] rgb = Benchmarks.rgb(hw[0], hw[1], 1);
+        gray = Image.rgb2gray(rgb);
+        gray2 = Image.rgb2gray(Benchmarks.rgb(hw[0], hw[1], 2));
+        packed = PackedImage.fromArray(rgb);
+        packedGray = PackedImage.fromArray(gray);
+        packedGray2 = PackedImage.fromArray(gray2);
+    }
+
+    @Benchmark
+    public int[][] imAdd() {
+        return Image.imAdd(gray, gray2);
+    }
+
+    @Benchmark
+    public int[][] imSubtract() {
+        return Image.imSubtract(gray, gray2);
+    }
+
+    @Benchmark
+    public PackedImage imAddPacked() {
+        return Image.imAdd(packedGray, packedGray2);
+    }
+
+    @Benchmark
+    public PackedImage imSubtractPacked() {
+        return Image.imSubtract(packedGray, packedGray2);
+    }
+
+    @Benchmark
+    public PackedImage rgb2grayPacked() {
+        return Image.rgb2gray(packed);
+    }
+
+    @Benchmark
+    public boolean[][] im2bw() {
+        return Image.im2bw(gray, 120, true);
+    }
+}
@@ -0,0 +1,176 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Classe abstrata AdaptiveThreshold, que limiariza uma imagem em tons de cinza com um limiar diferente para cada
+ * pixel, calculado a partir da média m e do desvio padrão s da janela tam x tam (raio tam / 2) centrada nele.
+ * Nas bordas, a janela é recortada pelos limites da imagem.
+ * As somas da janela são mantidas em uma única passagem pelas linhas: cada linha lida entra em um buffer circular
+ * de 2 * raio + 1 linhas com suas somas horizontais (janela deslizante), e as somas de cada coluna são atualizadas
+ * somando a linha que entra e subtraindo a que sai. O custo por pixel é constante, independente do tamanho da
+ * janela, e a memória usada é a do buffer circular. Imagens grandes são divididas em faixas de linhas paralelas
+ * (ver {@link Parallel}), cada uma com seu próprio buffer.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class AdaptiveThreshold {
+
+    /**
+     * Faixa dinâmica do desvio padrão usada por Sauvola, para imagens de 8 bits.
+     */
+    public static final double SAUVOLA_RANGE = 128;
+
+    /**
+     * Cálculo do limiar local.
+     */
+    public enum Method {
+        /**
+         * Média local menos uma constante: T = m - k.
+         */
+        MEAN,
+        /**
+         * Niblack: T = m + k * s (k em geral negativo, como -0.2).
+         */
+        NIBLACK,
+        /**
+         * Sauvola: T = m * (1 + k * (s / 128 - 1)) (k em geral entre 0.2 e 0.5).
+         */
+        SAUVOLA
+    }
+
+    /**
+     * Limiariza uma imagem em tons de cinza com limiar local.
+     *
+     * @param im A imagem em tons de cinza.
+     * @param method O cálculo do limiar.
+     * @param tam O tamanho da janela.
+     * @param k O parâmetro do método.
+     * @param maior Indica se o que vai ser branco é maior que o limiar local ou menor.
+     * @return A imagem binária.
+     */
+    public static boolean[][] apply(int[][] im, Method method, int tam, double k, boolean maior) {
+        int h = im.length, w = im[0].length;
+        boolean[][] bw = new boolean[h][w];
+        apply((i, row) -> System.arraycopy(im[i], 0, row, 0, w), h, w, method, tam, k, maior,
+                (i, row) -> System.arraycopy(row, 0, bw[i], 0, w));
+        return bw;
+    }
+
+    /**
+     * Limiariza o primeiro canal de uma imagem compactada com limiar local.
+     *
+     * @param im A imagem compactada em tons de cinza.
+     * @param method O cálculo do limiar.
+     * @param tam O tamanho da janela.
+     * @param k O parâmetro do método.
+     * @param maior Indica se o que vai ser branco é maior que o limiar local ou menor.
+     * @return A imagem compactada binária (valores 0 e 1).
+     */
+    public static PackedImage apply(PackedImage im, Method method, int tam, double k, boolean maior) {
+        int h = im.height, w = im.width, step = im.pixelStep();
+        PackedImage bw = new PackedImage(h, w, 1);
+        apply((i, row) -> {
+            for (int j = 0, s = im.index(i, 0, 0); j < w; j++, s += step)
+                row[j] = im.data[s];
+        }, h, w, method, tam, k, maior, (i, row) -> {
+            for (int j = 0, d = i * w; j < w; j++, d++)
+                bw.data[d] = row[j] ? 1 : 0;
+        });
+        return bw;
+    }
+
+    private interface RowReader {
+        void read(int i, int[] row);
+    }
+
+    private interface RowWriter {
+        void write(int i, boolean[] row);
+    }
+
+    private static void apply(RowReader reader, int h, int w, Method method, int tam, double k, boolean maior,
+                              RowWriter writer) {
+        if (tam < 1)
+            throw new IllegalArgumentException("Window size must be positive: " + tam);
+        // Com a janela recortada, um raio maior que a imagem equivale ao tamanho da imagem
+        int rv = Math.min(tam / 2, h - 1), rh = Math.min(tam / 2, w - 1);
+        int size = 2 * rv + 1;
+
+        Parallel.forRows(h, w, (from, to) -> {
+            int[][] rows = new int[size][w];
+            long[][] rowSum = new long[size][w], rowSq = new long[size][w];
+            long[] colSum = new long[w], colSq = new long[w];
+            boolean[] out = new boolean[w];
+
+            for (int y = Math.max(0, from - rv); y < Math.min(h, from + rv); y++)
+                load(reader, y, rows, rowSum, rowSq, colSum, colSq, rh);
+
+            for (int i = from; i < to; i++) {
+                // A linha que sai da janela ocupa a posição do buffer da linha que entra
+                int leaving = i - rv - 1, entering = i + rv;
+                if (leaving >= 0 && leaving >= from - rv) {
+                    int slot = leaving % size;
+                    long[] s = rowSum[slot], q = rowSq[slot];
+                    for (int j = 0; j < w; j++) {
+                        colSum[j] -= s[j];
+                        colSq[j] -= q[j];
+                    }
+                }
+                if (entering < h)
+                    load(reader, entering, rows, rowSum, rowSq, colSum, colSq, rh);
+
+                int[] row = rows[i % size];
+                int height = Math.min(i + rv, h - 1) - Math.max(i - rv, 0) + 1;
+                for (int j = 0; j < w; j++) {
+                    double n = (double) height * (Math.min(j + rh, w - 1) - Math.max(j - rh, 0) + 1);
+                    double m = colSum[j] / n;
+                    double t = threshold(method, m, colSq[j] / n - m * m, k);
+                    out[j] = maior ? row[j] > t : row[j] < t;
+                }
+                writer.write(i, out);
+            }
+        });
+    }
+
+    /**
+     * Lê a linha y para o buffer circular, com suas somas horizontais, e soma-a às somas das colunas.
+     */
+    private static void load(RowReader reader, int y, int[][] rows, long[][] rowSum, long[][] rowSq, long[] colSum,
+                             long[] colSq, int r) {
+        int slot = y % rows.length, w = colSum.length;
+        int[] row = rows[slot];
+        long[] s = rowSum[slot], q = rowSq[slot];
+        reader.read(y, row);
+
+        long sum = 0, sq = 0;
+        for (int x = 0; x < r; x++) {
+            sum += row[x];
+            sq += (long) row[x] * row[x];
+        }
+        for (int j = 0; j < w; j++) {
+            int in = j + r, out = j - r - 1;
+            if (in < w) {
+                sum += row[in];
+                sq += (long) row[in] * row[in];
+            }
+            if (out >= 0) {
+                sum -= row[out];
+                sq -= (long) row[out] * row[out];
+            }
+            s[j] = sum;
+            q[j] = sq;
+            colSum[j] += sum;
+            colSq[j] += sq;
+        }
+    }
+
+    private static double threshold(Method method, double mean, double variance, double k) {
+        switch (method) {
+            case MEAN:
+                return mean - k;
+            case NIBLACK:
+                return mean + k * Math.sqrt(Math.max(0, variance));
+            default:
+                return mean * (1 + k * (Math.sqrt(Math.max(0, variance)) / SAUVOLA_RANGE - 1));
+        }
+    }
+}
@@ -1,9 +1,118 @@
 package dipas.eaj.ufrn;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
 public class App {
+    private static final String USAGE = "Usage: App <input dir> <output dir> [--threads=N] [--queue=N] [--format=EXT]"
+            + " [gray] [bw:LIMIAR] [gaussian:TAM] [erode:TAM] [dilate:TAM] [open:TAM] [close:TAM]";
+
     public static void main( String[] args ){
-        int[][][] im = Image.imRead("src/examples/image.jpeg");
-        int[][] imgray = Image.rgb2gray(im);
-        Image.imWrite(imgray, "src/examples/result.jpeg");
+        if (args.length == 0) {
+            int[][][] im = Image.imRead("src/examples/image.jpeg");
+            int[][] imgray = Image.rgb2gray(im);
+            Image.imWrite(imgray, "src/examples/result.jpeg");
+            return;
+        }
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        try {
+            BatchProcessor batch = new BatchProcessor(operation(args));
+            for (int k = 2; k < args.length; k++) {
+                String arg = args[k];
+                if (arg.startsWith("--threads="))
+                    batch.cpuThreads(Integer.parseInt(arg.substring(10)));
+                else if (arg.startsWith("--queue="))
+                    batch.maxInFlight(Integer.parseInt(arg.substring(8)));
+                else if (arg.startsWith("--format="))
+                    batch.format(arg.substring(9));
+                else if (isOption(arg))
+                    throw new IllegalArgumentException("Unknown option '" + arg + "'");
+            }
+            BatchProcessor.Report report = batch.run(Path.of(args[0]), Path.of(args[1]));
+            for (BatchProcessor.Result r : report.results)
+                System.out.println(r);
+            System.out.println(report);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+        } catch (IOException e) {
+            System.out.println("Batch error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indica se o argumento é uma das opções --threads, --queue ou --format; qualquer outro argumento iniciado por --
+     * (como um erro de digitação em --thread=4) é rejeitado, em vez de ser ignorado.
+     */
+    static boolean isOption(String arg) {
+        if (!arg.startsWith("--"))
+            return false;
+        if (arg.startsWith("--threads=") || arg.startsWith("--queue=") || arg.startsWith("--format="))
+            return true;
+        throw new IllegalArgumentException("Unknown option '" + arg + "'");
+    }
+
+    /**
+     * Monta a sequência de operações da linha de comando (a partir do terceiro argumento) como uma Pipeline.
+     * Imagens coloridas são sempre convertidas para tons de cinza antes das operações, e imagens binárias são
+     * gravadas com 0 e 255.
+     */
+    static UnaryOperator<PackedImage> operation(String[] args) {
+        List<UnaryOperator<Pipeline>> steps = new ArrayList<>();
+        boolean binary = false;
+        for (int k = 2; k < args.length; k++) {
+            String arg = args[k];
+            if (isOption(arg))
+                continue;
+            String[] op = arg.split(":", 2);
+            int value = op.length > 1 ? Integer.parseInt(op[1]) : 0;
+            switch (op[0]) {
+                case "gray":
+                    binary = false;
+                    break;
+                case "bw":
+                    steps.add(p -> p.im2bw(value));
+                    binary = true;
+                    break;
+                case "gaussian":
+                    steps.add(p -> p.gaussian(value));
+                    binary = false;
+                    break;
+                case "erode":
+                    steps.add(p -> p.erode(value));
+                    binary = true;
+                    break;
+                case "dilate":
+                    steps.add(p -> p.dilate(value));
+                    binary = true;
+                    break;
+                case "open":
+                    steps.add(p -> p.open(value));
+                    binary = true;
+                    break;
+                case "close":
+                    steps.add(p -> p.close(value));
+                    binary = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown operation '" + arg + "'");
+            }
+        }
+        if (binary)
+            steps.add(p -> p.map(v -> v != 0 ? 255 : 0));
+        return im -> {
+            Pipeline p = Pipeline.of(im);
+            if (im.channels > 1)
+                p = p.rgb2gray();
+            for (UnaryOperator<Pipeline> step : steps)
+                p = step.apply(p);
+            return p.toPacked();
+        };
     }
-}
\ No newline at end of file
+}
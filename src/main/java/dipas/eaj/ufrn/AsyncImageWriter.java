@@ -0,0 +1,131 @@
+package dipas.eaj.ufrn;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Classe AsyncImageWriter, que grava imagens em segundo plano, para que as threads de processamento não esperem pela
+ * codificação e pela escrita no disco. As gravações são feitas por um conjunto fixo de threads (cada uma reutiliza
+ * seus codificadores, ver {@link ImageEncoder}) a partir de uma fila limitada: quando a fila está cheia, write espera
+ * até haver vaga, o que limita a memória ocupada pelas imagens pendentes.
+ * A imagem não deve ser alterada até a conclusão da gravação, pois a conversão é feita pela thread de gravação.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class AsyncImageWriter implements Closeable {
+
+    private final ExecutorService executor;
+    private final Semaphore slots;
+
+    /**
+     * Cria um gravador com uma thread e uma fila de 16 imagens.
+     */
+    public AsyncImageWriter() {
+        this(1, 16);
+    }
+
+    /**
+     * Cria um gravador.
+     *
+     * @param threads A quantidade de threads de gravação.
+     * @param capacity A quantidade máxima de imagens aguardando gravação.
+     */
+    public AsyncImageWriter(int threads, int capacity) {
+        if (threads < 1 || capacity < 1)
+            throw new IllegalArgumentException("Threads and capacity must be at least 1");
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "imaj-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.slots = new Semaphore(threads + capacity);
+    }
+
+    /**
+     * Agenda a gravação de uma imagem colorida.
+     *
+     * @param im A imagem.
+     * @param path O caminho do arquivo.
+     * @param options As opções de codificação.
+     * @return Um futuro concluído quando o arquivo estiver gravado (ou com a exceção da gravação).
+     */
+    public CompletableFuture<Void> write(int[][][] im, String path, EncodeOptions options) {
+        return submit(() -> RasterBridge.toBufferedImage(im), path, options);
+    }
+
+    /**
+     * Agenda a gravação de uma imagem em tons de cinza.
+     *
+     * @param im A imagem.
+     * @param path O caminho do arquivo.
+     * @param options As opções de codificação.
+     * @return Um futuro concluído quando o arquivo estiver gravado (ou com a exceção da gravação).
+     */
+    public CompletableFuture<Void> write(int[][] im, String path, EncodeOptions options) {
+        return submit(() -> RasterBridge.toBufferedImage(im), path, options);
+    }
+
+    /**
+     * Agenda a gravação de uma imagem binária.
+     *
+     * @param im A imagem.
+     * @param path O caminho do arquivo.
+     * @param options As opções de codificação.
+     * @return Um futuro concluído quando o arquivo estiver gravado (ou com a exceção da gravação).
+     */
+    public CompletableFuture<Void> write(boolean[][] im, String path, EncodeOptions options) {
+        return submit(() -> RasterBridge.toBufferedImage(im), path, options);
+    }
+
+    /**
+     * Agenda a gravação de uma imagem compactada.
+     *
+     * @param im A imagem.
+     * @param path O caminho do arquivo.
+     * @param options As opções de codificação.
+     * @return Um futuro concluído quando o arquivo estiver gravado (ou com a exceção da gravação).
+     */
+    public CompletableFuture<Void> write(PackedImage im, String path, EncodeOptions options) {
+        return submit(() -> RasterBridge.toBufferedImage(im), path, options);
+    }
+
+    private CompletableFuture<Void> submit(Supplier<BufferedImage> image, String path, EncodeOptions options) {
+        slots.acquireUninterruptibly();
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    ImageEncoder.write(image.get(), path, options);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    slots.release();
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Conclui as gravações pendentes e encerra as threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package dipas.eaj.ufrn;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.UnaryOperator;
+
+/**
+ * Classe BatchProcessor, que aplica a mesma operação a todos os arquivos de imagem de uma lista ou diretório.
+ * A leitura e a gravação dos arquivos são feitas em threads virtuais (quando a JVM as oferece; senão, em um pool de
+ * threads sem limite), enquanto a operação roda em um pool limitado ao número de processadores. Um semáforo limita a
+ * quantidade de imagens decodificadas em memória ao mesmo tempo: um arquivo só começa a ser lido quando há vaga.
+ * Como vários arquivos são processados ao mesmo tempo, cada operação roda sem paralelismo interno
+ * (ver {@link Parallel#withParallelism(int, java.util.function.Supplier)}).
+ * Falhas em um arquivo não interrompem o lote; cada arquivo aparece no relatório com seu resultado.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class BatchProcessor {
+
+    private final UnaryOperator<PackedImage> operation;
+    private int cpuThreads = Runtime.getRuntime().availableProcessors();
+    private int maxInFlight = 2 * cpuThreads;
+    private String format;
+    private EncodeOptions options = EncodeOptions.DEFAULT;
+
+    /**
+     * Resultado do processamento de um arquivo.
+     */
+    public static final class Result {
+        /**
+         * Arquivo de entrada.
+         */
+        public final Path input;
+        /**
+         * Arquivo de saída (mesmo em caso de falha).
+         */
+        public final Path output;
+        /**
+         * Mensagem de erro, ou null se o arquivo foi processado.
+         */
+        public final String error;
+        /**
+         * Quantidade de pixels da imagem lida (0 se a leitura falhou).
+         */
+        public final long pixels;
+        /**
+         * Tempo de leitura, de processamento e de gravação, em nanossegundos.
+         */
+        public final long readNanos, processNanos, writeNanos;
+
+        Result(Path input, Path output, String error, long pixels, long readNanos, long processNanos,
+               long writeNanos) {
+            this.input = input;
+            this.output = output;
+            this.error = error;
+            this.pixels = pixels;
+            this.readNanos = readNanos;
+            this.processNanos = processNanos;
+            this.writeNanos = writeNanos;
+        }
+
+        /**
+         * @return true se o arquivo foi lido, processado e gravado.
+         */
+        public boolean succeeded() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            return succeeded()
+                    ? String.format("%s -> %s (read %.1f ms, process %.1f ms, write %.1f ms)", input, output,
+                    readNanos / 1e6, processNanos / 1e6, writeNanos / 1e6)
+                    : input + " FAILED: " + error;
+        }
+    }
+
+    /**
+     * Relatório de um lote.
+     */
+    public static final class Report {
+        /**
+         * Resultados, na ordem dos arquivos de entrada.
+         */
+        public final List<Result> results;
+        /**
+         * Quantidade de arquivos processados e com falha.
+         */
+        public final int succeeded, failed;
+        /**
+         * Total de pixels processados.
+         */
+        public final long pixels;
+        /**
+         * Duração do lote, em nanossegundos.
+         */
+        public final long elapsedNanos;
+
+        Report(List<Result> results, long elapsedNanos) {
+            int ok = 0;
+            long px = 0;
+            for (Result r : results)
+                if (r.succeeded()) {
+                    ok++;
+                    px += r.pixels;
+                }
+            this.results = Collections.unmodifiableList(results);
+            this.succeeded = ok;
+            this.failed = results.size() - ok;
+            this.pixels = px;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return Arquivos processados por segundo.
+         */
+        public double filesPerSecond() {
+            return elapsedNanos == 0 ? 0 : succeeded * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return Milhões de pixels processados por segundo.
+         */
+        public double megapixelsPerSecond() {
+            return elapsedNanos == 0 ? 0 : pixels * 1e3 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files, %d failed, %.1f s, %.1f files/s, %.1f MP/s", results.size(), failed,
+                    elapsedNanos / 1e9, filesPerSecond(), megapixelsPerSecond());
+        }
+    }
+
+    /**
+     * Cria um processador para a operação informada.
+     *
+     * @param operation A operação aplicada a cada imagem (lida com três canais, ou como gravada, para .imj).
+     */
+    public BatchProcessor(UnaryOperator<PackedImage> operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Altera a quantidade de threads usadas pelas operações (padrão: número de processadores).
+     *
+     * @param threads A quantidade de threads.
+     * @return Este processador.
+     */
+    public BatchProcessor cpuThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        this.cpuThreads = threads;
+        return this;
+    }
+
+    /**
+     * Altera a quantidade máxima de arquivos em andamento, isto é, de imagens decodificadas em memória
+     * (padrão: duas vezes o número de processadores).
+     *
+     * @param files A quantidade de arquivos.
+     * @return Este processador.
+     */
+    public BatchProcessor maxInFlight(int files) {
+        if (files < 1)
+            throw new IllegalArgumentException("Files in flight must be at least 1");
+        this.maxInFlight = files;
+        return this;
+    }
+
+    /**
+     * Altera o formato dos arquivos de saída (por exemplo "png" ou "imj"); por padrão, é mantida a extensão do
+     * arquivo de entrada.
+     *
+     * @param format A extensão, sem o ponto.
+     * @return Este processador.
+     */
+    public BatchProcessor format(String format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Altera as opções de codificação dos arquivos de saída (ignoradas para .imj).
+     *
+     * @param options As opções de codificação.
+     * @return Este processador.
+     */
+    public BatchProcessor encodeOptions(EncodeOptions options) {
+        this.options = options;
+        return this;
+    }
+
+    /**
+     * Processa todos os arquivos regulares de um diretório, em ordem alfabética.
+     *
+     * @param inputDir O diretório de entrada.
+     * @param outputDir O diretório de saída (criado se não existir).
+     * @return O relatório do lote.
+     * @throws IOException Se o diretório de entrada não puder ser listado ou o de saída não puder ser criado.
+     */
+    public Report run(Path inputDir, Path outputDir) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(inputDir)) {
+            for (Path p : dir)
+                if (Files.isRegularFile(p))
+                    inputs.add(p);
+        }
+        Collections.sort(inputs);
+        return run(inputs, outputDir);
+    }
+
+    /**
+     * Processa uma lista de arquivos.
+     *
+     * @param inputs Os arquivos de entrada.
+     * @param outputDir O diretório de saída (criado se não existir).
+     * @return O relatório do lote.
+     * @throws IOException Se o diretório de saída não puder ser criado.
+     */
+    public Report run(List<Path> inputs, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        long start = System.nanoTime();
+        ExecutorService io = ioExecutor();
+        ExecutorService cpu = Executors.newFixedThreadPool(cpuThreads);
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<Future<Result>> pending = new ArrayList<>(inputs.size());
+        try {
+            for (Path input : inputs) {
+                Path output = outputDir.resolve(outputName(input));
+                permits.acquireUninterruptibly();
+                try {
+                    pending.add(io.submit(() -> {
+                        try {
+                            return process(input, output, cpu);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+            List<Result> results = new ArrayList<>(pending.size());
+            for (int k = 0; k < pending.size(); k++)
+                results.add(await(pending.get(k), inputs.get(k), outputDir.resolve(outputName(inputs.get(k)))));
+            return new Report(results, System.nanoTime() - start);
+        } finally {
+            io.shutdown();
+            cpu.shutdown();
+        }
+    }
+
+    private Result process(Path input, Path output, ExecutorService cpu) {
+        long t0 = System.nanoTime();
+        long pixels = 0;
+        try {
+            PackedImage im = read(input);
+            pixels = (long) im.height * im.width;
+            long t1 = System.nanoTime();
+            PackedImage result = cpu.submit(() -> Parallel.withParallelism(1, () -> operation.apply(im))).get();
+            long t2 = System.nanoTime();
+            write(result, output);
+            return new Result(input, output, null, pixels, t1 - t0, t2 - t1, System.nanoTime() - t2);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            return new Result(input, output, message(e instanceof ExecutionException ? e.getCause() : e), pixels,
+                    0, 0, 0);
+        }
+    }
+
+    private static Result await(Future<Result> future, Path input, Path output) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return new Result(input, output, message(e.getCause()), 0, 0, 0, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(input, output, "Interrupted", 0, 0, 0, 0);
+        }
+    }
+
+    private static String message(Throwable e) {
+        return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+    }
+
+    private Path outputName(Path input) {
+        String name = input.getFileName().toString();
+        if (format == null)
+            return input.getFileName();
+        int dot = name.lastIndexOf('.');
+        return Path.of((dot > 0 ? name.substring(0, dot) : name) + "." + format);
+    }
+
+    private static PackedImage read(Path input) throws IOException {
+        String path = input.toString();
+        if (RawImage.isRaw(path))
+            return RawImage.read(path);
+        BufferedImage im = ImageIO.read(input.toFile());
+        if (im == null)
+            throw new IOException("Unsupported image format");
+        return RasterBridge.toPacked(im);
+    }
+
+    private void write(PackedImage im, Path output) throws IOException {
+        String path = output.toString();
+        if (RawImage.isRaw(path))
+            RawImage.write(im, path);
+        else
+            ImageEncoder.write(RasterBridge.toBufferedImage(im), path, options);
+    }
+
+    /**
+     * Executor de E/S: uma thread virtual por tarefa quando disponível (Java 21 ou superior), obtido por reflexão
+     * para manter a compatibilidade com o Java 11; senão, um pool de threads sem limite.
+     */
+    static ExecutorService ioExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "imaj-batch-io");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
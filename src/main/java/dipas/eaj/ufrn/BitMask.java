@@ -0,0 +1,283 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Classe BitMask, que representa uma imagem binária compactada em bits: cada linha ocupa {@code wordsPerRow}
+ * palavras de 64 bits, e o pixel da coluna j fica no bit j % 64 da palavra j / 64. As operações lógicas, a área
+ * e a erosão/dilatação 3x3 processam 64 pixels por operação. Os bits além da largura da imagem são sempre zero.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class BitMask {
+    /**
+     * Altura da imagem, em pixels.
+     */
+    public final int height;
+    /**
+     * Largura da imagem, em pixels.
+     */
+    public final int width;
+    /**
+     * Quantidade de palavras de 64 bits por linha.
+     */
+    public final int wordsPerRow;
+    /**
+     * Palavras da imagem, linha após linha.
+     */
+    public final long[] words;
+
+    private final long lastMask;
+
+    /**
+     * Cria uma imagem binária com todos os pixels falsos.
+     *
+     * @param height Altura da imagem.
+     * @param width Largura da imagem.
+     */
+    public BitMask(int height, int width) {
+        this.height = height;
+        this.width = width;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.words = new long[height * wordsPerRow];
+        this.lastMask = (width & 63) == 0 ? -1L : (1L << (width & 63)) - 1;
+    }
+
+    /**
+     * Converte um array bidimensional de valores lógicos em uma imagem compactada em bits.
+     *
+     * @param im A imagem binária.
+     * @return A imagem compactada em bits.
+     */
+    public static BitMask fromArray(boolean[][] im) {
+        BitMask mask = new BitMask(im.length, im[0].length);
+        for (int i = 0; i < mask.height; i++) {
+            boolean[] row = im[i];
+            int base = i * mask.wordsPerRow;
+            for (int j = 0; j < mask.width; j++)
+                if (row[j])
+                    mask.words[base + (j >>> 6)] |= 1L << j;
+        }
+        return mask;
+    }
+
+    /**
+     * Converte uma imagem em tons de cinza em uma imagem compactada em bits, com verdadeiro onde o pixel é maior
+     * que o limiar (como em Image.im2bw).
+     *
+     * @param im A imagem em tons de cinza.
+     * @param limiar O limiar.
+     * @return A imagem compactada em bits.
+     */
+    public static BitMask im2bw(int[][] im, int limiar) {
+        BitMask mask = new BitMask(im.length, im[0].length);
+        for (int i = 0; i < mask.height; i++) {
+            int[] row = im[i];
+            int base = i * mask.wordsPerRow;
+            for (int k = 0; k < mask.wordsPerRow; k++) {
+                long word = 0;
+                int from = k << 6, to = Math.min(from + 64, mask.width);
+                for (int j = from; j < to; j++)
+                    if (row[j] > limiar)
+                        word |= 1L << j;
+                mask.words[base + k] = word;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return A imagem como um array bidimensional de valores lógicos.
+     */
+    public boolean[][] toArray() {
+        boolean[][] im = new boolean[height][width];
+        for (int i = 0; i < height; i++) {
+            boolean[] row = im[i];
+            int base = i * wordsPerRow;
+            for (int j = 0; j < width; j++)
+                row[j] = (words[base + (j >>> 6)] & (1L << j)) != 0;
+        }
+        return im;
+    }
+
+    /**
+     * @return O valor do pixel (row, col).
+     */
+    public boolean get(int row, int col) {
+        return (words[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    /**
+     * Altera o valor do pixel (row, col).
+     */
+    public void set(int row, int col, boolean value) {
+        int k = row * wordsPerRow + (col >>> 6);
+        if (value)
+            words[k] |= 1L << col;
+        else
+            words[k] &= ~(1L << col);
+    }
+
+    /**
+     * @return Uma cópia da imagem.
+     */
+    public BitMask copy() {
+        BitMask out = new BitMask(height, width);
+        System.arraycopy(words, 0, out.words, 0, words.length);
+        return out;
+    }
+
+    /**
+     * @return A área da imagem (quantidade de pixels verdadeiros), calculada com contagem de bits.
+     */
+    public long count() {
+        long n = 0;
+        for (long word : words)
+            n += Long.bitCount(word);
+        return n;
+    }
+
+    /**
+     * @return A união (OU) desta imagem com outra.
+     */
+    public BitMask or(BitMask other) {
+        BitMask out = sameSize(other);
+        for (int k = 0; k < words.length; k++)
+            out.words[k] = words[k] | other.words[k];
+        return out;
+    }
+
+    /**
+     * @return A interseção (E) desta imagem com outra.
+     */
+    public BitMask and(BitMask other) {
+        BitMask out = sameSize(other);
+        for (int k = 0; k < words.length; k++)
+            out.words[k] = words[k] & other.words[k];
+        return out;
+    }
+
+    /**
+     * @return Os pixels desta imagem que não estão na outra (E NÃO).
+     */
+    public BitMask andNot(BitMask other) {
+        BitMask out = sameSize(other);
+        for (int k = 0; k < words.length; k++)
+            out.words[k] = words[k] & ~other.words[k];
+        return out;
+    }
+
+    /**
+     * @return A diferença simétrica (OU exclusivo) desta imagem com outra.
+     */
+    public BitMask xor(BitMask other) {
+        BitMask out = sameSize(other);
+        for (int k = 0; k < words.length; k++)
+            out.words[k] = words[k] ^ other.words[k];
+        return out;
+    }
+
+    /**
+     * @return O complemento da imagem.
+     */
+    public BitMask not() {
+        BitMask out = new BitMask(height, width);
+        for (int i = 0; i < height; i++) {
+            int base = i * wordsPerRow;
+            for (int k = 0; k < wordsPerRow; k++)
+                out.words[base + k] = ~words[base + k];
+            out.words[base + wordsPerRow - 1] &= lastMask;
+        }
+        return out;
+    }
+
+    /**
+     * Erosão com elemento 3x3, ignorando os pixels fora da imagem (como Image.bwErode(bw, 3)).
+     *
+     * @return A imagem erodida.
+     */
+    public BitMask erode3x3() {
+        return horizontal(true).vertical(true);
+    }
+
+    /**
+     * Dilatação com elemento 3x3, ignorando os pixels fora da imagem (como Image.bwDilate(bw, 3)).
+     *
+     * @return A imagem dilatada.
+     */
+    public BitMask dilate3x3() {
+        return horizontal(false).vertical(false);
+    }
+
+    /**
+     * Erosão com elemento quadrado tam x tam, decomposta em tam / 2 erosões 3x3.
+     *
+     * @param tam O tamanho do elemento estruturante.
+     * @return A imagem erodida.
+     */
+    public BitMask erode(int tam) {
+        BitMask out = this;
+        for (int k = 0; k < tam / 2; k++)
+            out = out.erode3x3();
+        return out == this ? copy() : out;
+    }
+
+    /**
+     * Dilatação com elemento quadrado tam x tam, decomposta em tam / 2 dilatações 3x3.
+     *
+     * @param tam O tamanho do elemento estruturante.
+     * @return A imagem dilatada.
+     */
+    public BitMask dilate(int tam) {
+        BitMask out = this;
+        for (int k = 0; k < tam / 2; k++)
+            out = out.dilate3x3();
+        return out == this ? copy() : out;
+    }
+
+    private BitMask horizontal(boolean erode) {
+        BitMask out = new BitMask(height, width);
+        long pad = erode ? -1L : 0L;
+        int last = wordsPerRow - 1;
+        long tail = erode ? ~lastMask : 0L;
+        for (int i = 0; i < height; i++) {
+            int base = i * wordsPerRow;
+            long prev = pad;
+            long cur = words[base] | (last == 0 ? tail : 0L);
+            for (int k = 0; k <= last; k++) {
+                long next = k < last ? words[base + k + 1] | (k + 1 == last ? tail : 0L) : pad;
+                long west = (cur << 1) | (prev >>> 63);
+                long east = (cur >>> 1) | (next << 63);
+                long word = erode ? cur & west & east : cur | west | east;
+                out.words[base + k] = k == last ? word & lastMask : word;
+                prev = cur;
+                cur = next;
+            }
+        }
+        return out;
+    }
+
+    private BitMask vertical(boolean erode) {
+        BitMask out = new BitMask(height, width);
+        for (int i = 0; i < height; i++) {
+            int base = i * wordsPerRow, up = base - wordsPerRow, down = base + wordsPerRow;
+            for (int k = 0; k < wordsPerRow; k++) {
+                long cur = words[base + k];
+                if (erode) {
+                    if (i > 0) cur &= words[up + k];
+                    if (i < height - 1) cur &= words[down + k];
+                } else {
+                    if (i > 0) cur |= words[up + k];
+                    if (i < height - 1) cur |= words[down + k];
+                }
+                out.words[base + k] = cur;
+            }
+        }
+        return out;
+    }
+
+    private BitMask sameSize(BitMask other) {
+        if (other.height != height || other.width != width)
+            throw new IllegalArgumentException("Masks must have the same dimensions");
+        return new BitMask(height, width);
+    }
+}
@@ -0,0 +1,301 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+/**
+ * Classe abstrata Blur, que implementa filtros de suavização separáveis.
+ * O filtro de média usa somas acumuladas, com custo constante por pixel independente do tamanho da janela;
+ * o filtro Gaussiano pode ser aplicado com um núcleo separável ou aproximado por filtros de média iterados.
+ * As passagens são executadas em faixas de linhas paralelas (ver {@link Parallel}).
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class Blur {
+
+    /**
+     * Aplica o filtro de média com janela tam x tam (raio tam / 2) a uma imagem em tons de cinza.
+     *
+     * @param im A imagem em tons de cinza.
+     * @param tam O tamanho da janela.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return A imagem filtrada.
+     */
+    public static int[][] box(int[][] im, int tam, Border border) {
+        int h = im.length, w = im[0].length;
+        return unflatten(box(flatten(im), h, w, tam / 2, border), h, w);
+    }
+
+    /**
+     * Aplica o filtro de média com janela tam x tam (raio tam / 2) a cada canal de uma imagem colorida.
+     *
+     * @param im A imagem colorida.
+     * @param tam O tamanho da janela.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return A imagem filtrada.
+     */
+    public static int[][][] box(int[][][] im, int tam, Border border) {
+        int h = im.length, w = im[0].length, channels = im[0][0].length;
+        int[][][] out = new int[h][w][channels];
+        for (int c = 0; c < channels; c++)
+            merge(box(plane(im, c), h, w, tam / 2, border), out, c);
+        return out;
+    }
+
+    /**
+     * Aplica o filtro Gaussiano com núcleo separável (raio 3 * sigma) a uma imagem em tons de cinza.
+     *
+     * @param im A imagem em tons de cinza.
+     * @param sigma O desvio padrão do núcleo.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return A imagem filtrada.
+     */
+    public static int[][] gaussian(int[][] im, double sigma, Border border) {
+        int h = im.length, w = im[0].length;
+        return unflatten(gaussian(flatten(im), h, w, sigma, border), h, w);
+    }
+
+    /**
+     * Aplica o filtro Gaussiano com núcleo separável (raio 3 * sigma) a cada canal de uma imagem colorida.
+     *
+     * @param im A imagem colorida.
+     * @param sigma O desvio padrão do núcleo.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return A imagem filtrada.
+     */
+    public static int[][][] gaussian(int[][][] im, double sigma, Border border) {
+        int h = im.length, w = im[0].length, channels = im[0][0].length;
+        int[][][] out = new int[h][w][channels];
+        for (int c = 0; c < channels; c++)
+            merge(gaussian(plane(im, c), h, w, sigma, border), out, c);
+        return out;
+    }
+
+    /**
+     * Aproxima o filtro Gaussiano aplicando filtros de média sucessivos, com custo constante por pixel.
+     *
+     * @param im A imagem em tons de cinza.
+     * @param sigma O desvio padrão desejado.
+     * @param passes A quantidade de filtros de média (3 costuma ser suficiente).
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return A imagem filtrada.
+     */
+    public static int[][] gaussianBoxes(int[][] im, double sigma, int passes, Border border) {
+        int h = im.length, w = im[0].length;
+        return unflatten(gaussianBoxes(flatten(im), h, w, sigma, passes, border), h, w);
+    }
+
+    /**
+     * Aproxima o filtro Gaussiano em cada canal de uma imagem colorida aplicando filtros de média sucessivos.
+     *
+     * @param im A imagem colorida.
+     * @param sigma O desvio padrão desejado.
+     * @param passes A quantidade de filtros de média.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return A imagem filtrada.
+     */
+    public static int[][][] gaussianBoxes(int[][][] im, double sigma, int passes, Border border) {
+        int h = im.length, w = im[0].length, channels = im[0][0].length;
+        int[][][] out = new int[h][w][channels];
+        for (int c = 0; c < channels; c++)
+            merge(gaussianBoxes(plane(im, c), h, w, sigma, passes, border), out, c);
+        return out;
+    }
+
+    /**
+     * Filtro de média em que a janela é recortada nas bordas da imagem, dividindo a soma apenas pela quantidade
+     * de pixels válidos (o comportamento de Image.imGaussian).
+     */
+    static int[] mean(int[] src, int h, int w, int r) {
+        long[] sum = boxSum(src, h, w, r, Border.ZERO);
+        int[] out = new int[h * w];
+        Parallel.forRows(h, w, (from, to) -> {
+            for (int i = from, k = from * w; i < to; i++) {
+                int rows = Math.min(i + r, h - 1) - Math.max(i - r, 0) + 1;
+                for (int j = 0; j < w; j++, k++) {
+                    int cols = Math.min(j + r, w - 1) - Math.max(j - r, 0) + 1;
+                    out[k] = (int) (sum[k] / (rows * cols));
+                }
+            }
+        });
+        return out;
+    }
+
+    static int[] box(int[] src, int h, int w, int r, Border border) {
+        long[] sum = boxSum(src, h, w, r, border);
+        long area = (long) (2 * r + 1) * (2 * r + 1);
+        int[] out = new int[h * w];
+        Parallel.forRows(h, w, (from, to) -> {
+            for (int k = from * w, end = to * w; k < end; k++)
+                out[k] = (int) Math.floorDiv(2 * sum[k] + area, 2 * area);
+        });
+        return out;
+    }
+
+    /**
+     * Soma de cada janela (2r + 1) x (2r + 1), em duas passagens com somas acumuladas.
+     */
+    static long[] boxSum(int[] src, int h, int w, int r, Border border) {
+        // Passagem horizontal
+        int[] rowSum = new int[h * w];
+        Parallel.forRows(h, w, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int base = i * w;
+                int s = 0;
+                for (int x = -r; x <= r; x++)
+                    s += at(src, base, x, w, border);
+                for (int j = 0; j < w; j++) {
+                    rowSum[base + j] = s;
+                    s += at(src, base, j + r + 1, w, border) - at(src, base, j - r, w, border);
+                }
+            }
+        });
+
+        // Passagem vertical, somando linhas inteiras da passagem anterior; cada faixa inicia a sua própria soma
+        long[] out = new long[h * w];
+        Parallel.forRows(h, w, (from, to) -> {
+            long[] colSum = new long[w];
+            for (int y = from - r; y <= from + r; y++)
+                addRow(colSum, rowSum, border.map(y, h), w, 1);
+            for (int i = from; i < to; i++) {
+                System.arraycopy(colSum, 0, out, i * w, w);
+                addRow(colSum, rowSum, border.map(i + r + 1, h), w, 1);
+                addRow(colSum, rowSum, border.map(i - r, h), w, -1);
+            }
+        });
+        return out;
+    }
+
+    private static int at(int[] src, int base, int j, int w, Border border) {
+        if (j >= 0 && j < w)
+            return src[base + j];
+        int m = border.map(j, w);
+        return m < 0 ? 0 : src[base + m];
+    }
+
+    private static void addRow(long[] acc, int[] rows, int row, int w, int sign) {
+        if (row < 0)
+            return;
+        int base = row * w;
+        if (sign > 0)
+            for (int j = 0; j < w; j++) acc[j] += rows[base + j];
+        else
+            for (int j = 0; j < w; j++) acc[j] -= rows[base + j];
+    }
+
+    /**
+     * Raio do núcleo Gaussiano de desvio sigma (3 * sigma, ao menos 1).
+     */
+    static int radius(double sigma) {
+        if (!(sigma > 0))
+            throw new IllegalArgumentException("Sigma must be positive: " + sigma);
+        return Math.max(1, (int) Math.ceil(3 * sigma));
+    }
+
+    static int[] gaussian(int[] src, int h, int w, double sigma, Border border) {
+        int r = radius(sigma);
+        float[] kernel = new float[2 * r + 1];
+        double total = 0;
+        for (int x = -r; x <= r; x++)
+            total += kernel[x + r] = (float) Math.exp(-(x * x) / (2 * sigma * sigma));
+        for (int x = 0; x < kernel.length; x++)
+            kernel[x] /= total;
+
+        // Passagem horizontal sobre uma linha estendida com as bordas
+        float[] tmp = new float[h * w];
+        Parallel.forRows(h, w, (from, to) -> {
+            float[] ext = new float[w + 2 * r];
+            for (int i = from; i < to; i++) {
+                int base = i * w;
+                for (int x = 0; x < ext.length; x++)
+                    ext[x] = at(src, base, x - r, w, border);
+                for (int j = 0; j < w; j++) {
+                    float s = 0;
+                    for (int x = 0; x < kernel.length; x++)
+                        s += kernel[x] * ext[j + x];
+                    tmp[base + j] = s;
+                }
+            }
+        });
+
+        // Passagem vertical, acumulando linhas inteiras
+        int[] out = new int[h * w];
+        Parallel.forRows(h, w, (from, to) -> {
+            float[] acc = new float[w];
+            for (int i = from; i < to; i++) {
+                Arrays.fill(acc, 0f);
+                for (int y = -r; y <= r; y++) {
+                    int row = border.map(i + y, h);
+                    if (row < 0)
+                        continue;
+                    float weight = kernel[y + r];
+                    int base = row * w;
+                    for (int j = 0; j < w; j++)
+                        acc[j] += weight * tmp[base + j];
+                }
+                int base = i * w;
+                for (int j = 0; j < w; j++)
+                    out[base + j] = Math.round(acc[j]);
+            }
+        });
+        return out;
+    }
+
+    static int[] gaussianBoxes(int[] src, int h, int w, double sigma, int passes, Border border) {
+        int[] out = src;
+        for (int size : boxSizes(sigma, passes))
+            out = box(out, h, w, size / 2, border);
+        return out;
+    }
+
+    /**
+     * Larguras (ímpares) dos filtros de média cuja aplicação sucessiva se aproxima de uma Gaussiana de desvio sigma.
+     */
+    static int[] boxSizes(double sigma, int passes) {
+        radius(sigma);
+        if (passes < 1)
+            throw new IllegalArgumentException("Pass count must be positive: " + passes);
+        double ideal = Math.sqrt(12 * sigma * sigma / passes + 1);
+        int wl = (int) Math.floor(ideal);
+        if (wl % 2 == 0)
+            wl--;
+        int wu = wl + 2;
+        double mIdeal = (12 * sigma * sigma - passes * wl * wl - 4.0 * passes * wl - 3.0 * passes) / (-4.0 * wl - 4);
+        long m = Math.round(mIdeal);
+        int[] sizes = new int[passes];
+        for (int i = 0; i < passes; i++)
+            sizes[i] = i < m ? wl : wu;
+        return sizes;
+    }
+
+    static int[] flatten(int[][] im) {
+        int h = im.length, w = im[0].length;
+        int[] out = new int[h * w];
+        for (int i = 0; i < h; i++)
+            System.arraycopy(im[i], 0, out, i * w, w);
+        return out;
+    }
+
+    static int[][] unflatten(int[] data, int h, int w) {
+        int[][] out = new int[h][w];
+        for (int i = 0; i < h; i++)
+            System.arraycopy(data, i * w, out[i], 0, w);
+        return out;
+    }
+
+    static int[] plane(int[][][] im, int c) {
+        int h = im.length, w = im[0].length;
+        int[] out = new int[h * w];
+        for (int i = 0, k = 0; i < h; i++)
+            for (int j = 0; j < w; j++)
+                out[k++] = im[i][j][c];
+        return out;
+    }
+
+    static void merge(int[] plane, int[][][] out, int c) {
+        int h = out.length, w = out[0].length;
+        for (int i = 0, k = 0; i < h; i++)
+            for (int j = 0; j < w; j++)
+                out[i][j][c] = plane[k++];
+    }
+}
@@ -0,0 +1,46 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Tratamento dado aos pixels fora da imagem pelas operações de vizinhança.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public enum Border {
+    /**
+     * Repete o pixel da borda mais próxima (aaa|abc|ccc).
+     */
+    CLAMP,
+    /**
+     * Espelha a imagem, repetindo o pixel da borda (cba|abc|cba).
+     */
+    REFLECT,
+    /**
+     * Considera zero todo pixel fora da imagem.
+     */
+    ZERO;
+
+    /**
+     * Mapeia um índice possivelmente fora do intervalo [0, n) para um índice válido.
+     *
+     * @param i O índice.
+     * @param n O tamanho da dimensão.
+     * @return O índice mapeado, ou -1 se o pixel deve ser considerado zero.
+     */
+    public int map(int i, int n) {
+        if (i >= 0 && i < n)
+            return i;
+        switch (this) {
+            case CLAMP:
+                return i < 0 ? 0 : n - 1;
+            case REFLECT:
+                int period = 2 * n;
+                i %= period;
+                if (i < 0)
+                    i += period;
+                return i < n ? i : period - 1 - i;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+/**
+ * Classe ByteImage, que representa uma imagem de 8 bits por amostra armazenada em um único vetor contíguo de bytes,
+ * com os canais intercalados (RGBRGB...) e sem preenchimento entre as linhas.
+ * Ocupa um quarto da memória de uma PackedImage com os mesmos pixels (uma foto RGB de 24 MP ocupa 72 MB em vez de
+ * 288 MB), ao custo de limitar as amostras ao intervalo [0, 255]. Serve para guardar e transportar imagens; as
+ * operações de Image continuam trabalhando sobre PackedImage (ver {@link #toPacked()}).
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class ByteImage {
+    /**
+     * Altura da imagem, em pixels.
+     */
+    public final int height;
+    /**
+     * Largura da imagem, em pixels.
+     */
+    public final int width;
+    /**
+     * Quantidade de canais por pixel.
+     */
+    public final int channels;
+    /**
+     * Vetor contíguo contendo as amostras sem sinal da imagem (use {@code data[k] & 0xFF} para lê-las).
+     */
+    public final byte[] data;
+
+    /**
+     * Cria uma imagem preenchida com zeros.
+     *
+     * @param height Altura da imagem.
+     * @param width Largura da imagem.
+     * @param channels Quantidade de canais.
+     */
+    public ByteImage(int height, int width, int channels) {
+        this(new byte[checkedSize(height, width, channels)], height, width, channels);
+    }
+
+    private ByteImage(byte[] data, int height, int width, int channels) {
+        if (data.length < checkedSize(height, width, channels))
+            throw new IllegalArgumentException("Data array too small: " + data.length + " < "
+                    + (long) height * width * channels);
+        this.data = data;
+        this.height = height;
+        this.width = width;
+        this.channels = channels;
+    }
+
+    /**
+     * Envolve um vetor intercalado e sem preenchimento, sem copiá-lo.
+     *
+     * @param data Vetor com as amostras.
+     * @param height Altura da imagem.
+     * @param width Largura da imagem.
+     * @param channels Quantidade de canais.
+     * @return A imagem que compartilha o vetor informado.
+     */
+    public static ByteImage wrap(byte[] data, int height, int width, int channels) {
+        return new ByteImage(data, height, width, channels);
+    }
+
+    private static int checkedSize(int height, int width, int channels) {
+        long size = (long) height * width * channels;
+        if (height < 0 || width < 0 || channels < 1 || size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid image geometry: " + height + "x" + width + "x" + channels);
+        return (int) size;
+    }
+
+    /**
+     * @return O valor do canal {@code c} no pixel (row, col), entre 0 e 255.
+     */
+    public int get(int row, int col, int c) {
+        return data[(row * width + col) * channels + c] & 0xFF;
+    }
+
+    /**
+     * Altera o valor do canal {@code c} no pixel (row, col), saturado em [0, 255].
+     */
+    public void set(int row, int col, int c, int value) {
+        data[(row * width + col) * channels + c] = (byte) clamp(value);
+    }
+
+    /**
+     * Converte uma imagem compactada, em qualquer disposição, para 8 bits. Valores fora do intervalo [0, 255] são
+     * saturados.
+     *
+     * @param im A imagem compactada.
+     * @return A imagem de 8 bits.
+     */
+    public static ByteImage of(PackedImage im) {
+        ByteImage out = new ByteImage(im.height, im.width, im.channels);
+        int[] src = im.data;
+        byte[] dst = out.data;
+        int step = im.pixelStep(), channels = im.channels;
+        for (int c = 0; c < channels; c++) {
+            int offset = im.channelOffset(c);
+            for (int i = 0; i < im.height; i++) {
+                int s = offset + i * im.stride, d = i * im.width * channels + c;
+                for (int j = 0; j < im.width; j++, s += step, d += channels)
+                    dst[d] = (byte) clamp(src[s]);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Converte a imagem para uma imagem compactada intercalada, para uso com os métodos de Image.
+     *
+     * @return A imagem compactada.
+     */
+    public PackedImage toPacked() {
+        PackedImage out = new PackedImage(height, width, channels);
+        int[] dst = out.data;
+        for (int k = 0; k < dst.length; k++)
+            dst[k] = data[k] & 0xFF;
+        return out;
+    }
+
+    /**
+     * @return Uma cópia da imagem.
+     */
+    public ByteImage copy() {
+        return new ByteImage(Arrays.copyOf(data, height * width * channels), height, width, channels);
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+}
@@ -0,0 +1,273 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Classe abstrata ColorConversion, com as conversões de cor de um pixel usadas por Image, em aritmética inteira de
+ * ponto fixo. Cada produto coeficiente x canal é lido de uma tabela de 256 posições (com o deslocamento já somado),
+ * de modo que cada canal de saída custa três leituras de tabela, duas somas e uma multiplicação pelo inverso do
+ * divisor seguida de deslocamento, que dá exatamente o quociente inteiro para todas as entradas de 8 bits.
+ * Para entradas em [0, 255], todas as saídas inteiras também ficam em [0, 255]; entradas fora desse intervalo
+ * (como as de imagens de 16 bits) seguem pelo cálculo direto das mesmas fórmulas, sem tabelas.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class ColorConversion {
+
+    // floor(x / 1000) = ((x >>> 3) * GRAY_MUL) >>> GRAY_SHIFT para 0 <= x <= 255000, em aritmética de 32 bits
+    // (a mesma usada pelos núcleos vetoriais, ver Kernels)
+    static final int GRAY_MUL = 67109;
+    static final int GRAY_SHIFT = 23;
+    // floor(x / 10000) = (x * YCC_MUL) >>> YCC_SHIFT para 0 <= x <= 2550000 + 1280000 (as somas de Y, Cb e Cr
+    // são sempre positivas para entradas de 8 bits)
+    private static final long YCC_MUL = 3435974;
+    private static final int YCC_SHIFT = 35;
+    // Fração das tabelas da conversão inversa de YCbCr
+    private static final int RGB_SHIFT = 16;
+
+    private static final int[] GRAY_R = new int[256], GRAY_G = new int[256], GRAY_B = new int[256];
+    private static final int[] Y_R = new int[256], Y_G = new int[256], Y_B = new int[256];
+    private static final int[] CB_R = new int[256], CB_G = new int[256], CB_B = new int[256];
+    private static final int[] CR_R = new int[256], CR_G = new int[256], CR_B = new int[256];
+    // Tabelas da conversão inversa: TO_RGB[canal de saída][componente][valor]
+    private static final int[][][] TO_RGB = new int[3][3][256];
+    // v / 255, 1 / (6 * v) e 1 / v, para V, H e S
+    private static final double[] UNIT = new double[256], HUE = new double[256], RECIPROCAL = new double[256];
+
+    static {
+        // Coeficientes de rgb2gray (x 1000) e de rgb2ycbcr (x 10000); as somas dos deslocamentos vão na tabela de R
+        for (int v = 0; v < 256; v++) {
+            GRAY_R[v] = 299 * v;
+            GRAY_G[v] = 587 * v;
+            GRAY_B[v] = 114 * v;
+            Y_R[v] = 2568 * v + 160000;
+            Y_G[v] = 5041 * v;
+            Y_B[v] = 979 * v;
+            CB_R[v] = -1482 * v + 1280000;
+            CB_G[v] = -2910 * v;
+            CB_B[v] = 4392 * v;
+            CR_R[v] = 4392 * v + 1280000;
+            CR_G[v] = -3678 * v;
+            CR_B[v] = -714 * v;
+            UNIT[v] = v / 255.0;
+            if (v > 0) {
+                HUE[v] = 1 / (6.0 * v);
+                RECIPROCAL[v] = 1.0 / v;
+            }
+        }
+
+        // Inversa da matriz de rgb2ycbcr, em ponto fixo com arredondamento (a meia unidade vai na tabela de Y)
+        double[][] m = {{0.2568, 0.5041, 0.0979}, {-0.1482, -0.2910, 0.4392}, {0.4392, -0.3678, -0.0714}};
+        double[][] inv = invert(m);
+        int[] offset = {16, 128, 128};
+        double one = 1 << RGB_SHIFT;
+        for (int c = 0; c < 3; c++)
+            for (int k = 0; k < 3; k++)
+                for (int v = 0; v < 256; v++)
+                    TO_RGB[c][k][v] = (int) Math.round(inv[c][k] * (v - offset[k]) * one)
+                            + (k == 0 ? 1 << (RGB_SHIFT - 1) : 0);
+    }
+
+    /**
+     * Tons de cinza de um pixel: floor(0.299 R + 0.587 G + 0.114 B), calculado sem arredondamento de ponto
+     * flutuante.
+     *
+     * @param r O canal vermelho.
+     * @param g O canal verde.
+     * @param b O canal azul.
+     * @return O tom de cinza.
+     */
+    public static int gray(int r, int g, int b) {
+        if (((r | g | b) & ~0xFF) != 0)
+            return (int) ((299L * r + 587L * g + 114L * b) / 1000);
+        return ((GRAY_R[r] + GRAY_G[g] + GRAY_B[b]) >>> 3) * GRAY_MUL >>> GRAY_SHIFT;
+    }
+
+    /**
+     * Componente Y de um pixel: floor(0.2568 R + 0.5041 G + 0.0979 B + 16).
+     *
+     * @param r O canal vermelho.
+     * @param g O canal verde.
+     * @param b O canal azul.
+     * @return O componente Y, entre 16 e 235.
+     */
+    public static int y(int r, int g, int b) {
+        if (((r | g | b) & ~0xFF) != 0)
+            return Math.abs((int) ((2568L * r + 5041L * g + 979L * b + 160000) / 10000));
+        return (int) (((long) (Y_R[r] + Y_G[g] + Y_B[b]) * YCC_MUL) >>> YCC_SHIFT);
+    }
+
+    /**
+     * Componente Cb de um pixel: floor(-0.1482 R - 0.2910 G + 0.4392 B + 128).
+     *
+     * @param r O canal vermelho.
+     * @param g O canal verde.
+     * @param b O canal azul.
+     * @return O componente Cb, entre 16 e 240.
+     */
+    public static int cb(int r, int g, int b) {
+        if (((r | g | b) & ~0xFF) != 0)
+            return Math.abs((int) ((-1482L * r - 2910L * g + 4392L * b + 1280000) / 10000));
+        return (int) (((long) (CB_R[r] + CB_G[g] + CB_B[b]) * YCC_MUL) >>> YCC_SHIFT);
+    }
+
+    /**
+     * Componente Cr de um pixel: floor(0.4392 R - 0.3678 G - 0.0714 B + 128).
+     *
+     * @param r O canal vermelho.
+     * @param g O canal verde.
+     * @param b O canal azul.
+     * @return O componente Cr, entre 16 e 240.
+     */
+    public static int cr(int r, int g, int b) {
+        if (((r | g | b) & ~0xFF) != 0)
+            return Math.abs((int) ((4392L * r - 3678L * g - 714L * b + 1280000) / 10000));
+        return (int) (((long) (CR_R[r] + CR_G[g] + CR_B[b]) * YCC_MUL) >>> YCC_SHIFT);
+    }
+
+    /**
+     * Converte um pixel YCbCr para RGB, pela inversa exata da matriz de rgb2ycbcr, com arredondamento e saturação
+     * em [0, 255]. As entradas são saturadas em [0, 255].
+     *
+     * @param y O componente Y.
+     * @param cb O componente Cb.
+     * @param cr O componente Cr.
+     * @param rgb O vetor de saída, com ao menos três posições.
+     */
+    public static void ycbcr2rgb(int y, int cb, int cr, int[] rgb) {
+        y = clamp(y);
+        cb = clamp(cb);
+        cr = clamp(cr);
+        for (int c = 0; c < 3; c++) {
+            int[][] t = TO_RGB[c];
+            rgb[c] = clamp((t[0][y] + t[1][cb] + t[2][cr]) >> RGB_SHIFT);
+        }
+    }
+
+    /**
+     * Converte um pixel RGB para CMYK em aritmética inteira: K = 255 - max(R, G, B) e C = max - R (e igualmente M e
+     * Y), os valores exatos de 255 * ((1 - R / 255) - K / 255).
+     *
+     * @param r O canal vermelho.
+     * @param g O canal verde.
+     * @param b O canal azul.
+     * @param cmyk O vetor de saída, com ao menos quatro posições.
+     */
+    public static void cmyk(int r, int g, int b, int[] cmyk) {
+        int max = Math.max(r, Math.max(g, b));
+        cmyk[0] = max - r;
+        cmyk[1] = max - g;
+        cmyk[2] = max - b;
+        cmyk[3] = 255 - max;
+    }
+
+    /**
+     * Converte um pixel RGB para HSV, com H, S e V em [0, 1]. O máximo e o mínimo são obtidos sem ordenação e as
+     * divisões são lidas de tabelas. Quando mais de um canal é o máximo, o matiz segue a prioridade vermelho,
+     * verde, azul; pixels cinza têm H = S = 0.
+     *
+     * @param r O canal vermelho.
+     * @param g O canal verde.
+     * @param b O canal azul.
+     * @param hsv O vetor de saída, com ao menos três posições.
+     */
+    public static void hsv(int r, int g, int b, double[] hsv) {
+        int max = Math.max(r, Math.max(g, b)), min = Math.min(r, Math.min(g, b)), d = max - min;
+        boolean table = ((r | g | b) & ~0xFF) == 0;
+        double hue = table ? HUE[d] : 1 / (6.0 * d), h;
+        if (d == 0)
+            h = 0;
+        else if (max == r)
+            h = (g - b) * hue;
+        else if (max == g)
+            h = 1 / 3.0 + (b - r) * hue;
+        else
+            h = 2 / 3.0 + (r - g) * hue;
+        hsv[0] = h < 0 ? h + 1 : h;
+        hsv[1] = d == 0 ? 0 : table ? d * RECIPROCAL[max] : d / (double) max;
+        hsv[2] = table ? UNIT[max] : max / 255.0;
+    }
+
+    /**
+     * Converte um pixel RGB de 8 bits para HSV com H, S e V inteiros em [0, 255] (os valores de hsv multiplicados
+     * por 255 e arredondados), sem ponto flutuante. Um matiz de 255 equivale a 0.
+     *
+     * @param r O canal vermelho, entre 0 e 255.
+     * @param g O canal verde, entre 0 e 255.
+     * @param b O canal azul, entre 0 e 255.
+     * @param hsv O vetor de saída, com ao menos três posições.
+     */
+    public static void hsv8(int r, int g, int b, int[] hsv) {
+        int max = Math.max(r, Math.max(g, b)), d = max - Math.min(r, Math.min(g, b));
+        int n;
+        if (d == 0)
+            n = 0;
+        else if (max == r)
+            n = g < b ? 6 * d + g - b : g - b;
+        else if (max == g)
+            n = 2 * d + b - r;
+        else
+            n = 4 * d + r - g;
+        // n / (6 d) é o matiz em [0, 1)
+        hsv[0] = d == 0 ? 0 : (510 * n + 6 * d) / (12 * d);
+        hsv[1] = d == 0 ? 0 : (510 * d + max) / (2 * max);
+        hsv[2] = max;
+    }
+
+    /**
+     * Converte um pixel HSV de 8 bits (H, S e V em [0, 255], como em hsv8) para RGB.
+     *
+     * @param h O matiz.
+     * @param s A saturação.
+     * @param v O valor.
+     * @param rgb O vetor de saída, com ao menos três posições.
+     */
+    public static void hsv8ToRgb(int h, int s, int v, int[] rgb) {
+        hsv2rgb(UNIT[h & 0xFF], UNIT[s & 0xFF], UNIT[v & 0xFF], rgb);
+    }
+
+    /**
+     * Converte um pixel HSV (H, S e V em [0, 1]) para RGB, com arredondamento e saturação em [0, 255].
+     *
+     * @param h O matiz.
+     * @param s A saturação.
+     * @param v O valor.
+     * @param rgb O vetor de saída, com ao menos três posições.
+     */
+    public static void hsv2rgb(double h, double s, double v, int[] rgb) {
+        double scaled = (h - Math.floor(h)) * 6;
+        int sector = Math.min(5, (int) scaled);
+        double f = scaled - sector, value = v * 255;
+        int p = clamp((int) Math.round(value * (1 - s)));
+        int q = clamp((int) Math.round(value * (1 - s * f)));
+        int t = clamp((int) Math.round(value * (1 - s * (1 - f))));
+        int w = clamp((int) Math.round(value));
+        switch (sector) {
+            case 0: set(rgb, w, t, p); break;
+            case 1: set(rgb, q, w, p); break;
+            case 2: set(rgb, p, w, t); break;
+            case 3: set(rgb, p, q, w); break;
+            case 4: set(rgb, t, p, w); break;
+            default: set(rgb, w, p, q); break;
+        }
+    }
+
+    private static void set(int[] rgb, int r, int g, int b) {
+        rgb[0] = r;
+        rgb[1] = g;
+        rgb[2] = b;
+    }
+
+    private static int clamp(int v) {
+        return Math.min(255, Math.max(0, v));
+    }
+
+    private static double[][] invert(double[][] m) {
+        double a = m[0][0], b = m[0][1], c = m[0][2], d = m[1][0], e = m[1][1], f = m[1][2];
+        double g = m[2][0], h = m[2][1], i = m[2][2];
+        double det = a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+        return new double[][]{
+                {(e * i - f * h) / det, (c * h - b * i) / det, (b * f - c * e) / det},
+                {(f * g - d * i) / det, (a * i - c * g) / det, (c * d - a * f) / det},
+                {(d * h - e * g) / det, (b * g - a * h) / det, (a * e - b * d) / det}};
+    }
+}
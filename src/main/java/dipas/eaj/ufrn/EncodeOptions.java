@@ -0,0 +1,77 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Classe EncodeOptions, que reúne os parâmetros de codificação usados na gravação de imagens.
+ * A qualidade (de 0 a 1) vale para formatos com perdas, como JPEG; o nível de compressão (de 0 a 9, como no zlib)
+ * vale para PNG. Valores negativos mantêm o padrão do codificador.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class EncodeOptions {
+    /**
+     * Opções padrão: formato pela extensão do arquivo e parâmetros padrão do codificador.
+     */
+    public static final EncodeOptions DEFAULT = new EncodeOptions(null, -1, -1);
+
+    /**
+     * Formato (por exemplo "jpeg" ou "png"), ou null para usar a extensão do arquivo.
+     */
+    public final String format;
+    /**
+     * Qualidade da compressão com perdas, de 0 a 1, ou negativo para o padrão.
+     */
+    public final float quality;
+    /**
+     * Nível de compressão sem perdas, de 0 (nenhuma) a 9 (máxima), ou negativo para o padrão.
+     */
+    public final int compressionLevel;
+
+    private EncodeOptions(String format, float quality, int compressionLevel) {
+        if (quality > 1)
+            throw new IllegalArgumentException("Quality must be between 0 and 1");
+        if (compressionLevel > 9)
+            throw new IllegalArgumentException("Compression level must be between 0 and 9");
+        this.format = format;
+        this.quality = quality;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @param quality A qualidade, de 0 (menor arquivo) a 1 (melhor imagem).
+     * @return Opções para JPEG com a qualidade informada.
+     */
+    public static EncodeOptions jpeg(float quality) {
+        if (quality < 0)
+            throw new IllegalArgumentException("Quality must be between 0 and 1");
+        return new EncodeOptions("jpeg", quality, -1);
+    }
+
+    /**
+     * @param level O nível de compressão, de 0 (mais rápido) a 9 (menor arquivo).
+     * @return Opções para PNG com o nível informado.
+     */
+    public static EncodeOptions png(int level) {
+        if (level < 0)
+            throw new IllegalArgumentException("Compression level must be between 0 and 9");
+        return new EncodeOptions("png", -1, level);
+    }
+
+    /**
+     * @param format O formato (por exemplo "bmp").
+     * @return Opções para o formato informado, com os parâmetros padrão do codificador.
+     */
+    public static EncodeOptions format(String format) {
+        return new EncodeOptions(format, -1, -1);
+    }
+
+    /**
+     * Qualidade repassada ao ImageWriteParam. Para PNG, o codificador do JDK usa o nível 9 * (1 - qualidade)
+     * (truncado), então o nível é convertido com meio nível de folga para não cair no nível abaixo.
+     */
+    float writerQuality() {
+        if (compressionLevel >= 0)
+            return Math.max(0f, 1f - (compressionLevel + 0.5f) / 9f);
+        return quality;
+    }
+}
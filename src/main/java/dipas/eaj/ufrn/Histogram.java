@@ -0,0 +1,350 @@
+package dipas.eaj.ufrn;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Classe Histogram, o histograma de 256 posições de cada canal de uma imagem, opcionalmente restrito a uma região
+ * retangular e a uma máscara. Imagens grandes são divididas em faixas de linhas processadas em paralelo
+ * (ver {@link Parallel}), cada faixa com suas próprias posições, somadas ao final: as threads não disputam um
+ * array compartilhado. Valores fora de [0, 255] são contados na primeira ou na última posição.
+ * Objetos BufferedImage são lidos diretamente do raster (como em {@link RasterBridge}), sem conversão para array.
+ * Do histograma derivam os limiares de Otsu e de percentil, que podem ser passados a Image.im2bw.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class Histogram {
+    /**
+     * Quantidade de canais.
+     */
+    public final int channels;
+    /**
+     * Quantidade de pixels contados (em cada canal).
+     */
+    public final long count;
+
+    private final int[][] bins;
+
+    private Histogram(int[][] bins, long count) {
+        this.channels = bins.length;
+        this.bins = bins;
+        this.count = count;
+    }
+
+    /**
+     * @param channel O canal.
+     * @return Uma cópia das 256 posições do histograma do canal.
+     */
+    public int[] bins(int channel) {
+        return bins[channel].clone();
+    }
+
+    /**
+     * @param channel O canal.
+     * @param value O valor, entre 0 e 255.
+     * @return A quantidade de pixels do canal com o valor.
+     */
+    public int get(int channel, int value) {
+        return bins[channel][value];
+    }
+
+    /**
+     * Calcula o limiar de Otsu do primeiro canal.
+     *
+     * @return O limiar.
+     * @see #otsu(int)
+     */
+    public int otsu() {
+        return otsu(0);
+    }
+
+    /**
+     * Calcula o limiar de Otsu de um canal: o valor t que maximiza a variância entre as classes [0, t] e
+     * (t, 255]. Com Image.im2bw(im, t, true), os pixels da segunda classe ficam verdadeiros. Em caso de empate,
+     * é escolhido o menor t.
+     *
+     * @param channel O canal.
+     * @return O limiar, entre 0 e 255.
+     */
+    public int otsu(int channel) {
+        int[] h = bins[channel];
+        double total = 0;
+        for (int v = 0; v < 256; v++)
+            total += (double) v * h[v];
+
+        long w0 = 0;
+        double sum0 = 0, best = -1;
+        int threshold = 0;
+        for (int t = 0; t < 255; t++) {
+            w0 += h[t];
+            sum0 += (double) t * h[t];
+            long w1 = count - w0;
+            if (w0 == 0 || w1 == 0)
+                continue;
+            double d = sum0 / w0 - (total - sum0) / w1;
+            double between = (double) w0 * w1 * d * d;
+            if (between > best) {
+                best = between;
+                threshold = t;
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * Calcula um percentil do primeiro canal.
+     *
+     * @param p A fração, entre 0 e 1.
+     * @return O percentil.
+     * @see #percentile(int, double)
+     */
+    public int percentile(double p) {
+        return percentile(0, p);
+    }
+
+    /**
+     * Calcula um percentil de um canal: o menor valor v tal que pelo menos a fração p dos pixels seja menor ou
+     * igual a v. Com Image.im2bw(im, v, true), no máximo a fração 1 - p dos pixels fica verdadeira.
+     *
+     * @param channel O canal.
+     * @param p A fração, entre 0 e 1.
+     * @return O percentil, entre 0 e 255 (0 para um histograma vazio).
+     */
+    public int percentile(int channel, double p) {
+        if (p < 0 || p > 1)
+            throw new IllegalArgumentException("Percentile must be between 0 and 1: " + p);
+        int[] h = bins[channel];
+        long target = Math.max(1, (long) Math.ceil(p * count)), seen = 0;
+        for (int v = 0; v < 256; v++) {
+            seen += h[v];
+            if (seen >= target)
+                return v;
+        }
+        return 0;
+    }
+
+    /**
+     * Calcula o histograma de uma imagem em tons de cinza.
+     *
+     * @param im A imagem em tons de cinza.
+     * @return O histograma, com um canal.
+     */
+    public static Histogram of(int[][] im) {
+        return of(im, 0, 0, im.length, im[0].length, null);
+    }
+
+    /**
+     * Calcula o histograma de uma região de uma imagem em tons de cinza, contando apenas os pixels verdadeiros
+     * da máscara.
+     *
+     * @param im A imagem em tons de cinza.
+     * @param row0 A primeira linha da região.
+     * @param col0 A primeira coluna da região.
+     * @param row1 A linha seguinte à última da região.
+     * @param col1 A coluna seguinte à última da região.
+     * @param mask A máscara, do tamanho da imagem, ou null para todos os pixels.
+     * @return O histograma, com um canal.
+     */
+    public static Histogram of(int[][] im, int row0, int col0, int row1, int col1, boolean[][] mask) {
+        return compute(im.length, im[0].length, 1, row0, col0, row1, col1, mask, (i, j0, j1, m, bins) -> {
+            int[] row = im[i], h = bins[0];
+            for (int j = j0; j < j1; j++)
+                if (m == null || m[j])
+                    h[clamp(row[j])]++;
+        });
+    }
+
+    /**
+     * Calcula o histograma de cada canal de uma imagem colorida.
+     *
+     * @param im A imagem colorida.
+     * @return O histograma, com um canal para cada canal da imagem.
+     */
+    public static Histogram of(int[][][] im) {
+        return of(im, 0, 0, im.length, im[0].length, null);
+    }
+
+    /**
+     * Calcula o histograma de cada canal de uma região de uma imagem colorida, contando apenas os pixels
+     * verdadeiros da máscara.
+     *
+     * @param im A imagem colorida.
+     * @param row0 A primeira linha da região.
+     * @param col0 A primeira coluna da região.
+     * @param row1 A linha seguinte à última da região.
+     * @param col1 A coluna seguinte à última da região.
+     * @param mask A máscara, do tamanho da imagem, ou null para todos os pixels.
+     * @return O histograma, com um canal para cada canal da imagem.
+     */
+    public static Histogram of(int[][][] im, int row0, int col0, int row1, int col1, boolean[][] mask) {
+        int channels = im[0][0].length;
+        return compute(im.length, im[0].length, channels, row0, col0, row1, col1, mask, (i, j0, j1, m, bins) -> {
+            int[][] row = im[i];
+            for (int j = j0; j < j1; j++)
+                if (m == null || m[j]) {
+                    int[] px = row[j];
+                    for (int c = 0; c < channels; c++)
+                        bins[c][clamp(px[c])]++;
+                }
+        });
+    }
+
+    /**
+     * Calcula o histograma de cada canal de uma imagem compactada.
+     *
+     * @param im A imagem compactada.
+     * @return O histograma, com um canal para cada canal da imagem.
+     */
+    public static Histogram of(PackedImage im) {
+        return of(im, 0, 0, im.height, im.width, null);
+    }
+
+    /**
+     * Calcula o histograma de cada canal de uma região de uma imagem compactada, contando apenas os pixels
+     * verdadeiros da máscara.
+     *
+     * @param im A imagem compactada.
+     * @param row0 A primeira linha da região.
+     * @param col0 A primeira coluna da região.
+     * @param row1 A linha seguinte à última da região.
+     * @param col1 A coluna seguinte à última da região.
+     * @param mask A máscara, do tamanho da imagem, ou null para todos os pixels.
+     * @return O histograma, com um canal para cada canal da imagem.
+     */
+    public static Histogram of(PackedImage im, int row0, int col0, int row1, int col1, boolean[][] mask) {
+        int step = im.pixelStep();
+        int[] data = im.data;
+        return compute(im.height, im.width, im.channels, row0, col0, row1, col1, mask, (i, j0, j1, m, bins) -> {
+            for (int c = 0; c < im.channels; c++) {
+                int[] h = bins[c];
+                int k = im.index(i, j0, c);
+                for (int j = j0; j < j1; j++, k += step)
+                    if (m == null || m[j])
+                        h[clamp(data[k])]++;
+            }
+        });
+    }
+
+    /**
+     * Calcula o histograma de um objeto BufferedImage, lendo diretamente o raster.
+     *
+     * @param im O objeto BufferedImage.
+     * @return O histograma: um canal para TYPE_BYTE_GRAY, três canais (R, G, B) para os demais tipos.
+     */
+    public static Histogram of(BufferedImage im) {
+        return of(im, 0, 0, im.getHeight(), im.getWidth(), null);
+    }
+
+    /**
+     * Calcula o histograma de uma região de um objeto BufferedImage, lendo diretamente o raster e contando apenas
+     * os pixels verdadeiros da máscara.
+     *
+     * @param im O objeto BufferedImage.
+     * @param row0 A primeira linha da região.
+     * @param col0 A primeira coluna da região.
+     * @param row1 A linha seguinte à última da região.
+     * @param col1 A coluna seguinte à última da região.
+     * @param mask A máscara, do tamanho da imagem, ou null para todos os pixels.
+     * @return O histograma: um canal para TYPE_BYTE_GRAY, três canais (R, G, B) para os demais tipos.
+     */
+    public static Histogram of(BufferedImage im, int row0, int col0, int row1, int col1, boolean[][] mask) {
+        int height = im.getHeight(), width = im.getWidth();
+        Raster raster = im.getRaster();
+        int type = im.getType();
+
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+            DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+            int[] src = buffer.getData();
+            int scan = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            int base = buffer.getOffset() - raster.getSampleModelTranslateY() * scan
+                    - raster.getSampleModelTranslateX();
+            return compute(height, width, 3, row0, col0, row1, col1, mask, (i, j0, j1, m, bins) -> {
+                int[] r = bins[0], g = bins[1], b = bins[2];
+                for (int j = j0, s = base + i * scan + j0; j < j1; j++, s++)
+                    if (m == null || m[j]) {
+                        int rgb = src[s];
+                        r[(rgb >>> 16) & 0xFF]++;
+                        g[(rgb >>> 8) & 0xFF]++;
+                        b[rgb & 0xFF]++;
+                    }
+            });
+        }
+
+        if ((type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR
+                || type == BufferedImage.TYPE_BYTE_GRAY)
+                && raster.getSampleModel() instanceof PixelInterleavedSampleModel) {
+            PixelInterleavedSampleModel sm = (PixelInterleavedSampleModel) raster.getSampleModel();
+            DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+            byte[] src = buffer.getData();
+            int scan = sm.getScanlineStride(), step = sm.getPixelStride();
+            int[] offsets = sm.getBandOffsets();
+            int base = buffer.getOffset() - raster.getSampleModelTranslateY() * scan
+                    - raster.getSampleModelTranslateX() * step;
+            int channels = sm.getNumBands() == 1 ? 1 : 3;
+            return compute(height, width, channels, row0, col0, row1, col1, mask, (i, j0, j1, m, bins) -> {
+                int s0 = base + i * scan + j0 * step;
+                for (int c = 0; c < channels; c++) {
+                    int[] h = bins[c];
+                    for (int j = j0, s = s0 + offsets[c]; j < j1; j++, s += step)
+                        if (m == null || m[j])
+                            h[src[s] & 0xFF]++;
+                }
+            });
+        }
+
+        return compute(height, width, 3, row0, col0, row1, col1, mask, (i, j0, j1, m, bins) -> {
+            int[] row = im.getRGB(j0, i, j1 - j0, 1, null, 0, j1 - j0);
+            int[] r = bins[0], g = bins[1], b = bins[2];
+            for (int j = j0; j < j1; j++)
+                if (m == null || m[j]) {
+                    int rgb = row[j - j0];
+                    r[(rgb >>> 16) & 0xFF]++;
+                    g[(rgb >>> 8) & 0xFF]++;
+                    b[rgb & 0xFF]++;
+                }
+        });
+    }
+
+    /**
+     * Contagem das colunas [j0, j1) da linha i nas posições de cada canal (m é a linha da máscara, ou null).
+     */
+    private interface RowScan {
+        void scan(int i, int j0, int j1, boolean[] m, int[][] bins);
+    }
+
+    private static Histogram compute(int height, int width, int channels, int row0, int col0, int row1, int col1,
+                                     boolean[][] mask, RowScan rows) {
+        if (row0 < 0 || col0 < 0 || row1 > height || col1 > width || row0 > row1 || col0 > col1)
+            throw new IllegalArgumentException("Region outside the image");
+        if (mask != null && (mask.length != height || height > 0 && mask[0].length != width))
+            throw new IllegalArgumentException("Mask size must match the image");
+
+        int[][] bins = Parallel.reduceRows(row1 - row0, (long) (col1 - col0) * channels, (from, to) -> {
+            int[][] partial = new int[channels][256];
+            for (int i = row0 + from; i < row0 + to; i++)
+                rows.scan(i, col0, col1, mask == null ? null : mask[i], partial);
+            return partial;
+        }, (left, right) -> {
+            for (int c = 0; c < channels; c++)
+                for (int v = 0; v < 256; v++)
+                    left[c][v] += right[c][v];
+            return left;
+        });
+
+        long count = 0;
+        if (channels > 0)
+            for (int n : bins[0])
+                count += n;
+        return new Histogram(bins, count);
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : v > 255 ? 255 : v;
+    }
+}
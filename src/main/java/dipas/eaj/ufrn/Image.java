@@ -1,6 +1,9 @@
 package dipas.eaj.ufrn;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -20,26 +23,220 @@ public abstract class Image {
 
      /**
      * O método imRead é usado para ler uma imagem de um arquivo e retornar um array tridimensional de inteiros.
+     * Arquivos .imj (ver RawImage) são lidos sem decodificação; imagens de um canal são replicadas nos três canais.
      *
      * @param path O caminho para o arquivo de imagem.
      * @return Retorna o array tridimensional de inteiros representando uma imagem colorida.
      */
     public static int[][][] imRead(String path) {
+        Metrics.Sample sample = Metrics.start("imRead");
         try {
-            System.out.println(path);
-            BufferedImage im = ImageIO.read(new File(path));
-            
-            int[][][] imMatrix = bufferedImage2Image(im);
+            int[][][] imMatrix;
+            if (RawImage.isRaw(path)) {
+                imMatrix = packed2Image(RawImage.read(path));
+            } else {
+                BufferedImage im = ImageIO.read(new File(path));
+                imMatrix = bufferedImage2Image(im);
+            }
 
-            System.out.println("Image '"+path+"' loaded successfully!");
+            sample.setSize(imMatrix.length, imMatrix[0].length, 3);
             return imMatrix;
         } catch (IOException e) {
             System.out.println("Loading error: Please verify that the specified path exists and try again.");
+        } finally {
+            sample.stop();
         }
         return null;
     }
 
-    
+    /**
+     * O método imReadPacked é usado para ler uma imagem de um arquivo e retornar uma imagem compactada de três canais.
+     * Arquivos .imj (ver RawImage) são lidos sem decodificação e mantêm a quantidade de canais e a disposição gravadas.
+     *
+     * @param path O caminho para o arquivo de imagem.
+     * @return Retorna a imagem compactada, ou null se a leitura falhar.
+     */
+    public static PackedImage imReadPacked(String path) {
+        Metrics.Sample sample = Metrics.start("imReadPacked");
+        try {
+            PackedImage im = RawImage.isRaw(path) ? RawImage.read(path)
+                    : RasterBridge.toPacked(ImageIO.read(new File(path)));
+            sample.setSize(im.height, im.width, im.channels);
+            return im;
+        } catch (IOException e) {
+            System.out.println("Loading error: Please verify that the specified path exists and try again.");
+        } finally {
+            sample.stop();
+        }
+        return null;
+    }
+
+    /**
+     * O método imRead é usado para ler apenas uma região de uma imagem, opcionalmente subamostrada, sem decodificar
+     * o arquivo inteiro: a região e a subamostragem são repassadas ao ImageReader (ImageReadParam), de modo que o custo
+     * da leitura depende do tamanho do resultado. As coordenadas seguem imCrop (x são linhas, y são colunas e
+     * (x2, y2) não é incluído) e são recortadas pelos limites da imagem.
+     *
+     * @param path O caminho para o arquivo de imagem.
+     * @param x1 A linha de um canto da região.
+     * @param y1 A coluna de um canto da região.
+     * @param x2 A linha do canto oposto.
+     * @param y2 A coluna do canto oposto.
+     * @param step O passo da subamostragem: é lido um pixel a cada step linhas e colunas (1 para todos).
+     * @return Retorna o array tridimensional de inteiros representando a região, ou null se a leitura falhar.
+     */
+    public static int[][][] imRead(String path, int x1, int y1, int x2, int y2, int step) {
+        Metrics.Sample sample = Metrics.start("imRead");
+        try {
+            PackedImage im = imReadPacked(path, x1, y1, x2, y2, step);
+            if (im == null)
+                return null;
+            sample.setSize(im.height, im.width, 3);
+            return packed2Image(im);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * O método imRead é usado para ler apenas uma região de uma imagem (equivalente a imCrop(imRead(path), ...),
+     * mas sem decodificar o arquivo inteiro).
+     *
+     * @param path O caminho para o arquivo de imagem.
+     * @param x1 A linha de um canto da região.
+     * @param y1 A coluna de um canto da região.
+     * @param x2 A linha do canto oposto.
+     * @param y2 A coluna do canto oposto.
+     * @return Retorna o array tridimensional de inteiros representando a região, ou null se a leitura falhar.
+     */
+    public static int[][][] imRead(String path, int x1, int y1, int x2, int y2) {
+        Metrics.Sample sample = Metrics.start("imRead");
+        try {
+            int[][][] im = imRead(path, x1, y1, x2, y2, 1);
+            if (im != null)
+                sample.setSize(im.length, im[0].length, 3);
+            return im;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * O método imRead é usado para ler uma miniatura de uma imagem, decodificando apenas um pixel a cada step
+     * linhas e colunas. Com step = 2, os pixels são os mesmos de _imResize(imRead(path)), mas a miniatura tem
+     * ceil(altura / 2) x ceil(largura / 2) pixels (_imResize descarta a última linha e coluna ímpares).
+     *
+     * @param path O caminho para o arquivo de imagem.
+     * @param step O passo da subamostragem.
+     * @return Retorna o array tridimensional de inteiros representando a miniatura, ou null se a leitura falhar.
+     */
+    public static int[][][] imRead(String path, int step) {
+        Metrics.Sample sample = Metrics.start("imRead");
+        try {
+            int[][][] im = imRead(path, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, step);
+            if (im != null)
+                sample.setSize(im.length, im[0].length, 3);
+            return im;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * O método imReadPacked é usado para ler apenas uma região de uma imagem, opcionalmente subamostrada, como em
+     * imRead(path, x1, y1, x2, y2, step).
+     *
+     * @param path O caminho para o arquivo de imagem.
+     * @param x1 A linha de um canto da região.
+     * @param y1 A coluna de um canto da região.
+     * @param x2 A linha do canto oposto.
+     * @param y2 A coluna do canto oposto.
+     * @param step O passo da subamostragem (1 para todos os pixels).
+     * @return Retorna a imagem compactada, ou null se a leitura falhar.
+     */
+    public static PackedImage imReadPacked(String path, int x1, int y1, int x2, int y2, int step) {
+        if (step < 1)
+            throw new IllegalArgumentException("Subsampling step must be at least 1");
+        int row0 = Math.min(x1, x2), col0 = Math.min(y1, y2), row1 = Math.max(x1, x2), col1 = Math.max(y1, y2);
+        Metrics.Sample sample = Metrics.start("imReadPacked");
+        try {
+            PackedImage im;
+            if (RawImage.isRaw(path)) {
+                im = RawImage.map(path, false).region(row0, col0, row1, col1, step);
+            } else {
+                im = decodeRegion(path, row0, col0, row1, col1, step);
+            }
+            sample.setSize(im.height, im.width, im.channels);
+            return im;
+        } catch (IOException e) {
+            System.out.println("Loading error: Please verify that the specified path exists and try again.");
+        } finally {
+            sample.stop();
+        }
+        return null;
+    }
+
+    /**
+     * O método imReadPacked é usado para ler uma miniatura de uma imagem, decodificando apenas um pixel a cada step
+     * linhas e colunas.
+     *
+     * @param path O caminho para o arquivo de imagem.
+     * @param step O passo da subamostragem.
+     * @return Retorna a imagem compactada, ou null se a leitura falhar.
+     */
+    public static PackedImage imReadPacked(String path, int step) {
+        Metrics.Sample sample = Metrics.start("imReadPacked");
+        try {
+            PackedImage im = imReadPacked(path, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, step);
+            if (im != null)
+                sample.setSize(im.height, im.width, im.channels);
+            return im;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Decodifica apenas a região [row0, row1) x [col0, col1) (recortada pela imagem), com um pixel a cada step.
+     */
+    private static PackedImage decodeRegion(String path, int row0, int col0, int row1, int col1, int step)
+            throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(path))) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if (!readers.hasNext())
+                throw new IOException("No image reader for " + path);
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int height = reader.getHeight(0), width = reader.getWidth(0);
+                row0 = Math.max(0, row0);
+                col0 = Math.max(0, col0);
+                row1 = Math.min(height, row1);
+                col1 = Math.min(width, col1);
+                if (row0 >= row1 || col0 >= col1)
+                    throw new IllegalArgumentException("Region outside the image");
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(col0, row0, col1 - col0, row1 - row0));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return RasterBridge.toPacked(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Converte uma imagem compactada em um array tridimensional de três canais (imagens de um canal são replicadas).
+     */
+    private static int[][][] packed2Image(PackedImage im) {
+        int[][][] imMatrix = im.toArray3();
+        if (im.channels == 1)
+            for (int[][] row : imMatrix)
+                for (int j = 0; j < row.length; j++)
+                    row[j] = new int[]{row[j][0], row[j][0], row[j][0]};
+        return imMatrix;
+    }
+
     /**
      * O método bufferedImage2Image é usado para converter um objeto BufferedImage em um array tridimensional de inteiros.
      *
@@ -47,17 +244,12 @@ public abstract class Image {
      * @return Retorna o array tridimensional de inteiros representando a imagem colorida.
      */
     public static int[][][] bufferedImage2Image(BufferedImage im) {
-        int[][][] imMatrix = new int[im.getHeight()][im.getWidth()][3];
-        for (int i = 0; i < im.getHeight() - 1; i++) {
-            for (int j = 0; j < im.getWidth() - 1; j++) {
-                int rgb = im.getRGB(j, i);
-                imMatrix[i][j][0] = (rgb & 0x00FF0000) >>> 16; // R
-                imMatrix[i][j][1] = (rgb & 0x0000FF00) >>> 8; // G
-                imMatrix[i][j][2] = rgb & 0x000000FF; // B
-            }
+        Metrics.Sample sample = Metrics.start("bufferedImage2Image");
+        try {
+            return RasterBridge.toArray(im);
+        } finally {
+            sample.stop();
         }
-
-        return imMatrix;
     }
 
     /**
@@ -67,15 +259,12 @@ public abstract class Image {
      * @return Retorna o objeto BufferedImage representando a imagem colorida.
      */
     public static BufferedImage image2BufferedImage(int[][][] im) {
-        BufferedImage buff = new BufferedImage(im[0].length, im.length, BufferedImage.TYPE_INT_RGB);
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                Color color = new Color(im[i][j][0], im[i][j][1], im[i][j][2]);
-                buff.setRGB(j, i, color.getRGB());
-            }
+        Metrics.Sample sample = Metrics.start("image2BufferedImage", im);
+        try {
+            return RasterBridge.toBufferedImage(im);
+        } finally {
+            sample.stop();
         }
-        return buff;
     }
 
     /**
@@ -85,20 +274,12 @@ public abstract class Image {
      * @return Retorna o objeto BufferedImage representando a imagem em escala de cinza.
      */
     public static BufferedImage image2BufferedImage(int[][] im) {
-        BufferedImage buff = new BufferedImage(im[0].length, im.length, BufferedImage.TYPE_INT_RGB);
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                if (im[i][j] < 0)
-                    im[i][j] = 0;
-                if (im[i][j] > 255)
-                    im[i][j] = 255;
-
-                Color color = new Color(im[i][j], im[i][j], im[i][j]);
-                buff.setRGB(j, i, color.getRGB());
-            }
+        Metrics.Sample sample = Metrics.start("image2BufferedImage", im);
+        try {
+            return RasterBridge.toBufferedImage(im);
+        } finally {
+            sample.stop();
         }
-        return buff;
     }
 
     /**
@@ -108,34 +289,41 @@ public abstract class Image {
      * @return Retorna o objeto BufferedImage representando a imagem binária.
      */
     public static BufferedImage image2BufferedImage(boolean[][] im) {
-        BufferedImage buff = new BufferedImage(im[0].length, im.length, BufferedImage.TYPE_INT_RGB);
-        int val;
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                if (im[i][j])
-                    val = 255;
-                else
-                    val = 0;
+        Metrics.Sample sample = Metrics.start("image2BufferedImage", im);
+        try {
+            return RasterBridge.toBufferedImage(im);
+        } finally {
+            sample.stop();
+        }
+    }
 
-                Color color = new Color(val, val, val);
-                buff.setRGB(j, i, color.getRGB());
-            }
+    /**
+     * O método image2BufferedImage é usado para converter uma imagem compactada em um objeto BufferedImage.
+     * Imagens de um canal são tratadas como escala de cinza.
+     *
+     * @param im Imagem compactada para converter.
+     * @return Retorna o objeto BufferedImage representando a imagem.
+     */
+    public static BufferedImage image2BufferedImage(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("image2BufferedImage", im);
+        try {
+            return RasterBridge.toBufferedImage(im);
+        } finally {
+            sample.stop();
         }
-        return buff;
     }
 
     /**
      * O método imWrite é usado para salvar uma imagem de um objeto BufferedImage para um arquivo. 
+     * O codificador de cada formato é reutilizado pela thread (ver ImageEncoder).
      *
      * @param path O caminho para o arquivo de imagem.
      * @param bufferedImage O objeto BufferedImage para salvar.
+     * @param options As opções de codificação.
      */
-    private static void imWrite(String path, BufferedImage bufferedImage) {
+    private static void imWrite(String path, BufferedImage bufferedImage, EncodeOptions options) {
         try {
-            BufferedImage buff = bufferedImage;
-            String[] type = path.split("\\.");
-            ImageIO.write(buff, type[type.length - 1], new File(path));
-            System.out.println("Image '"+path+"' successfully written!");
+            ImageEncoder.write(bufferedImage, path, options);
         } catch (IOException e) {
             System.out.println("Writing error: Please verify that the specified path exists and try again.");
         } catch (Exception e) {
@@ -143,34 +331,166 @@ public abstract class Image {
         }
     }
 
+    /**
+     * O método imWrite é usado para salvar uma imagem compactada no formato bruto (.imj).
+     *
+     * @param path O caminho para o arquivo de imagem.
+     * @param im A imagem compactada para salvar.
+     */
+    private static void imWriteRaw(String path, PackedImage im) {
+        try {
+            RawImage.write(im, path);
+        } catch (IOException e) {
+            System.out.println("Writing error: Please verify that the specified path exists and try again.");
+        }
+    }
+
     /**
      * O método imWrite é usado para salvar uma imagem de um array tridimensional de inteiros para um arquivo. 
+     * Caminhos terminados em .imj usam o formato bruto (ver RawImage).
      *
      * @param im O array tridimensional de inteiros para salvar.
      * @param path O caminho para o arquivo de imagem.
      */
     public static void imWrite(int[][][] im, String path) {
-        imWrite(path, image2BufferedImage(im));
+        Metrics.Sample sample = Metrics.start("imWrite", im);
+        try {
+            imWrite(im, path, EncodeOptions.DEFAULT);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * O método imWrite é usado para salvar uma imagem de um array tridimensional de inteiros para um arquivo, com parâmetros de
+     * codificação explícitos (qualidade do JPEG, nível de compressão do PNG, formato).
+     * Caminhos terminados em .imj usam o formato bruto (ver RawImage), e as opções são ignoradas.
+     *
+     * @param im O array tridimensional de inteiros para salvar.
+     * @param path O caminho para o arquivo de imagem.
+     * @param options As opções de codificação.
+     */
+    public static void imWrite(int[][][] im, String path, EncodeOptions options) {
+        Metrics.Sample sample = Metrics.start("imWrite", im);
+        try {
+            if (RawImage.isRaw(path))
+                imWriteRaw(path, PackedImage.fromArray(im));
+            else
+                imWrite(path, image2BufferedImage(im), options);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
      * O método imWrite é usado para salvar uma imagem de um array bidimensional de inteiros para um arquivo. 
+     * Caminhos terminados em .imj usam o formato bruto (ver RawImage).
      *
      * @param im O array bidimensional de inteiros para salvar.
      * @param path O caminho para o arquivo de imagem.
      */
     public static void imWrite(int[][] im, String path) {
-        imWrite(path, image2BufferedImage(im));
+        Metrics.Sample sample = Metrics.start("imWrite", im);
+        try {
+            imWrite(im, path, EncodeOptions.DEFAULT);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * O método imWrite é usado para salvar uma imagem de um array bidimensional de inteiros para um arquivo, com parâmetros de
+     * codificação explícitos (qualidade do JPEG, nível de compressão do PNG, formato).
+     * Caminhos terminados em .imj usam o formato bruto (ver RawImage), e as opções são ignoradas.
+     *
+     * @param im O array bidimensional de inteiros para salvar.
+     * @param path O caminho para o arquivo de imagem.
+     * @param options As opções de codificação.
+     */
+    public static void imWrite(int[][] im, String path, EncodeOptions options) {
+        Metrics.Sample sample = Metrics.start("imWrite", im);
+        try {
+            if (RawImage.isRaw(path))
+                imWriteRaw(path, PackedImage.fromArray(im));
+            else
+                imWrite(path, image2BufferedImage(im), options);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
      * O método imWrite é usado para salvar uma imagem de um array bidimensional de valores lógicos para um arquivo. 
+     * Caminhos terminados em .imj usam o formato bruto (ver RawImage), com os valores 0 e 1.
      *
      * @param im O array bidimensional de valores lógicos para salvar.
      * @param path O caminho para o arquivo de imagem.
      */
     public static void imWrite(boolean[][] im, String path) {
-        imWrite(path, image2BufferedImage(im));
+        Metrics.Sample sample = Metrics.start("imWrite", im);
+        try {
+            imWrite(im, path, EncodeOptions.DEFAULT);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * O método imWrite é usado para salvar uma imagem de um array bidimensional de valores lógicos para um arquivo, com parâmetros de
+     * codificação explícitos (qualidade do JPEG, nível de compressão do PNG, formato).
+     * Caminhos terminados em .imj usam o formato bruto (ver RawImage), com os valores 0 e 1, e as opções são ignoradas.
+     *
+     * @param im O array bidimensional de valores lógicos para salvar.
+     * @param path O caminho para o arquivo de imagem.
+     * @param options As opções de codificação.
+     */
+    public static void imWrite(boolean[][] im, String path, EncodeOptions options) {
+        Metrics.Sample sample = Metrics.start("imWrite", im);
+        try {
+            if (RawImage.isRaw(path))
+                imWriteRaw(path, PackedImage.fromArray(im));
+            else
+                imWrite(path, image2BufferedImage(im), options);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * O método imWrite é usado para salvar uma imagem compactada para um arquivo.
+     * Caminhos terminados em .imj usam o formato bruto (ver RawImage).
+     *
+     * @param im A imagem compactada para salvar.
+     * @param path O caminho para o arquivo de imagem.
+     */
+    public static void imWrite(PackedImage im, String path) {
+        Metrics.Sample sample = Metrics.start("imWrite", im);
+        try {
+            imWrite(im, path, EncodeOptions.DEFAULT);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * O método imWrite é usado para salvar uma imagem compactada para um arquivo, com parâmetros de
+     * codificação explícitos (qualidade do JPEG, nível de compressão do PNG, formato).
+     * Caminhos terminados em .imj usam o formato bruto (ver RawImage), e as opções são ignoradas.
+     *
+     * @param im A imagem compactada para salvar.
+     * @param path O caminho para o arquivo de imagem.
+     * @param options As opções de codificação.
+     */
+    public static void imWrite(PackedImage im, String path, EncodeOptions options) {
+        Metrics.Sample sample = Metrics.start("imWrite", im);
+        try {
+            if (RawImage.isRaw(path))
+                imWriteRaw(path, im);
+            else
+                imWrite(path, image2BufferedImage(im), options);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -221,6 +541,16 @@ public abstract class Image {
         imShow(name, image2BufferedImage(im));
     }
 
+    /**
+     * Exibe uma imagem compactada na janela de exibição.
+     *
+     * @param name nome da imagem a ser exibida
+     * @param im imagem a ser exibida
+     */
+    public static void imShow(PackedImage im, String name) {
+        imShow(name, image2BufferedImage(im));
+    }
+
     /**
     * Calcula o histograma de uma imagem.
     *
@@ -228,18 +558,17 @@ public abstract class Image {
     * @return O histograma da imagem, com 256 posições.
     */
     public static int[][] imHist(int[][][] im) {
-        int[][] hist = new int[3][256];
-        int v = im[0][0].length;
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                for (int c = 0; c < v; c++) {
-                    hist[c][im[i][j][c]]++;
-                }
-            }
+        Metrics.Sample sample = Metrics.start("imHist", im);
+        try {
+            Histogram h = Histogram.of(im);
+            int[][] hist = new int[3][];
+            for (int c = 0; c < 3; c++)
+                hist[c] = c < h.channels ? h.bins(c) : new int[256];
+
+            return hist;
+        } finally {
+            sample.stop();
         }
-
-        return hist;
     }
 
     /**
@@ -249,15 +578,79 @@ public abstract class Image {
     * @return O histograma da imagem, com 256 posições.
     */
     public static int[] imHist(int[][] im) {
-        int[] hist = new int[256];
+        Metrics.Sample sample = Metrics.start("imHist", im);
+        try {
+            return Histogram.of(im).bins(0);
+        } finally {
+            sample.stop();
+        }
+    }
 
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                hist[im[i][j]]++;
-            }
+    /**
+    * Calcula o histograma de cada canal de uma imagem compactada.
+    *
+    * @param im A imagem compactada.
+    * @return O histograma de cada canal, com 256 posições.
+    */
+    public static int[][] imHist(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("imHist", im);
+        try {
+            Histogram h = Histogram.of(im);
+            int[][] hist = new int[im.channels][];
+            for (int c = 0; c < im.channels; c++)
+                hist[c] = h.bins(c);
+
+            return hist;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Calcula o limiar de Otsu de uma imagem em tons de cinza, para uso em im2bw(im, graythresh(im), true).
+     *
+     * @param im A imagem em tons de cinza.
+     * @return O limiar, entre 0 e 255.
+     */
+    public static int graythresh(int[][] im) {
+        Metrics.Sample sample = Metrics.start("graythresh", im);
+        try {
+            return Histogram.of(im).otsu();
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Calcula o limiar de Otsu dos pixels de uma imagem em tons de cinza que são verdadeiros na máscara.
+     *
+     * @param im A imagem em tons de cinza.
+     * @param mask A máscara, do tamanho da imagem.
+     * @return O limiar, entre 0 e 255.
+     */
+    public static int graythresh(int[][] im, boolean[][] mask) {
+        Metrics.Sample sample = Metrics.start("graythresh", im);
+        try {
+            return Histogram.of(im, 0, 0, im.length, im[0].length, mask).otsu();
+        } finally {
+            sample.stop();
         }
+    }
 
-        return hist;
+    /**
+     * Calcula o limiar de Otsu do primeiro canal de uma imagem compactada, para uso em
+     * im2bw(im, graythresh(im), true).
+     *
+     * @param im A imagem compactada em tons de cinza.
+     * @return O limiar, entre 0 e 255.
+     */
+    public static int graythresh(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("graythresh", im);
+        try {
+            return Histogram.of(im).otsu();
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -268,15 +661,20 @@ public abstract class Image {
      * @return Uma imagem com um único canal.
      */
     public static int[][] splitChannel(int[][][] im, int channel) {
-        int[][] image = new int[im.length][im[0].length];
+        Metrics.Sample sample = Metrics.start("splitChannel", im);
+        try {
+            int[][] image = new int[im.length][im[0].length];
 
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                image[i][j] = im[i][j][channel];
+            for (int i = 0; i < im.length; i++) {
+                for (int j = 0; j < im[0].length; j++) {
+                    image[i][j] = im[i][j][channel];
+                }
             }
-        }
 
-        return image;
+            return image;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -287,33 +685,100 @@ public abstract class Image {
      * @return Uma imagem com um único canal.
      */
     public static double[][] splitChannel(double[][][] im, int channel) {
-        double[][] image = new double[im.length][im[0].length];
+        Metrics.Sample sample = Metrics.start("splitChannel");
+        try {
+            double[][] image = new double[im.length][im[0].length];
 
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                image[i][j] = im[i][j][channel];
+            for (int i = 0; i < im.length; i++) {
+                for (int j = 0; j < im[0].length; j++) {
+                    image[i][j] = im[i][j][channel];
+                }
             }
+
+            return image;
+        } finally {
+            sample.stop();
         }
+    }
 
-        return image;
+    /**
+     * Esta função extrai um único canal de uma imagem compactada.
+     * 
+     * @param im Uma imagem compactada.
+     * @param channel O canal a ser extraído.
+     * @return Uma imagem compactada com um único canal.
+     */
+    public static PackedImage splitChannel(PackedImage im, int channel) {
+        Metrics.Sample sample = Metrics.start("splitChannel", im);
+        try {
+            PackedImage image = new PackedImage(im.height, im.width, 1);
+            int step = im.pixelStep(), offset = im.channelOffset(channel);
+            int d = 0;
+
+            for (int i = 0; i < im.height; i++) {
+                int k = offset + i * im.stride;
+                for (int j = 0; j < im.width; j++, k += step)
+                    image.data[d++] = im.data[k];
+            }
+
+            return image;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
-     * Esta função converte uma imagem de três canais para uma imagem em tons de cinza.
+     * Esta função converte uma imagem de três canais para uma imagem em tons de cinza,
+     * floor(0.299 R + 0.587 G + 0.114 B), em aritmética inteira (ver ColorConversion).
      * 
      * @param im Uma imagem de três canais.
      * @return Uma imagem em tons de cinza.
      */
     public static int[][] rgb2gray(int[][][] im) {
-        int[][] image = new int[im.length][im[0].length];
+        Metrics.Sample sample = Metrics.start("rgb2gray", im);
+        try {
+            int[][] image = new int[im.length][im[0].length];
 
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                image[i][j] = (int) (0.299 * im[i][j][0] + 0.587 * im[i][j][1] + 0.114 * im[i][j][2]);
-            }
+            Parallel.forRows(im.length, im[0].length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int j = 0; j < im[0].length; j++) {
+                        int[] px = im[i][j];
+                        image[i][j] = ColorConversion.gray(px[0], px[1], px[2]);
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
         }
+    }
+
+    /**
+     * Esta função converte uma imagem compactada de três canais para uma imagem em tons de cinza.
+     * 
+     * @param im Uma imagem compactada de três canais.
+     * @return Uma imagem compactada em tons de cinza.
+     */
+    public static PackedImage rgb2gray(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("rgb2gray", im);
+        try {
+            PackedImage image = new PackedImage(im.height, im.width, 1);
+            int step = im.pixelStep();
+            int r = im.channelOffset(0), g = im.channelOffset(1), b = im.channelOffset(2);
+            int[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int k = i * im.stride;
+                    Kernels.INSTANCE.gray(src, k + r, k + g, k + b, step, dst, i * im.width, im.width);
+                }
+            });
 
-        return image;
+            return image;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -323,76 +788,112 @@ public abstract class Image {
      * @return A imagem convertida para CMYK.
      */    
     public static int[][][] rgb2cmyk(int[][][] im) {
-        int[][][] image = new int[im.length][im[0].length][4];
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                float R = 1 - (im[i][j][0] / (float) 255);
-                float G = 1 - (im[i][j][1] / (float) 255);
-                float B = 1 - (im[i][j][2] / (float) 255);
+        Metrics.Sample sample = Metrics.start("rgb2cmyk", im);
+        try {
+            int[][][] image = new int[im.length][im[0].length][4];
 
-                float K = Math.min(Math.min(R, G), B);
+            Parallel.forRows(im.length, im[0].length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int j = 0; j < im[0].length; j++) {
+                        int[] px = im[i][j];
+                        ColorConversion.cmyk(px[0], px[1], px[2], image[i][j]);
+                    }
+                }
+            });
 
-                image[i][j][0] = (int) ((R - K) * 255);
-                image[i][j][1] = (int) ((G - K) * 255);
-                image[i][j][2] = (int) ((B - K) * 255);
-                image[i][j][3] = (int) (K * 255);
-            }
+            return image;
+        } finally {
+            sample.stop();
         }
+    }
+
+    /**
+     * Converte a imagem compactada RGB fornecida para um espaço de cor CMYK.
+     * 
+     * @param im A imagem compactada RGB a ser convertida.
+     * @return A imagem compactada convertida para CMYK, com quatro canais.
+     */
+    public static PackedImage rgb2cmyk(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("rgb2cmyk", im);
+        try {
+            PackedImage image = new PackedImage(im.height, im.width, 4);
+            int step = im.pixelStep();
+            int r = im.channelOffset(0), g = im.channelOffset(1), b = im.channelOffset(2);
+            int[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int[] cmyk = new int[4];
+                int d = from * im.width * 4;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.stride;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        ColorConversion.cmyk(src[k + r], src[k + g], src[k + b], cmyk);
+                        dst[d++] = cmyk[0];
+                        dst[d++] = cmyk[1];
+                        dst[d++] = cmyk[2];
+                        dst[d++] = cmyk[3];
+                    }
+                }
+            });
 
-        return image;
+            return image;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
-     * Converte a imagem RGB fornecida para um espaço de cor HSV.
+     * Converte a imagem RGB fornecida para um espaço de cor HSV, com H, S e V entre 0 e 1.
      * 
      * @param im A imagem RGB a ser convertida.
      * @return A imagem convertida para HSV.
      */    
     public static double[][][] rgb2hsv(int[][][] im) {
-        double[][][] image = new double[im.length][im[0].length][3];
-        double[] rgb = new double[3], vet = new double[3];
-        double h = 0, s = 0, v = 0;
-        boolean gray;
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                vet[0] = rgb[0] = im[i][j][0] / 255.0;
-                vet[1] = rgb[1] = im[i][j][1] / 255.0;
-                vet[2] = rgb[2] = im[i][j][2] / 255.0;
-
-                Arrays.sort(vet);
-
-                h = 0;
-                s = vet[0];
-                v = vet[2];
-
-                gray = (s == v);
-
-                //Hue Azul
-                if (v == rgb[2] && !gray)
-                    h = (2 / (double) 3) + (1 / (double) 6) * ((rgb[0] - rgb[1]) / (v - s));
-                //Hue Verde
-                if (v == rgb[1] && !gray)
-                    h = 1 / (double) 3 + 1 / (double) 6 * ((rgb[1] - rgb[0]) / (v - s));
-                //Hue Vermelho
-                if (v == rgb[0] && !gray)
-                    h = 1 / (double) 6 * ((rgb[1] - rgb[2]) / (v - s));
-                if (h < 0)
-                    h++;
-
-                if (gray)
-                    s = 0;
-                else
-                    s = 1 - s / v;
+        Metrics.Sample sample = Metrics.start("rgb2hsv", im);
+        try {
+            double[][][] image = new double[im.length][im[0].length][3];
 
-                image[i][j][0] = h;
-                image[i][j][1] = s;
-                image[i][j][2] = v;
-            }
+            Parallel.forRows(im.length, im[0].length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int j = 0; j < im[0].length; j++) {
+                        int[] px = im[i][j];
+                        ColorConversion.hsv(px[0], px[1], px[2], image[i][j]);
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
         }
+    }
+
+    /**
+     * Converte a imagem compactada RGB fornecida para um espaço de cor HSV.
+     * 
+     * @param im A imagem compactada RGB a ser convertida.
+     * @return A imagem convertida para HSV.
+     */
+    public static double[][][] rgb2hsv(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("rgb2hsv", im);
+        try {
+            double[][][] image = new double[im.height][im.width][3];
+            int step = im.pixelStep();
+            int r = im.channelOffset(0), g = im.channelOffset(1), b = im.channelOffset(2);
+            int[] src = im.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int k = i * im.stride;
+                    for (int j = 0; j < im.width; j++, k += step)
+                        ColorConversion.hsv(src[k + r], src[k + g], src[k + b], image[i][j]);
+                }
+            });
 
-        return image;
+            return image;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -402,22 +903,429 @@ public abstract class Image {
      * @return A imagem convertida para YCbCr.
      */  
     public static int[][][] rgb2ycbcr(int[][][] im) {
-        int[][][] image = new int[im.length][im[0].length][3];
-
-        double[][] origT = new double[][]{{0.2568, 0.5041, 0.0979}, {-0.1482, -0.2910, 0.4392},
-                {0.4392, -0.3678, -0.0714}};
-        int[] origOffset = new int[]{16, 128, 128};
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                for (int k = 0; k < 3; k++) {
-                    image[i][j][k] = Math.abs((int) ((origT[k][0] * im[i][j][0]) + (origT[k][1] * im[i][j][1])
-                            + (origT[k][2] * im[i][j][2]) + origOffset[k]));
+        Metrics.Sample sample = Metrics.start("rgb2ycbcr", im);
+        try {
+            int[][][] image = new int[im.length][im[0].length][3];
+
+            Parallel.forRows(im.length, im[0].length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int j = 0; j < im[0].length; j++) {
+                        int[] px = im[i][j], out = image[i][j];
+                        out[0] = ColorConversion.y(px[0], px[1], px[2]);
+                        out[1] = ColorConversion.cb(px[0], px[1], px[2]);
+                        out[2] = ColorConversion.cr(px[0], px[1], px[2]);
+                    }
                 }
-            }
-        }
+            });
 
-        return image;
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte a imagem compactada RGB fornecida para um espaço de cor YCbCr.
+     * 
+     * @param im A imagem compactada RGB a ser convertida.
+     * @return A imagem compactada convertida para YCbCr.
+     */
+    public static PackedImage rgb2ycbcr(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("rgb2ycbcr", im);
+        try {
+            PackedImage image = new PackedImage(im.height, im.width, 3);
+            int step = im.pixelStep();
+            int r = im.channelOffset(0), g = im.channelOffset(1), b = im.channelOffset(2);
+            int[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int d = from * im.width * 3;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.stride;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        int R = src[k + r], G = src[k + g], B = src[k + b];
+                        dst[d++] = ColorConversion.y(R, G, B);
+                        dst[d++] = ColorConversion.cb(R, G, B);
+                        dst[d++] = ColorConversion.cr(R, G, B);
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte a imagem HSV fornecida (H, S e V em [0, 1], como em rgb2hsv) para o espaço de cor RGB.
+     *
+     * @param im A imagem HSV a ser convertida.
+     * @return A imagem convertida para RGB, com valores entre 0 e 255.
+     */
+    public static int[][][] hsv2rgb(double[][][] im) {
+        Metrics.Sample sample = Metrics.start("hsv2rgb");
+        try {
+            int[][][] image = new int[im.length][im[0].length][3];
+            sample.setSize(im.length, im[0].length, 3);
+
+            Parallel.forRows(im.length, im[0].length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int j = 0; j < im[0].length; j++) {
+                        double[] px = im[i][j];
+                        ColorConversion.hsv2rgb(px[0], px[1], px[2], image[i][j]);
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte a imagem YCbCr fornecida (como em rgb2ycbcr) para o espaço de cor RGB.
+     *
+     * @param im A imagem YCbCr a ser convertida.
+     * @return A imagem convertida para RGB, com valores entre 0 e 255.
+     */
+    public static int[][][] ycbcr2rgb(int[][][] im) {
+        Metrics.Sample sample = Metrics.start("ycbcr2rgb", im);
+        try {
+            int[][][] image = new int[im.length][im[0].length][3];
+
+            Parallel.forRows(im.length, im[0].length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int j = 0; j < im[0].length; j++) {
+                        int[] px = im[i][j];
+                        ColorConversion.ycbcr2rgb(px[0], px[1], px[2], image[i][j]);
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte a imagem compactada YCbCr fornecida (como em rgb2ycbcr) para o espaço de cor RGB.
+     *
+     * @param im A imagem compactada YCbCr a ser convertida.
+     * @return A imagem compactada convertida para RGB, com valores entre 0 e 255.
+     */
+    public static PackedImage ycbcr2rgb(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("ycbcr2rgb", im);
+        try {
+            PackedImage image = new PackedImage(im.height, im.width, 3);
+            int step = im.pixelStep();
+            int y = im.channelOffset(0), cb = im.channelOffset(1), cr = im.channelOffset(2);
+            int[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int[] rgb = new int[3];
+                int d = from * im.width * 3;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.stride;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        ColorConversion.ycbcr2rgb(src[k + y], src[k + cb], src[k + cr], rgb);
+                        dst[d++] = rgb[0];
+                        dst[d++] = rgb[1];
+                        dst[d++] = rgb[2];
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem em tons de cinza em uma imagem de três canais iguais.
+     *
+     * @param im Uma imagem em tons de cinza.
+     * @return Uma imagem de três canais.
+     */
+    public static int[][][] gray2rgb(int[][] im) {
+        Metrics.Sample sample = Metrics.start("gray2rgb", im);
+        try {
+            int[][][] image = new int[im.length][im[0].length][3];
+
+            Parallel.forRows(im.length, im[0].length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int[] row = im[i];
+                    for (int j = 0; j < row.length; j++) {
+                        int[] px = image[i][j];
+                        px[0] = px[1] = px[2] = row[j];
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem compactada em tons de cinza em uma imagem compactada intercalada de três canais iguais.
+     *
+     * @param im Uma imagem compactada em tons de cinza.
+     * @return Uma imagem compactada de três canais.
+     */
+    public static PackedImage gray2rgb(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("gray2rgb", im);
+        try {
+            PackedImage image = new PackedImage(im.height, im.width, 3);
+            int step = im.pixelStep();
+            int[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int d = from * im.width * 3;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.stride;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        int v = src[k];
+                        dst[d++] = v;
+                        dst[d++] = v;
+                        dst[d++] = v;
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem RGB de 8 bits para tons de cinza, como rgb2gray.
+     *
+     * @param im Uma imagem de 8 bits com ao menos três canais.
+     * @return Uma imagem de 8 bits em tons de cinza.
+     */
+    public static ByteImage rgb2gray(ByteImage im) {
+        Metrics.Sample sample = Metrics.start("rgb2gray", im);
+        try {
+            ByteImage image = new ByteImage(im.height, im.width, 1);
+            int step = im.channels;
+            byte[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int k = i * im.width * step, d = i * im.width;
+                    for (int j = 0; j < im.width; j++, k += step)
+                        dst[d + j] = (byte) ColorConversion.gray(src[k] & 0xFF, src[k + 1] & 0xFF, src[k + 2] & 0xFF);
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem RGB de 8 bits para CMYK, como rgb2cmyk.
+     *
+     * @param im Uma imagem de 8 bits com ao menos três canais.
+     * @return Uma imagem de 8 bits com quatro canais.
+     */
+    public static ByteImage rgb2cmyk(ByteImage im) {
+        Metrics.Sample sample = Metrics.start("rgb2cmyk", im);
+        try {
+            ByteImage image = new ByteImage(im.height, im.width, 4);
+            int step = im.channels;
+            byte[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int[] cmyk = new int[4];
+                int d = from * im.width * 4;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.width * step;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        ColorConversion.cmyk(src[k] & 0xFF, src[k + 1] & 0xFF, src[k + 2] & 0xFF, cmyk);
+                        dst[d++] = (byte) cmyk[0];
+                        dst[d++] = (byte) cmyk[1];
+                        dst[d++] = (byte) cmyk[2];
+                        dst[d++] = (byte) cmyk[3];
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem RGB de 8 bits para HSV com H, S e V em [0, 255] (os valores de rgb2hsv multiplicados por
+     * 255 e arredondados), em aritmética inteira.
+     *
+     * @param im Uma imagem de 8 bits com ao menos três canais.
+     * @return Uma imagem de 8 bits com os canais H, S e V.
+     */
+    public static ByteImage rgb2hsv(ByteImage im) {
+        Metrics.Sample sample = Metrics.start("rgb2hsv", im);
+        try {
+            ByteImage image = new ByteImage(im.height, im.width, 3);
+            int step = im.channels;
+            byte[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int[] hsv = new int[3];
+                int d = from * im.width * 3;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.width * step;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        ColorConversion.hsv8(src[k] & 0xFF, src[k + 1] & 0xFF, src[k + 2] & 0xFF, hsv);
+                        dst[d++] = (byte) hsv[0];
+                        dst[d++] = (byte) hsv[1];
+                        dst[d++] = (byte) hsv[2];
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem RGB de 8 bits para YCbCr, como rgb2ycbcr.
+     *
+     * @param im Uma imagem de 8 bits com ao menos três canais.
+     * @return Uma imagem de 8 bits com os canais Y, Cb e Cr.
+     */
+    public static ByteImage rgb2ycbcr(ByteImage im) {
+        Metrics.Sample sample = Metrics.start("rgb2ycbcr", im);
+        try {
+            ByteImage image = new ByteImage(im.height, im.width, 3);
+            int step = im.channels;
+            byte[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int d = from * im.width * 3;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.width * step;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        int R = src[k] & 0xFF, G = src[k + 1] & 0xFF, B = src[k + 2] & 0xFF;
+                        dst[d++] = (byte) ColorConversion.y(R, G, B);
+                        dst[d++] = (byte) ColorConversion.cb(R, G, B);
+                        dst[d++] = (byte) ColorConversion.cr(R, G, B);
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem HSV de 8 bits (como em rgb2hsv(ByteImage)) para o espaço de cor RGB.
+     *
+     * @param im Uma imagem de 8 bits com os canais H, S e V.
+     * @return Uma imagem RGB de 8 bits.
+     */
+    public static ByteImage hsv2rgb(ByteImage im) {
+        Metrics.Sample sample = Metrics.start("hsv2rgb", im);
+        try {
+            ByteImage image = new ByteImage(im.height, im.width, 3);
+            int step = im.channels;
+            byte[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int[] rgb = new int[3];
+                int d = from * im.width * 3;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.width * step;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        ColorConversion.hsv8ToRgb(src[k], src[k + 1], src[k + 2], rgb);
+                        dst[d++] = (byte) rgb[0];
+                        dst[d++] = (byte) rgb[1];
+                        dst[d++] = (byte) rgb[2];
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem YCbCr de 8 bits (como em rgb2ycbcr) para o espaço de cor RGB.
+     *
+     * @param im Uma imagem de 8 bits com os canais Y, Cb e Cr.
+     * @return Uma imagem RGB de 8 bits.
+     */
+    public static ByteImage ycbcr2rgb(ByteImage im) {
+        Metrics.Sample sample = Metrics.start("ycbcr2rgb", im);
+        try {
+            ByteImage image = new ByteImage(im.height, im.width, 3);
+            int step = im.channels;
+            byte[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int[] rgb = new int[3];
+                int d = from * im.width * 3;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.width * step;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        ColorConversion.ycbcr2rgb(src[k] & 0xFF, src[k + 1] & 0xFF, src[k + 2] & 0xFF, rgb);
+                        dst[d++] = (byte) rgb[0];
+                        dst[d++] = (byte) rgb[1];
+                        dst[d++] = (byte) rgb[2];
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Converte uma imagem de 8 bits em tons de cinza em uma imagem de três canais iguais.
+     *
+     * @param im Uma imagem de 8 bits; apenas o primeiro canal é lido.
+     * @return Uma imagem de 8 bits com três canais.
+     */
+    public static ByteImage gray2rgb(ByteImage im) {
+        Metrics.Sample sample = Metrics.start("gray2rgb", im);
+        try {
+            ByteImage image = new ByteImage(im.height, im.width, 3);
+            int step = im.channels;
+            byte[] src = im.data, dst = image.data;
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                int d = from * im.width * 3;
+                for (int i = from; i < to; i++) {
+                    int k = i * im.width * step;
+                    for (int j = 0; j < im.width; j++, k += step) {
+                        byte v = src[k];
+                        dst[d++] = v;
+                        dst[d++] = v;
+                        dst[d++] = v;
+                    }
+                }
+            });
+
+            return image;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -431,22 +1339,27 @@ public abstract class Image {
      * @return Retorna uma imagem colorida recortada.
      */
     public static int[][][] imCrop(int[][][] im, int x1, int y1, int x2, int y2) {
-        int height = Math.abs(x1 - x2);
-        int width = Math.abs(y1 - y2);
-        int minX, minY;
-
-        minX = Math.min(x1, x2);
-        minY = Math.min(y1, y2);
-
-        int[][][] imCropped = new int[height][width][3];
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                imCropped[i][j][0] = im[minX + i][minY + j][0];
-                imCropped[i][j][1] = im[minX + i][minY + j][1];
-                imCropped[i][j][2] = im[minX + i][minY + j][2];
+        Metrics.Sample sample = Metrics.start("imCrop", im);
+        try {
+            int height = Math.abs(x1 - x2);
+            int width = Math.abs(y1 - y2);
+            int minX, minY;
+
+            minX = Math.min(x1, x2);
+            minY = Math.min(y1, y2);
+
+            int[][][] imCropped = new int[height][width][3];
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    imCropped[i][j][0] = im[minX + i][minY + j][0];
+                    imCropped[i][j][1] = im[minX + i][minY + j][1];
+                    imCropped[i][j][2] = im[minX + i][minY + j][2];
+                }
             }
+            return imCropped;
+        } finally {
+            sample.stop();
         }
-        return imCropped;
     }
 
     /**
@@ -460,23 +1373,28 @@ public abstract class Image {
      * @return Retorna uma imagem em escalas de cinza recortada.
      */
     public static int[][] imCrop(int[][] im, int x1, int y1, int x2, int y2) {
-        int height = Math.abs(x1 - x2);
-        int width = Math.abs(y1 - y2);
-        int minX, minY;
+        Metrics.Sample sample = Metrics.start("imCrop", im);
+        try {
+            int height = Math.abs(x1 - x2);
+            int width = Math.abs(y1 - y2);
+            int minX, minY;
 
-        minX = Math.min(x1, x2);
-        minY = Math.min(y1, y2);
+            minX = Math.min(x1, x2);
+            minY = Math.min(y1, y2);
 
-        int[][] imCropped = new int[height][width];
+            int[][] imCropped = new int[height][width];
 
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                imCropped[i][j] = im[minX + i][minY + j];
-                imCropped[i][j] = im[minX + i][minY + j];
-                imCropped[i][j] = im[minX + i][minY + j];
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    imCropped[i][j] = im[minX + i][minY + j];
+                    imCropped[i][j] = im[minX + i][minY + j];
+                    imCropped[i][j] = im[minX + i][minY + j];
+                }
             }
+            return imCropped;
+        } finally {
+            sample.stop();
         }
-        return imCropped;
     }
 
     /**
@@ -490,77 +1408,213 @@ public abstract class Image {
      * @return Retorna uma imagem binária recortada.
      */
     public static boolean[][] imCrop(boolean[][] im, int x1, int y1, int x2, int y2) {
-        int height = Math.abs(x1 - x2);
-        int width = Math.abs(y1 - y2);
-        int minX, minY;
+        Metrics.Sample sample = Metrics.start("imCrop", im);
+        try {
+            int height = Math.abs(x1 - x2);
+            int width = Math.abs(y1 - y2);
+            int minX, minY;
 
-        minX = Math.min(x1, x2);
-        minY = Math.min(y1, y2);
+            minX = Math.min(x1, x2);
+            minY = Math.min(y1, y2);
 
 
-        boolean[][] imCropped = new boolean[height][width];
+            boolean[][] imCropped = new boolean[height][width];
 
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                imCropped[i][j] = im[minX + i][minY + j];
-                imCropped[i][j] = im[minX + i][minY + j];
-                imCropped[i][j] = im[minX + i][minY + j];
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    imCropped[i][j] = im[minX + i][minY + j];
+                    imCropped[i][j] = im[minX + i][minY + j];
+                    imCropped[i][j] = im[minX + i][minY + j];
+                }
             }
+
+            return imCropped;
+        } finally {
+            sample.stop();
         }
+    }
 
-        return imCropped;
+    /**
+     * Esta função faz o recorte de uma imagem compactada, passando como parâmetro a imagem, seguido dos parâmetros x1, y1, x2 e y2.
+     *
+     * @param im Imagem compactada a ser recortada.
+     * @param x1 Coordenada x do primeiro ponto.
+     * @param y1 Coordenada y do primeiro ponto.
+     * @param x2 Coordenada x do segundo ponto.
+     * @param y2 Coordenada y do segundo ponto.
+     * @return Retorna uma imagem compactada recortada, com os mesmos canais.
+     */
+    public static PackedImage imCrop(PackedImage im, int x1, int y1, int x2, int y2) {
+        Metrics.Sample sample = Metrics.start("imCrop", im);
+        try {
+            int height = Math.abs(x1 - x2);
+            int width = Math.abs(y1 - y2);
+            int minX = Math.min(x1, x2);
+            int minY = Math.min(y1, y2);
+
+            PackedImage imCropped = new PackedImage(height, width, im.channels, im.layout);
+            if (im.layout == PackedImage.Layout.INTERLEAVED) {
+                int rowLength = width * im.channels;
+                for (int i = 0; i < height; i++)
+                    System.arraycopy(im.data, im.index(minX + i, minY, 0), imCropped.data, i * imCropped.stride, rowLength);
+            } else {
+                for (int c = 0; c < im.channels; c++)
+                    for (int i = 0; i < height; i++)
+                        System.arraycopy(im.data, im.index(minX + i, minY, c), imCropped.data,
+                                imCropped.index(i, 0, c), width);
+            }
+            return imCropped;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
      * Aplica um filtro Gaussiano a uma imagem de 3 dimensões.
+     * O filtro é uma média na janela tam x tam, recortada nas bordas da imagem, calculada com somas acumuladas
+     * (custo constante por pixel). Para um núcleo Gaussiano de fato, use {@link #imGaussian(int[][][], double, Border)}.
      * 
      * @param im Uma matriz tridimensional que representa a imagem.
      * @param tam O tamanho do filtro Gaussiano.
      * @return Uma matriz tridimensional com o resultado do filtro aplicado.
      */
     public static int[][][] imGaussian(int[][][] im, int tam) {
-        int[][][] filter = new int[im.length][im[0].length][im[0][0].length];
-
-        int sum, count;
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                for (int c = 0; c < 3; c++) {
-                    sum = 0;
-                    count = 0;
-                    for (int x = ((tam / 2)) * -1; x <= (tam / 2); x++) {
-                        for (int y = ((tam / 2)) * -1; y <= (tam / 2); y++) {
-                            if (i + x >= 0 && j + y >= 0 && i + x < im.length && j + y < im[0].length) {
-                                sum += im[i + x][j + y][c];
-                                count++;
-                            }
-                        }
-                    }
+        Metrics.Sample sample = Metrics.start("imGaussian", im);
+        try {
+            int h = im.length, w = im[0].length;
+            int[][][] filter = new int[h][w][im[0][0].length];
+            for (int c = 0; c < filter[0][0].length; c++)
+                Blur.merge(Blur.mean(Blur.plane(im, c), h, w, tam / 2), filter, c);
+            return filter;
+        } finally {
+            sample.stop();
+        }
+    }
 
-                    filter[i][j][c] = sum / count;
-                }
-            }
+    /**
+     * Aplica um filtro Gaussiano a uma imagem em tons de cinza, com a mesma média recortada nas bordas de
+     * {@link #imGaussian(int[][][], int)}.
+     * 
+     * @param im Uma matriz bidimensional que representa a imagem.
+     * @param tam O tamanho do filtro Gaussiano.
+     * @return Uma matriz bidimensional com o resultado do filtro aplicado.
+     */
+    public static int[][] imGaussian(int[][] im, int tam) {
+        Metrics.Sample sample = Metrics.start("imGaussian", im);
+        try {
+            int h = im.length, w = im[0].length;
+            return Blur.unflatten(Blur.mean(Blur.flatten(im), h, w, tam / 2), h, w);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Aplica um filtro Gaussiano separável, com desvio padrão sigma, a uma imagem de 3 dimensões.
+     * 
+     * @param im Uma matriz tridimensional que representa a imagem.
+     * @param sigma O desvio padrão do núcleo Gaussiano.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return Uma matriz tridimensional com o resultado do filtro aplicado.
+     */
+    public static int[][][] imGaussian(int[][][] im, double sigma, Border border) {
+        Metrics.Sample sample = Metrics.start("imGaussian", im);
+        try {
+            return Blur.gaussian(im, sigma, border);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Aplica um filtro Gaussiano separável, com desvio padrão sigma, a uma imagem em tons de cinza.
+     * 
+     * @param im Uma matriz bidimensional que representa a imagem.
+     * @param sigma O desvio padrão do núcleo Gaussiano.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return Uma matriz bidimensional com o resultado do filtro aplicado.
+     */
+    public static int[][] imGaussian(int[][] im, double sigma, Border border) {
+        Metrics.Sample sample = Metrics.start("imGaussian", im);
+        try {
+            return Blur.gaussian(im, sigma, border);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Aplica um filtro de média tam x tam a uma imagem de 3 dimensões, com custo constante por pixel.
+     * 
+     * @param im Uma matriz tridimensional que representa a imagem.
+     * @param tam O tamanho da janela.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return Uma matriz tridimensional com o resultado do filtro aplicado.
+     */
+    public static int[][][] imBoxFilter(int[][][] im, int tam, Border border) {
+        Metrics.Sample sample = Metrics.start("imBoxFilter", im);
+        try {
+            return Blur.box(im, tam, border);
+        } finally {
+            sample.stop();
         }
+    }
 
-        return filter;
+    /**
+     * Aplica um filtro de média tam x tam a uma imagem em tons de cinza, com custo constante por pixel.
+     * 
+     * @param im Uma matriz bidimensional que representa a imagem.
+     * @param tam O tamanho da janela.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return Uma matriz bidimensional com o resultado do filtro aplicado.
+     */
+    public static int[][] imBoxFilter(int[][] im, int tam, Border border) {
+        Metrics.Sample sample = Metrics.start("imBoxFilter", im);
+        try {
+            return Blur.box(im, tam, border);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Aplica um filtro Gaussiano a cada canal de uma imagem compactada.
+     * 
+     * @param im A imagem compactada.
+     * @param tam O tamanho do filtro Gaussiano.
+     * @return Uma imagem compactada intercalada com o resultado do filtro aplicado.
+     */
+    public static PackedImage imGaussian(PackedImage im, int tam) {
+        Metrics.Sample sample = Metrics.start("imGaussian", im);
+        try {
+            PackedImage filter = new PackedImage(im.height, im.width, im.channels);
+            int h = im.height, w = im.width;
+            for (int c = 0; c < im.channels; c++) {
+                int[] plane = splitChannel(im, c).data;
+                int[] out = Blur.mean(plane, h, w, tam / 2);
+                for (int k = 0, d = c; k < out.length; k++, d += im.channels)
+                    filter.data[d] = out[k];
+            }
+            return filter;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
      * Converte uma imagem em tons de cinza em uma imagem em preto e branco usando o limiar fixo 126.
+     * Para um limiar calculado a partir da imagem, ver graythresh e Histogram.
      * 
      * @param im Uma matriz de inteiros representando uma imagem em tons de cinza.
      * @return Uma matriz de booleans representando uma imagem em preto e branco.
      */
     public static boolean[][] im2bw(int[][] im) {
-        boolean[][] bw = new boolean[im.length][im[0].length];
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                bw[i][j] = (im[i][j] > 126);
-            }
+        Metrics.Sample sample = Metrics.start("im2bw", im);
+        try {
+            return im2bw(im, 126, true);
+        } finally {
+            sample.stop();
         }
-
-        return bw;
     }
 
     
@@ -573,152 +1627,150 @@ public abstract class Image {
      * @return Uma matriz de booleans representando uma imagem em preto e branco.
      */
     public static boolean[][] im2bw(int[][] im, int limiar, boolean maior) {
-        boolean[][] bw = new boolean[im.length][im[0].length];
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-            	if(maior)
-            		bw[i][j] = (im[i][j] > limiar);
-            	else
-            		bw[i][j] = (im[i][j] > limiar);
-            }
+        Metrics.Sample sample = Metrics.start("im2bw", im);
+        try {
+            boolean[][] bw = new boolean[im.length][im[0].length];
+
+            Parallel.forRows(im.length, im[0].length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    Kernels.INSTANCE.threshold(im[i], 0, 1, limiar, maior, bw[i], 0, im[0].length);
+            });
+
+            return bw;
+        } finally {
+            sample.stop();
         }
+    }
 
-        return bw;
+    /**
+     * Converte uma imagem compactada em tons de cinza em uma imagem binária compactada (valores 0 e 1) usando o limiar fixo 126.
+     * Para um limiar calculado a partir da imagem, ver graythresh e Histogram.
+     * 
+     * @param im Uma imagem compactada em tons de cinza.
+     * @return Uma imagem compactada binária.
+     */
+    public static PackedImage im2bw(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("im2bw", im);
+        try {
+            return im2bw(im, 126, true);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
-     * Esta função bwLabel é usada para rotular componentes conexos binários.
+     * Converte uma imagem compactada em tons de cinza em uma imagem binária compactada (valores 0 e 1) usando o limiar passado por parâmetro.
      * 
-     * @param im A imagem binária de entrada
-     * @return Uma matriz de inteiros que contém as etiquetas dos componentes conexos
+     * @param im Uma imagem compactada em tons de cinza.
+     * @param limiar Um valor passado por parâmetro para a limiarização.
+     * @param maior Indica se o que vai ser branco é maior que aquele limiar ou menor.
+     * @return Uma imagem compactada binária.
      */
-    public static int[][] bwLabel(boolean[][] im) {
-        int[][] imLabel = zeros(im.length, im[0].length);
-
-        List<HashSet<Integer>> regionError = new ArrayList<>();
-        List<Integer> regionAll = new ArrayList<>();
-
-        int label = 0;
-        boolean flag, flag2;
-        int upperLabel, nextLabel, leftLabel, rightLabel;
-        boolean upperNeighbour, nextNeighbour, leftNeighbour, rightNeighbour;
-
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                if (im[i][j]) { //se for região
-                    upperNeighbour = false;
-                    nextNeighbour = false;
-                    leftNeighbour = false;
-                    rightNeighbour = false;
-                    upperLabel = 0;
-                    nextLabel = 0;
-                    leftLabel = 0;
-                    rightLabel = 0;
-
-                    if (i != 0) {
-                        upperNeighbour = im[i - 1][j];
-                        upperLabel = imLabel[i - 1][j];
-                    }
-                    if (j != 0) {
-                        nextNeighbour = im[i][j - 1];
-                        nextLabel = imLabel[i][j - 1];
-                    }
-                    if (j != 0 && i != 0) {
-                        leftNeighbour = im[i - 1][j - 1];
-                        leftLabel = imLabel[i - 1][j - 1];
-                    }
-                    if (j != im[0].length - 1 && i != 0) {
-                        rightNeighbour = im[i - 1][j + 1];
-                        rightLabel = imLabel[i - 1][j + 1];
-                    }
+    public static PackedImage im2bw(PackedImage im, int limiar, boolean maior) {
+        Metrics.Sample sample = Metrics.start("im2bw", im);
+        try {
+            PackedImage bw = new PackedImage(im.height, im.width, 1);
+            int step = im.pixelStep();
+
+            Parallel.forRows(im.height, im.width, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    Kernels.INSTANCE.threshold(im.data, i * im.stride, step, limiar, maior, bw.data, i * im.width,
+                            im.width);
+            });
+
+            return bw;
+        } finally {
+            sample.stop();
+        }
+    }
 
-                    if (!upperNeighbour && !nextNeighbour && !leftNeighbour && !rightNeighbour) { //Nova região
-                        label += 1;
-                        imLabel[i][j] = label;
-                        regionAll.add(label);
-                    } else {
-                        List<Integer> labels = new ArrayList<>();
-                        if (upperLabel != 0) labels.add(upperLabel);
-                        if (nextLabel != 0) labels.add(nextLabel);
-                        if (leftLabel != 0) labels.add(leftLabel);
-                        if (rightLabel != 0) labels.add(rightLabel);
-                        Collections.sort(labels);
-                        int lbMin = labels.get(0);
-                        imLabel[i][j] = lbMin;
-                        flag = false;
-                        for (int lb : labels) {//Para cada Label
-                            for (HashSet<Integer> list : regionError) { //Procure nas regiões com erro
-                                for (Integer num : list) { //Para cada erro de cada regiõo
-                                    if (lb == num) {     //Se encontrar, adicione todos
-                                        list.addAll(labels);
-                                        labels.remove(0);
-                                        //regionAll.removeAll(labels);
-                                        flag = true;
-                                        break;
-                                    }
-                                }
-                                if (flag)
-                                    break;
-                            }
-                            if (flag)
-                                break;
-                        }
-                        if (!flag) {
-                            regionError.add(new HashSet<>());
-                            regionError.get(regionError.size() - 1).addAll(labels);
-                        }
-                    }
-                }
-            }
+    /**
+     * Converte uma imagem em tons de cinza em uma imagem em preto e branco usando um limiar local, calculado para
+     * cada pixel a partir da média e do desvio padrão da janela tam x tam centrada nele (ver AdaptiveThreshold).
+     * O custo por pixel não depende do tamanho da janela.
+     *
+     * @param im Uma matriz de inteiros representando uma imagem em tons de cinza.
+     * @param method O cálculo do limiar local (MEAN, NIBLACK ou SAUVOLA).
+     * @param tam O tamanho da janela.
+     * @param k O parâmetro do método (a constante subtraída da média em MEAN).
+     * @param maior Indica se o que vai ser branco é maior que o limiar local ou menor.
+     * @return Uma matriz de booleans representando uma imagem em preto e branco.
+     */
+    public static boolean[][] im2bw(int[][] im, AdaptiveThreshold.Method method, int tam, double k, boolean maior) {
+        Metrics.Sample sample = Metrics.start("im2bw", im);
+        try {
+            return AdaptiveThreshold.apply(im, method, tam, k, maior);
+        } finally {
+            sample.stop();
         }
+    }
 
+    /**
+     * Converte uma imagem compactada em tons de cinza em uma imagem binária compactada (valores 0 e 1) usando um
+     * limiar local (ver AdaptiveThreshold).
+     *
+     * @param im Uma imagem compactada em tons de cinza.
+     * @param method O cálculo do limiar local (MEAN, NIBLACK ou SAUVOLA).
+     * @param tam O tamanho da janela.
+     * @param k O parâmetro do método (a constante subtraída da média em MEAN).
+     * @param maior Indica se o que vai ser branco é maior que o limiar local ou menor.
+     * @return Uma imagem compactada binária.
+     */
+    public static PackedImage im2bw(PackedImage im, AdaptiveThreshold.Method method, int tam, double k,
+                                    boolean maior) {
+        Metrics.Sample sample = Metrics.start("im2bw", im);
+        try {
+            return AdaptiveThreshold.apply(im, method, tam, k, maior);
+        } finally {
+            sample.stop();
+        }
+    }
 
-        List<HashSet<Integer>> regionNew = new ArrayList<>();
-        HashSet<Integer> auxList = null;
-        //Adicionar elementos sem erros
-        for (Integer num : regionAll) {
-            flag2 = false;
-            for (HashSet<Integer> list : regionNew) {
-                if (list.contains(num)) {
-                    flag2 = true;
-                    break;
-                }
-            }
-            if (!flag2) {
-                flag = false;
-                for (HashSet<Integer> lista : regionError) {
-                    if (lista.contains(num)) {
-                        auxList = (HashSet<Integer>) lista.clone();
-                        flag = true;
-                        break;
-                    }
-                }
-                if (flag) {
-                    regionNew.add(auxList);
-                } else {
-                    regionNew.add(new HashSet<>());
-                    regionNew.get(regionNew.size() - 1).add(num);
-                }
-            }
+    /**
+     * Esta função bwLabel é usada para rotular componentes conexos binários, com conectividade 8.
+     * 
+     * @param im A imagem binária de entrada
+     * @return Uma matriz de inteiros que contém as etiquetas dos componentes conexos
+     */
+    public static int[][] bwLabel(boolean[][] im) {
+        Metrics.Sample sample = Metrics.start("bwLabel", im);
+        try {
+            return bwLabel(im, 8);
+        } finally {
+            sample.stop();
         }
+    }
 
-        //Correção de erros
+    /**
+     * Esta função bwLabel é usada para rotular componentes conexos binários com a conectividade informada.
+     * Os rótulos são consecutivos, de 1 até a quantidade de componentes, na ordem em que aparecem na imagem.
+     * 
+     * @param im A imagem binária de entrada
+     * @param connectivity A conectividade, 4 ou 8
+     * @return Uma matriz de inteiros que contém as etiquetas dos componentes conexos
+     */
+    public static int[][] bwLabel(boolean[][] im, int connectivity) {
+        Metrics.Sample sample = Metrics.start("bwLabel", im);
+        try {
+            return Labeling.label(im, connectivity).toArray();
+        } finally {
+            sample.stop();
+        }
+    }
 
-        for (int i = 0; i < im.length; i++) {
-            for (int j = 0; j < im[0].length; j++) {
-                if (im[i][j]) { //se for região
-                    for (int c = 0; c < regionNew.size(); c++) {
-                        HashSet<Integer> set = regionNew.get(c);
-                        if (set.contains(imLabel[i][j])) {
-                            imLabel[i][j] = c + 1;
-                            break;
-                        }
-                    }
-                }
-            }
+    /**
+     * Esta função bwLabel é usada para rotular componentes conexos de uma imagem binária compactada.
+     * 
+     * @param im A imagem binária compactada de entrada (diferente de zero é região)
+     * @return Uma imagem compactada que contém as etiquetas dos componentes conexos
+     */
+    public static PackedImage bwLabel(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("bwLabel", im);
+        try {
+            return Labeling.label(im, 8).toPacked();
+        } finally {
+            sample.stop();
         }
-        return imLabel;
     }
 
     /**
@@ -729,32 +1781,44 @@ public abstract class Image {
      * @return A matriz erodida.
      */
     public static boolean[][] bwErode(boolean[][] bw, int tam) {
-        boolean[][] erosion = new boolean[bw.length][bw[0].length];
-        erosion = Image.copy(bw);
-        boolean flag;
-        for (int i = 0; i < bw.length; i++) {
-            for (int j = 0; j < bw[0].length; j++) {
-                if (bw[i][j]) {
-                    flag = false;
-                    for (int x = ((tam / 2)) * -1; x <= (tam / 2); x++) {
-                        for (int y = ((tam / 2)) * -1; y <= (tam / 2); y++) {
-                            if (x != 0 || y != 0) {
-                                if (i + x >= 0 && j + y >= 0 && i + x < bw.length && j + y < bw[0].length) {
-                                    if (!bw[i + x][j + y]) {
-                                        erosion[i][j] = false;
-                                        flag = true;
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                        if (flag) break;
-                    }
-                }
-            }
+        Metrics.Sample sample = Metrics.start("bwErode", bw);
+        try {
+            return Morphology.erode(bw, Morphology.Shape.SQUARE, tam);
+        } finally {
+            sample.stop();
         }
+    }
 
-        return erosion;
+    /**
+     * Esta função executa uma operação de erosão binária em uma imagem binária compactada.
+     *
+     * @param bw A imagem binária compactada a ser erodida.
+     * @param tam O tamanho da matriz.
+     * @return A imagem compactada erodida.
+     */
+    public static PackedImage bwErode(PackedImage bw, int tam) {
+        Metrics.Sample sample = Metrics.start("bwErode", bw);
+        try {
+            return PackedImage.fromArray(bwErode(bw.toBinary(), tam));
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função executa uma operação de erosão binária em uma imagem compactada em bits.
+     *
+     * @param bw A imagem compactada em bits a ser erodida.
+     * @param tam O tamanho da matriz.
+     * @return A imagem erodida.
+     */
+    public static BitMask bwErode(BitMask bw, int tam) {
+        Metrics.Sample sample = Metrics.start("bwErode", bw);
+        try {
+            return bw.erode(tam);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -765,33 +1829,44 @@ public abstract class Image {
      * @return A matriz dilatada.
      */
     public static boolean[][] bwDilate(boolean[][] bw, int tam) {
-        boolean[][] dilatation = new boolean[bw.length][bw[0].length];
-        dilatation = Image.copy(bw);
+        Metrics.Sample sample = Metrics.start("bwDilate", bw);
+        try {
+            return Morphology.dilate(bw, Morphology.Shape.SQUARE, tam);
+        } finally {
+            sample.stop();
+        }
+    }
 
-        boolean flag;
-        for (int i = 0; i < bw.length; i++) {
-            for (int j = 0; j < bw[0].length; j++) {
-                if (!bw[i][j]) {
-                    flag = false;
-                    for (int x = ((tam / 2)) * -1; x <= (tam / 2); x++) {
-                        for (int y = ((tam / 2)) * -1; y <= (tam / 2); y++) {
-                            if (x != 0 || y != 0) {
-                                if (i + x >= 0 && j + y >= 0 && i + x < bw.length && j + y < bw[0].length) {
-                                    if (bw[i + x][j + y]) {
-                                        dilatation[i][j] = true;
-                                        flag = true;
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                        if (flag) break;
-                    }
-                }
-            }
+    /**
+     * Esta função executa uma operação de dilatação binária em uma imagem binária compactada.
+     *
+     * @param bw A imagem binária compactada a ser dilatada.
+     * @param tam O tamanho da matriz.
+     * @return A imagem compactada dilatada.
+     */
+    public static PackedImage bwDilate(PackedImage bw, int tam) {
+        Metrics.Sample sample = Metrics.start("bwDilate", bw);
+        try {
+            return PackedImage.fromArray(bwDilate(bw.toBinary(), tam));
+        } finally {
+            sample.stop();
         }
+    }
 
-        return dilatation;
+    /**
+     * Esta função executa uma operação de dilatação binária em uma imagem compactada em bits.
+     *
+     * @param bw A imagem compactada em bits a ser dilatada.
+     * @param tam O tamanho da matriz.
+     * @return A imagem dilatada.
+     */
+    public static BitMask bwDilate(BitMask bw, int tam) {
+        Metrics.Sample sample = Metrics.start("bwDilate", bw);
+        try {
+            return bw.dilate(tam);
+        } finally {
+            sample.stop();
+        }
     }
 
      /**
@@ -802,7 +1877,12 @@ public abstract class Image {
     * @return Um array bidimensional de booleanos representando a imagem binária resultante da abertura.
     */
     public static boolean[][] bwOpen(boolean[][] im, int n) {
-        return Image.bwDilate(Image.bwErode(im, n), n);
+        Metrics.Sample sample = Metrics.start("bwOpen", im);
+        try {
+            return Morphology.open(im, Morphology.Shape.SQUARE, n);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -813,120 +1893,161 @@ public abstract class Image {
      * @return Um array bidimensional de booleanos representando a imagem binária resultante do fechamento.
      */
     public static boolean[][] bwClose(boolean[][] im, int n) {
-        return Image.bwErode(Image.bwDilate(im, n), n);
+        Metrics.Sample sample = Metrics.start("bwClose", im);
+        try {
+            return Morphology.close(im, Morphology.Shape.SQUARE, n);
+        } finally {
+            sample.stop();
+        }
     }
 
-
     /**
-     * Esta função retorna uma imagem preenchida com uma linha preta entre os pontos especificados.
+     * Aplica a operação de abertura em uma imagem binária compactada.
      *
-     * @param im Uma matriz de booleanos representando a imagem.
-     * @param dots Uma matriz de inteiros especificando os pontos de início e fim.
-     * @return A imagem com a linha preta entre os pontos especificados.
+     * @param im A imagem binária compactada.
+     * @param n O tamanho do elemento estruturante.
+     * @return A imagem compactada resultante da abertura.
      */
-    public static boolean[][] bwLine(boolean[][] im, int[] dots) {
-        im = Image.copy(im);
-        int i = dots[0], j = dots[1];
-
-        double dNorth, dSouth, dEast, dWest;
-        while (i != dots[2] && j != dots[3]) {
-            dNorth = Math.sqrt(Math.pow((i - 1) - dots[2], 2) + Math.pow((j) - dots[3], 2));
-            dSouth = Math.sqrt(Math.pow((i + 1) - dots[2], 2) + Math.pow((j) - dots[3], 2));
-            dEast = Math.sqrt(Math.pow((i) - dots[2], 2) + Math.pow((j + 1) - dots[3], 2));
-            dWest = Math.sqrt(Math.pow((i) - dots[2], 2) + Math.pow((j - 1) - dots[3], 2));
-
-            if (dNorth <= dSouth && dNorth <= dEast && dNorth <= dWest) {
-                i--;
-            } else if (dSouth <= dNorth && dSouth <= dEast && dSouth <= dWest) {
-                i++;
-            } else if (dEast <= dSouth && dEast <= dNorth && dEast <= dWest) {
-                j++;
-            } else if (dWest <= dSouth && dWest <= dNorth && dWest <= dEast) {
-                j--;
-            }
-            im[i][j] = true;
+    public static PackedImage bwOpen(PackedImage im, int n) {
+        Metrics.Sample sample = Metrics.start("bwOpen", im);
+        try {
+            return PackedImage.fromArray(bwOpen(im.toBinary(), n));
+        } finally {
+            sample.stop();
         }
-
-        return im;
     }
 
-     /**
-     * Aplica o algoritmo de esqueletização de um array de booleanos bidimensionais.
-     * 
-     * @param bw O array de booleanos bidimensionais.
-     * @return O array de booleanos bidimensionais esqueletizado.
+    /**
+     * Aplica a operação de fechamento em uma imagem binária compactada.
+     *
+     * @param im A imagem binária compactada.
+     * @param n O tamanho do elemento estruturante.
+     * @return A imagem compactada resultante do fechamento.
      */
-    public static boolean[][] skeletonize(boolean[][] bw) {
-        //Loockup arrays
-        int[][] a = {
-                //Phase 0
-                {3, 6, 7, 12, 14, 15, 24, 28, 30, 31, 48, 56, 60,
-                62, 63, 96, 112, 120, 124, 126, 127, 129, 131, 135,
-                143, 159, 191, 192, 193, 195, 199, 207, 223, 224,
-                225, 227, 231, 239, 240, 241, 243, 247, 248, 249,
-                251, 252, 253, 254},
-
-                //Phase 1
-                {7, 14, 28, 56, 112, 131, 193, 224},
-                //Phase 2
-                {7, 14, 15, 28, 30, 56, 60, 112, 120, 131, 135,
-                193, 195, 224, 225, 240},
-                //Phase 3
-                {7, 14, 15, 28, 30, 31, 56, 60, 62, 112, 120,
-                124, 131, 135, 143, 193, 195, 199, 224, 225, 227,
-                240, 241, 248},
-                //Phase 4
-                {7, 14, 15, 28, 30, 31, 56, 60, 62, 63, 112, 120,
-                124, 126, 131, 135, 143, 159, 193, 195, 199, 207,
-                224, 225, 227, 231, 240, 241, 243, 248, 249, 252},
-                //Phase 5
-                {7, 14, 15, 28, 30, 31, 56, 60, 62, 63, 112, 120,
-                124, 126, 131, 135, 143, 159, 191, 193, 195, 199,
-                207, 224, 225, 227, 231, 239, 240, 241, 243, 248,
-                249, 251, 252, 254}
-        };
+    public static PackedImage bwClose(PackedImage im, int n) {
+        Metrics.Sample sample = Metrics.start("bwClose", im);
+        try {
+            return PackedImage.fromArray(bwClose(im.toBinary(), n));
+        } finally {
+            sample.stop();
+        }
+    }
 
-        boolean[][] border;
-        boolean[][] output = copy(bw);
+    /**
+     * Aplica a operação de abertura em uma imagem compactada em bits.
+     *
+     * @param im A imagem compactada em bits.
+     * @param n O tamanho do elemento estruturante.
+     * @return A imagem resultante da abertura.
+     */
+    public static BitMask bwOpen(BitMask im, int n) {
+        Metrics.Sample sample = Metrics.start("bwOpen", im);
+        try {
+            return im.erode(n).dilate(n);
+        } finally {
+            sample.stop();
+        }
+    }
 
-        boolean modified = true;
-        do {
-            modified = false;
+    /**
+     * Aplica a operação de fechamento em uma imagem compactada em bits.
+     *
+     * @param im A imagem compactada em bits.
+     * @param n O tamanho do elemento estruturante.
+     * @return A imagem resultante do fechamento.
+     */
+    public static BitMask bwClose(BitMask im, int n) {
+        Metrics.Sample sample = Metrics.start("bwClose", im);
+        try {
+            return im.dilate(n).erode(n);
+        } finally {
+            sample.stop();
+        }
+    }
 
-            //Phase 0 - Border
-            border = new boolean[output.length][output[0].length];
 
-            for (int i = 1; i < output.length - 1; i++) {
-                for (int j = 10; j < output[0].length - 1; j++) {
-                    if (output[i][j]) {
-                        boolean[][] neighbours = Image.neighbours(output, i, j);
-                        if (Arrays.stream(a[0]).anyMatch(x -> x == neighbourWeight(neighbours))) {
-                            border[i][j] = true;
-                        }
-                    }
+    /**
+     * Esta função retorna uma imagem preenchida com uma linha preta entre os pontos especificados.
+     *
+     * @param im Uma matriz de booleanos representando a imagem.
+     * @param dots Uma matriz de inteiros especificando os pontos de início e fim.
+     * @return A imagem com a linha preta entre os pontos especificados.
+     */
+    public static boolean[][] bwLine(boolean[][] im, int[] dots) {
+        Metrics.Sample sample = Metrics.start("bwLine", im);
+        try {
+            im = Image.copy(im);
+            int i = dots[0], j = dots[1];
+
+            double dNorth, dSouth, dEast, dWest;
+            while (i != dots[2] && j != dots[3]) {
+                dNorth = Math.sqrt(Math.pow((i - 1) - dots[2], 2) + Math.pow((j) - dots[3], 2));
+                dSouth = Math.sqrt(Math.pow((i + 1) - dots[2], 2) + Math.pow((j) - dots[3], 2));
+                dEast = Math.sqrt(Math.pow((i) - dots[2], 2) + Math.pow((j + 1) - dots[3], 2));
+                dWest = Math.sqrt(Math.pow((i) - dots[2], 2) + Math.pow((j - 1) - dots[3], 2));
+
+                if (dNorth <= dSouth && dNorth <= dEast && dNorth <= dWest) {
+                    i--;
+                } else if (dSouth <= dNorth && dSouth <= dEast && dSouth <= dWest) {
+                    i++;
+                } else if (dEast <= dSouth && dEast <= dNorth && dEast <= dWest) {
+                    j++;
+                } else if (dWest <= dSouth && dWest <= dNorth && dWest <= dEast) {
+                    j--;
                 }
+                im[i][j] = true;
             }
 
-            //Phase 1 - 5
-            for (int k = 1; k <= 5; k++) {
-                for (int i = 0; i < output.length; i++) {
-                    for (int j = 0; j < output[0].length; j++) {
-                        if(border[i][j]){
-                            boolean[][] neighbours = Image.neighbours(output, i, j);
-                            if (Arrays.stream(a[k]).anyMatch(x -> x == neighbourWeight(neighbours))) {
-                                output[i][j] = false;
-                                border[i][j] = false;
-                                modified = true;
-                            }
-                        }
-                    }
-                }
-            }
+            return im;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função retorna uma imagem binária compactada preenchida com uma linha entre os pontos especificados.
+     *
+     * @param im A imagem binária compactada.
+     * @param dots Uma matriz de inteiros especificando os pontos de início e fim.
+     * @return A imagem compactada com a linha entre os pontos especificados.
+     */
+    public static PackedImage bwLine(PackedImage im, int[] dots) {
+        Metrics.Sample sample = Metrics.start("bwLine", im);
+        try {
+            return PackedImage.fromArray(bwLine(im.toBinary(), dots));
+        } finally {
+            sample.stop();
+        }
+    }
 
-            //Phase 6 - unmarking remaining borders
-            output = sum(output, border);
-        } while (modified);
-        return output;
+     /**
+     * Aplica o algoritmo de esqueletização de um array de booleanos bidimensionais (ver {@link Skeleton}).
+     * 
+     * @param bw O array de booleanos bidimensionais.
+     * @return O array de booleanos bidimensionais esqueletizado.
+     */
+    public static boolean[][] skeletonize(boolean[][] bw) {
+        Metrics.Sample sample = Metrics.start("skeletonize", bw);
+        try {
+            return Skeleton.thin(bw);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Aplica o algoritmo de esqueletização a uma imagem binária compactada.
+     * 
+     * @param bw A imagem binária compactada.
+     * @return A imagem compactada esqueletizada.
+     */
+    public static PackedImage skeletonize(PackedImage bw) {
+        Metrics.Sample sample = Metrics.start("skeletonize", bw);
+        try {
+            return PackedImage.fromArray(skeletonize(bw.toBinary()));
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1002,20 +2123,12 @@ public abstract class Image {
     * @return Pontos finais
     */
     public static boolean[][] bwEndPoints(boolean[][] bw) {
-        boolean[][] endpoints = new boolean[bw.length][bw[0].length];
-
-        int[] lookup = {1, 2, 4, 8, 16, 32, 64, 128, 3, 6, 12, 24, 48, 96, 192, 129};
-
-        for (int i = 1; i < bw.length-1; i++) {
-            for (int j = 1; j < bw[0].length-1; j++) {
-                if (bw[i][j]) {
-                    boolean[][] neighbours = neighbours(bw, i, j);
-                    endpoints[i][j] = (Arrays.stream(lookup).anyMatch(x -> x == neighbourWeight(neighbours)));
-                }
-            }
+        Metrics.Sample sample = Metrics.start("bwEndPoints", bw);
+        try {
+            return Neighbourhood.mask(bw, Neighbourhood.Feature.END_POINT);
+        } finally {
+            sample.stop();
         }
-
-        return endpoints;
     }
 
     /**
@@ -1025,76 +2138,207 @@ public abstract class Image {
     * @return Pontos finais em um ArrayList
     */
     public static ArrayList<int[]> bwEndPointsArray(boolean[][] bw){
-        boolean[][] endpointsimage = bwEndPoints(bw);
-        ArrayList<int[]> endpoints = new ArrayList<int[]>();
-        for(int i=0; i<endpointsimage.length; i++){
-            for(int j=0; j< endpointsimage[0].length; j++){
-                if(endpointsimage[i][j])
-                    endpoints.add(new int[]{i, j});
-            }
+        Metrics.Sample sample = Metrics.start("bwEndPointsArray", bw);
+        try {
+            int[] points = Neighbourhood.points(bw, Neighbourhood.Feature.END_POINT);
+            ArrayList<int[]> endpoints = new ArrayList<int[]>(points.length / 2);
+            for (int k = 0; k < points.length; k += 2)
+                endpoints.add(new int[]{points[k], points[k + 1]});
+            return endpoints;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+    * Esta função encontra os pontos finais de um 'esqueleto' a partir de uma imagem binária compactada.
+    *
+    * @param bw Imagem binária compactada
+    * @return Pontos finais, em uma imagem compactada com valores 0 e 1
+    */
+    public static PackedImage bwEndPoints(PackedImage bw) {
+        Metrics.Sample sample = Metrics.start("bwEndPoints", bw);
+        try {
+            return PackedImage.fromArray(bwEndPoints(bw.toBinary()));
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+    * Esta função encontra os pontos finais em um ArrayList de um 'esqueleto' a partir de uma imagem binária compactada.
+    *
+    * @param bw Imagem binária compactada
+    * @return Pontos finais em um ArrayList
+    */
+    public static ArrayList<int[]> bwEndPointsArray(PackedImage bw) {
+        Metrics.Sample sample = Metrics.start("bwEndPointsArray", bw);
+        try {
+            return bwEndPointsArray(bw.toBinary());
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+    * Esta função encontra os pontos de ramificação de um 'esqueleto' a partir de uma matriz binária
+    * (pixels com três ou mais ramos ao redor).
+    *
+    * @param bw Matriz binária
+    * @return Pontos de ramificação
+    */
+    public static boolean[][] bwBranchPoints(boolean[][] bw) {
+        Metrics.Sample sample = Metrics.start("bwBranchPoints", bw);
+        try {
+            return Neighbourhood.mask(bw, Neighbourhood.Feature.BRANCH_POINT);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+    * Esta função encontra os pontos isolados (sem nenhum vizinho) de uma matriz binária.
+    *
+    * @param bw Matriz binária
+    * @return Pontos isolados
+    */
+    public static boolean[][] bwIsolatedPoints(boolean[][] bw) {
+        Metrics.Sample sample = Metrics.start("bwIsolatedPoints", bw);
+        try {
+            return Neighbourhood.mask(bw, Neighbourhood.Feature.ISOLATED_POINT);
+        } finally {
+            sample.stop();
         }
-        return endpoints;
     }
 
     /**
      * Esta função recebe um array de booleanos bidimensional e retorna uma lista de propriedades contendo informações sobre as regiões identificadas na imagem.
+     * As imagens das regiões não são construídas: cada uma é gerada apenas na chamada de {@link Properties#getImage()}.
      * @param im O array de boolean bidimensional contendo a imagem.
      * @return Uma lista de propriedades contendo informações sobre as regiões identificadas na imagem.
      */
     public static ArrayList<Properties> regionProps(boolean[][] im) {
-        int[][] lb = Image.bwLabel(im);
-        ArrayList<Properties> prop = new ArrayList<>();
-
-        int qtd = Image.max(lb);
+        return regionProps(im, false);
+    }
 
-        int minRow, minCol;
-        int maxRow, maxCol;
-        int area;
+    /**
+     * Esta função retorna as propriedades de todas as regiões, construindo já o campo image de cada uma se images
+     * for verdadeiro (para código que lê o campo diretamente, em vez de {@link Properties#getImage()}).
+     * @param im O array de boolean bidimensional contendo a imagem.
+     * @param images Indica se as imagens das regiões são construídas imediatamente.
+     * @return Uma lista de propriedades contendo informações sobre as regiões identificadas na imagem.
+     */
+    public static ArrayList<Properties> regionProps(boolean[][] im, boolean images) {
+        Metrics.Sample sample = Metrics.start("regionProps", im);
+        try {
+            return fillImages(regionProps(Labeling.label(im, 8), 0, Integer.MAX_VALUE), images);
+        } finally {
+            sample.stop();
+        }
+    }
 
-        for (int r = 1; r <= qtd; r++) {
-            boolean[][] imRegion = new boolean[im.length][im[0].length];
-
-            Properties p = new Properties();
-            minRow = im.length;
-            minCol = im[0].length;
-            maxRow = 0;
-            maxCol = 0;
-            area = 0;
-            for (int i = 0; i < im.length; i++) {
-                for (int j = 0; j < im[0].length; j++) {
-                    if (lb[i][j] == r) {
-                        imRegion[i][j] = true;
-                        area++;
-                        if (i < minRow)
-                            minRow = i;
-                        if (j < minCol)
-                            minCol = j;
-                        if (i > maxRow)
-                            maxRow = i;
-                        if (j > maxCol)
-                            maxCol = j;
-                    }
-                }
-            }
+    private static ArrayList<Properties> fillImages(ArrayList<Properties> prop, boolean images) {
+        if (images)
+            for (Properties p : prop)
+                p.getImage();
+        return prop;
+    }
 
-            p.image = Image.imCrop(imRegion, minRow, minCol, maxRow, maxCol);
+    /**
+     * Esta função retorna as propriedades das regiões cuja área está entre minArea e maxArea (inclusive).
+     * As imagens das regiões não são construídas: cada uma é gerada apenas na chamada de {@link Properties#getImage()}.
+     * @param im O array de boolean bidimensional contendo a imagem.
+     * @param minArea A menor área aceita.
+     * @param maxArea A maior área aceita.
+     * @return Uma lista de propriedades das regiões aceitas, na ordem dos rótulos.
+     */
+    public static ArrayList<Properties> regionProps(boolean[][] im, int minArea, int maxArea) {
+        Metrics.Sample sample = Metrics.start("regionProps", im);
+        try {
+            return regionProps(Labeling.label(im, 8), minArea, maxArea);
+        } finally {
+            sample.stop();
+        }
+    }
 
-            p.boundingBox[0] = minRow;
-            p.boundingBox[1] = minCol;
-            p.boundingBox[2] = maxRow;
-            p.boundingBox[3] = maxCol;
+    /**
+     * Calcula área, caixa delimitadora e centro de massa de todas as regiões em uma única varredura do mapa de rótulos.
+     */
+    static ArrayList<Properties> regionProps(Labeling.Result lb, int minArea, int maxArea) {
+        int qtd = lb.count;
+        int[] area = new int[qtd + 1];
+        int[] minRow = new int[qtd + 1], minCol = new int[qtd + 1];
+        int[] maxRow = new int[qtd + 1], maxCol = new int[qtd + 1];
+        long[] sumRow = new long[qtd + 1], sumCol = new long[qtd + 1];
+        Arrays.fill(minRow, Integer.MAX_VALUE);
+        Arrays.fill(minCol, Integer.MAX_VALUE);
+
+        int[] labels = lb.labels;
+        int k = 0;
+        for (int i = 0; i < lb.height; i++) {
+            for (int j = 0; j < lb.width; j++, k++) {
+                int r = labels[k];
+                if (r == 0)
+                    continue;
+                area[r]++;
+                sumRow[r] += i;
+                sumCol[r] += j;
+                if (i < minRow[r])
+                    minRow[r] = i;
+                if (j < minCol[r])
+                    minCol[r] = j;
+                if (i > maxRow[r])
+                    maxRow[r] = i;
+                if (j > maxCol[r])
+                    maxCol[r] = j;
+            }
+        }
 
-            p.area = area;
-            if (area > 0)
-                if(area == 1)
-                    p.image = new boolean[1][1];
-                prop.add(p);
+        ArrayList<Properties> prop = new ArrayList<>();
+        for (int r = 1; r <= qtd; r++) {
+            if (area[r] < minArea || area[r] > maxArea)
+                continue;
+            Properties p = new Properties(lb, r);
+            p.area = area[r];
+            p.boundingBox[0] = minRow[r];
+            p.boundingBox[1] = minCol[r];
+            p.boundingBox[2] = maxRow[r];
+            p.boundingBox[3] = maxCol[r];
+            p.centroid[0] = sumRow[r] / (double) area[r];
+            p.centroid[1] = sumCol[r] / (double) area[r];
+            prop.add(p);
         }
 
         //amo você, tenha um bom dia de trabalho
         return prop;
     }
 
+    /**
+     * Esta função recebe uma imagem binária compactada e retorna uma lista de propriedades das regiões identificadas.
+     * As imagens das regiões não são construídas: cada uma é gerada apenas na chamada de {@link Properties#getImage()}.
+     * @param im A imagem binária compactada.
+     * @return Uma lista de propriedades contendo informações sobre as regiões identificadas na imagem.
+     */
+    public static ArrayList<Properties> regionProps(PackedImage im) {
+        return regionProps(im, false);
+    }
+
+    /**
+     * Esta função retorna as propriedades das regiões de uma imagem binária compactada, construindo já o campo image
+     * de cada uma se images for verdadeiro.
+     * @param im A imagem binária compactada.
+     * @param images Indica se as imagens das regiões são construídas imediatamente.
+     * @return Uma lista de propriedades contendo informações sobre as regiões identificadas na imagem.
+     */
+    public static ArrayList<Properties> regionProps(PackedImage im, boolean images) {
+        Metrics.Sample sample = Metrics.start("regionProps", im);
+        try {
+            return fillImages(regionProps(Labeling.label(im, 8), 0, Integer.MAX_VALUE), images);
+        } finally {
+            sample.stop();
+        }
+    }
+
     /**
     * Cria uma matriz de zeros do tamanho especificado
     * 
@@ -1114,17 +2358,12 @@ public abstract class Image {
     * @return O menor valor da matriz.
     */
     public static int min(int[][] im) {
-        im = Image.copy(im);
-        for (int[] ints : im) Arrays.sort(ints);
-
-        int[] v = new int[im.length];
-
-        for (int i = 0; i < im.length; i++)
-            v[i] = im[i][0];
-
-        Arrays.sort(v);
-
-        return v[0];
+        Metrics.Sample sample = Metrics.start("min", im);
+        try {
+            return Stats.extreme(im, false);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1134,17 +2373,42 @@ public abstract class Image {
      * @return O maior valor contido no array
      */
     public static int max(int[][] im) {
-        im = Image.copy(im);
-        for (int[] ints : im) Arrays.sort(ints);
-
-        int[] v = new int[im.length];
-
-        for (int i = 0; i < im.length; i++)
-            v[i] = im[i][im[0].length - 1];
+        Metrics.Sample sample = Metrics.start("max", im);
+        try {
+            return Stats.extreme(im, true);
+        } finally {
+            sample.stop();
+        }
+    }
 
-        Arrays.sort(v);
+    /**
+    * Calcula o valor mínimo de todos os canais de uma imagem compactada.
+    * 
+    * @param im A imagem compactada.
+    * @return O menor valor da imagem.
+    */
+    public static int min(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("min", im);
+        try {
+            return Stats.extreme(im, false);
+        } finally {
+            sample.stop();
+        }
+    }
 
-        return v[v.length - 1];
+    /**
+    * Calcula o valor máximo de todos os canais de uma imagem compactada.
+    * 
+    * @param im A imagem compactada.
+    * @return O maior valor da imagem.
+    */
+    public static int max(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("max", im);
+        try {
+            return Stats.extreme(im, true);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1154,11 +2418,16 @@ public abstract class Image {
      * @return Uma nova matriz tridimensional contendo uma cópia da matriz de entrada.
      */
     public static int[][][] copy(int[][][] im) {
-        int[][][] newImage = new int[im.length][im[0].length][3];
-        for (int i = 0; i < im.length; i++)
-            for (int j = 0; j < im[0].length; j++)
-                System.arraycopy(im[i][j], 0, newImage[i][j], 0, im[0][0].length);
-        return newImage;
+        Metrics.Sample sample = Metrics.start("copy", im);
+        try {
+            int[][][] newImage = new int[im.length][im[0].length][3];
+            for (int i = 0; i < im.length; i++)
+                for (int j = 0; j < im[0].length; j++)
+                    System.arraycopy(im[i][j], 0, newImage[i][j], 0, im[0][0].length);
+            return newImage;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1168,10 +2437,15 @@ public abstract class Image {
      * @return Uma nova matriz bidimensional contendo uma cópia da matriz de entrada.
      */
     public static int[][] copy(int[][] im) {
-        int[][] newImage = new int[im.length][im[0].length];
-        for (int i = 0; i < im.length; i++)
-            System.arraycopy(im[i], 0, newImage[i], 0, im[0].length);
-        return newImage;
+        Metrics.Sample sample = Metrics.start("copy", im);
+        try {
+            int[][] newImage = new int[im.length][im[0].length];
+            for (int i = 0; i < im.length; i++)
+                System.arraycopy(im[i], 0, newImage[i], 0, im[0].length);
+            return newImage;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1181,10 +2455,45 @@ public abstract class Image {
      * @return Uma nova matriz binária contendo uma cópia da matriz de entrada.
      */
     public static boolean[][] copy(boolean[][] im) {
-        boolean[][] newImage = new boolean[im.length][im[0].length];
-        for (int i = 0; i < im.length; i++)
-            System.arraycopy(im[i], 0, newImage[i], 0, im[0].length);
-        return newImage;
+        Metrics.Sample sample = Metrics.start("copy", im);
+        try {
+            boolean[][] newImage = new boolean[im.length][im[0].length];
+            for (int i = 0; i < im.length; i++)
+                System.arraycopy(im[i], 0, newImage[i], 0, im[0].length);
+            return newImage;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função copia uma imagem compactada.
+     * 
+     * @param im A imagem compactada a ser copiada.
+     * @return Uma nova imagem compactada contendo uma cópia da imagem de entrada.
+     */
+    public static PackedImage copy(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("copy", im);
+        try {
+            return im.copy();
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função copia uma imagem compactada em bits.
+     * 
+     * @param im A imagem a ser copiada.
+     * @return Uma nova imagem contendo uma cópia da imagem de entrada.
+     */
+    public static BitMask copy(BitMask im) {
+        Metrics.Sample sample = Metrics.start("copy", im);
+        try {
+            return im.copy();
+        } finally {
+            sample.stop();
+        }
     }
 
 
@@ -1196,11 +2505,17 @@ public abstract class Image {
      * @return Uma nova matriz contendo a soma das duas matrizes de inteiros.
      */
     public static int[][] sum(int[][] im1, int[][] im2) {
-        int[][] result = new int[im1.length][im1[0].length];
-        for (int i = 0; i < im1.length; i++)
-            for (int j = 0; j < im1[0].length; j++)
-                result[i][j] = im1[i][j] + im2[i][j];
-        return result;
+        Metrics.Sample sample = Metrics.start("sum", im1);
+        try {
+            int[][] result = new int[im1.length][im1[0].length];
+            Parallel.forRows(im1.length, im1[0].length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    Kernels.INSTANCE.add(im1[i], 0, im2[i], 0, result[i], 0, im1[0].length, false);
+            });
+            return result;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1211,12 +2526,19 @@ public abstract class Image {
      * @return Uma nova matriz contendo a soma das duas matrizes de inteiros.
      */
     public static int[][][] sum(int[][][] im1, int[][][] im2) {
-        int[][][] result = new int[im1.length][im1[0].length][3];
-        for (int i = 0; i < im1.length; i++)
-            for (int j = 0; j < im1[0].length; j++)
-                for (int c = 0; c < im1[0][0].length; c++)
-                    result[i][j][c] = im1[i][j][c] + im2[i][j][c];
-        return result;
+        Metrics.Sample sample = Metrics.start("sum", im1);
+        try {
+            int[][][] result = new int[im1.length][im1[0].length][im1[0][0].length];
+            Parallel.forRows(im1.length, im1[0].length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    for (int j = 0; j < im1[0].length; j++)
+                        for (int c = 0; c < im1[0][0].length; c++)
+                            result[i][j][c] = im1[i][j][c] + im2[i][j][c];
+            });
+            return result;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1227,12 +2549,51 @@ public abstract class Image {
      * @return Uma nova matriz contendo a soma das duas matrizes de inteiros.
      */
     public static boolean[][] sum(boolean[][] im1, boolean[][] im2) {
-        boolean[][] result = new boolean[im1.length][im1[0].length];
+        Metrics.Sample sample = Metrics.start("sum", im1);
+        try {
+            boolean[][] result = new boolean[im1.length][im1[0].length];
 
-        for (int i = 0; i < im1.length; i++)
-            for (int j = 0; j < im1[0].length; j++)
-                result[i][j] = (im1[i][j] || im2[i][j]);
-        return result;
+            Parallel.forRows(im1.length, im1[0].length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    for (int j = 0; j < im1[0].length; j++)
+                        result[i][j] = (im1[i][j] || im2[i][j]);
+            });
+            return result;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função realiza a soma de duas imagens compactadas de mesmo tamanho e quantidade de canais.
+     * 
+     * @param im1 A primeira imagem a ser somada.
+     * @param im2 A segunda imagem a ser somada.
+     * @return Uma nova imagem intercalada contendo a soma das duas imagens.
+     */
+    public static PackedImage sum(PackedImage im1, PackedImage im2) {
+        Metrics.Sample sample = Metrics.start("sum", im1);
+        try {
+            return combine(im1, im2, true);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função realiza a soma (união) de duas imagens compactadas em bits, 64 pixels por operação.
+     * 
+     * @param im1 A primeira imagem a ser somada.
+     * @param im2 A segunda imagem a ser somada.
+     * @return Uma nova imagem contendo a soma das duas imagens.
+     */
+    public static BitMask sum(BitMask im1, BitMask im2) {
+        Metrics.Sample sample = Metrics.start("sum", im1);
+        try {
+            return im1.or(im2);
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1243,11 +2604,17 @@ public abstract class Image {
      * @return Uma nova matriz contendo a subtração das duas matrizes de inteiros.
      */
     public static int[][] sub(int[][] im1, int[][] im2) {
-        int[][] result = Image.copy(im1);
-        for (int i = 0; i < im1.length; i++)
-            for (int j = 0; j < im1[0].length; j++)
-                result[i][j] = im1[i][j] - im2[i][j];
-        return result;
+        Metrics.Sample sample = Metrics.start("sub", im1);
+        try {
+            int[][] result = new int[im1.length][im1[0].length];
+            Parallel.forRows(im1.length, im1[0].length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    Kernels.INSTANCE.add(im1[i], 0, im2[i], 0, result[i], 0, im1[0].length, true);
+            });
+            return result;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1258,12 +2625,19 @@ public abstract class Image {
      * @return Uma nova matriz contendo a subtração das duas matrizes de inteiros.
      */
     public static int[][][] sub(int[][][] im1, int[][][] im2) {
-        int[][][] result = Image.copy(im1);
-        for (int i = 0; i < im1.length; i++)
-            for (int j = 0; j < im1[0].length; j++)
-                for (int c = 0; c < im1[0][0].length; c++)
-                    result[i][j][c] = im1[i][j][c] - im2[i][j][c];
-        return result;
+        Metrics.Sample sample = Metrics.start("sub", im1);
+        try {
+            int[][][] result = new int[im1.length][im1[0].length][im1[0][0].length];
+            Parallel.forRows(im1.length, im1[0].length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    for (int j = 0; j < im1[0].length; j++)
+                        for (int c = 0; c < im1[0][0].length; c++)
+                            result[i][j][c] = im1[i][j][c] - im2[i][j][c];
+            });
+            return result;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1274,10 +2648,158 @@ public abstract class Image {
      * @return Uma nova matriz contendo a subtração das duas matrizes de inteiros.
      */
     public static boolean[][] sub(boolean[][] im1, boolean[][] im2) {
-        boolean[][] result = Image.copy(im1);
-        for (int i = 0; i < im1.length; i++)
-            for (int j = 0; j < im1[0].length; j++)
-                if ((im2[i][j])) result[i][j] = false;
+        Metrics.Sample sample = Metrics.start("sub", im1);
+        try {
+            boolean[][] result = new boolean[im1.length][im1[0].length];
+            Parallel.forRows(im1.length, im1[0].length, (from, to) -> {
+                for (int i = from; i < to; i++)
+                    for (int j = 0; j < im1[0].length; j++)
+                        result[i][j] = im1[i][j] && !im2[i][j];
+            });
+            return result;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função realiza a subtração de duas imagens compactadas de mesmo tamanho e quantidade de canais.
+     * 
+     * @param im1 A imagem a ser subtraida.
+     * @param im2 A imagem para subtrair.
+     * @return Uma nova imagem intercalada contendo a subtração das duas imagens.
+     */
+    public static PackedImage sub(PackedImage im1, PackedImage im2) {
+        Metrics.Sample sample = Metrics.start("sub", im1);
+        try {
+            return combine(im1, im2, false);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função realiza a subtração de duas imagens compactadas em bits, 64 pixels por operação.
+     * 
+     * @param im1 A imagem a ser subtraida.
+     * @param im2 A imagem para subtrair.
+     * @return Uma nova imagem contendo os pixels de im1 que não estão em im2.
+     */
+    public static BitMask sub(BitMask im1, BitMask im2) {
+        Metrics.Sample sample = Metrics.start("sub", im1);
+        try {
+            return im1.andNot(im2);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função realiza a soma saturada de duas imagens de 8 bits: os resultados acima de 255 ficam 255.
+     *
+     * @param im1 A primeira imagem a ser somada.
+     * @param im2 A segunda imagem a ser somada.
+     * @return Uma nova imagem contendo a soma saturada das duas imagens.
+     */
+    public static int[][] imAdd(int[][] im1, int[][] im2) {
+        Metrics.Sample sample = Metrics.start("imAdd", im1);
+        try {
+            return saturated(im1, im2, false);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função realiza a subtração saturada de duas imagens de 8 bits: os resultados negativos ficam 0.
+     *
+     * @param im1 A imagem a ser subtraida.
+     * @param im2 A imagem para subtrair.
+     * @return Uma nova imagem contendo a subtração saturada das duas imagens.
+     */
+    public static int[][] imSubtract(int[][] im1, int[][] im2) {
+        Metrics.Sample sample = Metrics.start("imSubtract", im1);
+        try {
+            return saturated(im1, im2, true);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função realiza a soma saturada (em [0, 255]) de duas imagens compactadas de mesmo tamanho e quantidade
+     * de canais.
+     *
+     * @param im1 A primeira imagem a ser somada.
+     * @param im2 A segunda imagem a ser somada.
+     * @return Uma nova imagem intercalada contendo a soma saturada das duas imagens.
+     */
+    public static PackedImage imAdd(PackedImage im1, PackedImage im2) {
+        Metrics.Sample sample = Metrics.start("imAdd", im1);
+        try {
+            return combine(im1, im2, true, true);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Esta função realiza a subtração saturada (em [0, 255]) de duas imagens compactadas de mesmo tamanho e
+     * quantidade de canais.
+     *
+     * @param im1 A imagem a ser subtraida.
+     * @param im2 A imagem para subtrair.
+     * @return Uma nova imagem intercalada contendo a subtração saturada das duas imagens.
+     */
+    public static PackedImage imSubtract(PackedImage im1, PackedImage im2) {
+        Metrics.Sample sample = Metrics.start("imSubtract", im1);
+        try {
+            return combine(im1, im2, false, true);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    private static int[][] saturated(int[][] im1, int[][] im2, boolean subtract) {
+        if (im1.length != im2.length || im1[0].length != im2[0].length)
+            throw new IllegalArgumentException("Images must have the same dimensions");
+        int[][] result = new int[im1.length][im1[0].length];
+        Parallel.forRows(im1.length, im1[0].length, (from, to) -> {
+            for (int i = from; i < to; i++)
+                Kernels.INSTANCE.addSaturated(im1[i], 0, im2[i], 0, result[i], 0, im1[0].length, subtract);
+        });
+        return result;
+    }
+
+    private static PackedImage combine(PackedImage im1, PackedImage im2, boolean add) {
+        return combine(im1, im2, add, false);
+    }
+
+    private static PackedImage combine(PackedImage im1, PackedImage im2, boolean add, boolean saturate) {
+        if (im1.height != im2.height || im1.width != im2.width || im1.channels != im2.channels)
+            throw new IllegalArgumentException("Images must have the same dimensions");
+        PackedImage result = new PackedImage(im1.height, im1.width, im1.channels);
+        int rowSize = im1.width * im1.channels;
+        if (im1.isContiguous() && im2.isContiguous()) {
+            int[] a = im1.data, b = im2.data, r = result.data;
+            Parallel.forRows(im1.height, rowSize, (from, to) -> {
+                int k = from * rowSize, n = (to - from) * rowSize;
+                if (saturate)
+                    Kernels.INSTANCE.addSaturated(a, k, b, k, r, k, n, !add);
+                else
+                    Kernels.INSTANCE.add(a, k, b, k, r, k, n, !add);
+            });
+            return result;
+        }
+        Parallel.forRows(im1.height, rowSize, (from, to) -> {
+            int d = from * rowSize;
+            for (int i = from; i < to; i++)
+                for (int j = 0; j < im1.width; j++)
+                    for (int c = 0; c < im1.channels; c++, d++) {
+                        int v = add ? im1.get(i, j, c) + im2.get(i, j, c) : im1.get(i, j, c) - im2.get(i, j, c);
+                        result.data[d] = saturate ? Math.min(255, Math.max(0, v)) : v;
+                    }
+        });
         return result;
     }
 
@@ -1401,25 +2923,56 @@ public abstract class Image {
    * @return A imagem redimensionada.
    */
     public static int[][][] _imResize(int[][][] im) {
-        int[][][] image = new int[im.length / 2][im[0].length / 2][3];
-        int x = 0;
-        int y;
-
-        for (int i = 0; i < image.length; i ++) {
-            y = 0;
-            for (int j = 0; j < image[0].length; j++) {
-                if(x >= im.length)
-                    x = im.length-1;
-                if(y >= im[0].length)
-                    y = im[0].length-1;
-
-                image[i][j] = im[x][y];
-                y+=2;
+        Metrics.Sample sample = Metrics.start("_imResize", im);
+        try {
+            int[][][] image = new int[im.length / 2][im[0].length / 2][3];
+            int x = 0;
+            int y;
+
+            for (int i = 0; i < image.length; i ++) {
+                y = 0;
+                for (int j = 0; j < image[0].length; j++) {
+                    if(x >= im.length)
+                        x = im.length-1;
+                    if(y >= im[0].length)
+                        y = im[0].length-1;
+
+                    image[i][j] = im[x][y];
+                    y+=2;
+                }
+                x+=2;
             }
-            x+=2;
+
+            return image;
+        } finally {
+            sample.stop();
         }
+    }
 
-        return image;
+    /**
+     * Reduz uma imagem compactada à metade da altura e da largura, mantendo o pixel de cada linha e coluna par, como
+     * _imResize(int[][][]).
+     *
+     * @param im A imagem compactada a ser redimensionada.
+     * @return A imagem redimensionada, na mesma disposição.
+     */
+    public static PackedImage _imResize(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("_imResize", im);
+        try {
+            PackedImage image = new PackedImage(im.height / 2, im.width / 2, im.channels, im.layout);
+            int srcStep = 2 * im.pixelStep(), dstStep = image.pixelStep();
+            for (int c = 0; c < im.channels; c++) {
+                int srcOffset = im.channelOffset(c), dstOffset = image.channelOffset(c);
+                for (int i = 0; i < image.height; i++) {
+                    int s = srcOffset + 2 * i * im.stride, d = dstOffset + i * image.stride;
+                    for (int j = 0; j < image.width; j++, s += srcStep, d += dstStep)
+                        image.data[d] = im.data[s];
+                }
+            }
+            return image;
+        } finally {
+            sample.stop();
+        }
     }
 
     /**
@@ -1429,50 +2982,75 @@ public abstract class Image {
      * @return Retorna uma matriz booleana.
      */
     public static boolean[][] logical(int[][] im){
-        int biggerIntensity = 0, smallerIntensity = 0, contrastWidth, midpoint;
-        boolean result[][] = new boolean[im.length][im[0].length];
-
-        // Identificando qual a maior e a menor intensidade
-        for(int i = 0; i < im.length; i++){
-            for(int j = 0; j < im[0].length; j++){
-                if((i == 0) && (j == 0)){
-                    biggerIntensity = im[i][j];
-                    smallerIntensity = im[i][j];
+        Metrics.Sample sample = Metrics.start("logical", im);
+        try {
+            int biggerIntensity, smallerIntensity, contrastWidth, midpoint;
+            boolean result[][] = new boolean[im.length][im[0].length];
+
+            // Identificando qual a maior e a menor intensidade, em uma única passagem
+            Stats stats = Stats.of(im);
+            biggerIntensity = stats.max;
+            smallerIntensity = stats.min;
+
+            // Definindo a largura do contraste
+            contrastWidth = biggerIntensity - smallerIntensity + 1;
+
+            // Caso o tamanho da largura de contraste seja 1, a função retorna uma matriz de false
+            if(contrastWidth == 1){
+                for(int i = 0; i < im.length; i++){
+                    for(int j = 0; j < im[0].length; j++){
+                        result[i][j] = false;
+                    }
                 }
-
-                if(im[i][j] > biggerIntensity)
-                    biggerIntensity = im[i][j];
-                if(im[i][j] < smallerIntensity)
-                    smallerIntensity = im[i][j];
+                return result;
             }
-        }
 
-        // Definindo a largura do contraste
-        contrastWidth = biggerIntensity - smallerIntensity + 1;
+            // Definindo o ponto médio da largura do contraste para fazer a segmentação
+            midpoint = contrastWidth / 2;
 
-        // Caso o tamanho da largura de contraste seja 1, a função retorna uma matriz de false
-        if(contrastWidth == 1){
+            // Fazendo a segmentação
             for(int i = 0; i < im.length; i++){
                 for(int j = 0; j < im[0].length; j++){
-                    result[i][j] = false;
+                    if(im[i][j] < smallerIntensity + midpoint)
+                        result[i][j] = false;
+                    else
+                        result[i][j] = true;
                 }
             }
+
             return result;
+        } finally {
+            sample.stop();
         }
+    }
 
-        // Definindo o ponto médio da largura do contraste para fazer a segmentação
-        midpoint = contrastWidth / 2;
-
-        // Fazendo a segmentação
-        for(int i = 0; i < im.length; i++){
-            for(int j = 0; j < im[0].length; j++){
-                if(im[i][j] < smallerIntensity + midpoint)
-                    result[i][j] = false;
-                else
-                    result[i][j] = true;
+    /**
+     * Identifica o ponto médio da largura do contraste e segmenta uma imagem compactada de um canal.
+     * 
+     * @param im A imagem compactada a ser segmentada.
+     * @return Retorna uma imagem compactada binária (valores 0 e 1).
+     */
+    public static PackedImage logical(PackedImage im) {
+        Metrics.Sample sample = Metrics.start("logical", im);
+        try {
+            Stats stats = Stats.of(im);
+            int smallerIntensity = stats.min, biggerIntensity = stats.max;
+            int contrastWidth = biggerIntensity - smallerIntensity + 1;
+            PackedImage result = new PackedImage(im.height, im.width, 1);
+            if (contrastWidth == 1)
+                return result;
+
+            int limit = smallerIntensity + contrastWidth / 2;
+            int step = im.pixelStep();
+            int d = 0;
+            for (int i = 0; i < im.height; i++) {
+                int k = i * im.stride;
+                for (int j = 0; j < im.width; j++, k += step)
+                    result.data[d++] = im.data[k] < limit ? 0 : 1;
             }
+            return result;
+        } finally {
+            sample.stop();
         }
-
-        return result;
     }
 }
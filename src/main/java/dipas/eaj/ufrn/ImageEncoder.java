@@ -0,0 +1,80 @@
+package dipas.eaj.ufrn;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Classe abstrata ImageEncoder, que grava imagens com os parâmetros de codificação de {@link EncodeOptions}.
+ * Cada thread mantém um ImageWriter por formato, reutilizado entre as gravações, em vez de procurar e criar um
+ * codificador a cada arquivo como ImageIO.write.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class ImageEncoder {
+
+    private static final ThreadLocal<Map<String, ImageWriter>> WRITERS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Grava uma imagem em um arquivo.
+     *
+     * @param im A imagem.
+     * @param path O caminho do arquivo.
+     * @param options As opções de codificação (o formato, se não informado, vem da extensão).
+     * @throws IOException Se o arquivo não puder ser gravado.
+     * @throws IllegalArgumentException Se não houver codificador para o formato.
+     */
+    public static void write(BufferedImage im, String path, EncodeOptions options) throws IOException {
+        String format = options.format != null ? options.format : extension(path);
+        ImageWriter writer = writer(format);
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        float quality = options.writerQuality();
+        if (quality >= 0 && param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            if (param.getCompressionType() == null)
+                param.setCompressionType(param.getCompressionTypes()[0]);
+            param.setCompressionQuality(quality);
+        }
+        File file = new File(path);
+        file.delete();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            if (output == null)
+                throw new IOException("Cannot open " + path + " for writing");
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(im, null, null), param);
+        } finally {
+            writer.reset();
+        }
+    }
+
+    private static ImageWriter writer(String format) {
+        String key = format.toLowerCase(Locale.ROOT);
+        Map<String, ImageWriter> writers = WRITERS.get();
+        ImageWriter writer = writers.get(key);
+        if (writer == null) {
+            Iterator<ImageWriter> found = ImageIO.getImageWritersByFormatName(key);
+            if (!found.hasNext())
+                throw new IllegalArgumentException("No image writer for format '" + format + "'");
+            writer = found.next();
+            writers.put(key, writer);
+        }
+        return writer;
+    }
+
+    private static String extension(String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf(File.separatorChar))
+            throw new IllegalArgumentException("Cannot infer the image format of '" + path + "'");
+        return path.substring(dot + 1);
+    }
+}
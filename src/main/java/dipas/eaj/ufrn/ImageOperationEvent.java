@@ -0,0 +1,56 @@
+package dipas.eaj.ufrn;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do JDK Flight Recorder emitido ao final de cada operação de Image (ver {@link Metrics}), com o nome da
+ * operação e o tamanho da imagem. A duração e a thread são registradas pelo próprio JFR.
+ * O evento só é criado quando uma gravação o habilita, por exemplo com
+ * -XX:StartFlightRecording ou jcmd &lt;pid&gt; JFR.start.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+@Name(ImageOperationEvent.NAME)
+@Label("Image Operation")
+@Category("ImaJ")
+@Description("An ImaJ image operation, with the size of its input")
+public final class ImageOperationEvent extends Event {
+
+    /**
+     * Nome do tipo de evento.
+     */
+    public static final String NAME = "dipas.eaj.ufrn.ImageOperation";
+
+    private static final EventType TYPE = EventType.getEventType(ImageOperationEvent.class);
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Height")
+    int height;
+
+    @Label("Width")
+    int width;
+
+    @Label("Channels")
+    int channels;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the calling thread, or -1 if the JVM does not report it")
+    @DataAmount
+    long allocatedBytes;
+
+    /**
+     * @return true se alguma gravação em andamento registra este evento.
+     */
+    static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,40 @@
+package dipas.eaj.ufrn;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do JDK Flight Recorder emitido por etapas internas das operações, como a resolução das equivalências da
+ * rotulação e cada iteração da esqueletização. Segue o padrão begin/shouldCommit/commit do JFR: sem gravação
+ * em andamento, o compilador elimina a criação do evento.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+@Name(ImagePhaseEvent.NAME)
+@Label("Image Operation Phase")
+@Category("ImaJ")
+@Description("An internal phase of an ImaJ image operation")
+final class ImagePhaseEvent extends Event {
+
+    /**
+     * Nome do tipo de evento.
+     */
+    static final String NAME = "dipas.eaj.ufrn.ImagePhase";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Count")
+    @Description("Phase-specific count: components found, pixels removed")
+    long count;
+}
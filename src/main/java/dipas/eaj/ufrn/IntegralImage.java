@@ -0,0 +1,191 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Classe IntegralImage, que representa a imagem integral (tabela de somas acumuladas) de uma imagem e,
+ * opcionalmente, a imagem integral dos quadrados, permitindo calcular soma, média e variância de qualquer
+ * retângulo em tempo constante. Os acumuladores são do tipo long para evitar estouro em imagens grandes.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class IntegralImage {
+    private static final int COLUMN_BLOCK = 256;
+
+    /**
+     * Altura da imagem original.
+     */
+    public final int height;
+    /**
+     * Largura da imagem original.
+     */
+    public final int width;
+
+    private final int stride;
+    private final long[] sum;
+    private final long[] sqsum;
+
+    /**
+     * Constrói a imagem integral de uma imagem em tons de cinza.
+     *
+     * @param im A imagem em tons de cinza.
+     * @param squared Indica se a imagem integral dos quadrados também deve ser construída (necessária para a variância).
+     */
+    public IntegralImage(int[][] im, boolean squared) {
+        this(im.length, im[0].length, squared, (i, row) -> System.arraycopy(im[i], 0, row, 0, row.length));
+    }
+
+    /**
+     * Constrói a imagem integral de um canal de uma imagem colorida.
+     *
+     * @param im A imagem colorida.
+     * @param channel O canal usado.
+     * @param squared Indica se a imagem integral dos quadrados também deve ser construída.
+     */
+    public IntegralImage(int[][][] im, int channel, boolean squared) {
+        this(im.length, im[0].length, squared, (i, row) -> {
+            int[][] src = im[i];
+            for (int j = 0; j < row.length; j++)
+                row[j] = src[j][channel];
+        });
+    }
+
+    /**
+     * Constrói a imagem integral de um canal de uma imagem compactada.
+     *
+     * @param im A imagem compactada.
+     * @param channel O canal usado.
+     * @param squared Indica se a imagem integral dos quadrados também deve ser construída.
+     */
+    public IntegralImage(PackedImage im, int channel, boolean squared) {
+        this(im.height, im.width, squared, (i, row) -> {
+            int step = im.pixelStep();
+            for (int j = 0, k = im.index(i, 0, channel); j < row.length; j++, k += step)
+                row[j] = im.data[k];
+        });
+    }
+
+    private interface RowReader {
+        void read(int i, int[] row);
+    }
+
+    private IntegralImage(int height, int width, boolean squared, RowReader reader) {
+        this.height = height;
+        this.width = width;
+        this.stride = width + 1;
+        this.sum = new long[(height + 1) * stride];
+        this.sqsum = squared ? new long[(height + 1) * stride] : null;
+
+        // Somas acumuladas de cada linha, independentes entre si
+        Parallel.forRows(height, width, (from, to) -> {
+            int[] row = new int[width];
+            for (int i = from; i < to; i++) {
+                reader.read(i, row);
+                int k = (i + 1) * stride + 1;
+                long s = 0, sq = 0;
+                for (int j = 0; j < width; j++, k++) {
+                    int v = row[j];
+                    s += v;
+                    sum[k] = s;
+                    if (sqsum != null) {
+                        sq += (long) v * v;
+                        sqsum[k] = sq;
+                    }
+                }
+            }
+        });
+
+        // Acumulação vertical, em blocos de colunas para percorrer a memória em ordem de linhas
+        int blocks = (width + COLUMN_BLOCK - 1) / COLUMN_BLOCK;
+        Parallel.split(blocks, (long) height * width, (b0, b1) -> {
+            int from = 1 + b0 * COLUMN_BLOCK, to = Math.min(1 + b1 * COLUMN_BLOCK, stride);
+            for (int i = 2; i <= height; i++) {
+                int k = i * stride, up = k - stride;
+                for (int j = from; j < to; j++) {
+                    sum[k + j] += sum[up + j];
+                    if (sqsum != null)
+                        sqsum[k + j] += sqsum[up + j];
+                }
+            }
+        });
+    }
+
+    /**
+     * @return Verdadeiro se a imagem integral dos quadrados foi construída.
+     */
+    public boolean hasSquares() {
+        return sqsum != null;
+    }
+
+    /**
+     * Calcula a soma dos pixels no retângulo de (row0, col0) a (row1, col1), inclusive.
+     * Coordenadas fora da imagem são recortadas.
+     *
+     * @return A soma dos pixels no retângulo.
+     */
+    public long sum(int row0, int col0, int row1, int col1) {
+        return rect(sum, row0, col0, row1, col1);
+    }
+
+    /**
+     * Calcula a soma dos pixels dentro de uma caixa delimitadora no formato de {@link Properties#boundingBox}
+     * ({minRow, minCol, maxRow, maxCol}).
+     *
+     * @param boundingBox A caixa delimitadora.
+     * @return A soma dos pixels na caixa.
+     */
+    public long sum(int[] boundingBox) {
+        return sum(boundingBox[0], boundingBox[1], boundingBox[2], boundingBox[3]);
+    }
+
+    /**
+     * Calcula a soma dos quadrados dos pixels no retângulo de (row0, col0) a (row1, col1), inclusive.
+     *
+     * @return A soma dos quadrados no retângulo.
+     */
+    public long sumOfSquares(int row0, int col0, int row1, int col1) {
+        if (sqsum == null)
+            throw new IllegalStateException("Integral image was built without squares");
+        return rect(sqsum, row0, col0, row1, col1);
+    }
+
+    /**
+     * @return A quantidade de pixels da imagem dentro do retângulo, após o recorte.
+     */
+    public int count(int row0, int col0, int row1, int col1) {
+        int h = Math.min(row1, height - 1) - Math.max(row0, 0) + 1;
+        int w = Math.min(col1, width - 1) - Math.max(col0, 0) + 1;
+        return h <= 0 || w <= 0 ? 0 : h * w;
+    }
+
+    /**
+     * Calcula a média dos pixels no retângulo de (row0, col0) a (row1, col1), inclusive.
+     *
+     * @return A média dos pixels, ou 0 se o retângulo estiver fora da imagem.
+     */
+    public double mean(int row0, int col0, int row1, int col1) {
+        int n = count(row0, col0, row1, col1);
+        return n == 0 ? 0 : sum(row0, col0, row1, col1) / (double) n;
+    }
+
+    /**
+     * Calcula a variância (populacional) dos pixels no retângulo de (row0, col0) a (row1, col1), inclusive.
+     *
+     * @return A variância dos pixels, ou 0 se o retângulo estiver fora da imagem.
+     */
+    public double variance(int row0, int col0, int row1, int col1) {
+        int n = count(row0, col0, row1, col1);
+        if (n == 0)
+            return 0;
+        double s = sum(row0, col0, row1, col1);
+        double sq = sumOfSquares(row0, col0, row1, col1);
+        return Math.max(0, (sq - s * s / n) / n);
+    }
+
+    private long rect(long[] table, int row0, int col0, int row1, int col1) {
+        int r0 = Math.max(row0, 0), c0 = Math.max(col0, 0);
+        int r1 = Math.min(row1, height - 1) + 1, c1 = Math.min(col1, width - 1) + 1;
+        if (r1 <= r0 || c1 <= c0)
+            return 0;
+        return table[r1 * stride + c1] - table[r0 * stride + c1] - table[r1 * stride + c0] + table[r0 * stride + c0];
+    }
+}
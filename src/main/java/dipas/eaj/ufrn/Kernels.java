@@ -0,0 +1,68 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Núcleos aritméticos sobre trechos de vetores usados por Image (soma, subtração, conversão para cinza e
+ * limiarização). Há duas implementações com resultados idênticos: {@link ScalarKernels}, sempre disponível, e
+ * VectorKernels, que usa a Vector API (jdk.incubator.vector) e é compilada separadamente para o Java 17.
+ * A implementação vetorial é carregada por reflexão apenas quando o módulo está presente na JVM
+ * (--add-modules jdk.incubator.vector); senão, ou com a propriedade de sistema imaj.simd=false, é usada a escalar.
+ * Os trechos são dados pelo vetor, pela posição inicial e, quando os elementos não são consecutivos, pelo passo.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+interface Kernels {
+
+    /**
+     * Implementação escalar.
+     */
+    Kernels SCALAR = new ScalarKernels();
+
+    /**
+     * Implementação em uso: vetorial, se disponível, ou escalar.
+     */
+    Kernels INSTANCE = load();
+
+    /**
+     * out[k] = a[k] + b[k] (ou a[k] - b[k]), para n posições a partir de ao, bo e oo.
+     */
+    void add(int[] a, int ao, int[] b, int bo, int[] out, int oo, int n, boolean subtract);
+
+    /**
+     * Como add, com o resultado saturado em [0, 255].
+     */
+    void addSaturated(int[] a, int ao, int[] b, int bo, int[] out, int oo, int n, boolean subtract);
+
+    /**
+     * Tons de cinza (ver {@link ColorConversion#gray(int, int, int)}) de n pixels: os canais do pixel p estão em
+     * src[r + p * step], src[g + p * step] e src[b + p * step], e o resultado vai para out[oo + p].
+     */
+    void gray(int[] src, int r, int g, int b, int step, int[] out, int oo, int n);
+
+    /**
+     * out[oo + p] = src[so + p * step] &gt; limiar (ou &lt; limiar, se maior for falso), para n pixels.
+     */
+    void threshold(int[] src, int so, int step, int limiar, boolean maior, boolean[] out, int oo, int n);
+
+    /**
+     * Como threshold, com 1 para verdadeiro e 0 para falso.
+     */
+    void threshold(int[] src, int so, int step, int limiar, boolean maior, int[] out, int oo, int n);
+
+    /**
+     * @return O nome da implementação.
+     */
+    String name();
+
+    private static Kernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("imaj.simd", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return SCALAR;
+        try {
+            return (Kernels) Class.forName("dipas.eaj.ufrn.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Compilado sem a implementação vetorial (JDK anterior ao 17)
+            return SCALAR;
+        }
+    }
+}
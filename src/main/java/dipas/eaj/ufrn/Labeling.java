@@ -0,0 +1,241 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+/**
+ * Classe abstrata Labeling, que rotula componentes conexos de imagens binárias em duas passagens,
+ * resolvendo as equivalências entre rótulos com union-find (compressão de caminho e união por posto).
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class Labeling {
+
+    /**
+     * Resultado de uma rotulação: mapa de rótulos consecutivos (1 a count, 0 para o fundo) e quantidade de componentes.
+     */
+    public static class Result {
+        /**
+         * Altura do mapa de rótulos.
+         */
+        public final int height;
+        /**
+         * Largura do mapa de rótulos.
+         */
+        public final int width;
+        /**
+         * Quantidade de componentes conexos encontrados.
+         */
+        public final int count;
+        /**
+         * Rótulos em ordem de linhas, com {@code width} posições por linha.
+         */
+        public final int[] labels;
+
+        Result(int height, int width, int count, int[] labels) {
+            this.height = height;
+            this.width = width;
+            this.count = count;
+            this.labels = labels;
+        }
+
+        /**
+         * @return O rótulo do pixel (row, col).
+         */
+        public int get(int row, int col) {
+            return labels[row * width + col];
+        }
+
+        /**
+         * @return O mapa de rótulos como um array bidimensional de inteiros.
+         */
+        public int[][] toArray() {
+            int[][] im = new int[height][width];
+            for (int i = 0; i < height; i++)
+                System.arraycopy(labels, i * width, im[i], 0, width);
+            return im;
+        }
+
+        /**
+         * @return O mapa de rótulos como uma imagem compactada de um canal, compartilhando o vetor de rótulos.
+         */
+        public PackedImage toPacked() {
+            return PackedImage.wrap(labels, height, width, 1);
+        }
+    }
+
+    /**
+     * Rotula os componentes conexos de uma imagem binária.
+     *
+     * @param im A imagem binária de entrada.
+     * @param connectivity A conectividade, 4 ou 8.
+     * @return O mapa de rótulos e a quantidade de componentes.
+     */
+    public static Result label(boolean[][] im, int connectivity) {
+        return label((i, buffer) -> im[i], im.length, im.length == 0 ? 0 : im[0].length, connectivity);
+    }
+
+    /**
+     * Rotula os componentes conexos de uma imagem binária compactada (diferente de zero é região).
+     *
+     * @param im A imagem binária compactada.
+     * @param connectivity A conectividade, 4 ou 8.
+     * @return O mapa de rótulos e a quantidade de componentes.
+     */
+    public static Result label(PackedImage im, int connectivity) {
+        int step = im.pixelStep();
+        return label((i, buffer) -> {
+            for (int j = 0, k = i * im.stride; j < im.width; j++, k += step)
+                buffer[j] = im.data[k] != 0;
+            return buffer;
+        }, im.height, im.width, connectivity);
+    }
+
+    private interface RowSource {
+        boolean[] row(int i, boolean[] buffer);
+    }
+
+    private static Result label(RowSource source, int height, int width, int connectivity) {
+        if (connectivity != 4 && connectivity != 8)
+            throw new IllegalArgumentException("Connectivity must be 4 or 8: " + connectivity);
+
+        int[] lab = new int[height * width];
+        Equivalences eq = new Equivalences(Math.max(16, width));
+        boolean[] buffer = new boolean[width];
+
+        // Primeira passagem: rótulos provisórios e registro das equivalências
+        for (int i = 0; i < height; i++) {
+            boolean[] row = source.row(i, buffer);
+            int k = i * width;
+            int up = k - width;
+            for (int j = 0; j < width; j++, k++, up++) {
+                if (!row[j])
+                    continue;
+
+                int n = i > 0 ? lab[up] : 0;
+                int w = j > 0 ? lab[k - 1] : 0;
+
+                if (connectivity == 4) {
+                    if (n != 0) {
+                        lab[k] = n;
+                        if (w != 0 && w != n)
+                            eq.union(n, w);
+                    } else if (w != 0) {
+                        lab[k] = w;
+                    } else {
+                        lab[k] = eq.newLabel();
+                    }
+                    continue;
+                }
+
+                // Conectividade 8: se o vizinho de cima é região, os demais já são equivalentes a ele
+                if (n != 0) {
+                    lab[k] = n;
+                    continue;
+                }
+                int nw = i > 0 && j > 0 ? lab[up - 1] : 0;
+                int ne = i > 0 && j < width - 1 ? lab[up + 1] : 0;
+                if (nw != 0) {
+                    lab[k] = nw;
+                    if (ne != 0 && ne != nw)
+                        eq.union(nw, ne);
+                } else if (w != 0) {
+                    lab[k] = w;
+                    if (ne != 0 && ne != w)
+                        eq.union(w, ne);
+                } else if (ne != 0) {
+                    lab[k] = ne;
+                } else {
+                    lab[k] = eq.newLabel();
+                }
+            }
+        }
+
+        // Resolução das equivalências em rótulos consecutivos, na ordem de aparição
+        ImagePhaseEvent event = new ImagePhaseEvent();
+        event.begin();
+        int[] table = eq.flatten();
+        int count = eq.components;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "Labeling";
+            event.phase = "equivalences";
+            event.count = count;
+            event.commit();
+        }
+
+        // Segunda passagem: substituição dos rótulos provisórios
+        for (int k = 0; k < lab.length; k++)
+            lab[k] = table[lab[k]];
+
+        return new Result(height, width, count, lab);
+    }
+
+    /**
+     * Conjunto disjunto de rótulos provisórios, com compressão de caminho e união por posto.
+     */
+    private static final class Equivalences {
+        private int[] parent;
+        private byte[] rank;
+        private int size;
+        private int components;
+
+        Equivalences(int capacity) {
+            parent = new int[capacity];
+            rank = new byte[capacity];
+            size = 1;
+        }
+
+        int newLabel() {
+            if (size == parent.length) {
+                int capacity = parent.length * 2;
+                parent = Arrays.copyOf(parent, capacity);
+                rank = Arrays.copyOf(rank, capacity);
+            }
+            parent[size] = size;
+            return size++;
+        }
+
+        int find(int x) {
+            int root = x;
+            while (parent[root] != root)
+                root = parent[root];
+            while (parent[x] != root) {
+                int next = parent[x];
+                parent[x] = root;
+                x = next;
+            }
+            return root;
+        }
+
+        void union(int a, int b) {
+            int ra = find(a), rb = find(b);
+            if (ra == rb)
+                return;
+            if (rank[ra] < rank[rb]) {
+                parent[ra] = rb;
+            } else if (rank[ra] > rank[rb]) {
+                parent[rb] = ra;
+            } else {
+                parent[rb] = ra;
+                rank[ra]++;
+            }
+        }
+
+        /**
+         * @return Tabela que leva cada rótulo provisório ao rótulo final (0 leva a 0).
+         */
+        int[] flatten() {
+            int[] table = new int[size];
+            int[] finalOfRoot = new int[size];
+            components = 0;
+            for (int l = 1; l < size; l++) {
+                int root = find(l);
+                if (finalOfRoot[root] == 0)
+                    finalOfRoot[root] = ++components;
+                table[l] = finalOfRoot[root];
+            }
+            return table;
+        }
+    }
+}
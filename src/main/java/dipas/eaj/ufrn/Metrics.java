@@ -0,0 +1,482 @@
+package dipas.eaj.ufrn;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe abstrata Metrics, a instrumentação opcional das operações de Image. Quando habilitada, cada chamada registra
+ * a quantidade de chamadas, um histograma de latência (faixas de potências de 2 em nanossegundos), os pixels
+ * processados e os bytes alocados pela thread que chamou a operação (as threads de {@link Parallel} não entram nessa
+ * conta). Chamadas feitas de dentro de outra operação instrumentada, na mesma thread, não são registradas
+ * separadamente.
+ * Cada chamada também emite um {@link ImageOperationEvent} quando há uma gravação do JDK Flight Recorder que o
+ * habilita, mesmo com a instrumentação desabilitada.
+ * Desabilitada (o padrão) e sem gravação, start retorna uma amostra vazia e o custo é o de duas leituras de campo.
+ * A propriedade de sistema imaj.metrics=true habilita a instrumentação na inicialização, e imaj.metrics=console
+ * também imprime cada amostra (ver {@link #CONSOLE}). Os dados podem ser lidos com {@link #snapshot()}, por
+ * ouvintes ({@link Listener}) ou por JMX ({@link #registerMBean()}).
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class Metrics {
+
+    /**
+     * Nome do MBean registrado por {@link #registerMBean()}.
+     */
+    public static final String OBJECT_NAME = "dipas.eaj.ufrn:type=Metrics";
+
+    /**
+     * Ouvinte das amostras registradas.
+     */
+    public interface Listener {
+        /**
+         * Chamado na thread da operação, ao final de cada chamada registrada.
+         *
+         * @param operation O nome da operação.
+         * @param nanos A duração, em nanossegundos.
+         * @param pixels Os pixels processados (0 se desconhecido).
+         * @param allocatedBytes Os bytes alocados pela thread (-1 se a JVM não informar).
+         */
+        void sampled(String operation, long nanos, long pixels, long allocatedBytes);
+    }
+
+    /**
+     * Ouvinte que imprime cada amostra no console.
+     */
+    public static final Listener CONSOLE = (operation, nanos, pixels, allocatedBytes) ->
+            System.out.println(String.format("%s: %.3f ms, %d pixels", operation, nanos / 1e6, pixels));
+
+    /**
+     * Amostra de uma chamada em andamento.
+     */
+    public static class Sample {
+        private final String name;
+        private final Operation operation;
+        private final ImageOperationEvent event;
+        private final long start, allocatedStart;
+        private int height, width, channels;
+
+        private Sample() {
+            this.name = null;
+            this.operation = null;
+            this.event = null;
+            this.start = 0;
+            this.allocatedStart = -1;
+        }
+
+        Sample(String name, Operation operation, ImageOperationEvent event, int height, int width, int channels) {
+            this.name = name;
+            this.operation = operation;
+            this.event = event;
+            this.height = height;
+            this.width = width;
+            this.channels = channels;
+            this.allocatedStart = allocatedBytes();
+            this.start = System.nanoTime();
+            if (event != null)
+                event.begin();
+        }
+
+        /**
+         * Informa o tamanho da imagem, quando ele só é conhecido durante a operação (como em imRead).
+         *
+         * @param height A altura.
+         * @param width A largura.
+         */
+        public void setSize(int height, int width) {
+            this.height = height;
+            this.width = width;
+        }
+
+        /**
+         * Informa o tamanho e a quantidade de canais da imagem, quando eles só são conhecidos durante a operação.
+         *
+         * @param height A altura.
+         * @param width A largura.
+         * @param channels A quantidade de canais.
+         */
+        public void setSize(int height, int width, int channels) {
+            setSize(height, width);
+            this.channels = channels;
+        }
+
+        /**
+         * Encerra a amostra e a registra.
+         */
+        public void stop() {
+            long nanos = System.nanoTime() - start;
+            ACTIVE.remove();
+            long allocated = allocatedStart < 0 ? -1 : allocatedBytes() - allocatedStart;
+            long pixels = (long) height * width;
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = name;
+                    event.height = height;
+                    event.width = width;
+                    event.channels = channels;
+                    event.allocatedBytes = allocated;
+                    event.commit();
+                }
+            }
+            if (operation == null)
+                return;
+            operation.record(nanos, pixels, allocated);
+            for (Listener listener : LISTENERS)
+                listener.sampled(name, nanos, pixels, allocated);
+        }
+    }
+
+    private static final Sample NOOP = new Sample() {
+        @Override
+        public void setSize(int height, int width) {
+        }
+
+        @Override
+        public void setSize(int height, int width, int channels) {
+        }
+
+        @Override
+        public void stop() {
+        }
+    };
+
+    private static final ThreadLocal<Sample> ACTIVE = new ThreadLocal<>();
+    private static final Map<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static volatile boolean enabled;
+
+    static {
+        String property = System.getProperty("imaj.metrics", "");
+        if (property.equalsIgnoreCase("console"))
+            LISTENERS.add(CONSOLE);
+        enabled = property.equalsIgnoreCase("true") || property.equalsIgnoreCase("console");
+    }
+
+    /**
+     * Habilita ou desabilita a instrumentação.
+     *
+     * @param enabled true para registrar as operações.
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * @return true se a instrumentação estiver habilitada.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Inicia a amostra de uma operação de tamanho desconhecido.
+     *
+     * @param operation O nome da operação.
+     * @return A amostra, que deve ser encerrada com stop (uma amostra vazia se a instrumentação estiver desabilitada
+     * e não houver gravação do JFR, ou se já houver uma operação registrada em andamento na thread).
+     */
+    public static Sample start(String operation) {
+        return begin(operation, 0, 0, 0);
+    }
+
+    /**
+     * Inicia a amostra de uma operação sobre uma imagem colorida.
+     *
+     * @param operation O nome da operação.
+     * @param im A imagem.
+     * @return A amostra.
+     */
+    public static Sample start(String operation, int[][][] im) {
+        int width = im.length == 0 ? 0 : im[0].length;
+        return begin(operation, im.length, width, width == 0 ? 3 : im[0][0].length);
+    }
+
+    /**
+     * Inicia a amostra de uma operação sobre uma imagem em tons de cinza.
+     *
+     * @param operation O nome da operação.
+     * @param im A imagem.
+     * @return A amostra.
+     */
+    public static Sample start(String operation, int[][] im) {
+        return begin(operation, im.length, im.length == 0 ? 0 : im[0].length, 1);
+    }
+
+    /**
+     * Inicia a amostra de uma operação sobre uma imagem binária.
+     *
+     * @param operation O nome da operação.
+     * @param im A imagem.
+     * @return A amostra.
+     */
+    public static Sample start(String operation, boolean[][] im) {
+        return begin(operation, im.length, im.length == 0 ? 0 : im[0].length, 1);
+    }
+
+    /**
+     * Inicia a amostra de uma operação sobre uma imagem compactada.
+     *
+     * @param operation O nome da operação.
+     * @param im A imagem.
+     * @return A amostra.
+     */
+    public static Sample start(String operation, PackedImage im) {
+        return begin(operation, im.height, im.width, im.channels);
+    }
+
+    /**
+     * Inicia a amostra de uma operação sobre uma imagem de 8 bits.
+     *
+     * @param operation O nome da operação.
+     * @param im A imagem.
+     * @return A amostra.
+     */
+    public static Sample start(String operation, ByteImage im) {
+        return begin(operation, im.height, im.width, im.channels);
+    }
+
+    /**
+     * Inicia a amostra de uma operação sobre uma máscara de bits.
+     *
+     * @param operation O nome da operação.
+     * @param im A máscara.
+     * @return A amostra.
+     */
+    public static Sample start(String operation, BitMask im) {
+        return begin(operation, im.height, im.width, 1);
+    }
+
+    private static Sample begin(String name, int height, int width, int channels) {
+        boolean recording = ImageOperationEvent.isRecording();
+        if (!enabled && !recording || ACTIVE.get() != null)
+            return NOOP;
+        Sample sample = new Sample(name, enabled ? OPERATIONS.computeIfAbsent(name, Operation::new) : null,
+                recording ? new ImageOperationEvent() : null, height, width, channels);
+        ACTIVE.set(sample);
+        return sample;
+    }
+
+    /**
+     * Adiciona um ouvinte.
+     *
+     * @param listener O ouvinte.
+     */
+    public static void addListener(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Remove um ouvinte.
+     *
+     * @param listener O ouvinte.
+     */
+    public static void removeListener(Listener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Descarta os dados registrados.
+     */
+    public static void reset() {
+        OPERATIONS.clear();
+    }
+
+    /**
+     * @return Os dados registrados de cada operação, em ordem alfabética.
+     */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> out = new ArrayList<>();
+        for (Operation op : new TreeMap<>(OPERATIONS).values())
+            out.add(new Snapshot(op));
+        return out;
+    }
+
+    /**
+     * @param operation O nome da operação.
+     * @return Os dados registrados da operação, ou null se ela não foi chamada.
+     */
+    public static Snapshot snapshot(String operation) {
+        Operation op = OPERATIONS.get(operation);
+        return op == null ? null : new Snapshot(op);
+    }
+
+    /**
+     * Registra o MBean de {@link #OBJECT_NAME} no servidor de MBeans da plataforma (se ainda não registrado).
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // já registrado
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics MBean: " + e.getMessage(), e);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled())
+                return threads;
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Acumuladores de uma operação.
+     */
+    private static final class Operation {
+        final String name;
+        final LongAdder count = new LongAdder(), nanos = new LongAdder(), pixels = new LongAdder();
+        final LongAdder allocated = new LongAdder();
+        final AtomicLongArray histogram = new AtomicLongArray(64);
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, long pixels, long allocated) {
+            count.increment();
+            this.nanos.add(nanos);
+            this.pixels.add(pixels);
+            if (allocated > 0)
+                this.allocated.add(allocated);
+            histogram.incrementAndGet(63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+        }
+    }
+
+    /**
+     * Dados registrados de uma operação. O histograma tem 64 faixas: a faixa b conta as chamadas com duração em
+     * [2^b, 2^(b+1)) nanossegundos.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long count, totalNanos, pixels, allocatedBytes;
+        private final long[] histogram = new long[64];
+
+        Snapshot(Operation op) {
+            this.name = op.name;
+            this.count = op.count.sum();
+            this.totalNanos = op.nanos.sum();
+            this.pixels = op.pixels.sum();
+            this.allocatedBytes = op.allocated.sum();
+            for (int b = 0; b < 64; b++)
+                histogram[b] = op.histogram.get(b);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        public long getPixels() {
+            return pixels;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        public long getP50Nanos() {
+            return percentile(0.5);
+        }
+
+        public long getP99Nanos() {
+            return percentile(0.99);
+        }
+
+        /**
+         * @param p A fração, entre 0 e 1.
+         * @return O limite superior da faixa do histograma que contém o percentil.
+         */
+        public long percentile(double p) {
+            long total = 0;
+            for (long n : histogram)
+                total += n;
+            long target = (long) Math.ceil(p * total), seen = 0;
+            for (int b = 0; b < 64; b++) {
+                seen += histogram[b];
+                if (seen >= target && seen > 0)
+                    return b >= 62 ? Long.MAX_VALUE : (2L << b) - 1;
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d calls, mean %.3f ms, p99 < %.3f ms, %d pixels, %d bytes", name, count,
+                    getMeanNanos() / 1e6, getP99Nanos() / 1e6, pixels, allocatedBytes);
+        }
+    }
+
+    /**
+     * Interface de gerenciamento exposta por JMX.
+     */
+    public interface MetricsMXBean {
+        boolean isEnabled();
+
+        void setEnabled(boolean enabled);
+
+        List<Snapshot> getOperations();
+
+        void reset();
+    }
+
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        @Override
+        public List<Snapshot> getOperations() {
+            return snapshot();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
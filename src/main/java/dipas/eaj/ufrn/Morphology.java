@@ -0,0 +1,256 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Classe abstrata Morphology, que implementa erosão e dilatação binárias com custo por pixel independente do
+ * tamanho do elemento estruturante. Cada elemento é decomposto em segmentos de reta (horizontal, vertical e
+ * diagonais), e cada segmento é aplicado em uma varredura que guarda, para cada linha de varredura, a posição
+ * do último pixel que decide o resultado (falso na erosão, verdadeiro na dilatação).
+ * Pixels fora da imagem são ignorados, como em Image.bwErode e Image.bwDilate.
+ * Imagens grandes são processadas em faixas de linhas paralelas (ver {@link Parallel}); cada faixa é processada
+ * com uma margem de linhas igual ao alcance vertical do elemento, de modo que o resultado não depende da divisão.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class Morphology {
+
+    /**
+     * Formato do elemento estruturante, com diâmetro tam (raio tam / 2).
+     */
+    public enum Shape {
+        /**
+         * Quadrado tam x tam.
+         */
+        SQUARE,
+        /**
+         * Cruz formada por uma linha horizontal e uma vertical de comprimento tam.
+         */
+        CROSS,
+        /**
+         * Octógono que aproxima um disco de diâmetro tam, decomposto em quatro segmentos de reta.
+         */
+        DISK
+    }
+
+    private static final int VERTICAL = 0, DIAGONAL = 1, ANTIDIAGONAL = 2;
+
+    /**
+     * Executa a erosão binária com o elemento estruturante informado.
+     *
+     * @param bw A imagem binária.
+     * @param shape O formato do elemento estruturante.
+     * @param tam O diâmetro do elemento estruturante.
+     * @return A imagem erodida.
+     */
+    public static boolean[][] erode(boolean[][] bw, Shape shape, int tam) {
+        return bands(bw, tam / 2, im -> apply(im, true, shape, tam, null));
+    }
+
+    /**
+     * Executa a dilatação binária com o elemento estruturante informado.
+     *
+     * @param bw A imagem binária.
+     * @param shape O formato do elemento estruturante.
+     * @param tam O diâmetro do elemento estruturante.
+     * @return A imagem dilatada.
+     */
+    public static boolean[][] dilate(boolean[][] bw, Shape shape, int tam) {
+        return bands(bw, tam / 2, im -> apply(im, false, shape, tam, null));
+    }
+
+    /**
+     * Executa a erosão binária com um retângulo height x width (raios height / 2 e width / 2).
+     *
+     * @param bw A imagem binária.
+     * @param height A altura do retângulo.
+     * @param width A largura do retângulo.
+     * @return A imagem erodida.
+     */
+    public static boolean[][] erodeRect(boolean[][] bw, int height, int width) {
+        return bands(bw, height / 2, im -> {
+            horizontal(im, width / 2, true);
+            line(im, height / 2, VERTICAL, true);
+        });
+    }
+
+    /**
+     * Executa a dilatação binária com um retângulo height x width (raios height / 2 e width / 2).
+     *
+     * @param bw A imagem binária.
+     * @param height A altura do retângulo.
+     * @param width A largura do retângulo.
+     * @return A imagem dilatada.
+     */
+    public static boolean[][] dilateRect(boolean[][] bw, int height, int width) {
+        return bands(bw, height / 2, im -> {
+            horizontal(im, width / 2, false);
+            line(im, height / 2, VERTICAL, false);
+        });
+    }
+
+    /**
+     * Aplica a abertura (erosão seguida de dilatação), alocando apenas a imagem de saída
+     * (e um único buffer auxiliar por faixa para a cruz).
+     *
+     * @param bw A imagem binária.
+     * @param shape O formato do elemento estruturante.
+     * @param tam O diâmetro do elemento estruturante.
+     * @return A imagem resultante da abertura.
+     */
+    public static boolean[][] open(boolean[][] bw, Shape shape, int tam) {
+        return bands(bw, 2 * (tam / 2), im -> {
+            boolean[][] scratch = shape == Shape.CROSS ? new boolean[im.length][im[0].length] : null;
+            apply(im, true, shape, tam, scratch);
+            apply(im, false, shape, tam, scratch);
+        });
+    }
+
+    /**
+     * Aplica o fechamento (dilatação seguida de erosão), alocando apenas a imagem de saída
+     * (e um único buffer auxiliar por faixa para a cruz).
+     *
+     * @param bw A imagem binária.
+     * @param shape O formato do elemento estruturante.
+     * @param tam O diâmetro do elemento estruturante.
+     * @return A imagem resultante do fechamento.
+     */
+    public static boolean[][] close(boolean[][] bw, Shape shape, int tam) {
+        return bands(bw, 2 * (tam / 2), im -> {
+            boolean[][] scratch = shape == Shape.CROSS ? new boolean[im.length][im[0].length] : null;
+            apply(im, false, shape, tam, scratch);
+            apply(im, true, shape, tam, scratch);
+        });
+    }
+
+    /**
+     * Copia a imagem em faixas de linhas com halo linhas de margem, aplica a operação (no próprio array) a cada
+     * faixa e monta a saída com as linhas centrais de cada uma. As linhas da margem, que podem ter sido afetadas
+     * pelo corte da faixa, são descartadas.
+     */
+    static boolean[][] bands(boolean[][] bw, int halo, Consumer<boolean[][]> op) {
+        int h = bw.length, w = bw[0].length;
+        boolean[][] out = new boolean[h][];
+        Parallel.forBands(h, w, halo, (from, to, haloFrom, haloTo) -> {
+            boolean[][] part = new boolean[haloTo - haloFrom][];
+            for (int i = haloFrom; i < haloTo; i++)
+                part[i - haloFrom] = Arrays.copyOf(bw[i], w);
+            op.accept(part);
+            for (int i = from; i < to; i++)
+                out[i] = part[i - haloFrom];
+        });
+        return out;
+    }
+
+    /**
+     * Aplica a erosão (ou dilatação) no próprio array.
+     */
+    static void apply(boolean[][] im, boolean erode, Shape shape, int tam, boolean[][] scratch) {
+        int r = tam / 2;
+        if (r <= 0)
+            return;
+        switch (shape) {
+            case SQUARE:
+                horizontal(im, r, erode);
+                line(im, r, VERTICAL, erode);
+                break;
+            case CROSS:
+                if (scratch == null)
+                    scratch = new boolean[im.length][im[0].length];
+                for (int i = 0; i < im.length; i++)
+                    System.arraycopy(im[i], 0, scratch[i], 0, im[i].length);
+                horizontal(im, r, erode);
+                line(scratch, r, VERTICAL, erode);
+                for (int i = 0; i < im.length; i++) {
+                    boolean[] a = im[i], b = scratch[i];
+                    if (erode)
+                        for (int j = 0; j < a.length; j++) a[j] &= b[j];
+                    else
+                        for (int j = 0; j < a.length; j++) a[j] |= b[j];
+                }
+                break;
+            case DISK:
+                // Octógono = linha horizontal + vertical (raio a) somadas às duas diagonais (raio b),
+                // com a + 2b = r ao longo dos eixos e (a + b) * sqrt(2) = r ao longo das diagonais
+                // (a >= 1 mantém a soma conexa; só diagonais cobririam apenas metade da grade)
+                int b = (int) Math.round(r * (1 - Math.sqrt(0.5)));
+                if (r - 2 * b < 1)
+                    b = (r - 1) / 2;
+                int a = r - 2 * b;
+                horizontal(im, a, erode);
+                line(im, a, VERTICAL, erode);
+                line(im, b, DIAGONAL, erode);
+                line(im, b, ANTIDIAGONAL, erode);
+                break;
+        }
+    }
+
+    /**
+     * Segmento horizontal de raio r, linha a linha, usando um buffer do tamanho de uma linha.
+     */
+    static void horizontal(boolean[][] im, int r, boolean erode) {
+        if (r <= 0)
+            return;
+        boolean target = !erode;
+        int w = im[0].length;
+        boolean[] line = new boolean[w];
+        for (boolean[] row : im) {
+            System.arraycopy(row, 0, line, 0, w);
+            int last = Integer.MIN_VALUE / 2;
+            for (int h = 0; h < r && h < w; h++)
+                if (line[h] == target)
+                    last = h;
+            for (int j = 0; j < w; j++) {
+                int h = j + r;
+                if (h < w && line[h] == target)
+                    last = h;
+                row[j] = last >= j - r ? target : !target;
+            }
+        }
+    }
+
+    /**
+     * Segmento vertical ou diagonal de raio r. As linhas da imagem são lidas uma vez, r linhas à frente da linha
+     * escrita, o que permite escrever o resultado no próprio array.
+     */
+    static void line(boolean[][] im, int r, int direction, boolean erode) {
+        if (r <= 0)
+            return;
+        boolean target = !erode;
+        int h = im.length, w = im[0].length;
+        int[] last = new int[direction == VERTICAL ? w : h + w - 1];
+        Arrays.fill(last, Integer.MIN_VALUE / 2);
+
+        for (int head = 0; head < r && head < h; head++)
+            mark(im[head], head, h, direction, target, last);
+
+        for (int i = 0; i < h; i++) {
+            int head = i + r;
+            if (head < h)
+                mark(im[head], head, h, direction, target, last);
+            boolean[] row = im[i];
+            int limit = i - r;
+            for (int j = 0; j < w; j++)
+                row[j] = last[key(i, j, h, direction)] >= limit ? target : !target;
+        }
+    }
+
+    private static void mark(boolean[] row, int i, int h, int direction, boolean target, int[] last) {
+        for (int j = 0; j < row.length; j++)
+            if (row[j] == target)
+                last[key(i, j, h, direction)] = i;
+    }
+
+    private static int key(int i, int j, int h, int direction) {
+        switch (direction) {
+            case VERTICAL:
+                return j;
+            case DIAGONAL:
+                return j - i + h - 1;
+            default:
+                return i + j;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+/**
+ * Classe abstrata Neighbourhood, que classifica os pixels de uma imagem binária pela sua vizinhança 3x3.
+ * Cada linha é percorrida com uma janela deslizante de 9 bits (três colunas de três pixels), atualizada com um
+ * deslocamento por pixel e consultada diretamente em uma tabela de 512 posições por tipo de ponto, sem alocações.
+ * O código de 8 bits da vizinhança é o mesmo de Image.neighbourWeight
+ * (N = 1, NE = 2, L = 4, SE = 8, S = 16, SO = 32, O = 64, NO = 128).
+ * Como em Image.bwEndPoints, os pixels da primeira e da última linha e coluna não são avaliados.
+ * Imagens grandes são processadas em paralelo, em faixas de linhas (ver {@link Parallel}).
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class Neighbourhood {
+
+    /**
+     * Tipos de ponto reconhecidos pela vizinhança 3x3 de um pixel verdadeiro.
+     */
+    public enum Feature {
+        /**
+         * Ponto final: um único vizinho, ou dois vizinhos adjacentes.
+         */
+        END_POINT,
+        /**
+         * Ponto de ramificação: três ou mais transições de falso para verdadeiro ao redor do pixel.
+         */
+        BRANCH_POINT,
+        /**
+         * Ponto isolado: nenhum vizinho.
+         */
+        ISOLATED_POINT
+    }
+
+    private static final int[] END_POINTS = {1, 2, 4, 8, 16, 32, 64, 128, 3, 6, 12, 24, 48, 96, 192, 129};
+    private static final int[] CODE = new int[512];
+    private static final boolean[][] TABLES = new boolean[Feature.values().length][512];
+
+    static {
+        boolean[] end = new boolean[256];
+        for (int code : END_POINTS)
+            end[code] = true;
+        for (int window = 0; window < 512; window++) {
+            int code = code(window);
+            CODE[window] = code;
+            if ((window & 0x10) == 0)
+                continue;
+            TABLES[Feature.END_POINT.ordinal()][window] = end[code];
+            TABLES[Feature.BRANCH_POINT.ordinal()][window] = transitions(code) >= 3;
+            TABLES[Feature.ISOLATED_POINT.ordinal()][window] = code == 0;
+        }
+    }
+
+    /**
+     * Janela de 9 bits: coluna esquerda nos bits 6 a 8, central nos bits 3 a 5 e direita nos bits 0 a 2,
+     * com o pixel de cima no bit menos significativo de cada coluna.
+     */
+    private static int code(int window) {
+        return (window >> 3 & 1)         // N
+                | (window & 1) << 1      // NE
+                | (window >> 1 & 1) << 2 // L
+                | (window >> 2 & 1) << 3 // SE
+                | (window >> 5 & 1) << 4 // S
+                | (window >> 8 & 1) << 5 // SO
+                | (window >> 7 & 1) << 6 // O
+                | (window >> 6 & 1) << 7;// NO
+    }
+
+    /**
+     * Quantidade de transições de falso para verdadeiro na sequência circular N, NE, L, SE, S, SO, O, NO.
+     */
+    private static int transitions(int code) {
+        int n = 0;
+        for (int b = 0; b < 8; b++)
+            if ((code >> b & 1) == 0 && (code >> ((b + 1) & 7) & 1) == 1)
+                n++;
+        return n;
+    }
+
+    private static int column(boolean[] up, boolean[] mid, boolean[] down, int j) {
+        return (up[j] ? 1 : 0) | (mid[j] ? 2 : 0) | (down[j] ? 4 : 0);
+    }
+
+    /**
+     * Calcula o código de vizinhança (o peso de Image.neighbourWeight) do pixel interno (i, j).
+     *
+     * @param bw A imagem binária.
+     * @param i A linha do pixel.
+     * @param j A coluna do pixel.
+     * @return O código de 8 bits da vizinhança.
+     */
+    public static int code(boolean[][] bw, int i, int j) {
+        boolean[] up = bw[i - 1], mid = bw[i], down = bw[i + 1];
+        return CODE[column(up, mid, down, j - 1) << 6 | column(up, mid, down, j) << 3 | column(up, mid, down, j + 1)];
+    }
+
+    /**
+     * Marca os pixels verdadeiros cuja vizinhança corresponde ao tipo de ponto informado.
+     *
+     * @param bw A imagem binária.
+     * @param feature O tipo de ponto.
+     * @return A imagem binária com os pontos encontrados.
+     */
+    public static boolean[][] mask(boolean[][] bw, Feature feature) {
+        int h = bw.length, w = bw[0].length;
+        boolean[] table = TABLES[feature.ordinal()];
+        boolean[][] out = new boolean[h][w];
+        if (h < 3 || w < 3)
+            return out;
+        Parallel.forRows(h, w, (from, to) -> {
+            for (int i = Math.max(from, 1), end = Math.min(to, h - 1); i < end; i++) {
+                boolean[] up = bw[i - 1], mid = bw[i], down = bw[i + 1], row = out[i];
+                int window = column(up, mid, down, 0) << 3 | column(up, mid, down, 1);
+                for (int j = 1; j < w - 1; j++) {
+                    window = (window << 3 | column(up, mid, down, j + 1)) & 0x1FF;
+                    row[j] = table[window];
+                }
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Lista os pixels verdadeiros cuja vizinhança corresponde ao tipo de ponto informado, em ordem de varredura.
+     *
+     * @param bw A imagem binária.
+     * @param feature O tipo de ponto.
+     * @return As coordenadas compactadas em um único array: {linha0, coluna0, linha1, coluna1, ...}.
+     */
+    public static int[] points(boolean[][] bw, Feature feature) {
+        int h = bw.length, w = bw[0].length;
+        boolean[] table = TABLES[feature.ordinal()];
+        if (h < 3 || w < 3)
+            return new int[0];
+        return Parallel.reduceRows(h, w, (from, to) -> {
+            int[] found = new int[16];
+            int n = 0;
+            for (int i = Math.max(from, 1), end = Math.min(to, h - 1); i < end; i++) {
+                boolean[] up = bw[i - 1], mid = bw[i], down = bw[i + 1];
+                int window = column(up, mid, down, 0) << 3 | column(up, mid, down, 1);
+                for (int j = 1; j < w - 1; j++) {
+                    window = (window << 3 | column(up, mid, down, j + 1)) & 0x1FF;
+                    if (table[window]) {
+                        if (n + 2 > found.length)
+                            found = Arrays.copyOf(found, found.length * 2);
+                        found[n++] = i;
+                        found[n++] = j;
+                    }
+                }
+            }
+            return Arrays.copyOf(found, n);
+        }, (first, second) -> {
+            // Concatena as faixas na ordem das linhas
+            int[] out = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, out, first.length, second.length);
+            return out;
+        });
+    }
+}
@@ -0,0 +1,326 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Classe PackedImage, que representa uma imagem armazenada em um único vetor contíguo de inteiros.
+ * Os pixels podem ser intercalados (RGBRGB...) ou planares (RR...GG...BB...), e cada linha ocupa
+ * {@code stride} posições do vetor, o que permite envolver buffers externos com preenchimento.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class PackedImage {
+    /**
+     * Disposição dos canais dentro do vetor de dados.
+     */
+    public enum Layout {
+        /**
+         * Canais de um mesmo pixel consecutivos (RGBRGB...).
+         */
+        INTERLEAVED,
+        /**
+         * Um plano completo para cada canal (RR...GG...BB...).
+         */
+        PLANAR
+    }
+
+    /**
+     * Altura da imagem, em pixels.
+     */
+    public final int height;
+    /**
+     * Largura da imagem, em pixels.
+     */
+    public final int width;
+    /**
+     * Quantidade de canais por pixel.
+     */
+    public final int channels;
+    /**
+     * Quantidade de posições do vetor entre o início de duas linhas consecutivas (dentro de um plano, se planar).
+     */
+    public final int stride;
+    /**
+     * Disposição dos canais no vetor.
+     */
+    public final Layout layout;
+    /**
+     * Vetor contíguo contendo os pixels da imagem.
+     */
+    public final int[] data;
+
+    /**
+     * Cria uma imagem intercalada preenchida com zeros.
+     *
+     * @param height Altura da imagem.
+     * @param width Largura da imagem.
+     * @param channels Quantidade de canais.
+     */
+    public PackedImage(int height, int width, int channels) {
+        this(height, width, channels, Layout.INTERLEAVED);
+    }
+
+    /**
+     * Cria uma imagem preenchida com zeros na disposição informada.
+     *
+     * @param height Altura da imagem.
+     * @param width Largura da imagem.
+     * @param channels Quantidade de canais.
+     * @param layout Disposição dos canais.
+     */
+    public PackedImage(int height, int width, int channels, Layout layout) {
+        this(new int[height * width * channels], height, width, channels,
+                layout == Layout.INTERLEAVED ? width * channels : width, layout);
+    }
+
+    /**
+     * Envolve um vetor existente, sem copiá-lo.
+     *
+     * @param data Vetor com os pixels.
+     * @param height Altura da imagem.
+     * @param width Largura da imagem.
+     * @param channels Quantidade de canais.
+     * @param stride Posições do vetor entre o início de duas linhas consecutivas.
+     * @param layout Disposição dos canais.
+     */
+    public PackedImage(int[] data, int height, int width, int channels, int stride, Layout layout) {
+        int minStride = layout == Layout.INTERLEAVED ? width * channels : width;
+        if (height < 0 || width < 0 || channels < 1 || stride < minStride)
+            throw new IllegalArgumentException("Invalid image geometry: " + height + "x" + width + "x" + channels
+                    + " with stride " + stride);
+        long required = layout == Layout.INTERLEAVED ? (long) stride * height : (long) stride * height * channels;
+        if (data.length < required)
+            throw new IllegalArgumentException("Data array too small: " + data.length + " < " + required);
+        this.data = data;
+        this.height = height;
+        this.width = width;
+        this.channels = channels;
+        this.stride = stride;
+        this.layout = layout;
+    }
+
+    /**
+     * Envolve um vetor intercalado e sem preenchimento, sem copiá-lo.
+     *
+     * @param data Vetor com os pixels.
+     * @param height Altura da imagem.
+     * @param width Largura da imagem.
+     * @param channels Quantidade de canais.
+     * @return A imagem que compartilha o vetor informado.
+     */
+    public static PackedImage wrap(int[] data, int height, int width, int channels) {
+        return new PackedImage(data, height, width, channels, width * channels, Layout.INTERLEAVED);
+    }
+
+    /**
+     * @return A distância, em posições do vetor, entre dois pixels vizinhos de uma mesma linha.
+     */
+    public int pixelStep() {
+        return layout == Layout.INTERLEAVED ? channels : 1;
+    }
+
+    /**
+     * @param c O canal.
+     * @return O deslocamento do canal em relação ao início do pixel.
+     */
+    public int channelOffset(int c) {
+        return layout == Layout.INTERLEAVED ? c : c * stride * height;
+    }
+
+    /**
+     * Calcula a posição de um elemento dentro do vetor de dados.
+     *
+     * @param row Linha do pixel.
+     * @param col Coluna do pixel.
+     * @param c Canal.
+     * @return A posição do elemento no vetor.
+     */
+    public int index(int row, int col, int c) {
+        return row * stride + col * pixelStep() + channelOffset(c);
+    }
+
+    /**
+     * @return O valor do canal {@code c} no pixel (row, col).
+     */
+    public int get(int row, int col, int c) {
+        return data[index(row, col, c)];
+    }
+
+    /**
+     * @return O valor do primeiro canal no pixel (row, col).
+     */
+    public int get(int row, int col) {
+        return data[row * stride + col * pixelStep()];
+    }
+
+    /**
+     * Altera o valor do canal {@code c} no pixel (row, col).
+     */
+    public void set(int row, int col, int c, int value) {
+        data[index(row, col, c)] = value;
+    }
+
+    /**
+     * Altera o valor do primeiro canal no pixel (row, col).
+     */
+    public void set(int row, int col, int value) {
+        data[row * stride + col * pixelStep()] = value;
+    }
+
+    /**
+     * @return Verdadeiro se os pixels ocupam o vetor sem preenchimento, na ordem intercalada.
+     */
+    public boolean isContiguous() {
+        return layout == Layout.INTERLEAVED && stride == width * channels;
+    }
+
+    /**
+     * Converte um array tridimensional de inteiros em uma imagem intercalada.
+     *
+     * @param im O array tridimensional de inteiros.
+     * @return A imagem compactada.
+     */
+    public static PackedImage fromArray(int[][][] im) {
+        int height = im.length, width = im[0].length, channels = im[0][0].length;
+        PackedImage packed = new PackedImage(height, width, channels);
+        int[] data = packed.data;
+        int k = 0;
+        for (int i = 0; i < height; i++) {
+            int[][] row = im[i];
+            for (int j = 0; j < width; j++) {
+                System.arraycopy(row[j], 0, data, k, channels);
+                k += channels;
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Converte um array bidimensional de inteiros em uma imagem de um canal.
+     *
+     * @param im O array bidimensional de inteiros.
+     * @return A imagem compactada.
+     */
+    public static PackedImage fromArray(int[][] im) {
+        int height = im.length, width = im[0].length;
+        PackedImage packed = new PackedImage(height, width, 1);
+        for (int i = 0; i < height; i++)
+            System.arraycopy(im[i], 0, packed.data, i * width, width);
+        return packed;
+    }
+
+    /**
+     * Converte uma imagem binária em uma imagem de um canal com valores 0 e 1.
+     *
+     * @param im O array bidimensional de valores lógicos.
+     * @return A imagem compactada.
+     */
+    public static PackedImage fromArray(boolean[][] im) {
+        int height = im.length, width = im[0].length;
+        PackedImage packed = new PackedImage(height, width, 1);
+        int[] data = packed.data;
+        int k = 0;
+        for (int i = 0; i < height; i++) {
+            boolean[] row = im[i];
+            for (int j = 0; j < width; j++)
+                data[k++] = row[j] ? 1 : 0;
+        }
+        return packed;
+    }
+
+    /**
+     * Converte a imagem para um array tridimensional de inteiros.
+     *
+     * @return O array tridimensional com todos os canais.
+     */
+    public int[][][] toArray3() {
+        int[][][] im = new int[height][width][channels];
+        int step = pixelStep();
+        if (layout == Layout.INTERLEAVED) {
+            for (int i = 0; i < height; i++) {
+                int k = i * stride;
+                for (int j = 0; j < width; j++, k += step)
+                    System.arraycopy(data, k, im[i][j], 0, channels);
+            }
+        } else {
+            for (int c = 0; c < channels; c++) {
+                int offset = channelOffset(c);
+                for (int i = 0; i < height; i++) {
+                    int k = offset + i * stride;
+                    for (int j = 0; j < width; j++)
+                        im[i][j][c] = data[k++];
+                }
+            }
+        }
+        return im;
+    }
+
+    /**
+     * Converte o primeiro canal da imagem para um array bidimensional de inteiros.
+     *
+     * @return O array bidimensional.
+     */
+    public int[][] toArray() {
+        int[][] im = new int[height][width];
+        int step = pixelStep();
+        for (int i = 0; i < height; i++) {
+            int[] row = im[i];
+            if (step == 1) {
+                System.arraycopy(data, i * stride, row, 0, width);
+            } else {
+                int k = i * stride;
+                for (int j = 0; j < width; j++, k += step)
+                    row[j] = data[k];
+            }
+        }
+        return im;
+    }
+
+    /**
+     * Converte o primeiro canal da imagem para um array de valores lógicos (diferente de zero é verdadeiro).
+     *
+     * @return O array bidimensional de valores lógicos.
+     */
+    public boolean[][] toBinary() {
+        boolean[][] im = new boolean[height][width];
+        int step = pixelStep();
+        for (int i = 0; i < height; i++) {
+            boolean[] row = im[i];
+            int k = i * stride;
+            for (int j = 0; j < width; j++, k += step)
+                row[j] = data[k] != 0;
+        }
+        return im;
+    }
+
+    /**
+     * Cria uma cópia da imagem na disposição informada, sem preenchimento entre as linhas.
+     *
+     * @param target A disposição desejada.
+     * @return Uma nova imagem com os mesmos pixels.
+     */
+    public PackedImage toLayout(Layout target) {
+        PackedImage out = new PackedImage(height, width, channels, target);
+        if (target == layout && stride == out.stride) {
+            System.arraycopy(data, 0, out.data, 0, out.data.length);
+            return out;
+        }
+        int srcStep = pixelStep(), dstStep = out.pixelStep();
+        for (int c = 0; c < channels; c++) {
+            int srcOffset = channelOffset(c), dstOffset = out.channelOffset(c);
+            for (int i = 0; i < height; i++) {
+                int s = srcOffset + i * stride;
+                int d = dstOffset + i * out.stride;
+                for (int j = 0; j < width; j++, s += srcStep, d += dstStep)
+                    out.data[d] = data[s];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return Uma cópia da imagem na mesma disposição.
+     */
+    public PackedImage copy() {
+        return toLayout(layout);
+    }
+}
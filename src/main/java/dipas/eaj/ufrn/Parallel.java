@@ -0,0 +1,307 @@
+package dipas.eaj.ufrn;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Classe abstrata Parallel, o mecanismo de execução paralela usado pelas operações de Image. O trabalho é dividido
+ * em faixas de linhas (opcionalmente com linhas extras de margem, para operações de vizinhança) ou em blocos
+ * retangulares e executado em um ForkJoinPool. Imagens menores que o limiar sequencial são processadas na própria
+ * thread que chamou a operação.
+ * O paralelismo pode ser alterado globalmente ({@link #setParallelism(int)}) ou apenas durante uma chamada
+ * ({@link #withParallelism(int, Supplier)}).
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class Parallel {
+
+    /**
+     * Limiar sequencial padrão, em pixels.
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 18;
+    // Quantidade de partes por thread, para equilibrar faixas de custo desigual
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Pool criado por esta classe; tarefas aninhadas executadas em um deles continuam usando o mesmo pool.
+     */
+    private static final class EnginePool extends ForkJoinPool {
+        EnginePool(int parallelism) {
+            super(parallelism);
+        }
+    }
+
+    private static final ForkJoinPool SEQUENTIAL = new EnginePool(1);
+    // Pools de withParallelism, um por paralelismo, reaproveitados entre chamadas
+    private static final ConcurrentMap<Integer, ForkJoinPool> LOCAL_POOLS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<ForkJoinPool> LOCAL = new ThreadLocal<>();
+    private static volatile ForkJoinPool global = ForkJoinPool.commonPool();
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    /**
+     * Corpo executado sobre um intervalo [from, to) de linhas (ou de outros índices).
+     */
+    public interface Rows {
+        void run(int from, int to);
+    }
+
+    /**
+     * Corpo executado sobre uma faixa [from, to) de linhas, que pode ler as linhas [haloFrom, haloTo).
+     */
+    public interface Band {
+        void run(int from, int to, int haloFrom, int haloTo);
+    }
+
+    /**
+     * Corpo executado sobre o bloco de linhas [row0, row1) e colunas [col0, col1).
+     */
+    public interface Tile {
+        void run(int row0, int col0, int row1, int col1);
+    }
+
+    /**
+     * Corpo que calcula um resultado parcial sobre um intervalo [from, to).
+     */
+    public interface Partial<T> {
+        T compute(int from, int to);
+    }
+
+    /**
+     * Altera o paralelismo global. Com 1, todas as operações passam a ser sequenciais; com o paralelismo do pool
+     * comum da JVM, volta a ser usado o pool comum. Um pool anterior criado por este método não é encerrado, para não
+     * rejeitar operações que já o obtiveram: ele deixa de receber novas operações e suas threads terminam quando
+     * ficam ociosas, como as dos pools de {@link #withParallelism(int, Supplier)}.
+     *
+     * @param parallelism A quantidade de threads.
+     */
+    public static synchronized void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        if (parallelism == global.getParallelism())
+            return;
+        if (parallelism == 1)
+            global = SEQUENTIAL;
+        else if (parallelism == ForkJoinPool.getCommonPoolParallelism())
+            global = ForkJoinPool.commonPool();
+        else
+            global = new EnginePool(parallelism);
+    }
+
+    /**
+     * @return O paralelismo efetivo para a thread atual.
+     */
+    public static int getParallelism() {
+        return pool().getParallelism();
+    }
+
+    /**
+     * Altera o limiar sequencial: imagens com menos pixels que ele são processadas sem paralelismo.
+     *
+     * @param pixels O limiar, em pixels.
+     */
+    public static void setThreshold(int pixels) {
+        threshold = Math.max(1, pixels);
+    }
+
+    /**
+     * @return O limiar sequencial, em pixels.
+     */
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Executa uma tarefa com um paralelismo próprio, sem alterar a configuração global. O pool de cada paralelismo
+     * é criado na primeira chamada e reaproveitado nas seguintes (suas threads terminam quando ficam ociosas).
+     *
+     * @param parallelism A quantidade de threads usada pelas operações chamadas dentro da tarefa.
+     * @param task A tarefa.
+     * @return O resultado da tarefa.
+     */
+    public static <T> T withParallelism(int parallelism, Supplier<T> task) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        ForkJoinPool pool = parallelism == 1 ? SEQUENTIAL
+                : LOCAL_POOLS.computeIfAbsent(parallelism, EnginePool::new);
+        ForkJoinPool previous = LOCAL.get();
+        LOCAL.set(pool);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null)
+                LOCAL.remove();
+            else
+                LOCAL.set(previous);
+        }
+    }
+
+    /**
+     * Executa uma tarefa sem resultado com um paralelismo próprio, sem alterar a configuração global.
+     *
+     * @param parallelism A quantidade de threads.
+     * @param task A tarefa.
+     */
+    public static void withParallelism(int parallelism, Runnable task) {
+        withParallelism(parallelism, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executa o corpo em faixas de linhas.
+     *
+     * @param height A altura da imagem.
+     * @param width A largura da imagem (usada para estimar o custo).
+     * @param body O corpo, chamado uma vez para cada faixa.
+     */
+    public static void forRows(int height, int width, Rows body) {
+        split(height, (long) height * width, body);
+    }
+
+    /**
+     * Executa o corpo em faixas de linhas, informando também o intervalo de linhas que inclui a margem de halo
+     * linhas acima e abaixo da faixa (recortado pela imagem).
+     *
+     * @param height A altura da imagem.
+     * @param width A largura da imagem.
+     * @param halo A quantidade de linhas de margem.
+     * @param body O corpo, chamado uma vez para cada faixa.
+     */
+    public static void forBands(int height, int width, int halo, Band body) {
+        split(height, (long) height * width,
+                (from, to) -> body.run(from, to, Math.max(0, from - halo), Math.min(height, to + halo)));
+    }
+
+    /**
+     * Executa o corpo em blocos de até tile x tile pixels.
+     *
+     * @param height A altura da imagem.
+     * @param width A largura da imagem.
+     * @param tile O lado dos blocos.
+     * @param body O corpo, chamado uma vez para cada bloco.
+     */
+    public static void forTiles(int height, int width, int tile, Tile body) {
+        int rows = (height + tile - 1) / tile, cols = (width + tile - 1) / tile;
+        split(rows * cols, (long) height * width, (from, to) -> {
+            for (int t = from; t < to; t++) {
+                int r0 = t / cols * tile, c0 = t % cols * tile;
+                body.run(r0, c0, Math.min(r0 + tile, height), Math.min(c0 + tile, width));
+            }
+        });
+    }
+
+    /**
+     * Calcula resultados parciais sobre faixas de linhas e os combina na ordem das linhas.
+     *
+     * @param height A altura da imagem.
+     * @param width A largura da imagem.
+     * @param body O cálculo de cada faixa.
+     * @param merge A combinação de uma faixa com a faixa seguinte.
+     * @return O resultado combinado.
+     */
+    public static <T> T reduceRows(int height, long width, Partial<T> body, BinaryOperator<T> merge) {
+        int chunks = chunks(height, (long) height * width);
+        if (chunks <= 1)
+            return body.compute(0, height);
+        return run(new Reduce<>(body, merge, height, chunks, 0, chunks));
+    }
+
+    /**
+     * Divide o intervalo [0, n) em partes, de acordo com o custo total (em pixels) e o paralelismo.
+     */
+    static void split(int n, long work, Rows body) {
+        int chunks = chunks(n, work);
+        if (chunks <= 1) {
+            if (n > 0)
+                body.run(0, n);
+            return;
+        }
+        run(new Split(body, n, chunks, 0, chunks));
+    }
+
+    private static int chunks(int n, long work) {
+        ForkJoinPool pool = pool();
+        if (work < threshold || pool.getParallelism() <= 1)
+            return 1;
+        return (int) Math.min(n, (long) pool.getParallelism() * CHUNKS_PER_THREAD);
+    }
+
+    private static ForkJoinPool pool() {
+        ForkJoinPool local = LOCAL.get();
+        if (local != null)
+            return local;
+        ForkJoinPool current = ForkJoinTask.getPool();
+        return current instanceof EnginePool ? current : global;
+    }
+
+    private static <T> T run(ForkJoinTask<T> task) {
+        ForkJoinPool pool = pool();
+        return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+    }
+
+    private static int start(int n, int chunks, int c) {
+        return (int) ((long) n * c / chunks);
+    }
+
+    private static final class Split extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Rows body;
+        private final int n, chunks, c0, c1;
+
+        Split(Rows body, int n, int chunks, int c0, int c1) {
+            this.body = body;
+            this.n = n;
+            this.chunks = chunks;
+            this.c0 = c0;
+            this.c1 = c1;
+        }
+
+        @Override
+        protected void compute() {
+            if (c1 - c0 == 1) {
+                body.run(start(n, chunks, c0), start(n, chunks, c1));
+                return;
+            }
+            int mid = (c0 + c1) >>> 1;
+            Split left = new Split(body, n, chunks, c0, mid);
+            left.fork();
+            new Split(body, n, chunks, mid, c1).compute();
+            left.join();
+        }
+    }
+
+    private static final class Reduce<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+        private final Partial<T> body;
+        private final BinaryOperator<T> merge;
+        private final int n, chunks, c0, c1;
+
+        Reduce(Partial<T> body, BinaryOperator<T> merge, int n, int chunks, int c0, int c1) {
+            this.body = body;
+            this.merge = merge;
+            this.n = n;
+            this.chunks = chunks;
+            this.c0 = c0;
+            this.c1 = c1;
+        }
+
+        @Override
+        protected T compute() {
+            if (c1 - c0 == 1)
+                return body.compute(start(n, chunks, c0), start(n, chunks, c1));
+            int mid = (c0 + c1) >>> 1;
+            Reduce<T> left = new Reduce<>(body, merge, n, chunks, c0, mid);
+            left.fork();
+            T right = new Reduce<>(body, merge, n, chunks, mid, c1).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package dipas.eaj.ufrn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Classe Pipeline, que monta uma sequência de operações de Image sem executá-las. As operações só são executadas
+ * quando um resultado é pedido (toArray, toBinary, toPacked, regionProps ou write), e apenas a saída final é
+ * alocada por inteiro:
+ * <ul>
+ * <li>operações pontuais consecutivas (conversão para cinza, limiarização, tabelas) são combinadas em uma única
+ * função, avaliada por tabela de 256 posições para valores de 8 bits, e aplicadas na mesma passagem de leitura;</li>
+ * <li>operações de vizinhança são aplicadas em faixas de linhas, cada faixa lida com uma margem igual à soma dos
+ * raios das operações seguintes, de modo que cada thread só guarda buffers do tamanho da faixa.</li>
+ * </ul>
+ * Exemplo: {@code Pipeline.read(path).rgb2gray().im2bw(126).open(3).regionProps()}.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class Pipeline {
+    // Quantidade de linhas produzidas por vez em cada faixa
+    private static final int BAND_ROWS = 64;
+
+    private interface RowReader {
+        void read(int i, int[] out);
+    }
+
+    /**
+     * Leitura de um canal da linha i da fonte.
+     */
+    private interface ChannelReader {
+        int get(int i, int j, int c);
+    }
+
+    private final int height, width, channels;
+    private final ChannelReader source;
+    private RowReader reader;
+    private final List<Stage> stages = new ArrayList<>();
+    private boolean binary;
+
+    private Pipeline(int height, int width, int channels, ChannelReader source) {
+        this.height = height;
+        this.width = width;
+        this.channels = channels;
+        this.source = source;
+        if (channels == 1)
+            this.reader = (i, out) -> {
+                for (int j = 0; j < width; j++)
+                    out[j] = source.get(i, j, 0);
+            };
+    }
+
+    /**
+     * Inicia uma sequência de operações sobre uma imagem colorida.
+     *
+     * @param im A imagem colorida.
+     * @return A sequência de operações.
+     */
+    public static Pipeline of(int[][][] im) {
+        return new Pipeline(im.length, im[0].length, im[0][0].length, (i, j, c) -> im[i][j][c]);
+    }
+
+    /**
+     * Inicia uma sequência de operações sobre uma imagem em tons de cinza.
+     *
+     * @param im A imagem em tons de cinza.
+     * @return A sequência de operações.
+     */
+    public static Pipeline of(int[][] im) {
+        return new Pipeline(im.length, im[0].length, 1, (i, j, c) -> im[i][j]);
+    }
+
+    /**
+     * Inicia uma sequência de operações sobre uma imagem binária.
+     *
+     * @param im A imagem binária.
+     * @return A sequência de operações.
+     */
+    public static Pipeline of(boolean[][] im) {
+        Pipeline pipeline = new Pipeline(im.length, im[0].length, 1, (i, j, c) -> im[i][j] ? 1 : 0);
+        pipeline.binary = true;
+        return pipeline;
+    }
+
+    /**
+     * Inicia uma sequência de operações sobre uma imagem compactada.
+     *
+     * @param im A imagem compactada.
+     * @return A sequência de operações.
+     */
+    public static Pipeline of(PackedImage im) {
+        return new Pipeline(im.height, im.width, im.channels, im::get);
+    }
+
+    /**
+     * Inicia uma sequência de operações sobre a imagem de um arquivo.
+     *
+     * @param path O caminho do arquivo.
+     * @return A sequência de operações.
+     */
+    public static Pipeline read(String path) {
+        return of(Image.imReadPacked(path));
+    }
+
+    /**
+     * Converte a imagem colorida para tons de cinza, como Image.rgb2gray.
+     *
+     * @return Esta sequência.
+     */
+    public Pipeline rgb2gray() {
+        if (channels < 3)
+            throw new IllegalStateException("rgb2gray needs a three-channel image");
+        if (reader != null)
+            throw new IllegalStateException("The image was already reduced to one channel");
+        ChannelReader src = source;
+        int w = width;
+        reader = (i, out) -> {
+            for (int j = 0; j < w; j++)
+                out[j] = ColorConversion.gray(src.get(i, j, 0), src.get(i, j, 1), src.get(i, j, 2));
+        };
+        return this;
+    }
+
+    /**
+     * Seleciona um canal da imagem colorida, como Image.splitChannel.
+     *
+     * @param channel O canal.
+     * @return Esta sequência.
+     */
+    public Pipeline channel(int channel) {
+        if (channel < 0 || channel >= channels)
+            throw new IllegalArgumentException("Invalid channel " + channel);
+        if (reader != null)
+            throw new IllegalStateException("The image was already reduced to one channel");
+        ChannelReader src = source;
+        int w = width;
+        reader = (i, out) -> {
+            for (int j = 0; j < w; j++)
+                out[j] = src.get(i, j, channel);
+        };
+        return this;
+    }
+
+    /**
+     * Aplica uma função a cada pixel. A função deve estar definida para qualquer valor inteiro.
+     *
+     * @param op A função.
+     * @return Esta sequência.
+     */
+    public Pipeline map(IntUnaryOperator op) {
+        return point(op, false);
+    }
+
+    /**
+     * Substitui cada pixel v por table[v].
+     *
+     * @param table A tabela, com 256 posições.
+     * @return Esta sequência.
+     */
+    public Pipeline lut(int[] table) {
+        if (table.length != 256)
+            throw new IllegalArgumentException("Lookup table must have 256 entries");
+        int[] t = table.clone();
+        return point(v -> t[v], false);
+    }
+
+    /**
+     * Limiariza a imagem (1 onde o pixel é maior que o limiar), como Image.im2bw.
+     *
+     * @param limiar O limiar.
+     * @return Esta sequência.
+     */
+    public Pipeline im2bw(int limiar) {
+        return point(v -> v > limiar ? 1 : 0, true);
+    }
+
+    /**
+     * Aplica o filtro de Image.imGaussian(im, tam) (média recortada nas bordas).
+     *
+     * @param tam O tamanho do filtro.
+     * @return Esta sequência.
+     */
+    public Pipeline gaussian(int tam) {
+        int r = tam / 2;
+        return neighbourhood(new Stage(r, false) {
+            int[][] apply(int[][] slice) {
+                return Blur.unflatten(Blur.mean(Blur.flatten(slice), slice.length, width, r), slice.length, width);
+            }
+        });
+    }
+
+    /**
+     * Aplica o filtro Gaussiano de Image.imGaussian(im, sigma, border).
+     *
+     * @param sigma O desvio padrão.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return Esta sequência.
+     */
+    public Pipeline gaussian(double sigma, Border border) {
+        int r = Blur.radius(sigma);
+        return neighbourhood(new Stage(r, false) {
+            int[][] apply(int[][] slice) {
+                return Blur.unflatten(Blur.gaussian(Blur.flatten(slice), slice.length, width, sigma, border),
+                        slice.length, width);
+            }
+        });
+    }
+
+    /**
+     * Aplica o filtro de média de Image.imBoxFilter(im, tam, border).
+     *
+     * @param tam O tamanho da janela.
+     * @param border O tratamento dos pixels fora da imagem.
+     * @return Esta sequência.
+     */
+    public Pipeline boxFilter(int tam, Border border) {
+        int r = tam / 2;
+        return neighbourhood(new Stage(r, false) {
+            int[][] apply(int[][] slice) {
+                return Blur.unflatten(Blur.box(Blur.flatten(slice), slice.length, width, r, border),
+                        slice.length, width);
+            }
+        });
+    }
+
+    /**
+     * Aplica a erosão de Image.bwErode (pixels diferentes de zero são verdadeiros).
+     *
+     * @param tam O tamanho do elemento estruturante.
+     * @return Esta sequência.
+     */
+    public Pipeline erode(int tam) {
+        return morphology(tam / 2, true);
+    }
+
+    /**
+     * Aplica a dilatação de Image.bwDilate (pixels diferentes de zero são verdadeiros).
+     *
+     * @param tam O tamanho do elemento estruturante.
+     * @return Esta sequência.
+     */
+    public Pipeline dilate(int tam) {
+        return morphology(tam / 2, false);
+    }
+
+    /**
+     * Aplica a abertura de Image.bwOpen (pixels diferentes de zero são verdadeiros).
+     *
+     * @param tam O tamanho do elemento estruturante.
+     * @return Esta sequência.
+     */
+    public Pipeline open(int tam) {
+        return morphology(tam / 2, true).morphology(tam / 2, false);
+    }
+
+    /**
+     * Aplica o fechamento de Image.bwClose (pixels diferentes de zero são verdadeiros).
+     *
+     * @param tam O tamanho do elemento estruturante.
+     * @return Esta sequência.
+     */
+    public Pipeline close(int tam) {
+        return morphology(tam / 2, false).morphology(tam / 2, true);
+    }
+
+    /**
+     * Executa a sequência.
+     *
+     * @return A imagem resultante.
+     */
+    public int[][] toArray() {
+        int[][] out = new int[height][];
+        run((i, row) -> out[i] = row);
+        return out;
+    }
+
+    /**
+     * Executa a sequência.
+     *
+     * @return A imagem resultante, com verdadeiro nos pixels diferentes de zero.
+     */
+    public boolean[][] toBinary() {
+        boolean[][] out = new boolean[height][width];
+        run((i, row) -> {
+            boolean[] dst = out[i];
+            for (int j = 0; j < width; j++)
+                dst[j] = row[j] != 0;
+        });
+        return out;
+    }
+
+    /**
+     * Executa a sequência.
+     *
+     * @return A imagem resultante, compactada com um canal.
+     */
+    public PackedImage toPacked() {
+        PackedImage out = new PackedImage(height, width, 1);
+        run((i, row) -> System.arraycopy(row, 0, out.data, i * width, width));
+        return out;
+    }
+
+    /**
+     * Executa a sequência e calcula as propriedades das regiões da imagem binária resultante, como Image.regionProps.
+     *
+     * @return As propriedades das regiões.
+     */
+    public ArrayList<Properties> regionProps() {
+        return Image.regionProps(toBinary());
+    }
+
+    /**
+     * Executa a sequência e grava o resultado em um arquivo (como imagem binária se a última operação for binária).
+     *
+     * @param path O caminho do arquivo.
+     */
+    public void write(String path) {
+        if (binary)
+            Image.imWrite(toBinary(), path);
+        else
+            Image.imWrite(toArray(), path);
+    }
+
+    /**
+     * Operação pontual ou de vizinhança sobre uma faixa de linhas de um canal.
+     */
+    private abstract static class Stage {
+        final int halo;
+        final boolean binary;
+
+        Stage(int halo, boolean binary) {
+            this.halo = halo;
+            this.binary = binary;
+        }
+
+        /**
+         * Aplica a operação à faixa (no próprio array, ou retornando outro do mesmo tamanho).
+         */
+        abstract int[][] apply(int[][] slice);
+    }
+
+    /**
+     * Operação pontual, avaliada por tabela para valores de 0 a 255.
+     */
+    private static final class Point extends Stage {
+        final IntUnaryOperator op;
+        final int[] table = new int[256];
+
+        Point(IntUnaryOperator op, boolean binary) {
+            super(0, binary);
+            this.op = op;
+            for (int v = 0; v < 256; v++)
+                table[v] = op.applyAsInt(v);
+        }
+
+        void apply(int[] row) {
+            for (int j = 0; j < row.length; j++) {
+                int v = row[j];
+                row[j] = (v & ~0xFF) == 0 ? table[v] : op.applyAsInt(v);
+            }
+        }
+
+        int[][] apply(int[][] slice) {
+            for (int[] row : slice)
+                apply(row);
+            return slice;
+        }
+    }
+
+    private Pipeline point(IntUnaryOperator op, boolean binary) {
+        requireOneChannel();
+        Stage last = stages.isEmpty() ? null : stages.get(stages.size() - 1);
+        // Operações pontuais consecutivas são combinadas em uma só
+        if (last instanceof Point)
+            stages.set(stages.size() - 1, new Point(((Point) last).op.andThen(op), binary));
+        else
+            stages.add(new Point(op, binary));
+        this.binary = binary;
+        return this;
+    }
+
+    private Pipeline neighbourhood(Stage stage) {
+        requireOneChannel();
+        stages.add(stage);
+        binary = stage.binary;
+        return this;
+    }
+
+    private Pipeline morphology(int r, boolean erode) {
+        return neighbourhood(new Stage(r, true) {
+            int[][] apply(int[][] slice) {
+                boolean[][] bw = new boolean[slice.length][width];
+                for (int i = 0; i < slice.length; i++)
+                    for (int j = 0; j < width; j++)
+                        bw[i][j] = slice[i][j] != 0;
+                Morphology.apply(bw, erode, Morphology.Shape.SQUARE, 2 * r + 1, null);
+                for (int i = 0; i < slice.length; i++)
+                    for (int j = 0; j < width; j++)
+                        slice[i][j] = bw[i][j] ? 1 : 0;
+                return slice;
+            }
+        });
+    }
+
+    private void requireOneChannel() {
+        if (reader == null)
+            throw new IllegalStateException("Add rgb2gray() or channel() before operating on a "
+                    + channels + "-channel image");
+    }
+
+    private interface RowSink {
+        void accept(int i, int[] row);
+    }
+
+    /**
+     * Executa a sequência em faixas de linhas, entregando cada linha final (que pode ser retida) ao destino.
+     */
+    private void run(RowSink sink) {
+        requireOneChannel();
+        int halo = 0;
+        for (Stage stage : stages)
+            halo += stage.halo;
+        int margin = halo;
+        Point first = !stages.isEmpty() && stages.get(0) instanceof Point ? (Point) stages.get(0) : null;
+        RowReader reader = this.reader;
+
+        Parallel.forRows(height, width, (from, to) -> {
+            for (int start = from; start < to; start += BAND_ROWS) {
+                int end = Math.min(start + BAND_ROWS, to);
+                int lo = Math.max(0, start - margin), hi = Math.min(height, end + margin);
+
+                // Leitura da faixa, já com a primeira operação pontual aplicada
+                int[][] slice = new int[hi - lo][width];
+                for (int i = lo; i < hi; i++) {
+                    reader.read(i, slice[i - lo]);
+                    if (first != null)
+                        first.apply(slice[i - lo]);
+                }
+                for (int s = first != null ? 1 : 0; s < stages.size(); s++)
+                    slice = stages.get(s).apply(slice);
+
+                for (int i = start; i < end; i++)
+                    sink.accept(i, slice[i - lo]);
+            }
+        });
+    }
+}
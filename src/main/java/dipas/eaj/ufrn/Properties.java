@@ -1,4 +1,4 @@
-package proseed.services.image;
+package dipas.eaj.ufrn;
 
 /**
  * Esta classe representa uma propriedade de um determinado objeto.
@@ -7,6 +7,10 @@ package proseed.services.image;
  * @version 1.0
  */
 public class Properties {
+    /**
+     * Rótulo da região no mapa gerado por bwLabel
+     */
+    public int label;
     /**
      * Área total da propriedade
      */
@@ -16,11 +20,52 @@ public class Properties {
      */
     public int[] boundingBox;
     /**
-     * Matriz contendo a imagem da propriedade
+     * Centro de massa da propriedade, no formato {linha, coluna}
+     */
+    public double[] centroid;
+    /**
+     * Matriz contendo a imagem da propriedade. As propriedades de Image.regionProps são criadas de forma preguiçosa:
+     * o campo só é preenchido na primeira chamada de {@link #getImage()}, que deve ser usado para lê-lo.
      */
     public boolean[][] image;
 
+    private Labeling.Result labels;
+
     public Properties() {
         boundingBox = new int[4];
+        centroid = new double[2];
+    }
+
+    Properties(Labeling.Result labels, int label) {
+        this();
+        this.labels = labels;
+        this.label = label;
+    }
+
+    /**
+     * Retorna a imagem da propriedade, construindo-a a partir do mapa de rótulos na primeira chamada.
+     * O recorte cobre as linhas de boundingBox[0] a boundingBox[2] - 1 e as colunas de boundingBox[1] a boundingBox[3] - 1.
+     *
+     * @return Matriz contendo a imagem da propriedade.
+     */
+    public boolean[][] getImage() {
+        if (image == null && labels != null) {
+            if (area == 1) {
+                image = new boolean[1][1];
+            } else {
+                int minRow = boundingBox[0], minCol = boundingBox[1];
+                int height = boundingBox[2] - minRow, width = boundingBox[3] - minCol;
+                boolean[][] im = new boolean[height][width];
+                for (int i = 0; i < height; i++) {
+                    int k = (minRow + i) * labels.width + minCol;
+                    boolean[] row = im[i];
+                    for (int j = 0; j < width; j++, k++)
+                        row[j] = labels.labels[k] == label;
+                }
+                image = im;
+            }
+            labels = null;
+        }
+        return image;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,327 @@
+package dipas.eaj.ufrn;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Classe abstrata RasterBridge, que converte objetos BufferedImage acessando diretamente os buffers
+ * (DataBufferByte e DataBufferInt) do raster, em vez de chamar getRGB/setRGB para cada pixel.
+ * Os tipos TYPE_3BYTE_BGR, TYPE_4BYTE_ABGR, TYPE_INT_RGB, TYPE_INT_ARGB e TYPE_BYTE_GRAY são lidos em bloco;
+ * os demais modelos de cor usam getRGB por linha.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class RasterBridge {
+
+    /**
+     * Converte um objeto BufferedImage em um array tridimensional de inteiros (R, G, B).
+     *
+     * @param im Objeto BufferedImage para converter.
+     * @return O array tridimensional representando a imagem colorida.
+     */
+    public static int[][][] toArray(BufferedImage im) {
+        PackedImage packed = toPacked(im);
+        int width = packed.width;
+        int[][][] imMatrix = new int[packed.height][width][3];
+        int[] data = packed.data;
+        int k = 0;
+        for (int i = 0; i < packed.height; i++) {
+            int[][] row = imMatrix[i];
+            for (int j = 0; j < width; j++, k += 3) {
+                int[] px = row[j];
+                px[0] = data[k];
+                px[1] = data[k + 1];
+                px[2] = data[k + 2];
+            }
+        }
+        return imMatrix;
+    }
+
+    /**
+     * Converte um objeto BufferedImage em uma imagem compactada intercalada de três canais (R, G, B).
+     *
+     * @param im Objeto BufferedImage para converter.
+     * @return A imagem compactada.
+     */
+    public static PackedImage toPacked(BufferedImage im) {
+        int height = im.getHeight(), width = im.getWidth();
+        PackedImage packed = new PackedImage(height, width, 3);
+        Raster raster = im.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+
+        switch (im.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                readPackedInts(raster, (DataBufferInt) buffer, packed);
+                return packed;
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+            case BufferedImage.TYPE_BYTE_GRAY:
+                if (raster.getSampleModel() instanceof PixelInterleavedSampleModel) {
+                    readInterleavedBytes(raster, (DataBufferByte) buffer, packed);
+                    return packed;
+                }
+                break;
+            default:
+                break;
+        }
+
+        readRgbRows(im, packed);
+        return packed;
+    }
+
+    /**
+     * Converte um objeto BufferedImage em uma imagem de 8 bits de três canais (R, G, B), sem passar por um vetor de
+     * inteiros. Os tipos de bytes intercalados são copiados do raster; os demais usam getRGB por linha.
+     *
+     * @param im Objeto BufferedImage para converter.
+     * @return A imagem de 8 bits.
+     */
+    public static ByteImage toByteImage(BufferedImage im) {
+        int height = im.getHeight(), width = im.getWidth();
+        ByteImage out = new ByteImage(height, width, 3);
+        byte[] dst = out.data;
+        Raster raster = im.getRaster();
+        int type = im.getType();
+        boolean bytes = type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR
+                || type == BufferedImage.TYPE_BYTE_GRAY;
+        if (bytes && raster.getSampleModel() instanceof PixelInterleavedSampleModel) {
+            PixelInterleavedSampleModel sm = (PixelInterleavedSampleModel) raster.getSampleModel();
+            DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+            byte[] src = buffer.getData();
+            int scan = sm.getScanlineStride(), step = sm.getPixelStride();
+            int[] offsets = sm.getBandOffsets();
+            int base = buffer.getOffset() - raster.getSampleModelTranslateY() * scan
+                    - raster.getSampleModelTranslateX() * step;
+            boolean gray = sm.getNumBands() == 1;
+            int r = offsets[0], g = offsets[gray ? 0 : 1], b = offsets[gray ? 0 : 2];
+            int d = 0;
+            for (int i = 0; i < height; i++) {
+                int s = base + i * scan;
+                for (int j = 0; j < width; j++, s += step) {
+                    dst[d++] = src[s + r];
+                    dst[d++] = src[s + g];
+                    dst[d++] = src[s + b];
+                }
+            }
+            return out;
+        }
+
+        int[] row = new int[width];
+        int d = 0;
+        for (int i = 0; i < height; i++) {
+            im.getRGB(0, i, width, 1, row, 0, width);
+            for (int j = 0; j < width; j++) {
+                int rgb = row[j];
+                dst[d++] = (byte) (rgb >>> 16);
+                dst[d++] = (byte) (rgb >>> 8);
+                dst[d++] = (byte) rgb;
+            }
+        }
+        return out;
+    }
+
+    private static void readPackedInts(Raster raster, DataBufferInt buffer, PackedImage packed) {
+        int[] src = buffer.getData();
+        int scan = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+        int base = buffer.getOffset() - raster.getSampleModelTranslateY() * scan - raster.getSampleModelTranslateX();
+        int[] dst = packed.data;
+        int d = 0;
+        for (int i = 0; i < packed.height; i++) {
+            int s = base + i * scan;
+            for (int j = 0; j < packed.width; j++) {
+                int rgb = src[s++];
+                dst[d++] = (rgb >>> 16) & 0xFF;
+                dst[d++] = (rgb >>> 8) & 0xFF;
+                dst[d++] = rgb & 0xFF;
+            }
+        }
+    }
+
+    private static void readInterleavedBytes(Raster raster, DataBufferByte buffer, PackedImage packed) {
+        PixelInterleavedSampleModel sm = (PixelInterleavedSampleModel) raster.getSampleModel();
+        byte[] src = buffer.getData();
+        int scan = sm.getScanlineStride(), step = sm.getPixelStride();
+        int[] offsets = sm.getBandOffsets();
+        int base = buffer.getOffset() - raster.getSampleModelTranslateY() * scan
+                - raster.getSampleModelTranslateX() * step;
+        int[] dst = packed.data;
+        int d = 0;
+
+        if (sm.getNumBands() == 1) {
+            int o = offsets[0];
+            for (int i = 0; i < packed.height; i++) {
+                int s = base + i * scan + o;
+                for (int j = 0; j < packed.width; j++, s += step) {
+                    int v = src[s] & 0xFF;
+                    dst[d++] = v;
+                    dst[d++] = v;
+                    dst[d++] = v;
+                }
+            }
+            return;
+        }
+
+        int r = offsets[0], g = offsets[1], b = offsets[2];
+        for (int i = 0; i < packed.height; i++) {
+            int s = base + i * scan;
+            for (int j = 0; j < packed.width; j++, s += step) {
+                dst[d++] = src[s + r] & 0xFF;
+                dst[d++] = src[s + g] & 0xFF;
+                dst[d++] = src[s + b] & 0xFF;
+            }
+        }
+    }
+
+    private static void readRgbRows(BufferedImage im, PackedImage packed) {
+        int[] row = new int[packed.width];
+        int[] dst = packed.data;
+        int d = 0;
+        for (int i = 0; i < packed.height; i++) {
+            im.getRGB(0, i, packed.width, 1, row, 0, packed.width);
+            for (int j = 0; j < packed.width; j++) {
+                int rgb = row[j];
+                dst[d++] = (rgb >>> 16) & 0xFF;
+                dst[d++] = (rgb >>> 8) & 0xFF;
+                dst[d++] = rgb & 0xFF;
+            }
+        }
+    }
+
+    /**
+     * Converte um array tridimensional de inteiros em um objeto BufferedImage do tipo TYPE_INT_RGB.
+     * Valores fora do intervalo [0, 255] são saturados.
+     *
+     * @param im Array tridimensional de inteiros para converter.
+     * @return O objeto BufferedImage representando a imagem colorida.
+     */
+    public static BufferedImage toBufferedImage(int[][][] im) {
+        int height = im.length, width = im[0].length;
+        BufferedImage buff = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] dst = pixels(buff);
+        int d = 0;
+        for (int i = 0; i < height; i++) {
+            int[][] row = im[i];
+            for (int j = 0; j < width; j++) {
+                int[] px = row[j];
+                dst[d++] = (clamp(px[0]) << 16) | (clamp(px[1]) << 8) | clamp(px[2]);
+            }
+        }
+        return buff;
+    }
+
+    /**
+     * Converte um array bidimensional de inteiros em um objeto BufferedImage em escala de cinza (TYPE_INT_RGB).
+     * Valores fora do intervalo [0, 255] são saturados; o array de entrada não é alterado.
+     *
+     * @param im Array bidimensional de inteiros para converter.
+     * @return O objeto BufferedImage representando a imagem em escala de cinza.
+     */
+    public static BufferedImage toBufferedImage(int[][] im) {
+        int height = im.length, width = im[0].length;
+        BufferedImage buff = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] dst = pixels(buff);
+        int d = 0;
+        for (int i = 0; i < height; i++) {
+            int[] row = im[i];
+            for (int j = 0; j < width; j++)
+                dst[d++] = GRAY[clamp(row[j])];
+        }
+        return buff;
+    }
+
+    /**
+     * Converte um array bidimensional de valores lógicos em um objeto BufferedImage (TYPE_INT_RGB),
+     * com branco para verdadeiro e preto para falso.
+     *
+     * @param im Array bidimensional de booleans para converter.
+     * @return O objeto BufferedImage representando a imagem binária.
+     */
+    public static BufferedImage toBufferedImage(boolean[][] im) {
+        int height = im.length, width = im[0].length;
+        BufferedImage buff = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] dst = pixels(buff);
+        int d = 0;
+        for (int i = 0; i < height; i++) {
+            boolean[] row = im[i];
+            for (int j = 0; j < width; j++)
+                dst[d++] = row[j] ? 0xFFFFFF : 0;
+        }
+        return buff;
+    }
+
+    /**
+     * Converte uma imagem compactada em um objeto BufferedImage (TYPE_INT_RGB).
+     * Imagens de um ou dois canais (cinza e alfa) são tratadas como escala de cinza, pelo primeiro canal; das demais
+     * são usados os três primeiros canais.
+     *
+     * @param im Imagem compactada para converter.
+     * @return O objeto BufferedImage representando a imagem.
+     */
+    public static BufferedImage toBufferedImage(PackedImage im) {
+        BufferedImage buff = new BufferedImage(im.width, im.height, BufferedImage.TYPE_INT_RGB);
+        int[] dst = pixels(buff);
+        int[] src = im.data;
+        int step = im.pixelStep();
+        int d = 0;
+        if (im.channels < 3) {
+            for (int i = 0; i < im.height; i++) {
+                int s = i * im.stride;
+                for (int j = 0; j < im.width; j++, s += step)
+                    dst[d++] = GRAY[clamp(src[s])];
+            }
+        } else {
+            int r = im.channelOffset(0), g = im.channelOffset(1), b = im.channelOffset(2);
+            for (int i = 0; i < im.height; i++) {
+                int s = i * im.stride;
+                for (int j = 0; j < im.width; j++, s += step)
+                    dst[d++] = (clamp(src[s + r]) << 16) | (clamp(src[s + g]) << 8) | clamp(src[s + b]);
+            }
+        }
+        return buff;
+    }
+
+    /**
+     * Converte uma imagem de 8 bits em um objeto BufferedImage (TYPE_INT_RGB).
+     * Imagens de um ou dois canais (cinza e alfa) são tratadas como escala de cinza, pelo primeiro canal; das demais
+     * são usados os três primeiros canais.
+     *
+     * @param im Imagem de 8 bits para converter.
+     * @return O objeto BufferedImage representando a imagem.
+     */
+    public static BufferedImage toBufferedImage(ByteImage im) {
+        BufferedImage buff = new BufferedImage(im.width, im.height, BufferedImage.TYPE_INT_RGB);
+        int[] dst = pixels(buff);
+        byte[] src = im.data;
+        int step = im.channels, n = im.height * im.width;
+        if (step < 3) {
+            for (int d = 0, s = 0; d < n; d++, s += step)
+                dst[d] = GRAY[src[s] & 0xFF];
+        } else {
+            for (int d = 0, s = 0; d < n; d++, s += step)
+                dst[d] = ((src[s] & 0xFF) << 16) | ((src[s + 1] & 0xFF) << 8) | (src[s + 2] & 0xFF);
+        }
+        return buff;
+    }
+
+    private static final int[] GRAY = new int[256];
+
+    static {
+        for (int v = 0; v < 256; v++)
+            GRAY[v] = (v << 16) | (v << 8) | v;
+    }
+
+    private static int[] pixels(BufferedImage buff) {
+        return ((DataBufferInt) buff.getRaster().getDataBuffer()).getData();
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+}
@@ -0,0 +1,388 @@
+package dipas.eaj.ufrn;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Classe RawImage, o formato bruto de imagens do ImaJ (extensão .imj), usado para passar imagens intermediárias
+ * entre etapas ou processos sem codificação. O arquivo tem um cabeçalho de 32 bytes (little-endian):
+ * <pre>
+ *  0  "IMAJ"          4 bytes
+ *  4  versão          short (1)
+ *  6  profundidade    byte  (8, 16 ou 32 bits por amostra)
+ *  7  disposição      byte  (0 = intercalada, 1 = planar)
+ *  8  altura          int
+ * 12  largura         int
+ * 16  canais          int
+ * 20  reservado       12 bytes
+ * </pre>
+ * seguido das amostras, sem preenchimento, na ordem do vetor de uma PackedImage compacta com a mesma disposição.
+ * O arquivo é aberto com FileChannel.map: os pixels são acessados diretamente na memória mapeada, e a conversão
+ * para PackedImage é uma cópia em bloco (para 32 bits) ou um laço simples, sem passar pelo ImageIO.
+ * Imagens binárias são gravadas com os valores 0 e 1.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class RawImage {
+    /**
+     * Extensão dos arquivos no formato bruto.
+     */
+    public static final String EXTENSION = ".imj";
+    /**
+     * Tamanho do cabeçalho, em bytes.
+     */
+    public static final int HEADER_SIZE = 32;
+
+    private static final int MAGIC = 'I' | 'M' << 8 | 'A' << 16 | 'J' << 24;
+    private static final short VERSION = 1;
+    // Cada mapeamento cobre no máximo 1 GiB (um MappedByteBuffer é limitado a 2 GiB)
+    private static final int SEGMENT_SHIFT = 30;
+
+    /**
+     * Altura da imagem, em pixels.
+     */
+    public final int height;
+    /**
+     * Largura da imagem, em pixels.
+     */
+    public final int width;
+    /**
+     * Quantidade de canais por pixel.
+     */
+    public final int channels;
+    /**
+     * Bits por amostra (8, 16 ou 32).
+     */
+    public final int depth;
+    /**
+     * Disposição dos canais no arquivo.
+     */
+    public final PackedImage.Layout layout;
+
+    private final int sampleBytes, segmentSize;
+    private final MappedByteBuffer[] segments;
+
+    private RawImage(FileChannel channel, FileChannel.MapMode mode, int height, int width, int channels, int depth,
+                     PackedImage.Layout layout) throws IOException {
+        checkFormat(height, width, channels, depth);
+        this.height = height;
+        this.width = width;
+        this.channels = channels;
+        this.depth = depth;
+        this.layout = layout;
+        this.sampleBytes = depth / 8;
+        this.segmentSize = (1 << SEGMENT_SHIFT) / sampleBytes;
+        long bytes = dataSize(height, width, channels, depth);
+        this.segments = new MappedByteBuffer[(int) ((bytes + (1L << SEGMENT_SHIFT) - 1) >> SEGMENT_SHIFT)];
+        for (int s = 0; s < segments.length; s++) {
+            long start = (long) s << SEGMENT_SHIFT;
+            segments[s] = channel.map(mode, HEADER_SIZE + start, Math.min(1L << SEGMENT_SHIFT, bytes - start));
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Verifica se um caminho usa a extensão do formato bruto.
+     *
+     * @param path O caminho do arquivo.
+     * @return true se o caminho terminar em .imj.
+     */
+    public static boolean isRaw(String path) {
+        return path.regionMatches(true, path.length() - EXTENSION.length(), EXTENSION, 0, EXTENSION.length());
+    }
+
+    /**
+     * Cria (ou substitui) um arquivo bruto com todos os pixels zerados e o mapeia para leitura e escrita.
+     *
+     * @param path O caminho do arquivo.
+     * @param height A altura da imagem.
+     * @param width A largura da imagem.
+     * @param channels A quantidade de canais.
+     * @param depth Os bits por amostra (8, 16 ou 32).
+     * @param layout A disposição dos canais.
+     * @return A imagem mapeada.
+     * @throws IOException Se o arquivo não puder ser criado.
+     */
+    public static RawImage create(String path, int height, int width, int channels, int depth,
+                                  PackedImage.Layout layout) throws IOException {
+        checkFormat(height, width, channels, depth);
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.setLength(0);
+            file.setLength(HEADER_SIZE + dataSize(height, width, channels, depth));
+            FileChannel channel = file.getChannel();
+            writeHeader(channel, height, width, channels, depth, layout);
+            return new RawImage(channel, FileChannel.MapMode.READ_WRITE, height, width, channels, depth, layout);
+        }
+    }
+
+    /**
+     * Mapeia um arquivo bruto existente.
+     *
+     * @param path O caminho do arquivo.
+     * @param writable true para permitir alterar os pixels (as alterações vão para o arquivo).
+     * @return A imagem mapeada.
+     * @throws IOException Se o arquivo não existir ou não estiver no formato bruto.
+     */
+    public static RawImage map(String path, boolean writable) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, writable ? "rw" : "r")) {
+            FileChannel channel = file.getChannel();
+            int[] header = readHeader(channel);
+            if (channel.size() < HEADER_SIZE + dataSize(header[0], header[1], header[2], header[3]))
+                throw new IOException("Truncated raw image " + path);
+            return new RawImage(channel, writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    header[0], header[1], header[2], header[3], PackedImage.Layout.values()[header[4]]);
+        }
+    }
+
+    /**
+     * Lê um arquivo bruto para uma imagem compactada com a mesma quantidade de canais e disposição.
+     *
+     * @param path O caminho do arquivo.
+     * @return A imagem compactada.
+     * @throws IOException Se o arquivo não existir ou não estiver no formato bruto.
+     */
+    public static PackedImage read(String path) throws IOException {
+        return map(path, false).toPacked();
+    }
+
+    /**
+     * Grava uma imagem compactada no formato bruto, com a menor profundidade (8, 16 ou 32 bits) capaz de
+     * representar todos os seus valores.
+     *
+     * @param im A imagem compactada.
+     * @param path O caminho do arquivo.
+     * @throws IOException Se o arquivo não puder ser gravado.
+     */
+    public static void write(PackedImage im, String path) throws IOException {
+        Stats stats = Stats.of(im);
+        int depth = stats.min >= 0 && stats.max <= 0xFF ? 8 : stats.min >= 0 && stats.max <= 0xFFFF ? 16 : 32;
+        create(path, im.height, im.width, im.channels, depth, im.layout).put(im);
+    }
+
+    /**
+     * @param row A linha do pixel.
+     * @param col A coluna do pixel.
+     * @param c O canal.
+     * @return O valor da amostra.
+     */
+    public int get(int row, int col, int c) {
+        return get(index(row, col, c));
+    }
+
+    /**
+     * Altera uma amostra, saturando o valor no intervalo da profundidade.
+     *
+     * @param row A linha do pixel.
+     * @param col A coluna do pixel.
+     * @param c O canal.
+     * @param value O novo valor.
+     */
+    public void set(int row, int col, int c, int value) {
+        set(index(row, col, c), value);
+    }
+
+    /**
+     * Copia os pixels para uma nova imagem compactada, com a mesma disposição do arquivo.
+     *
+     * @return A imagem compactada.
+     */
+    public PackedImage toPacked() {
+        PackedImage out = new PackedImage(height, width, channels, layout);
+        int[] data = out.data;
+        for (int s = 0; s < segments.length; s++) {
+            int base = s * segmentSize, n = sampleCount(s);
+            ByteBuffer segment = segments[s];
+            if (depth == 32) {
+                IntBuffer ints = segment.asIntBuffer();
+                Parallel.split(n, n, (from, to) -> ints.duplicate().position(from)
+                        .get(data, base + from, to - from));
+            } else if (depth == 16) {
+                ShortBuffer shorts = segment.asShortBuffer();
+                Parallel.split(n, n, (from, to) -> {
+                    for (int k = from; k < to; k++)
+                        data[base + k] = shorts.get(k) & 0xFFFF;
+                });
+            } else {
+                Parallel.split(n, n, (from, to) -> {
+                    for (int k = from; k < to; k++)
+                        data[base + k] = segment.get(k) & 0xFF;
+                });
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Copia uma região da imagem, opcionalmente subamostrada, para uma nova imagem compactada intercalada.
+     * A região é recortada pelos limites da imagem.
+     *
+     * @param row0 A primeira linha.
+     * @param col0 A primeira coluna.
+     * @param row1 A linha seguinte à última.
+     * @param col1 A coluna seguinte à última.
+     * @param step O passo da subamostragem (1 para todos os pixels).
+     * @return A região, com ceil((row1 - row0) / step) linhas e ceil((col1 - col0) / step) colunas.
+     */
+    public PackedImage region(int row0, int col0, int row1, int col1, int step) {
+        if (step < 1)
+            throw new IllegalArgumentException("Subsampling step must be at least 1");
+        row0 = Math.max(0, row0);
+        col0 = Math.max(0, col0);
+        row1 = Math.min(height, row1);
+        col1 = Math.min(width, col1);
+        if (row0 >= row1 || col0 >= col1)
+            throw new IllegalArgumentException("Region outside the image");
+        int top = row0, left = col0;
+        PackedImage out = new PackedImage((row1 - row0 + step - 1) / step, (col1 - col0 + step - 1) / step, channels);
+        int[] data = out.data;
+        Parallel.forRows(out.height, out.width * channels, (from, to) -> {
+            for (int i = from; i < to; i++)
+                for (int j = 0, k = i * out.stride; j < out.width; j++)
+                    for (int c = 0; c < channels; c++)
+                        data[k++] = get(index(top + i * step, left + j * step, c));
+        });
+        return out;
+    }
+
+    /**
+     * Copia os pixels de uma imagem compactada do mesmo tamanho para o arquivo, saturando os valores no intervalo
+     * da profundidade.
+     *
+     * @param im A imagem compactada.
+     */
+    public void put(PackedImage im) {
+        if (im.height != height || im.width != width || im.channels != channels)
+            throw new IllegalArgumentException("Image must have the same dimensions as the raw image");
+        int compact = layout == PackedImage.Layout.INTERLEAVED ? width * channels : width;
+        PackedImage src = im.layout == layout && im.stride == compact ? im : im.toLayout(layout);
+        int[] data = src.data;
+        for (int s = 0; s < segments.length; s++) {
+            int base = s * segmentSize, n = sampleCount(s);
+            ByteBuffer segment = segments[s];
+            if (depth == 32) {
+                IntBuffer ints = segment.asIntBuffer();
+                Parallel.split(n, n, (from, to) -> ints.duplicate().position(from)
+                        .put(data, base + from, to - from));
+            } else if (depth == 16) {
+                ShortBuffer shorts = segment.asShortBuffer();
+                Parallel.split(n, n, (from, to) -> {
+                    for (int k = from; k < to; k++)
+                        shorts.put(k, (short) Math.min(0xFFFF, Math.max(0, data[base + k])));
+                });
+            } else {
+                Parallel.split(n, n, (from, to) -> {
+                    for (int k = from; k < to; k++)
+                        segment.put(k, (byte) Math.min(0xFF, Math.max(0, data[base + k])));
+                });
+            }
+        }
+    }
+
+    /**
+     * Força a gravação no disco das alterações feitas em uma imagem mapeada para escrita.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments)
+            if (!segment.isReadOnly())
+                segment.force();
+    }
+
+    /**
+     * Grava o cabeçalho no início do arquivo.
+     */
+    static void writeHeader(FileChannel channel, int height, int width, int channels, int depth,
+                            PackedImage.Layout layout) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).put((byte) depth).put((byte) layout.ordinal())
+                .putInt(height).putInt(width).putInt(channels);
+        header.clear();
+        while (header.hasRemaining())
+            channel.write(header, header.position());
+    }
+
+    /**
+     * Lê e valida o cabeçalho.
+     *
+     * @return {altura, largura, canais, profundidade, disposição}.
+     */
+    static int[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining())
+            if (channel.read(header, header.position()) < 0)
+                throw new IOException("Not a raw image: file too short");
+        header.flip();
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a raw image: bad magic number");
+        if (header.getShort() != VERSION)
+            throw new IOException("Unsupported raw image version");
+        int depth = header.get(), layout = header.get();
+        int height = header.getInt(), width = header.getInt(), channels = header.getInt();
+        if (layout < 0 || layout >= PackedImage.Layout.values().length)
+            throw new IOException("Unsupported raw image layout " + layout);
+        try {
+            checkFormat(height, width, channels, depth);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid raw image header: " + e.getMessage());
+        }
+        return new int[]{height, width, channels, depth, layout};
+    }
+
+    static void checkFormat(int height, int width, int channels, int depth) {
+        if (depth != 8 && depth != 16 && depth != 32)
+            throw new IllegalArgumentException("Depth must be 8, 16 or 32 bits");
+        if (height <= 0 || width <= 0 || channels <= 0 || (long) height * width * channels > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid image dimensions");
+    }
+
+    private static long dataSize(int height, int width, int channels, int depth) {
+        return (long) height * width * channels * (depth / 8);
+    }
+
+    private int sampleCount(int segment) {
+        long total = (long) height * width * channels;
+        return (int) Math.min(segmentSize, total - (long) segment * segmentSize);
+    }
+
+    private int index(int row, int col, int c) {
+        if (row < 0 || row >= height || col < 0 || col >= width || c < 0 || c >= channels)
+            throw new IndexOutOfBoundsException("Sample (" + row + ", " + col + ", " + c + ") outside the image");
+        return layout == PackedImage.Layout.INTERLEAVED
+                ? (row * width + col) * channels + c
+                : (c * height + row) * width + col;
+    }
+
+    private int get(int k) {
+        ByteBuffer segment = segments[k / segmentSize];
+        int offset = k % segmentSize * sampleBytes;
+        switch (depth) {
+            case 8:
+                return segment.get(offset) & 0xFF;
+            case 16:
+                return segment.getShort(offset) & 0xFFFF;
+            default:
+                return segment.getInt(offset);
+        }
+    }
+
+    private void set(int k, int value) {
+        ByteBuffer segment = segments[k / segmentSize];
+        int offset = k % segmentSize * sampleBytes;
+        switch (depth) {
+            case 8:
+                segment.put(offset, (byte) Math.min(0xFF, Math.max(0, value)));
+                break;
+            case 16:
+                segment.putShort(offset, (short) Math.min(0xFFFF, Math.max(0, value)));
+                break;
+            default:
+                segment.putInt(offset, value);
+        }
+    }
+}
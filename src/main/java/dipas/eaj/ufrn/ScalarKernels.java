@@ -0,0 +1,49 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Implementação escalar de {@link Kernels}.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+final class ScalarKernels implements Kernels {
+
+    @Override
+    public void add(int[] a, int ao, int[] b, int bo, int[] out, int oo, int n, boolean subtract) {
+        if (subtract)
+            for (int k = 0; k < n; k++) out[oo + k] = a[ao + k] - b[bo + k];
+        else
+            for (int k = 0; k < n; k++) out[oo + k] = a[ao + k] + b[bo + k];
+    }
+
+    @Override
+    public void addSaturated(int[] a, int ao, int[] b, int bo, int[] out, int oo, int n, boolean subtract) {
+        for (int k = 0; k < n; k++) {
+            int v = subtract ? a[ao + k] - b[bo + k] : a[ao + k] + b[bo + k];
+            out[oo + k] = Math.min(255, Math.max(0, v));
+        }
+    }
+
+    @Override
+    public void gray(int[] src, int r, int g, int b, int step, int[] out, int oo, int n) {
+        for (int p = 0, k = 0; p < n; p++, k += step)
+            out[oo + p] = ColorConversion.gray(src[r + k], src[g + k], src[b + k]);
+    }
+
+    @Override
+    public void threshold(int[] src, int so, int step, int limiar, boolean maior, boolean[] out, int oo, int n) {
+        for (int p = 0, k = so; p < n; p++, k += step)
+            out[oo + p] = maior ? src[k] > limiar : src[k] < limiar;
+    }
+
+    @Override
+    public void threshold(int[] src, int so, int step, int limiar, boolean maior, int[] out, int oo, int n) {
+        for (int p = 0, k = so; p < n; p++, k += step)
+            out[oo + p] = (maior ? src[k] > limiar : src[k] < limiar) ? 1 : 0;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,181 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+/**
+ * Classe abstrata Skeleton, que implementa a esqueletização usada por Image.skeletonize (algoritmo K3M).
+ * A vizinhança de cada pixel é codificada em um byte, montado bit a bit
+ * (N = 1, NE = 2, L = 4, SE = 8, S = 16, SO = 32, O = 64, NO = 128, como em Image.neighbourWeight), e consultada
+ * em tabelas de 256 posições. A cada iteração só são reavaliados os pixels de borda restantes e os vizinhos dos
+ * pixels removidos, pois a vizinhança dos demais não mudou.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public abstract class Skeleton {
+
+    // Códigos de vizinhança aceitos em cada fase (0: marcação da borda; 1 a 5: remoção)
+    private static final int[][] PHASES = {
+            //Phase 0
+            {3, 6, 7, 12, 14, 15, 24, 28, 30, 31, 48, 56, 60,
+            62, 63, 96, 112, 120, 124, 126, 127, 129, 131, 135,
+            143, 159, 191, 192, 193, 195, 199, 207, 223, 224,
+            225, 227, 231, 239, 240, 241, 243, 247, 248, 249,
+            251, 252, 253, 254},
+            //Phase 1
+            {7, 14, 28, 56, 112, 131, 193, 224},
+            //Phase 2
+            {7, 14, 15, 28, 30, 56, 60, 112, 120, 131, 135,
+            193, 195, 224, 225, 240},
+            //Phase 3
+            {7, 14, 15, 28, 30, 31, 56, 60, 62, 112, 120,
+            124, 131, 135, 143, 193, 195, 199, 224, 225, 227,
+            240, 241, 248},
+            //Phase 4
+            {7, 14, 15, 28, 30, 31, 56, 60, 62, 63, 112, 120,
+            124, 126, 131, 135, 143, 159, 193, 195, 199, 207,
+            224, 225, 227, 231, 240, 241, 243, 248, 249, 252},
+            //Phase 5
+            {7, 14, 15, 28, 30, 31, 56, 60, 62, 63, 112, 120,
+            124, 126, 131, 135, 143, 159, 191, 193, 195, 199,
+            207, 224, 225, 227, 231, 239, 240, 241, 243, 248,
+            249, 251, 252, 254}
+    };
+
+    private static final boolean[][] LUT = new boolean[PHASES.length][256];
+
+    static {
+        for (int k = 0; k < PHASES.length; k++)
+            for (int code : PHASES[k])
+                LUT[k][code] = true;
+    }
+
+    /**
+     * Esqueletiza uma imagem binária. Apenas os pixels internos (fora da primeira e da última linha e coluna)
+     * podem ser removidos.
+     *
+     * @param bw A imagem binária.
+     * @return A imagem esqueletizada.
+     */
+    public static boolean[][] thin(boolean[][] bw) {
+        int h = bw.length, w = bw[0].length;
+        byte[] px = new byte[h * w];
+        for (int i = 0; i < h; i++)
+            for (int j = 0; j < w; j++)
+                if (bw[i][j])
+                    px[i * w + j] = 1;
+
+        if (h >= 3 && w >= 3)
+            thin(px, h, w);
+
+        boolean[][] out = new boolean[h][w];
+        for (int i = 0; i < h; i++)
+            for (int j = 0; j < w; j++)
+                out[i][j] = px[i * w + j] != 0;
+        return out;
+    }
+
+    /**
+     * Esqueletiza, no próprio array, uma imagem binária armazenada linha após linha (1 = verdadeiro).
+     */
+    static void thin(byte[] px, int h, int w) {
+        // Candidatos da primeira iteração: todos os pixels internos verdadeiros
+        int[] candidates = new int[16];
+        int n = 0;
+        for (int i = 1; i < h - 1; i++)
+            for (int k = i * w + 1, end = i * w + w - 1; k < end; k++)
+                if (px[k] != 0) {
+                    if (n == candidates.length)
+                        candidates = Arrays.copyOf(candidates, n * 2);
+                    candidates[n++] = k;
+                }
+
+        // Marca de cada pixel com a última iteração em que entrou na lista de candidatos
+        int[] stamp = new int[h * w];
+        int[] border = new int[Math.max(n, 16)];
+        int[] deleted = new int[16];
+        int iteration = 0;
+
+        while (true) {
+            iteration++;
+            ImagePhaseEvent event = new ImagePhaseEvent();
+            event.begin();
+
+            //Phase 0 - Border
+            int b = 0;
+            for (int c = 0; c < n; c++) {
+                int k = candidates[c];
+                if (LUT[0][code(px, k, w)])
+                    border[b++] = k;
+            }
+
+            //Phase 1 - 5, em ordem de varredura e sobre a imagem já modificada
+            int d = 0;
+            for (int phase = 1; phase <= 5; phase++) {
+                boolean[] lut = LUT[phase];
+                for (int c = 0; c < b; c++) {
+                    int k = border[c];
+                    if (px[k] != 0 && lut[code(px, k, w)]) {
+                        px[k] = 0;
+                        if (d == deleted.length)
+                            deleted = Arrays.copyOf(deleted, d * 2);
+                        deleted[d++] = k;
+                    }
+                }
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = "Skeleton";
+                event.phase = "thinning";
+                event.iteration = iteration;
+                event.count = d;
+                event.commit();
+            }
+            if (d == 0)
+                return;
+
+            // Próximos candidatos: bordas restantes e vizinhos internos verdadeiros dos pixels removidos
+            n = 0;
+            for (int c = 0; c < b; c++) {
+                int k = border[c];
+                if (px[k] != 0 && stamp[k] != iteration) {
+                    stamp[k] = iteration;
+                    if (n == candidates.length)
+                        candidates = Arrays.copyOf(candidates, n * 2);
+                    candidates[n++] = k;
+                }
+            }
+            for (int c = 0; c < d; c++) {
+                int k = deleted[c], i = k / w, j = k % w;
+                for (int x = Math.max(i - 1, 1); x <= Math.min(i + 1, h - 2); x++)
+                    for (int y = Math.max(j - 1, 1); y <= Math.min(j + 1, w - 2); y++) {
+                        int q = x * w + y;
+                        if (px[q] != 0 && stamp[q] != iteration) {
+                            stamp[q] = iteration;
+                            if (n == candidates.length)
+                                candidates = Arrays.copyOf(candidates, n * 2);
+                            candidates[n++] = q;
+                        }
+                    }
+            }
+            Arrays.sort(candidates, 0, n);
+            if (border.length < n)
+                border = new int[candidates.length];
+        }
+    }
+
+    /**
+     * Código da vizinhança 3x3 do pixel interno k.
+     */
+    static int code(byte[] px, int k, int w) {
+        int up = k - w, down = k + w;
+        return px[up]
+                | px[up + 1] << 1
+                | px[k + 1] << 2
+                | px[down + 1] << 3
+                | px[down] << 4
+                | px[down - 1] << 5
+                | px[k - 1] << 6
+                | px[up - 1] << 7;
+    }
+}
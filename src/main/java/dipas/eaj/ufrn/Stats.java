@@ -0,0 +1,302 @@
+package dipas.eaj.ufrn;
+
+/**
+ * Classe Stats, que reúne as estatísticas de uma imagem (mínimo, máximo, soma, média, variância e as posições do
+ * mínimo e do máximo), calculadas em uma única passagem pelos pixels. Imagens grandes são divididas em faixas de
+ * linhas processadas em paralelo (ver {@link Parallel}), e os resultados parciais são combinados na ordem das
+ * linhas (a variância pela fórmula de Chan).
+ * Em caso de empate, as posições são as da primeira ocorrência em ordem de varredura.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class Stats {
+    /**
+     * Quantidade de valores considerados.
+     */
+    public final long count;
+    /**
+     * Soma dos valores.
+     */
+    public final long sum;
+    /**
+     * Média dos valores.
+     */
+    public final double mean;
+    /**
+     * Variância (populacional) dos valores.
+     */
+    public final double variance;
+    /**
+     * Menor e maior valor.
+     */
+    public final int min, max;
+    /**
+     * Linha e coluna da primeira ocorrência do menor valor.
+     */
+    public final int minRow, minCol;
+    /**
+     * Linha e coluna da primeira ocorrência do maior valor.
+     */
+    public final int maxRow, maxCol;
+
+    private Stats(Partial p) {
+        this.count = p.n;
+        this.sum = p.sum;
+        this.mean = p.n == 0 ? 0 : p.sum / (double) p.n;
+        this.variance = p.n == 0 ? 0 : Math.max(0, p.m2 / p.n);
+        this.min = p.min;
+        this.max = p.max;
+        this.minRow = p.minRow;
+        this.minCol = p.minCol;
+        this.maxRow = p.maxRow;
+        this.maxCol = p.maxCol;
+    }
+
+    /**
+     * @return O desvio padrão (populacional) dos valores.
+     */
+    public double std() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * Calcula as estatísticas de uma imagem em tons de cinza.
+     *
+     * @param im A imagem em tons de cinza.
+     * @return As estatísticas da imagem.
+     */
+    public static Stats of(int[][] im) {
+        int w = im[0].length;
+        return compute(im.length, w, (i, p) -> p.add(im[i], 0, 1, w, i));
+    }
+
+    /**
+     * Calcula as estatísticas de um canal de uma imagem colorida.
+     *
+     * @param im A imagem colorida.
+     * @param channel O canal.
+     * @return As estatísticas do canal.
+     */
+    public static Stats of(int[][][] im, int channel) {
+        int w = im[0].length;
+        return compute(im.length, w, (i, p) -> p.add(im[i], channel, i));
+    }
+
+    /**
+     * Calcula as estatísticas de um canal de uma imagem compactada.
+     *
+     * @param im A imagem compactada.
+     * @param channel O canal.
+     * @return As estatísticas do canal.
+     */
+    public static Stats of(PackedImage im, int channel) {
+        int step = im.pixelStep();
+        return compute(im.height, im.width, (i, p) -> p.add(im.data, im.index(i, 0, channel), step, im.width, i));
+    }
+
+    /**
+     * Calcula as estatísticas de todos os canais de uma imagem compactada. As posições do mínimo e do máximo são as
+     * do pixel que contém o valor, em qualquer canal.
+     *
+     * @param im A imagem compactada.
+     * @return As estatísticas da imagem.
+     */
+    public static Stats of(PackedImage im) {
+        int step = im.pixelStep();
+        return compute(im.height, (long) im.width * im.channels, (i, p) -> {
+            for (int c = 0; c < im.channels; c++)
+                p.add(im.data, im.index(i, 0, c), step, im.width, i);
+        });
+    }
+
+    /**
+     * Menor ou maior valor de uma imagem em tons de cinza, sem as demais estatísticas.
+     */
+    static int extreme(int[][] im, boolean max) {
+        int w = im[0].length;
+        return extreme(im.length, w, max, (i, acc) -> extreme(im[i], 0, 1, w, acc, max));
+    }
+
+    /**
+     * Menor ou maior valor de todos os canais de uma imagem compactada, sem as demais estatísticas.
+     */
+    static int extreme(PackedImage im, boolean max) {
+        int step = im.pixelStep();
+        return extreme(im.height, (long) im.width * im.channels, max, (i, acc) -> {
+            for (int c = 0; c < im.channels; c++)
+                acc = extreme(im.data, im.index(i, 0, c), step, im.width, acc, max);
+            return acc;
+        });
+    }
+
+    private interface RowExtreme {
+        int scan(int i, int acc);
+    }
+
+    private static int extreme(int height, long rowSize, boolean max, RowExtreme rows) {
+        int identity = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        return Parallel.reduceRows(height, rowSize, (from, to) -> {
+            int acc = identity;
+            for (int i = from; i < to; i++)
+                acc = rows.scan(i, acc);
+            return acc;
+        }, max ? Math::max : Math::min);
+    }
+
+    private static int extreme(int[] data, int from, int step, int len, int acc, boolean max) {
+        if (max)
+            for (int j = 0, k = from; j < len; j++, k += step)
+                acc = Math.max(acc, data[k]);
+        else
+            for (int j = 0, k = from; j < len; j++, k += step)
+                acc = Math.min(acc, data[k]);
+        return acc;
+    }
+
+    private interface RowScan {
+        void scan(int i, Partial p);
+    }
+
+    private static Stats compute(int height, long rowSize, RowScan rows) {
+        return new Stats(Parallel.reduceRows(height, rowSize, (from, to) -> {
+            Partial p = new Partial();
+            for (int i = from; i < to; i++)
+                rows.scan(i, p);
+            return p;
+        }, (left, right) -> {
+            left.merge(right);
+            return left;
+        }));
+    }
+
+    /**
+     * Acumulador parcial de uma sequência de linhas.
+     */
+    private static final class Partial {
+        long n, sum;
+        double m2;
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        int minRow = -1, minCol = -1, maxRow = -1, maxCol = -1;
+
+        /**
+         * Acumula len valores de data, a partir de from e com passo step, pertencentes à linha row.
+         */
+        void add(int[] data, int from, int step, int len, int row) {
+            if (len == 0)
+                return;
+            long s = 0, sq = 0;
+            int lo = min, hi = max, bits = 0;
+            for (int j = 0, k = from; j < len; j++, k += step) {
+                int v = data[k];
+                s += v;
+                sq += (long) v * v;
+                bits |= v ^ (v >> 31);
+                if (v < lo) {
+                    lo = v;
+                    minRow = row;
+                    minCol = j;
+                }
+                if (v > hi) {
+                    hi = v;
+                    maxRow = row;
+                    maxCol = j;
+                }
+            }
+            min = lo;
+            max = hi;
+            if ((bits & ~0xFFFF) == 0) {
+                combine(len, s, rowM2(len, s, sq));
+                return;
+            }
+            // Com valores de mais de 16 bits a soma dos quadrados pode estourar: nova leitura em torno da média
+            double rowMean = s / (double) len, rowM2 = 0;
+            for (int j = 0, k = from; j < len; j++, k += step) {
+                double d = data[k] - rowMean;
+                rowM2 += d * d;
+            }
+            combine(len, s, rowM2);
+        }
+
+        /**
+         * Acumula o canal channel de uma linha de pixels, lido no próprio vetor de cada pixel.
+         */
+        void add(int[][] pixels, int channel, int row) {
+            int len = pixels.length;
+            if (len == 0)
+                return;
+            long s = 0, sq = 0;
+            int lo = min, hi = max, bits = 0;
+            for (int j = 0; j < len; j++) {
+                int v = pixels[j][channel];
+                s += v;
+                sq += (long) v * v;
+                bits |= v ^ (v >> 31);
+                if (v < lo) {
+                    lo = v;
+                    minRow = row;
+                    minCol = j;
+                }
+                if (v > hi) {
+                    hi = v;
+                    maxRow = row;
+                    maxCol = j;
+                }
+            }
+            min = lo;
+            max = hi;
+            if ((bits & ~0xFFFF) == 0) {
+                combine(len, s, rowM2(len, s, sq));
+                return;
+            }
+            double rowMean = s / (double) len, rowM2 = 0;
+            for (int j = 0; j < len; j++) {
+                double d = pixels[j][channel] - rowMean;
+                rowM2 += d * d;
+            }
+            combine(len, s, rowM2);
+        }
+
+        /**
+         * Soma dos quadrados dos desvios de uma linha, sq - s * s / len, a partir das somas exatas. Com s = q * len + r,
+         * q * s não passa de sq, e só o termo r * s / len é calculado em ponto flutuante.
+         */
+        private static double rowM2(long len, long s, long sq) {
+            long q = s / len, r = s % len;
+            return Math.max(0, (sq - q * s) - (double) r * s / len);
+        }
+
+        /**
+         * Combina com o acumulador de linhas posteriores.
+         */
+        void merge(Partial o) {
+            if (o.n == 0)
+                return;
+            if (o.min < min) {
+                min = o.min;
+                minRow = o.minRow;
+                minCol = o.minCol;
+            }
+            if (o.max > max) {
+                max = o.max;
+                maxRow = o.maxRow;
+                maxCol = o.maxCol;
+            }
+            combine(o.n, o.sum, o.m2);
+        }
+
+        private void combine(long nb, long sumb, double m2b) {
+            if (n == 0) {
+                n = nb;
+                sum = sumb;
+                m2 = m2b;
+                return;
+            }
+            double delta = sumb / (double) nb - sum / (double) n;
+            long total = n + nb;
+            m2 += m2b + delta * delta * ((double) n * nb / total);
+            n = total;
+            sum += sumb;
+        }
+    }
+}
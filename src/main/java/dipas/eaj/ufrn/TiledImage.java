@@ -0,0 +1,527 @@
+package dipas.eaj.ufrn;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.SampleModel;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+
+/**
+ * Classe TiledImage, que representa uma imagem armazenada em arquivo, para imagens maiores que a memória.
+ * Os pixels ficam no arquivo linha após linha, com os canais intercalados e 8, 16 ou 32 bits por amostra
+ * (little-endian). Arquivos com a extensão .imj usam o cabeçalho do formato bruto (ver {@link RawImage}) e podem
+ * ser abertos sem informar o formato; os demais não têm cabeçalho. As operações são aplicadas bloco a bloco: cada bloco
+ * é lido com uma margem de pixels (para filtros de vizinhança), processado em memória como uma PackedImage e apenas a
+ * parte central é gravada no arquivo de saída, de modo que a memória usada depende do tamanho do bloco e não do tamanho
+ * da imagem.
+ * Os blocos são processados em paralelo (ver {@link Parallel}).
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+public class TiledImage implements Closeable {
+    /**
+     * Lado padrão dos blocos, em pixels.
+     */
+    public static final int DEFAULT_TILE = 1024;
+    /**
+     * Memória padrão, em bytes, das faixas de linhas decodificadas por importImage.
+     */
+    public static final long DEFAULT_IMPORT_BUFFER = 64L << 20;
+
+    /**
+     * Altura da imagem, em pixels.
+     */
+    public final int height;
+    /**
+     * Largura da imagem, em pixels.
+     */
+    public final int width;
+    /**
+     * Quantidade de canais por pixel.
+     */
+    public final int channels;
+    /**
+     * Bits por amostra (8, 16 ou 32).
+     */
+    public final int depth;
+    /**
+     * Lado dos blocos usados pelas operações.
+     */
+    public final int tile;
+    /**
+     * Caminho do arquivo.
+     */
+    public final String path;
+
+    private final long offset;
+    private final int sampleBytes;
+    private final FileChannel channel;
+
+    /**
+     * Operação aplicada a cada bloco (com margem). Deve retornar uma imagem do mesmo tamanho do bloco recebido.
+     */
+    public interface TileOp {
+        PackedImage apply(PackedImage region);
+    }
+
+    TiledImage(FileChannel channel, String path, long offset, int height, int width, int channels, int depth,
+               int tile) {
+        if (depth != 8 && depth != 16 && depth != 32)
+            throw new IllegalArgumentException("Depth must be 8, 16 or 32 bits");
+        if (height <= 0 || width <= 0 || channels <= 0 || tile <= 0)
+            throw new IllegalArgumentException("Invalid image dimensions");
+        this.channel = channel;
+        this.path = path;
+        this.offset = offset;
+        this.height = height;
+        this.width = width;
+        this.channels = channels;
+        this.depth = depth;
+        this.tile = tile;
+        this.sampleBytes = depth / 8;
+    }
+
+    /**
+     * Cria (ou substitui) um arquivo para uma imagem com todos os pixels zerados. Se o caminho terminar em .imj, o
+     * arquivo recebe o cabeçalho do formato bruto.
+     *
+     * @param path O caminho do arquivo.
+     * @param height A altura da imagem.
+     * @param width A largura da imagem.
+     * @param channels A quantidade de canais.
+     * @param depth Os bits por amostra (8, 16 ou 32).
+     * @param tile O lado dos blocos.
+     * @return A imagem em arquivo.
+     * @throws IOException Se o arquivo não puder ser criado.
+     */
+    public static TiledImage create(String path, int height, int width, int channels, int depth, int tile)
+            throws IOException {
+        RawImage.checkFormat(height, width, channels, depth);
+        long offset = RawImage.isRaw(path) ? RawImage.HEADER_SIZE : 0;
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            file.setLength(0);
+            file.setLength(offset + (long) height * width * channels * (depth / 8));
+            if (offset > 0)
+                RawImage.writeHeader(file.getChannel(), height, width, channels, depth,
+                        PackedImage.Layout.INTERLEAVED);
+            return new TiledImage(file.getChannel(), path, offset, height, width, channels, depth, tile);
+        } catch (IOException | RuntimeException e) {
+            closeAfterFailure(file, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Abre o arquivo de uma imagem existente.
+     *
+     * @param path O caminho do arquivo.
+     * @param height A altura da imagem.
+     * @param width A largura da imagem.
+     * @param channels A quantidade de canais.
+     * @param depth Os bits por amostra (8, 16 ou 32).
+     * @param tile O lado dos blocos.
+     * @return A imagem em arquivo.
+     * @throws IOException Se o arquivo não puder ser aberto.
+     */
+    public static TiledImage open(String path, int height, int width, int channels, int depth, int tile)
+            throws IOException {
+        FileChannel channel = new RandomAccessFile(path, "rw").getChannel();
+        try {
+            return new TiledImage(channel, path, 0, height, width, channels, depth, tile);
+        } catch (RuntimeException e) {
+            closeAfterFailure(channel, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Abre um arquivo no formato bruto (.imj), lendo o formato do cabeçalho.
+     *
+     * @param path O caminho do arquivo.
+     * @param tile O lado dos blocos.
+     * @return A imagem em arquivo.
+     * @throws IOException Se o arquivo não puder ser aberto ou não estiver no formato bruto com canais intercalados.
+     */
+    public static TiledImage open(String path, int tile) throws IOException {
+        FileChannel channel = new RandomAccessFile(path, "rw").getChannel();
+        try {
+            int[] header = RawImage.readHeader(channel);
+            if (header[4] != PackedImage.Layout.INTERLEAVED.ordinal())
+                throw new IOException("Tiled images must have interleaved channels");
+            return new TiledImage(channel, path, RawImage.HEADER_SIZE, header[0], header[1], header[2], header[3],
+                    tile);
+        } catch (IOException | RuntimeException e) {
+            closeAfterFailure(channel, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Grava uma imagem em memória em um arquivo.
+     *
+     * @param path O caminho do arquivo.
+     * @param im A imagem.
+     * @param depth Os bits por amostra (8, 16 ou 32).
+     * @param tile O lado dos blocos.
+     * @return A imagem em arquivo.
+     * @throws IOException Se o arquivo não puder ser gravado.
+     */
+    public static TiledImage fromPacked(String path, PackedImage im, int depth, int tile) throws IOException {
+        TiledImage tiled = create(path, im.height, im.width, im.channels, depth, tile);
+        try {
+            tiled.write(0, 0, im);
+            return tiled;
+        } catch (IOException | RuntimeException e) {
+            closeAfterFailure(tiled, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Importa um arquivo de imagem (JPEG, PNG, ...) para um arquivo de blocos, com três canais de 8 bits, sem
+     * carregar a imagem inteira, usando até {@link #DEFAULT_IMPORT_BUFFER} bytes para os pixels decodificados.
+     *
+     * @param imagePath O caminho do arquivo de imagem.
+     * @param path O caminho do arquivo de blocos.
+     * @param tile O lado dos blocos.
+     * @return A imagem em arquivo.
+     * @throws IOException Se a imagem não puder ser lida ou o arquivo não puder ser gravado.
+     * @see #importImage(String, String, int, long)
+     */
+    public static TiledImage importImage(String imagePath, String path, int tile) throws IOException {
+        return importImage(imagePath, path, tile, DEFAULT_IMPORT_BUFFER);
+    }
+
+    /**
+     * Importa um arquivo de imagem para um arquivo de blocos, com três canais de 8 bits, sem carregar a imagem
+     * inteira. Arquivos divididos em blocos (como TIFF em blocos) são lidos bloco a bloco (ImageReader.readTile),
+     * decodificando cada bloco uma única vez. Os demais são lidos em faixas de linhas (ImageReadParam.setSourceRegion)
+     * com até bufferBytes bytes decodificados, independentemente do lado dos blocos do arquivo de saída.
+     * Limitação: os leitores de JPEG e PNG recomeçam a decodificação do início do arquivo a cada faixa, então a
+     * importação de uma imagem que não cabe no buffer custa cerca de (faixas + 1) / 2 decodificações completas; um
+     * buffer maior troca memória por menos decodificações, e uma imagem que cabe no buffer é decodificada uma vez.
+     *
+     * @param imagePath O caminho do arquivo de imagem.
+     * @param path O caminho do arquivo de blocos.
+     * @param tile O lado dos blocos.
+     * @param bufferBytes A memória máxima, em bytes, para os pixels de uma faixa.
+     * @return A imagem em arquivo.
+     * @throws IOException Se a imagem não puder ser lida ou o arquivo não puder ser gravado.
+     */
+    public static TiledImage importImage(String imagePath, String path, int tile, long bufferBytes)
+            throws IOException {
+        if (bufferBytes < 1)
+            throw new IllegalArgumentException("Import buffer must be positive");
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(imagePath))) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext())
+                throw new IOException("No image reader for " + imagePath);
+            ImageReader reader = readers.next();
+            TiledImage tiled = null;
+            try {
+                reader.setInput(input, false, true);
+                int h = reader.getHeight(0), w = reader.getWidth(0);
+                tiled = create(path, h, w, 3, 8, tile);
+                if (reader.isImageTiled(0) && reader.getTileGridXOffset(0) == 0
+                        && reader.getTileGridYOffset(0) == 0) {
+                    int th = reader.getTileHeight(0), tw = reader.getTileWidth(0);
+                    for (int ty = 0; ty * th < h; ty++)
+                        for (int tx = 0; tx * tw < w; tx++)
+                            tiled.write(ty * th, tx * tw, RasterBridge.toByteImage(reader.readTile(0, tx, ty)));
+                } else {
+                    // Pixels decodificados pelo leitor e sua cópia em bytes
+                    long rowBytes = (long) w * (bytesPerPixel(reader.getRawImageType(0)) + 3);
+                    int stripe = (int) Math.max(1, Math.min(h, bufferBytes / rowBytes));
+                    for (int row = 0; row < h; row += stripe) {
+                        ImageReadParam param = reader.getDefaultReadParam();
+                        param.setSourceRegion(new Rectangle(0, row, w, Math.min(stripe, h - row)));
+                        tiled.write(row, 0, RasterBridge.toByteImage(reader.read(0, param)));
+                    }
+                }
+                return tiled;
+            } catch (IOException | RuntimeException e) {
+                if (tiled != null)
+                    closeAfterFailure(tiled, e);
+                throw e;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static int bytesPerPixel(ImageTypeSpecifier type) {
+        if (type == null)
+            return 4;
+        SampleModel sm = type.getSampleModel();
+        return Math.max(1, sm.getNumBands() * DataBuffer.getDataTypeSize(sm.getDataType()) / 8);
+    }
+
+    /**
+     * Lê uma região da imagem.
+     *
+     * @param row0 A primeira linha.
+     * @param col0 A primeira coluna.
+     * @param row1 A linha seguinte à última.
+     * @param col1 A coluna seguinte à última.
+     * @return A região, como uma imagem intercalada.
+     * @throws IOException Se a leitura falhar.
+     */
+    public PackedImage read(int row0, int col0, int row1, int col1) throws IOException {
+        checkRegion(row0, col0, row1, col1);
+        int rows = row1 - row0, cols = col1 - col0, rowSize = cols * channels;
+        PackedImage region = new PackedImage(rows, cols, channels);
+        ByteBuffer buffer = ByteBuffer.allocate(rowSize * sampleBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rows; i++) {
+            buffer.clear();
+            long position = position(row0 + i, col0);
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, position + buffer.position());
+                if (n < 0)
+                    throw new IOException("Unexpected end of file " + path);
+            }
+            buffer.flip();
+            decode(buffer, region.data, i * rowSize, rowSize);
+        }
+        return region;
+    }
+
+    /**
+     * Grava uma imagem intercalada na posição (row0, col0).
+     *
+     * @param row0 A linha de destino.
+     * @param col0 A coluna de destino.
+     * @param region A imagem a ser gravada.
+     * @throws IOException Se a gravação falhar.
+     */
+    public void write(int row0, int col0, PackedImage region) throws IOException {
+        write(row0, col0, region, 0, 0, region.height, region.width);
+    }
+
+    /**
+     * Grava uma imagem de 8 bits na posição (row0, col0) de um arquivo de 8 bits, sem conversão.
+     */
+    private void write(int row0, int col0, ByteImage region) throws IOException {
+        if (region.channels != channels || depth != 8)
+            throw new IllegalArgumentException("Region must have " + channels + " channels of 8 bits");
+        checkRegion(row0, col0, row0 + region.height, col0 + region.width);
+        // Linhas inteiras são contíguas no arquivo e vão em uma única gravação
+        int rowBytes = region.width * channels;
+        boolean full = col0 == 0 && region.width == width;
+        int rows = full ? 1 : region.height, length = full ? rowBytes * region.height : rowBytes;
+        for (int i = 0; i < rows; i++) {
+            ByteBuffer buffer = ByteBuffer.wrap(region.data, i * rowBytes, length).slice();
+            long position = position(row0 + i, col0);
+            while (buffer.hasRemaining())
+                channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void write(int row0, int col0, PackedImage region, int srcRow, int srcCol, int rows, int cols)
+            throws IOException {
+        if (region.channels != channels)
+            throw new IllegalArgumentException("Region must have " + channels + " channels");
+        checkRegion(row0, col0, row0 + rows, col0 + cols);
+        PackedImage src = region.layout == PackedImage.Layout.INTERLEAVED ? region : region.toLayout(PackedImage.Layout.INTERLEAVED);
+        int rowSize = cols * channels;
+        ByteBuffer buffer = ByteBuffer.allocate(rowSize * sampleBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rows; i++) {
+            buffer.clear();
+            encode(src.data, src.index(srcRow + i, srcCol, 0), rowSize, buffer);
+            buffer.flip();
+            long position = position(row0 + i, col0);
+            while (buffer.hasRemaining())
+                channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Aplica uma operação bloco a bloco, gravando o resultado em um novo arquivo.
+     *
+     * @param path O caminho do arquivo de saída.
+     * @param outChannels A quantidade de canais do resultado.
+     * @param overlap A margem, em pixels, lida ao redor de cada bloco (o raio da operação).
+     * @param op A operação.
+     * @return A imagem resultante, em arquivo.
+     * @throws IOException Se a leitura ou a gravação falhar.
+     */
+    public TiledImage map(String path, int outChannels, int overlap, TileOp op) throws IOException {
+        TiledImage out = create(path, height, width, outChannels, depth, tile);
+        try {
+            Parallel.forTiles(height, width, tile, (r0, c0, r1, c1) -> {
+                int lo = Math.max(0, r0 - overlap), left = Math.max(0, c0 - overlap);
+                int hi = Math.min(height, r1 + overlap), right = Math.min(width, c1 + overlap);
+                try {
+                    PackedImage result = op.apply(read(lo, left, hi, right));
+                    if (result.height != hi - lo || result.width != right - left)
+                        throw new IllegalStateException("Tile operation must keep the tile size");
+                    out.write(r0, c0, result, r0 - lo, c0 - left, r1 - r0, c1 - c0);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            closeAfterFailure(out, e.getCause());
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            closeAfterFailure(out, e);
+            throw e;
+        }
+        return out;
+    }
+
+    /**
+     * Aplica Image.imGaussian(im, tam) bloco a bloco.
+     *
+     * @param path O caminho do arquivo de saída.
+     * @param tam O tamanho do filtro.
+     * @return A imagem filtrada, em arquivo.
+     * @throws IOException Se a leitura ou a gravação falhar.
+     */
+    public TiledImage imGaussian(String path, int tam) throws IOException {
+        return map(path, channels, tam / 2, region -> Image.imGaussian(region, tam));
+    }
+
+    /**
+     * Aplica Image.rgb2gray bloco a bloco.
+     *
+     * @param path O caminho do arquivo de saída.
+     * @return A imagem em tons de cinza, em arquivo.
+     * @throws IOException Se a leitura ou a gravação falhar.
+     */
+    public TiledImage rgb2gray(String path) throws IOException {
+        return map(path, 1, 0, Image::rgb2gray);
+    }
+
+    /**
+     * Aplica Image.im2bw(im, limiar, true) bloco a bloco (resultado com valores 0 e 1).
+     *
+     * @param path O caminho do arquivo de saída.
+     * @param limiar O limiar.
+     * @return A imagem binária, em arquivo.
+     * @throws IOException Se a leitura ou a gravação falhar.
+     */
+    public TiledImage im2bw(String path, int limiar) throws IOException {
+        return map(path, 1, 0, region -> Image.im2bw(region, limiar, true));
+    }
+
+    /**
+     * Aplica Image.bwErode bloco a bloco a uma imagem binária (valores 0 e 1).
+     *
+     * @param path O caminho do arquivo de saída.
+     * @param tam O tamanho do elemento estruturante.
+     * @return A imagem erodida, em arquivo.
+     * @throws IOException Se a leitura ou a gravação falhar.
+     */
+    public TiledImage bwErode(String path, int tam) throws IOException {
+        return map(path, 1, tam / 2, region -> Image.bwErode(region, tam));
+    }
+
+    /**
+     * Aplica Image.bwDilate bloco a bloco a uma imagem binária (valores 0 e 1).
+     *
+     * @param path O caminho do arquivo de saída.
+     * @param tam O tamanho do elemento estruturante.
+     * @return A imagem dilatada, em arquivo.
+     * @throws IOException Se a leitura ou a gravação falhar.
+     */
+    public TiledImage bwDilate(String path, int tam) throws IOException {
+        return map(path, 1, tam / 2, region -> Image.bwDilate(region, tam));
+    }
+
+    /**
+     * Aplica Image.bwOpen bloco a bloco a uma imagem binária (valores 0 e 1).
+     *
+     * @param path O caminho do arquivo de saída.
+     * @param tam O tamanho do elemento estruturante.
+     * @return A imagem resultante da abertura, em arquivo.
+     * @throws IOException Se a leitura ou a gravação falhar.
+     */
+    public TiledImage bwOpen(String path, int tam) throws IOException {
+        return map(path, 1, 2 * (tam / 2), region -> Image.bwOpen(region, tam));
+    }
+
+    /**
+     * Aplica Image.bwClose bloco a bloco a uma imagem binária (valores 0 e 1).
+     *
+     * @param path O caminho do arquivo de saída.
+     * @param tam O tamanho do elemento estruturante.
+     * @return A imagem resultante do fechamento, em arquivo.
+     * @throws IOException Se a leitura ou a gravação falhar.
+     */
+    public TiledImage bwClose(String path, int tam) throws IOException {
+        return map(path, 1, 2 * (tam / 2), region -> Image.bwClose(region, tam));
+    }
+
+    /**
+     * Lê a imagem inteira para a memória.
+     *
+     * @return A imagem intercalada.
+     * @throws IOException Se a leitura falhar.
+     */
+    public PackedImage toPacked() throws IOException {
+        return read(0, 0, height, width);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void closeAfterFailure(Closeable resource, Exception failure) {
+        try {
+            resource.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private long position(int row, int col) {
+        return offset + ((long) row * width + col) * channels * sampleBytes;
+    }
+
+    private void checkRegion(int row0, int col0, int row1, int col1) {
+        if (row0 < 0 || col0 < 0 || row1 > height || col1 > width || row1 < row0 || col1 < col0)
+            throw new IllegalArgumentException("Region outside the image");
+    }
+
+    private void decode(ByteBuffer buffer, int[] data, int from, int n) {
+        switch (depth) {
+            case 8:
+                for (int k = from; k < from + n; k++) data[k] = buffer.get() & 0xFF;
+                break;
+            case 16:
+                for (int k = from; k < from + n; k++) data[k] = buffer.getShort() & 0xFFFF;
+                break;
+            default:
+                for (int k = from; k < from + n; k++) data[k] = buffer.getInt();
+        }
+    }
+
+    // Amostras fora do intervalo da profundidade são saturadas
+    private void encode(int[] data, int from, int n, ByteBuffer buffer) {
+        switch (depth) {
+            case 8:
+                for (int k = from; k < from + n; k++) buffer.put((byte) Math.min(255, Math.max(0, data[k])));
+                break;
+            case 16:
+                for (int k = from; k < from + n; k++) buffer.putShort((short) Math.min(65535, Math.max(0, data[k])));
+                break;
+            default:
+                for (int k = from; k < from + n; k++) buffer.putInt(data[k]);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dipas.eaj.ufrn;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementação de {@link Kernels} com a Vector API (jdk.incubator.vector), no tamanho de vetor preferido da
+ * máquina. Os pixels que não completam um vetor são processados pela implementação escalar. Trechos com passo
+ * maior que 1 (imagens intercaladas) são lidos com gather. A conversão para cinza usa a mesma aritmética de 32 bits
+ * de {@link ColorConversion#gray(int, int, int)}, e os vetores com valores fora de [0, 255] seguem pelo caminho
+ * escalar.
+ * Compilada para o Java 17 (ver o perfil simd do pom.xml) e carregada por {@link Kernels} apenas quando o módulo
+ * jdk.incubator.vector está presente.
+ *
+ * @author Luan Magioli e Yuri Felipe
+ * @version 1.0
+ */
+final class VectorKernels implements Kernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public void add(int[] a, int ao, int[] b, int bo, int[] out, int oo, int n, boolean subtract) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += LANES) {
+            IntVector va = IntVector.fromArray(SPECIES, a, ao + k), vb = IntVector.fromArray(SPECIES, b, bo + k);
+            (subtract ? va.sub(vb) : va.add(vb)).intoArray(out, oo + k);
+        }
+        SCALAR.add(a, ao + k, b, bo + k, out, oo + k, n - k, subtract);
+    }
+
+    @Override
+    public void addSaturated(int[] a, int ao, int[] b, int bo, int[] out, int oo, int n, boolean subtract) {
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += LANES) {
+            IntVector va = IntVector.fromArray(SPECIES, a, ao + k), vb = IntVector.fromArray(SPECIES, b, bo + k);
+            (subtract ? va.sub(vb) : va.add(vb)).max(0).min(255).intoArray(out, oo + k);
+        }
+        SCALAR.addSaturated(a, ao + k, b, bo + k, out, oo + k, n - k, subtract);
+    }
+
+    @Override
+    public void gray(int[] src, int r, int g, int b, int step, int[] out, int oo, int n) {
+        int[] map = step == 1 ? null : indexMap(step);
+        int p = 0;
+        for (int bound = SPECIES.loopBound(n); p < bound; p += LANES) {
+            int k = p * step;
+            IntVector vr = load(src, r + k, map), vg = load(src, g + k, map), vb = load(src, b + k, map);
+            if (vr.or(vg).or(vb).and(~0xFF).compare(VectorOperators.NE, 0).anyTrue()) {
+                SCALAR.gray(src, r + k, g + k, b + k, step, out, oo + p, LANES);
+                continue;
+            }
+            vr.mul(299).add(vg.mul(587)).add(vb.mul(114))
+                    .lanewise(VectorOperators.LSHR, 3).mul(ColorConversion.GRAY_MUL)
+                    .lanewise(VectorOperators.LSHR, ColorConversion.GRAY_SHIFT)
+                    .intoArray(out, oo + p);
+        }
+        int k = p * step;
+        SCALAR.gray(src, r + k, g + k, b + k, step, out, oo + p, n - p);
+    }
+
+    @Override
+    public void threshold(int[] src, int so, int step, int limiar, boolean maior, boolean[] out, int oo, int n) {
+        int[] map = step == 1 ? null : indexMap(step);
+        int p = 0;
+        for (int bound = SPECIES.loopBound(n); p < bound; p += LANES)
+            compare(load(src, so + p * step, map), limiar, maior).intoArray(out, oo + p);
+        SCALAR.threshold(src, so + p * step, step, limiar, maior, out, oo + p, n - p);
+    }
+
+    @Override
+    public void threshold(int[] src, int so, int step, int limiar, boolean maior, int[] out, int oo, int n) {
+        int[] map = step == 1 ? null : indexMap(step);
+        IntVector zero = IntVector.zero(SPECIES);
+        int p = 0;
+        for (int bound = SPECIES.loopBound(n); p < bound; p += LANES)
+            zero.blend(1, compare(load(src, so + p * step, map), limiar, maior)).intoArray(out, oo + p);
+        SCALAR.threshold(src, so + p * step, step, limiar, maior, out, oo + p, n - p);
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + SPECIES + ")";
+    }
+
+    private static VectorMask<Integer> compare(IntVector v, int limiar, boolean maior) {
+        return v.compare(maior ? VectorOperators.GT : VectorOperators.LT, limiar);
+    }
+
+    private static IntVector load(int[] src, int offset, int[] map) {
+        return map == null ? IntVector.fromArray(SPECIES, src, offset)
+                : IntVector.fromArray(SPECIES, src, offset, map, 0);
+    }
+
+    private static int[] indexMap(int step) {
+        int[] map = new int[LANES];
+        for (int l = 0; l < LANES; l++)
+            map[l] = l * step;
+        return map;
+    }
+}
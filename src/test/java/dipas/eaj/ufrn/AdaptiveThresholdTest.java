@@ -0,0 +1,118 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for AdaptiveThreshold: the streaming window sums match a direct computation over each window.
+ */
+public class AdaptiveThresholdTest
+    extends TestCase
+{
+    public AdaptiveThresholdTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( AdaptiveThresholdTest.class );
+    }
+
+    protected void tearDown()
+    {
+        Parallel.setThreshold( Parallel.DEFAULT_THRESHOLD );
+    }
+
+    private static boolean[][] direct( int[][] im, AdaptiveThreshold.Method method, int tam, double k, boolean maior )
+    {
+        int h = im.length, w = im[0].length, r = tam / 2;
+        boolean[][] bw = new boolean[h][w];
+        for ( int i = 0; i < h; i++ )
+            for ( int j = 0; j < w; j++ )
+            {
+                long n = 0, sum = 0, sq = 0;
+                for ( int x = Math.max( 0, i - r ); x <= Math.min( h - 1, i + r ); x++ )
+                    for ( int y = Math.max( 0, j - r ); y <= Math.min( w - 1, j + r ); y++ )
+                    {
+                        n++;
+                        sum += im[x][y];
+                        sq += (long) im[x][y] * im[x][y];
+                    }
+                double m = sum / (double) n, s = Math.sqrt( Math.max( 0, sq / (double) n - m * m ) );
+                double t = method == AdaptiveThreshold.Method.MEAN ? m - k
+                        : method == AdaptiveThreshold.Method.NIBLACK ? m + k * s
+                        : m * ( 1 + k * ( s / AdaptiveThreshold.SAUVOLA_RANGE - 1 ) );
+                bw[i][j] = maior ? im[i][j] > t : im[i][j] < t;
+            }
+        return bw;
+    }
+
+    private static int mismatches( boolean[][] a, boolean[][] b )
+    {
+        int n = 0;
+        for ( int i = 0; i < a.length; i++ )
+            for ( int j = 0; j < a[0].length; j++ )
+                if ( a[i][j] != b[i][j] )
+                    n++;
+        return n;
+    }
+
+    public void testMatchesDirectWindows()
+    {
+        int[][] im = BlurTest.randomGray( 47, 38, 1 );
+        Parallel.setThreshold( 1 );
+        for ( AdaptiveThreshold.Method method : AdaptiveThreshold.Method.values() )
+            for ( int tam : new int[]{ 1, 4, 15, 101 } )
+            {
+                double k = method == AdaptiveThreshold.Method.NIBLACK ? -0.2 : method == AdaptiveThreshold.Method.MEAN ? 5 : 0.34;
+                boolean[][] expected = direct( im, method, tam, k, true );
+                boolean[][] bw = Image.im2bw( im, method, tam, k, true );
+                assertTrue( method + " " + tam, Arrays.deepEquals( expected, bw ) );
+                assertTrue( Arrays.deepEquals( bw,
+                        Image.im2bw( PackedImage.fromArray( im ), method, tam, k, true ).toBinary() ) );
+            }
+    }
+
+    public void testUnevenIllumination()
+    {
+        // Texto escuro (a cada 4 colunas) sobre um fundo que clareia da esquerda para a direita
+        int h = 40, w = 200;
+        int[][] im = new int[h][w];
+        for ( int i = 0; i < h; i++ )
+            for ( int j = 0; j < w; j++ )
+                im[i][j] = 40 + j + ( j % 4 == 0 ? -30 : 0 );
+        boolean[][] bw = Image.im2bw( im, AdaptiveThreshold.Method.MEAN, 9, 5, false );
+        for ( int i = 0; i < h; i++ )
+            for ( int j = 4; j < w - 4; j++ )
+                assertEquals( j % 4 == 0, bw[i][j] );
+        // Nenhum limiar global separa o texto do fundo
+        boolean[][] global = Image.im2bw( im, Image.graythresh( im ), false );
+        assertTrue( mismatches( global, bw ) > w );
+    }
+
+    public void testBelowThresholdIsWhenNotMaior()
+    {
+        int[][] im = { { 10, 126, 200 } };
+        assertTrue( Arrays.equals( new boolean[]{ false, false, true }, Image.im2bw( im, 126, true )[0] ) );
+        assertTrue( Arrays.equals( new boolean[]{ true, false, false }, Image.im2bw( im, 126, false )[0] ) );
+        assertTrue( Arrays.equals( new int[]{ 1, 0, 0 },
+                Image.im2bw( PackedImage.fromArray( im ), 126, false ).toArray()[0] ) );
+    }
+
+    public void testInvalidWindow()
+    {
+        try
+        {
+            Image.im2bw( new int[][]{ { 1 } }, AdaptiveThreshold.Method.MEAN, 0, 0, true );
+            fail();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertTrue( e.getMessage().startsWith( "Window size" ) );
+        }
+    }
+}
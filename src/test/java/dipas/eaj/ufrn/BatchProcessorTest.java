@@ -0,0 +1,112 @@
+package dipas.eaj.ufrn;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for BatchProcessor: every file is processed once and failures are reported per file.
+ */
+public class BatchProcessorTest
+    extends TestCase
+{
+    private File in, out;
+
+    public BatchProcessorTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( BatchProcessorTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        in = Files.createTempDirectory( "batch-in" ).toFile();
+        out = Files.createTempDirectory( "batch-out" ).toFile();
+        for ( int k = 0; k < 6; k++ )
+            ImageIO.write( Image.image2BufferedImage( PackedImageTest.randomRgb( 20 + k, 15, k ) ), "png",
+                    new File( in, "im" + k + ".png" ) );
+        Files.write( new File( in, "broken.png" ).toPath(), new byte[]{ 1, 2, 3 } );
+    }
+
+    protected void tearDown()
+    {
+        for ( File dir : new File[]{ in, out } )
+        {
+            for ( File f : dir.listFiles() )
+                f.delete();
+            dir.delete();
+        }
+    }
+
+    public void testDirectoryIsProcessedWithBoundedConcurrency() throws IOException
+    {
+        AtomicInteger running = new AtomicInteger(), peak = new AtomicInteger();
+        BatchProcessor batch = new BatchProcessor( im -> {
+            peak.accumulateAndGet( running.incrementAndGet(), Math::max );
+            try
+            {
+                return Image.rgb2gray( im );
+            }
+            finally
+            {
+                running.decrementAndGet();
+            }
+        } ).cpuThreads( 2 ).maxInFlight( 3 ).format( "imj" );
+
+        BatchProcessor.Report report = batch.run( in.toPath(), out.toPath() );
+        assertEquals( 7, report.results.size() );
+        assertEquals( 6, report.succeeded );
+        assertEquals( 1, report.failed );
+        assertTrue( peak.get() <= 2 );
+
+        BatchProcessor.Result broken = report.results.get( 0 );
+        assertTrue( broken.input.endsWith( "broken.png" ) );
+        assertFalse( broken.succeeded() );
+        for ( int k = 0; k < 6; k++ )
+        {
+            BatchProcessor.Result r = report.results.get( k + 1 );
+            assertTrue( r.toString(), r.succeeded() );
+            assertEquals( ( 20 + k ) * 15, r.pixels );
+            int[][] expected = Image.rgb2gray( PackedImageTest.randomRgb( 20 + k, 15, k ) );
+            assertTrue( Arrays.deepEquals( expected, RawImage.read( r.output.toString() ).toArray() ) );
+        }
+    }
+
+    public void testCommandLineOperations() throws IOException
+    {
+        BatchProcessor.Report report = new BatchProcessor( App.operation(
+                new String[]{ "in", "out", "--threads=2", "gaussian:3", "bw:100" } ) ).run( in.toPath(), out.toPath() );
+        assertEquals( 6, report.succeeded );
+        int[][][] rgb = PackedImageTest.randomRgb( 22, 15, 2 );
+        boolean[][] expected = Image.im2bw( Image.imGaussian( Image.rgb2gray( rgb ), 3 ), 100, true );
+        int[][] written = Image.rgb2gray( Image.imRead( new File( out, "im2.png" ).getPath() ) );
+        for ( int i = 0; i < expected.length; i++ )
+            for ( int j = 0; j < expected[0].length; j++ )
+                assertEquals( expected[i][j] ? 255 : 0, written[i][j] );
+    }
+
+    public void testUnknownOptionIsRejected()
+    {
+        try
+        {
+            App.operation( new String[]{ "in", "out", "--thread=4", "gray" } );
+            fail();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertTrue( e.getMessage().startsWith( "Unknown option" ) );
+        }
+    }
+}
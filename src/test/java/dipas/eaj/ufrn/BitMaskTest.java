@@ -0,0 +1,84 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for BitMask.
+ */
+public class BitMaskTest
+    extends TestCase
+{
+    private static final int[] WIDTHS = { 1, 5, 63, 64, 65, 130 };
+
+    public BitMaskTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( BitMaskTest.class );
+    }
+
+    public void testRoundTripAndCount()
+    {
+        for ( int w : WIDTHS )
+        {
+            boolean[][] bw = LabelingTest.randomMask( 7, w, 0.4, w );
+            BitMask mask = BitMask.fromArray( bw );
+            assertTrue( Arrays.deepEquals( bw, mask.toArray() ) );
+            long area = 0;
+            for ( boolean[] row : bw )
+                for ( boolean b : row )
+                    if ( b ) area++;
+            assertEquals( area, mask.count() );
+        }
+    }
+
+    public void testLogicalOperations()
+    {
+        for ( int w : WIDTHS )
+        {
+            boolean[][] a = LabelingTest.randomMask( 6, w, 0.5, 1 ), b = LabelingTest.randomMask( 6, w, 0.5, 2 );
+            BitMask ma = BitMask.fromArray( a ), mb = BitMask.fromArray( b );
+            assertTrue( Arrays.deepEquals( Image.sum( a, b ), Image.sum( ma, mb ).toArray() ) );
+            assertTrue( Arrays.deepEquals( Image.sub( a, b ), Image.sub( ma, mb ).toArray() ) );
+            boolean[][] and = new boolean[6][w], xor = new boolean[6][w], not = new boolean[6][w];
+            for ( int i = 0; i < 6; i++ )
+                for ( int j = 0; j < w; j++ )
+                {
+                    and[i][j] = a[i][j] && b[i][j];
+                    xor[i][j] = a[i][j] != b[i][j];
+                    not[i][j] = !a[i][j];
+                }
+            assertTrue( Arrays.deepEquals( and, ma.and( mb ).toArray() ) );
+            assertTrue( Arrays.deepEquals( xor, ma.xor( mb ).toArray() ) );
+            assertTrue( Arrays.deepEquals( not, ma.not().toArray() ) );
+            assertEquals( 6L * w - ma.count(), ma.not().count() );
+        }
+    }
+
+    public void testMorphologyMatchesBooleanImplementation()
+    {
+        for ( int w : WIDTHS )
+            for ( int tam : new int[] { 1, 3, 5, 7 } )
+            {
+                boolean[][] bw = LabelingTest.randomMask( 12, w, 0.7, tam * 31 + w );
+                BitMask mask = BitMask.fromArray( bw );
+                assertTrue( Arrays.deepEquals( Image.bwErode( bw, tam ), Image.bwErode( mask, tam ).toArray() ) );
+                assertTrue( Arrays.deepEquals( Image.bwDilate( bw, tam ), Image.bwDilate( mask, tam ).toArray() ) );
+                assertTrue( Arrays.deepEquals( Image.bwOpen( bw, tam ), Image.bwOpen( mask, tam ).toArray() ) );
+                assertTrue( Arrays.deepEquals( Image.bwClose( bw, tam ), Image.bwClose( mask, tam ).toArray() ) );
+            }
+    }
+
+    public void testThreshold()
+    {
+        int[][] gray = BlurTest.randomGray( 9, 70, 3 );
+        assertTrue( Arrays.deepEquals( Image.im2bw( gray, 128, true ), BitMask.im2bw( gray, 128 ).toArray() ) );
+    }
+}
@@ -0,0 +1,140 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Blur and the imGaussian overloads.
+ */
+public class BlurTest
+    extends TestCase
+{
+    public BlurTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( BlurTest.class );
+    }
+
+    static int[][] randomGray( int height, int width, long seed )
+    {
+        Random random = new Random( seed );
+        int[][] im = new int[height][width];
+        for ( int[] row : im )
+            for ( int j = 0; j < width; j++ )
+                row[j] = random.nextInt( 256 );
+        return im;
+    }
+
+    public void testImGaussianKeepsShrinkingWindow()
+    {
+        int[][][] im = PackedImageTest.randomRgb( 13, 17, 5 );
+        for ( int tam : new int[]{ 1, 3, 4, 7, 40 } )
+        {
+            int[][][] out = Image.imGaussian( im, tam );
+            for ( int i = 0; i < 13; i++ )
+                for ( int j = 0; j < 17; j++ )
+                    for ( int c = 0; c < 3; c++ )
+                    {
+                        int sum = 0, count = 0;
+                        for ( int x = -tam / 2; x <= tam / 2; x++ )
+                            for ( int y = -tam / 2; y <= tam / 2; y++ )
+                                if ( i + x >= 0 && j + y >= 0 && i + x < 13 && j + y < 17 )
+                                {
+                                    sum += im[i + x][j + y][c];
+                                    count++;
+                                }
+                        assertEquals( sum / count, out[i][j][c] );
+                    }
+        }
+    }
+
+    public void testBoxFilterBorders()
+    {
+        int[][] im = randomGray( 9, 11, 6 );
+        for ( Border border : Border.values() )
+        {
+            int[][] out = Image.imBoxFilter( im, 5, border );
+            for ( int i = 0; i < 9; i++ )
+                for ( int j = 0; j < 11; j++ )
+                {
+                    long sum = 0;
+                    for ( int x = -2; x <= 2; x++ )
+                        for ( int y = -2; y <= 2; y++ )
+                        {
+                            int r = border.map( i + x, 9 ), c = border.map( j + y, 11 );
+                            if ( r >= 0 && c >= 0 )
+                                sum += im[r][c];
+                        }
+                    assertEquals( Math.round( sum / 25.0 ), out[i][j] );
+                }
+        }
+    }
+
+    public void testGaussianPreservesConstantImage()
+    {
+        int[][] im = new int[20][30];
+        for ( int[] row : im )
+            Arrays.fill( row, 77 );
+        for ( Border border : new Border[]{ Border.CLAMP, Border.REFLECT } )
+        {
+            assertTrue( Arrays.deepEquals( im, Image.imGaussian( im, 2.5, border ) ) );
+            assertTrue( Arrays.deepEquals( im, Blur.gaussianBoxes( im, 2.5, 3, border ) ) );
+        }
+        assertTrue( Image.imGaussian( im, 2.5, Border.ZERO )[0][0] < 77 );
+    }
+
+    public void testBoxSizesApproximateSigma()
+    {
+        int[] sizes = Blur.boxSizes( 4.0, 3 );
+        double variance = 0;
+        for ( int size : sizes )
+        {
+            assertEquals( 1, size % 2 );
+            variance += ( size * size - 1 ) / 12.0;
+        }
+        assertEquals( 16.0, variance, 2.0 );
+    }
+
+    public void testGaussianRejectsNonPositiveSigma()
+    {
+        int[][] im = { { 100, 100, 100 }, { 100, 100, 100 } };
+        for ( double sigma : new double[]{ 0, -1.5, Double.NaN } )
+        {
+            try
+            {
+                Image.imGaussian( im, sigma, Border.CLAMP );
+                fail( "sigma " + sigma );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                assertTrue( e.getMessage().startsWith( "Sigma" ) );
+            }
+            try
+            {
+                Pipeline.of( im ).gaussian( sigma, Border.CLAMP );
+                fail( "sigma " + sigma );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                assertTrue( e.getMessage().startsWith( "Sigma" ) );
+            }
+        }
+        try
+        {
+            Blur.gaussianBoxes( im, 0, 3, Border.CLAMP );
+            fail();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertTrue( e.getMessage().startsWith( "Sigma" ) );
+        }
+    }
+}
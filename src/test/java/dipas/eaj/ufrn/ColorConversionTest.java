@@ -0,0 +1,162 @@
+package dipas.eaj.ufrn;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for ColorConversion: the fixed-point tables give the exact integer results for every 8-bit color.
+ */
+public class ColorConversionTest
+    extends TestCase
+{
+    public ColorConversionTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ColorConversionTest.class );
+    }
+
+    public void testGrayAndYCbCrAreExactForAllColors()
+    {
+        for ( int r = 0; r < 256; r++ )
+            for ( int g = 0; g < 256; g++ )
+                for ( int b = 0; b < 256; b++ )
+                {
+                    if ( ColorConversion.gray( r, g, b ) != ( 299 * r + 587 * g + 114 * b ) / 1000
+                            || ColorConversion.y( r, g, b ) != ( 2568 * r + 5041 * g + 979 * b + 160000 ) / 10000
+                            || ColorConversion.cb( r, g, b ) != ( -1482 * r - 2910 * g + 4392 * b + 1280000 ) / 10000
+                            || ColorConversion.cr( r, g, b ) != ( 4392 * r - 3678 * g - 714 * b + 1280000 ) / 10000 )
+                        fail( r + " " + g + " " + b );
+                }
+    }
+
+    public void testOutOfRangeInputs()
+    {
+        assertEquals( 89, ColorConversion.gray( 300, 0, 0 ) );
+        assertEquals( ( 299 * 1000 + 587 * 2000 + 114 * 3000 ) / 1000, ColorConversion.gray( 1000, 2000, 3000 ) );
+        int[] cmyk = new int[4];
+        ColorConversion.cmyk( 300, 10, 20, cmyk );
+        assertTrue( Arrays.equals( new int[]{ 0, 290, 280, -45 }, cmyk ) );
+    }
+
+    public void testCmyk()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 20, 20, 1 );
+        int[][][] cmyk = Image.rgb2cmyk( rgb );
+        for ( int i = 0; i < 20; i++ )
+            for ( int j = 0; j < 20; j++ )
+            {
+                int[] px = rgb[i][j];
+                int max = Math.max( px[0], Math.max( px[1], px[2] ) );
+                assertTrue( Arrays.equals( new int[]{ max - px[0], max - px[1], max - px[2], 255 - max }, cmyk[i][j] ) );
+            }
+    }
+
+    public void testHsvMatchesAwt()
+    {
+        double[] hsv = new double[3];
+        int[] back = new int[3];
+        for ( int r = 0; r < 256; r += 3 )
+            for ( int g = 0; g < 256; g += 5 )
+                for ( int b = 0; b < 256; b += 7 )
+                {
+                    ColorConversion.hsv( r, g, b, hsv );
+                    float[] expected = Color.RGBtoHSB( r, g, b, null );
+                    double dh = Math.abs( hsv[0] - expected[0] );
+                    assertTrue( r + " " + g + " " + b, Math.min( dh, 1 - dh ) < 1e-5 );
+                    assertEquals( expected[1], hsv[1], 1e-5 );
+                    assertEquals( expected[2], hsv[2], 1e-5 );
+
+                    ColorConversion.hsv2rgb( hsv[0], hsv[1], hsv[2], back );
+                    assertTrue( r + " " + g + " " + b, Arrays.equals( new int[]{ r, g, b }, back ) );
+                }
+    }
+
+    public void testHsvImages()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 31, 17, 2 );
+        double[][][] hsv = Image.rgb2hsv( rgb );
+        assertTrue( Arrays.deepEquals( hsv, Image.rgb2hsv( PackedImage.fromArray( rgb ).toLayout( PackedImage.Layout.PLANAR ) ) ) );
+        assertTrue( Arrays.deepEquals( rgb, Image.hsv2rgb( hsv ) ) );
+        // Verde puro com um pouco de vermelho: o matiz fica abaixo de 1/3
+        assertTrue( Image.rgb2hsv( new int[][][]{ { { 50, 200, 0 } } } )[0][0][0] < 1 / 3.0 );
+    }
+
+    public void testYCbCrRoundTrip()
+    {
+        int[] rgb = new int[3];
+        int worst = 0;
+        for ( int r = 0; r < 256; r += 3 )
+            for ( int g = 0; g < 256; g += 3 )
+                for ( int b = 0; b < 256; b += 3 )
+                {
+                    ColorConversion.ycbcr2rgb( ColorConversion.y( r, g, b ), ColorConversion.cb( r, g, b ),
+                            ColorConversion.cr( r, g, b ), rgb );
+                    worst = Math.max( worst, Math.max( Math.abs( rgb[0] - r ),
+                            Math.max( Math.abs( rgb[1] - g ), Math.abs( rgb[2] - b ) ) ) );
+                }
+        assertTrue( "worst error " + worst, worst <= 3 );
+
+        int[][][] im = PackedImageTest.randomRgb( 23, 19, 3 );
+        PackedImage packed = Image.rgb2ycbcr( PackedImage.fromArray( im ) );
+        assertTrue( Arrays.deepEquals( Image.ycbcr2rgb( Image.rgb2ycbcr( im ) ), Image.ycbcr2rgb( packed ).toArray3() ) );
+    }
+
+    public void testGray2Rgb()
+    {
+        int[][] gray = BlurTest.randomGray( 12, 9, 4 );
+        int[][][] rgb = Image.gray2rgb( gray );
+        assertTrue( Arrays.deepEquals( gray, Image.rgb2gray( rgb ) ) );
+        assertTrue( Arrays.deepEquals( rgb, Image.gray2rgb( PackedImage.fromArray( gray ) ).toArray3() ) );
+    }
+
+    public void testByteImages()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 21, 13, 5 );
+        PackedImage packed = PackedImage.fromArray( rgb );
+        ByteImage bytes = ByteImage.of( packed );
+
+        assertTrue( Arrays.deepEquals( Image.rgb2gray( rgb ), Image.rgb2gray( bytes ).toPacked().toArray() ) );
+        assertTrue( Arrays.deepEquals( Image.rgb2cmyk( rgb ), Image.rgb2cmyk( bytes ).toPacked().toArray3() ) );
+        ByteImage ycbcr = Image.rgb2ycbcr( bytes );
+        assertTrue( Arrays.deepEquals( Image.rgb2ycbcr( rgb ), ycbcr.toPacked().toArray3() ) );
+        assertTrue( Arrays.deepEquals( Image.ycbcr2rgb( Image.rgb2ycbcr( packed ) ).toArray3(),
+                Image.ycbcr2rgb( ycbcr ).toPacked().toArray3() ) );
+
+        ByteImage gray = Image.rgb2gray( bytes );
+        assertTrue( Arrays.deepEquals( Image.gray2rgb( gray.toPacked() ).toArray3(),
+                Image.gray2rgb( gray ).toPacked().toArray3() ) );
+    }
+
+    public void testByteHsv()
+    {
+        int[] hsv = new int[3];
+        int[] back = new int[3];
+        double[] exact = new double[3];
+        for ( int r = 0; r < 256; r += 3 )
+            for ( int g = 0; g < 256; g += 5 )
+                for ( int b = 0; b < 256; b += 7 )
+                {
+                    ColorConversion.hsv8( r, g, b, hsv );
+                    ColorConversion.hsv( r, g, b, exact );
+                    for ( int c = 0; c < 3; c++ )
+                        assertEquals( r + " " + g + " " + b, exact[c] * 255, hsv[c], 0.5 + 1e-9 );
+
+                    ColorConversion.hsv8ToRgb( hsv[0], hsv[1], hsv[2], back );
+                    assertTrue( r + " " + g + " " + b, Math.abs( back[0] - r ) <= 8 && Math.abs( back[1] - g ) <= 8
+                            && Math.abs( back[2] - b ) <= 8 );
+                }
+
+        ByteImage im = ByteImage.of( PackedImage.fromArray( PackedImageTest.randomRgb( 9, 11, 6 ) ) );
+        ByteImage round = Image.hsv2rgb( Image.rgb2hsv( im ) );
+        for ( int k = 0; k < im.data.length; k++ )
+            assertTrue( Math.abs( ( im.data[k] & 0xFF ) - ( round.data[k] & 0xFF ) ) <= 8 );
+    }
+}
@@ -0,0 +1,153 @@
+package dipas.eaj.ufrn;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Histogram: parallel, raster, region and mask histograms match a direct count.
+ */
+public class HistogramTest
+    extends TestCase
+{
+    public HistogramTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( HistogramTest.class );
+    }
+
+    protected void tearDown()
+    {
+        Parallel.setThreshold( Parallel.DEFAULT_THRESHOLD );
+    }
+
+    private static int[] count( int[][] im, int row0, int col0, int row1, int col1, boolean[][] mask )
+    {
+        int[] h = new int[256];
+        for ( int i = row0; i < row1; i++ )
+            for ( int j = col0; j < col1; j++ )
+                if ( mask == null || mask[i][j] )
+                    h[im[i][j]]++;
+        return h;
+    }
+
+    public void testGrayMatchesDirectCount()
+    {
+        int[][] im = BlurTest.randomGray( 63, 41, 1 );
+        Parallel.setThreshold( 1 );
+        Histogram h = Histogram.of( im );
+        assertEquals( 1, h.channels );
+        assertEquals( 63 * 41, h.count );
+        assertTrue( Arrays.equals( count( im, 0, 0, 63, 41, null ), h.bins( 0 ) ) );
+        assertTrue( Arrays.equals( count( im, 0, 0, 63, 41, null ), Image.imHist( im ) ) );
+    }
+
+    public void testRegionAndMask()
+    {
+        int[][] im = BlurTest.randomGray( 50, 40, 2 );
+        boolean[][] mask = LabelingTest.randomMask( 50, 40, 0.3, 3 );
+        Histogram h = Histogram.of( im, 5, 7, 30, 33, mask );
+        int[] expected = count( im, 5, 7, 30, 33, mask );
+        assertTrue( Arrays.equals( expected, h.bins( 0 ) ) );
+        assertEquals( Arrays.stream( expected ).sum(), h.count );
+        assertTrue( Arrays.equals( count( im, 5, 7, 30, 33, null ),
+                Histogram.of( im, 5, 7, 30, 33, null ).bins( 0 ) ) );
+        try
+        {
+            Histogram.of( im, 0, 0, 51, 40, null );
+            fail();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertEquals( "Region outside the image", e.getMessage() );
+        }
+    }
+
+    public void testColorSourcesAgree()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 37, 29, 4 );
+        PackedImage packed = PackedImage.fromArray( rgb );
+        Histogram fromArray = Histogram.of( rgb );
+        Histogram fromPlanar = Histogram.of( packed.toLayout( PackedImage.Layout.PLANAR ) );
+        Histogram fromRaster = Histogram.of( RasterBridge.toBufferedImage( rgb ) );
+        BufferedImage bgr = new BufferedImage( 29, 37, BufferedImage.TYPE_3BYTE_BGR );
+        bgr.getGraphics().drawImage( RasterBridge.toBufferedImage( rgb ), 0, 0, null );
+        Histogram fromBytes = Histogram.of( bgr );
+        for ( int c = 0; c < 3; c++ )
+        {
+            assertTrue( Arrays.equals( fromArray.bins( c ), fromPlanar.bins( c ) ) );
+            assertTrue( Arrays.equals( fromArray.bins( c ), fromRaster.bins( c ) ) );
+            assertTrue( Arrays.equals( fromArray.bins( c ), fromBytes.bins( c ) ) );
+            assertTrue( Arrays.equals( fromArray.bins( c ), Image.imHist( rgb )[c] ) );
+        }
+
+        int[][] gray = BlurTest.randomGray( 20, 30, 5 );
+        BufferedImage grayImage = new BufferedImage( 30, 20, BufferedImage.TYPE_BYTE_GRAY );
+        for ( int i = 0; i < 20; i++ )
+            grayImage.getRaster().setSamples( 0, i, 30, 1, 0, gray[i] );
+        Histogram fromGray = Histogram.of( grayImage );
+        assertEquals( 1, fromGray.channels );
+        assertTrue( Arrays.equals( Histogram.of( gray ).bins( 0 ), fromGray.bins( 0 ) ) );
+    }
+
+    public void testOtsuSeparatesTwoModes()
+    {
+        Random random = new Random( 6 );
+        int[][] im = new int[40][40];
+        for ( int i = 0; i < 40; i++ )
+            for ( int j = 0; j < 40; j++ )
+                im[i][j] = j < 15 ? 40 + random.nextInt( 20 ) : 180 + random.nextInt( 30 );
+        int t = Image.graythresh( im );
+        assertTrue( t >= 59 && t < 180 );
+        boolean[][] bw = Image.im2bw( im, t, true );
+        for ( int i = 0; i < 40; i++ )
+            for ( int j = 0; j < 40; j++ )
+                assertEquals( j >= 15, bw[i][j] );
+        assertEquals( t, Image.graythresh( PackedImage.fromArray( im ) ) );
+    }
+
+    public void testOtsuMatchesExhaustiveSearch()
+    {
+        int[][] im = BlurTest.randomGray( 30, 30, 7 );
+        int[] h = count( im, 0, 0, 30, 30, null );
+        double best = -1;
+        int expected = 0;
+        for ( int t = 0; t < 255; t++ )
+        {
+            double n0 = 0, n1 = 0, s0 = 0, s1 = 0;
+            for ( int v = 0; v < 256; v++ )
+                if ( v <= t ) { n0 += h[v]; s0 += v * (double) h[v]; }
+                else { n1 += h[v]; s1 += v * (double) h[v]; }
+            if ( n0 == 0 || n1 == 0 )
+                continue;
+            double d = s0 / n0 - s1 / n1, between = n0 * n1 * d * d;
+            if ( between > best ) { best = between; expected = t; }
+        }
+        assertEquals( expected, Histogram.of( im ).otsu() );
+    }
+
+    public void testPercentile()
+    {
+        int[][] im = new int[1][100];
+        for ( int j = 0; j < 100; j++ )
+            im[0][j] = j;
+        Histogram h = Histogram.of( im );
+        assertEquals( 0, h.percentile( 0 ) );
+        assertEquals( 49, h.percentile( 0.5 ) );
+        assertEquals( 89, h.percentile( 0.9 ) );
+        assertEquals( 99, h.percentile( 1 ) );
+        int count = 0;
+        for ( boolean v : Image.im2bw( im, h.percentile( 0.9 ), true )[0] )
+            if ( v )
+                count++;
+        assertEquals( 10, count );
+    }
+}
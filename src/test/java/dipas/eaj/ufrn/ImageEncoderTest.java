@@ -0,0 +1,130 @@
+package dipas.eaj.ufrn;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for ImageEncoder and AsyncImageWriter: codec parameters must take effect and asynchronous writes must
+ * produce the same files.
+ */
+public class ImageEncoderTest
+    extends TestCase
+{
+    private File dir;
+
+    public ImageEncoderTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ImageEncoderTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        dir = File.createTempFile( "encode", "" );
+        dir.delete();
+        dir.mkdir();
+    }
+
+    protected void tearDown()
+    {
+        for ( File f : dir.listFiles() )
+            f.delete();
+        dir.delete();
+    }
+
+    private String file( String name )
+    {
+        return new File( dir, name ).getPath();
+    }
+
+    private static int[][] smoothGray( int height, int width )
+    {
+        int[][] im = new int[height][width];
+        for ( int i = 0; i < height; i++ )
+            for ( int j = 0; j < width; j++ )
+                im[i][j] = ( i * 3 + j * 5 ) % 256;
+        return im;
+    }
+
+    public void testJpegQualityChangesSize()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 64, 64, 1 );
+        Image.imWrite( rgb, file( "low.jpg" ), EncodeOptions.jpeg( 0.1f ) );
+        Image.imWrite( rgb, file( "high.jpg" ), EncodeOptions.jpeg( 0.95f ) );
+        assertTrue( new File( file( "low.jpg" ) ).length() < new File( file( "high.jpg" ) ).length() );
+    }
+
+    public void testPngLevelIsLossless()
+    {
+        int[][] gray = smoothGray( 80, 90 );
+        Image.imWrite( gray, file( "fast.png" ), EncodeOptions.png( 0 ) );
+        Image.imWrite( gray, file( "small.png" ), EncodeOptions.png( 9 ) );
+        assertTrue( new File( file( "small.png" ) ).length() < new File( file( "fast.png" ) ).length() );
+        for ( String name : new String[]{ "fast.png", "small.png" } )
+        {
+            int[][][] read = Image.imRead( file( name ) );
+            for ( int i = 0; i < gray.length; i++ )
+                for ( int j = 0; j < gray[0].length; j++ )
+                    assertEquals( gray[i][j], read[i][j][0] );
+        }
+    }
+
+    public void testExplicitFormatOverridesExtension() throws IOException
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 10, 12, 2 );
+        ImageEncoder.write( Image.image2BufferedImage( rgb ), file( "image.out" ), EncodeOptions.format( "png" ) );
+        assertTrue( Arrays.deepEquals( rgb, Image.imRead( file( "image.out" ) ) ) );
+        try
+        {
+            ImageEncoder.write( Image.image2BufferedImage( rgb ), file( "image.xyz" ), EncodeOptions.DEFAULT );
+            fail( "Expected IllegalArgumentException" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertTrue( e.getMessage().contains( "xyz" ) );
+        }
+    }
+
+    public void testAsyncWritesComplete() throws Exception
+    {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<int[][][]> images = new ArrayList<>();
+        try ( AsyncImageWriter writer = new AsyncImageWriter( 2, 3 ) )
+        {
+            for ( int k = 0; k < 12; k++ )
+            {
+                int[][][] rgb = PackedImageTest.randomRgb( 20, 20, k );
+                images.add( rgb );
+                futures.add( writer.write( rgb, file( "async" + k + ".png" ), EncodeOptions.png( 1 ) ) );
+            }
+            CompletableFuture<Void> bad = writer.write( images.get( 0 ), file( "async.xyz" ), EncodeOptions.DEFAULT );
+            try
+            {
+                bad.get();
+                fail( "Expected ExecutionException" );
+            }
+            catch ( ExecutionException e )
+            {
+                assertTrue( e.getCause() instanceof IllegalArgumentException );
+            }
+        }
+        for ( int k = 0; k < 12; k++ )
+        {
+            assertTrue( futures.get( k ).isDone() );
+            assertTrue( Arrays.deepEquals( images.get( k ), Image.imRead( file( "async" + k + ".png" ) ) ) );
+        }
+    }
+}
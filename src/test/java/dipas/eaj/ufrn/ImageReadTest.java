@@ -0,0 +1,101 @@
+package dipas.eaj.ufrn;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for region and subsampled reads: they must match cropping and subsampling the full image.
+ */
+public class ImageReadTest
+    extends TestCase
+{
+    private File dir;
+    private int[][][] rgb;
+
+    public ImageReadTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ImageReadTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        dir = File.createTempFile( "read", "" );
+        dir.delete();
+        dir.mkdir();
+        rgb = PackedImageTest.randomRgb( 41, 33, 7 );
+        ImageIO.write( Image.image2BufferedImage( rgb ), "png", new File( dir, "im.png" ) );
+        Image.imWrite( rgb, new File( dir, "im.imj" ).getPath() );
+    }
+
+    protected void tearDown()
+    {
+        for ( File f : dir.listFiles() )
+            f.delete();
+        dir.delete();
+    }
+
+    private static int[][][] subsample( int[][][] im, int step )
+    {
+        int[][][] out = new int[( im.length + step - 1 ) / step][( im[0].length + step - 1 ) / step][];
+        for ( int i = 0; i < out.length; i++ )
+            for ( int j = 0; j < out[0].length; j++ )
+                out[i][j] = im[i * step][j * step];
+        return out;
+    }
+
+    public void testRegionMatchesCrop()
+    {
+        for ( String name : new String[]{ "im.png", "im.imj" } )
+        {
+            String path = new File( dir, name ).getPath();
+            int[][][] expected = Image.imCrop( rgb, 30, 20, 5, 3 );
+            assertTrue( name, Arrays.deepEquals( expected, Image.imRead( path, 30, 20, 5, 3 ) ) );
+            assertTrue( name, Arrays.deepEquals( Image.imCrop( rgb, 35, 25, 41, 33 ),
+                    Image.imRead( path, 35, 25, 100, 100 ) ) );
+        }
+    }
+
+    public void testSubsamplingMatchesEveryStepPixel()
+    {
+        for ( String name : new String[]{ "im.png", "im.imj" } )
+        {
+            String path = new File( dir, name ).getPath();
+            assertTrue( name, Arrays.deepEquals( subsample( rgb, 4 ), Image.imRead( path, 4 ) ) );
+            assertTrue( name, Arrays.deepEquals( subsample( Image.imCrop( rgb, 10, 6, 40, 30 ), 3 ),
+                    Image.imRead( path, 10, 6, 40, 30, 3 ) ) );
+            int[][][] half = Image._imResize( rgb );
+            int[][][] read = Image.imRead( path, 2 );
+            for ( int i = 0; i < half.length; i++ )
+                for ( int j = 0; j < half[0].length; j++ )
+                    assertTrue( Arrays.equals( half[i][j], read[i][j] ) );
+            PackedImage thumb = Image.imReadPacked( path, 2 );
+            assertEquals( 21, thumb.height );
+            assertEquals( 17, thumb.width );
+        }
+    }
+
+    public void testRegionOutsideImageIsRejected()
+    {
+        try
+        {
+            Image.imRead( new File( dir, "im.png" ).getPath(), 50, 50, 60, 60 );
+            fail( "Expected IllegalArgumentException" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertEquals( "Region outside the image", e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package dipas.eaj.ufrn;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for IntegralImage.
+ */
+public class IntegralImageTest
+    extends TestCase
+{
+    public IntegralImageTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( IntegralImageTest.class );
+    }
+
+    public void testRectangleQueries()
+    {
+        int[][] im = BlurTest.randomGray( 15, 21, 10 );
+        IntegralImage ii = new IntegralImage( im, true );
+        Random random = new Random( 11 );
+        for ( int t = 0; t < 200; t++ )
+        {
+            int r0 = random.nextInt( 19 ) - 2, c0 = random.nextInt( 25 ) - 2;
+            int r1 = r0 + random.nextInt( 8 ), c1 = c0 + random.nextInt( 8 );
+            long sum = 0, sq = 0;
+            int n = 0;
+            for ( int i = Math.max( r0, 0 ); i <= Math.min( r1, 14 ); i++ )
+                for ( int j = Math.max( c0, 0 ); j <= Math.min( c1, 20 ); j++ )
+                {
+                    sum += im[i][j];
+                    sq += im[i][j] * im[i][j];
+                    n++;
+                }
+            assertEquals( sum, ii.sum( r0, c0, r1, c1 ) );
+            assertEquals( sq, ii.sumOfSquares( r0, c0, r1, c1 ) );
+            assertEquals( n, ii.count( r0, c0, r1, c1 ) );
+            if ( n > 0 )
+                assertEquals( sq / (double) n - Math.pow( sum / (double) n, 2 ), ii.variance( r0, c0, r1, c1 ), 1e-6 );
+        }
+    }
+
+    public void testParallelBuildWithoutOverflow()
+    {
+        int[][] im = new int[1100][1000];
+        for ( int[] row : im )
+            java.util.Arrays.fill( row, 4000 );
+        IntegralImage ii = new IntegralImage( im, true );
+        assertEquals( 4000L * 1100 * 1000, ii.sum( 0, 0, 1099, 999 ) );
+        assertEquals( 16000000L * 1100 * 1000, ii.sumOfSquares( 0, 0, 1099, 999 ) );
+        assertEquals( 4000L * 6, ii.sum( new int[]{ 500, 500, 501, 502 } ) );
+        assertEquals( 0.0, ii.variance( 10, 10, 900, 900 ), 1e-6 );
+    }
+}
@@ -0,0 +1,116 @@
+package dipas.eaj.ufrn;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the Flight Recorder events: operations and internal phases are recorded with their inputs.
+ */
+public class JfrEventsTest
+    extends TestCase
+{
+    private File file;
+
+    public JfrEventsTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( JfrEventsTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        file = File.createTempFile( "imaj", ".jfr" );
+        Metrics.reset();
+    }
+
+    protected void tearDown()
+    {
+        file.delete();
+    }
+
+    private List<RecordedEvent> record( Runnable work ) throws IOException
+    {
+        try ( Recording recording = new Recording() )
+        {
+            recording.enable( ImageOperationEvent.NAME );
+            recording.enable( ImagePhaseEvent.NAME );
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump( file.toPath() );
+        }
+        return RecordingFile.readAllEvents( file.toPath() );
+    }
+
+    private static List<RecordedEvent> named( List<RecordedEvent> events, String name )
+    {
+        List<RecordedEvent> out = new ArrayList<>();
+        for ( RecordedEvent e : events )
+            if ( e.getEventType().getName().equals( name ) )
+                out.add( e );
+        return out;
+    }
+
+    public void testOperationEvents() throws IOException
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 30, 20, 1 );
+        List<RecordedEvent> events = named( record( () -> Image.rgb2gray( rgb ) ), ImageOperationEvent.NAME );
+        assertEquals( 1, events.size() );
+        RecordedEvent e = events.get( 0 );
+        assertEquals( "rgb2gray", e.getString( "operation" ) );
+        assertEquals( 30, e.getInt( "height" ) );
+        assertEquals( 20, e.getInt( "width" ) );
+        assertEquals( 3, e.getInt( "channels" ) );
+        assertNotNull( e.getThread() );
+        assertFalse( e.getDuration().isNegative() );
+        // Sem a instrumentação habilitada, só o evento é emitido
+        assertTrue( Metrics.snapshot().isEmpty() );
+    }
+
+    public void testPhaseEvents() throws IOException
+    {
+        boolean[][] bw = LabelingTest.randomMask( 40, 40, 0.6, 2 );
+        List<RecordedEvent> events = record( () -> {
+            Image.bwLabel( bw );
+            Image.skeletonize( bw );
+        } );
+
+        List<RecordedEvent> phases = named( events, ImagePhaseEvent.NAME );
+        int equivalences = 0, iterations = 0;
+        long deleted = 0;
+        for ( RecordedEvent e : phases )
+            if ( e.getString( "phase" ).equals( "equivalences" ) )
+            {
+                equivalences++;
+                assertEquals( "Labeling", e.getString( "operation" ) );
+                assertEquals( Labeling.label( bw, 8 ).count, e.getLong( "count" ) );
+            }
+            else
+            {
+                assertEquals( "Skeleton", e.getString( "operation" ) );
+                assertEquals( ++iterations, e.getInt( "iteration" ) );
+                deleted += e.getLong( "count" );
+            }
+        assertEquals( 1, equivalences );
+        assertTrue( iterations > 1 );
+        assertEquals( 0, phases.get( phases.size() - 1 ).getLong( "count" ) );
+        assertTrue( deleted > 0 );
+
+        List<RecordedEvent> operations = named( events, ImageOperationEvent.NAME );
+        assertEquals( 2, operations.size() );
+    }
+}
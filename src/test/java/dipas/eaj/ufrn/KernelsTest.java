@@ -0,0 +1,112 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Kernels: the implementation in use (vector when jdk.incubator.vector is present) matches the
+ * scalar one, including the remainders that do not fill a vector.
+ */
+public class KernelsTest
+    extends TestCase
+{
+    private static final Kernels KERNELS = Kernels.INSTANCE;
+
+    public KernelsTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( KernelsTest.class );
+    }
+
+    private static int[] random( int n, int bound, long seed )
+    {
+        Random random = new Random( seed );
+        int[] v = new int[n];
+        for ( int k = 0; k < n; k++ )
+            v[k] = random.nextInt( bound );
+        return v;
+    }
+
+    public void testVectorImplementationIsLoadedWhenAvailable()
+    {
+        boolean module = ModuleLayer.boot().findModule( "jdk.incubator.vector" ).isPresent();
+        assertEquals( module, KERNELS != Kernels.SCALAR );
+        assertEquals( module, KERNELS.name().startsWith( "vector" ) );
+    }
+
+    public void testAdd()
+    {
+        int[] a = random( 203, 256, 1 ), b = random( 203, 256, 2 );
+        for ( boolean subtract : new boolean[]{ false, true } )
+            for ( int n : new int[]{ 0, 1, 7, 64, 197 } )
+            {
+                int[] expected = new int[203], actual = new int[203];
+                Kernels.SCALAR.add( a, 3, b, 5, expected, 1, n, subtract );
+                KERNELS.add( a, 3, b, 5, actual, 1, n, subtract );
+                assertTrue( Arrays.equals( expected, actual ) );
+                Kernels.SCALAR.addSaturated( a, 3, b, 5, expected, 1, n, subtract );
+                KERNELS.addSaturated( a, 3, b, 5, actual, 1, n, subtract );
+                assertTrue( Arrays.equals( expected, actual ) );
+                for ( int v : actual )
+                    assertTrue( v >= 0 && v <= 255 );
+            }
+    }
+
+    public void testGray()
+    {
+        int[] src = random( 4 * 150, 256, 3 );
+        src[100] = 300;
+        src[401] = -4;
+        for ( int step : new int[]{ 1, 3, 4 } )
+            for ( int n : new int[]{ 1, 8, 33, 140 } )
+            {
+                int[] expected = new int[n], actual = new int[n];
+                int r = 0, g = step == 1 ? 150 : 1, b = step == 1 ? 300 : 2;
+                Kernels.SCALAR.gray( src, r, g, b, step, expected, 0, n );
+                KERNELS.gray( src, r, g, b, step, actual, 0, n );
+                assertTrue( step + " " + n, Arrays.equals( expected, actual ) );
+            }
+    }
+
+    public void testThreshold()
+    {
+        int[] src = random( 300, 256, 4 );
+        for ( int step : new int[]{ 1, 3 } )
+            for ( boolean maior : new boolean[]{ false, true } )
+            {
+                int n = 300 / step - 1;
+                boolean[] expected = new boolean[n], actual = new boolean[n];
+                Kernels.SCALAR.threshold( src, 1, step, 126, maior, expected, 0, n );
+                KERNELS.threshold( src, 1, step, 126, maior, actual, 0, n );
+                assertTrue( Arrays.equals( expected, actual ) );
+                int[] expectedInt = new int[n], actualInt = new int[n];
+                Kernels.SCALAR.threshold( src, 1, step, 126, maior, expectedInt, 0, n );
+                KERNELS.threshold( src, 1, step, 126, maior, actualInt, 0, n );
+                assertTrue( Arrays.equals( expectedInt, actualInt ) );
+            }
+    }
+
+    public void testSaturatedImageArithmetic()
+    {
+        int[][] a = BlurTest.randomGray( 19, 37, 5 ), b = BlurTest.randomGray( 19, 37, 6 );
+        int[][] sum = Image.imAdd( a, b ), diff = Image.imSubtract( a, b );
+        for ( int i = 0; i < 19; i++ )
+            for ( int j = 0; j < 37; j++ )
+            {
+                assertEquals( Math.min( 255, a[i][j] + b[i][j] ), sum[i][j] );
+                assertEquals( Math.max( 0, a[i][j] - b[i][j] ), diff[i][j] );
+            }
+        PackedImage pa = PackedImage.fromArray( a ), pb = PackedImage.fromArray( b );
+        assertTrue( Arrays.deepEquals( sum, Image.imAdd( pa, pb ).toArray() ) );
+        assertTrue( Arrays.deepEquals( diff, Image.imSubtract( pa, pb.toLayout( PackedImage.Layout.PLANAR ) ).toArray() ) );
+        assertTrue( Arrays.deepEquals( Image.sub( a, b ), Image.sub( pa, pb ).toArray() ) );
+    }
+}
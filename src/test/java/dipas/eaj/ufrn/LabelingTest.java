@@ -0,0 +1,164 @@
+package dipas.eaj.ufrn;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Labeling.
+ */
+public class LabelingTest
+    extends TestCase
+{
+    public LabelingTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( LabelingTest.class );
+    }
+
+    static boolean[][] randomMask( int height, int width, double density, long seed )
+    {
+        Random random = new Random( seed );
+        boolean[][] bw = new boolean[height][width];
+        for ( boolean[] row : bw )
+            for ( int j = 0; j < width; j++ )
+                row[j] = random.nextDouble() < density;
+        return bw;
+    }
+
+    /**
+     * Flood fill reference, numbering components in raster order.
+     */
+    static int[][] reference( boolean[][] bw, int connectivity )
+    {
+        int h = bw.length, w = bw[0].length, label = 0;
+        int[][] lab = new int[h][w];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        for ( int i = 0; i < h; i++ )
+            for ( int j = 0; j < w; j++ )
+            {
+                if ( !bw[i][j] || lab[i][j] != 0 )
+                    continue;
+                lab[i][j] = ++label;
+                queue.add( new int[]{ i, j } );
+                while ( !queue.isEmpty() )
+                {
+                    int[] p = queue.poll();
+                    for ( int x = -1; x <= 1; x++ )
+                        for ( int y = -1; y <= 1; y++ )
+                        {
+                            if ( connectivity == 4 && x != 0 && y != 0 )
+                                continue;
+                            int r = p[0] + x, c = p[1] + y;
+                            if ( r >= 0 && c >= 0 && r < h && c < w && bw[r][c] && lab[r][c] == 0 )
+                            {
+                                lab[r][c] = label;
+                                queue.add( new int[]{ r, c } );
+                            }
+                        }
+                }
+            }
+        return lab;
+    }
+
+    public void testMatchesFloodFill()
+    {
+        for ( int seed = 0; seed < 20; seed++ )
+        {
+            boolean[][] bw = randomMask( 23 + seed, 31, 0.3 + seed * 0.02, seed );
+            for ( int connectivity : new int[]{ 4, 8 } )
+            {
+                Labeling.Result result = Labeling.label( bw, connectivity );
+                int[][] expected = reference( bw, connectivity );
+                assertTrue( Arrays.deepEquals( expected, result.toArray() ) );
+                assertEquals( Image.max( expected ), result.count );
+            }
+        }
+    }
+
+    public void testSpiralMergesToOneComponent()
+    {
+        boolean[][] bw = new boolean[5][7];
+        for ( int j = 0; j < 7; j++ )
+            bw[4][j] = true;
+        for ( int i = 0; i < 5; i++ )
+            bw[i][0] = bw[i][2] = bw[i][4] = bw[i][6] = true;
+        assertEquals( 1, Labeling.label( bw, 4 ).count );
+        assertEquals( 1, Image.max( Image.bwLabel( bw ) ) );
+    }
+
+    public void testPackedMatchesArray()
+    {
+        boolean[][] bw = randomMask( 17, 19, 0.45, 99 );
+        assertTrue( Arrays.deepEquals( Image.bwLabel( bw ),
+                Image.bwLabel( PackedImage.fromArray( bw ) ).toArray() ) );
+    }
+
+    public void testRegionPropsSinglePass()
+    {
+        boolean[][] bw = randomMask( 40, 37, 0.35, 7 );
+        int[][] lb = reference( bw, 8 );
+        java.util.ArrayList<Properties> props = Image.regionProps( bw );
+        assertEquals( Image.max( lb ), props.size() );
+
+        for ( Properties p : props )
+        {
+            int area = 0, minRow = bw.length, minCol = bw[0].length, maxRow = 0, maxCol = 0;
+            double sumRow = 0;
+            for ( int i = 0; i < bw.length; i++ )
+                for ( int j = 0; j < bw[0].length; j++ )
+                    if ( lb[i][j] == p.label )
+                    {
+                        area++;
+                        sumRow += i;
+                        minRow = Math.min( minRow, i );
+                        minCol = Math.min( minCol, j );
+                        maxRow = Math.max( maxRow, i );
+                        maxCol = Math.max( maxCol, j );
+                    }
+            assertEquals( area, p.area );
+            assertTrue( Arrays.equals( new int[]{ minRow, minCol, maxRow, maxCol }, p.boundingBox ) );
+            assertEquals( sumRow / area, p.centroid[0], 1e-9 );
+            assertNull( p.image );
+            boolean[][] image = p.getImage();
+            assertNotNull( image );
+            if ( area > 1 )
+            {
+                assertEquals( maxRow - minRow, image.length );
+                if ( image.length > 0 && image[0].length > 0 )
+                    assertEquals( lb[minRow][minCol] == p.label, image[0][0] );
+            }
+        }
+    }
+
+    public void testRegionPropsEagerImages()
+    {
+        boolean[][] bw = randomMask( 30, 31, 0.35, 9 );
+        for ( Properties p : Image.regionProps( bw, true ) )
+            assertNotNull( p.image );
+        for ( Properties p : Image.regionProps( PackedImage.fromArray( bw ), true ) )
+            assertNotNull( p.image );
+        for ( Properties p : Image.regionProps( PackedImage.fromArray( bw ) ) )
+            assertNull( p.image );
+    }
+
+    public void testRegionPropsLazyFilter()
+    {
+        boolean[][] bw = randomMask( 40, 37, 0.35, 8 );
+        java.util.ArrayList<Properties> props = Image.regionProps( bw, 3, 10 );
+        for ( Properties p : props )
+        {
+            assertTrue( p.area >= 3 && p.area <= 10 );
+            assertNull( p.image );
+            assertSame( p.getImage(), p.image );
+        }
+    }
+}
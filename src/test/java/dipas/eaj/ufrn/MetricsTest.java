@@ -0,0 +1,111 @@
+package dipas.eaj.ufrn;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Metrics: calls are recorded only when enabled, once per outermost operation.
+ */
+public class MetricsTest
+    extends TestCase
+{
+    public MetricsTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( MetricsTest.class );
+    }
+
+    protected void setUp()
+    {
+        Metrics.reset();
+    }
+
+    protected void tearDown()
+    {
+        Metrics.setEnabled( false );
+        Metrics.reset();
+    }
+
+    public void testDisabledRecordsNothing()
+    {
+        Metrics.setEnabled( false );
+        Image.rgb2gray( PackedImageTest.randomRgb( 10, 10, 1 ) );
+        assertTrue( Metrics.snapshot().isEmpty() );
+    }
+
+    public void testOperationsAreCountedOnce()
+    {
+        Metrics.setEnabled( true );
+        int[][][] rgb = PackedImageTest.randomRgb( 30, 20, 1 );
+        for ( int k = 0; k < 3; k++ )
+            Image.rgb2gray( rgb );
+        Image.bwErode( PackedImage.fromArray( LabelingTest.randomMask( 12, 15, 0.5, 2 ) ), 3 );
+        Image.regionProps( LabelingTest.randomMask( 12, 15, 0.5, 3 ) );
+
+        Metrics.Snapshot gray = Metrics.snapshot( "rgb2gray" );
+        assertEquals( 3, gray.getCount() );
+        assertEquals( 3 * 30 * 20, gray.getPixels() );
+        assertTrue( gray.getTotalNanos() > 0 );
+        assertTrue( gray.getP50Nanos() <= gray.getP99Nanos() );
+        long buckets = 0;
+        for ( long n : gray.getHistogram() )
+            buckets += n;
+        assertEquals( 3, buckets );
+
+        assertEquals( 1, Metrics.snapshot( "bwErode" ).getCount() );
+        assertEquals( 12 * 15, Metrics.snapshot( "bwErode" ).getPixels() );
+        assertEquals( 1, Metrics.snapshot( "regionProps" ).getCount() );
+        assertNull( Metrics.snapshot( "bwLabel" ) );
+    }
+
+    public void testListenerReceivesSamples()
+    {
+        List<String> seen = new ArrayList<>();
+        Metrics.Listener listener = ( operation, nanos, pixels, allocatedBytes ) -> seen.add( operation + ":" + pixels );
+        Metrics.addListener( listener );
+        try
+        {
+            Metrics.setEnabled( true );
+            Image.imGaussian( BlurTest.randomGray( 8, 9, 1 ), 3 );
+            Metrics.Sample sample = Metrics.start( "custom" );
+            sample.setSize( 2, 5 );
+            sample.stop();
+        }
+        finally
+        {
+            Metrics.removeListener( listener );
+        }
+        assertEquals( 2, seen.size() );
+        assertEquals( "imGaussian:72", seen.get( 0 ) );
+        assertEquals( "custom:10", seen.get( 1 ) );
+    }
+
+    public void testJmxExposesOperations() throws Exception
+    {
+        Metrics.registerMBean();
+        Metrics.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName( Metrics.OBJECT_NAME );
+        server.setAttribute( name, new javax.management.Attribute( "Enabled", true ) );
+        assertTrue( Metrics.isEnabled() );
+        Image.im2bw( BlurTest.randomGray( 5, 6, 2 ), 100, true );
+        CompositeData[] operations = (CompositeData[]) server.getAttribute( name, "Operations" );
+        assertEquals( 1, operations.length );
+        assertEquals( "im2bw", operations[0].get( "name" ) );
+        assertEquals( 1L, operations[0].get( "count" ) );
+        assertEquals( 30L, operations[0].get( "pixels" ) );
+    }
+}
@@ -0,0 +1,119 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Morphology and the bwErode/bwDilate/bwOpen/bwClose functions.
+ */
+public class MorphologyTest
+    extends TestCase
+{
+    public MorphologyTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( MorphologyTest.class );
+    }
+
+    /**
+     * Brute force erosion/dilation with an explicit element, ignoring pixels outside the image.
+     */
+    static boolean[][] reference( boolean[][] bw, boolean[][] element, boolean erode )
+    {
+        int h = bw.length, w = bw[0].length, rh = element.length / 2, rw = element[0].length / 2;
+        boolean[][] out = new boolean[h][w];
+        for ( int i = 0; i < h; i++ )
+            for ( int j = 0; j < w; j++ )
+            {
+                boolean value = erode;
+                for ( int x = -rh; x <= rh; x++ )
+                    for ( int y = -rw; y <= rw; y++ )
+                        if ( element[x + rh][y + rw] && i + x >= 0 && j + y >= 0 && i + x < h && j + y < w
+                                && bw[i + x][j + y] != erode )
+                            value = !erode;
+                out[i][j] = value;
+            }
+        return out;
+    }
+
+    static boolean[][] square( int tam )
+    {
+        int n = 2 * ( tam / 2 ) + 1;
+        boolean[][] element = new boolean[n][n];
+        for ( boolean[] row : element )
+            Arrays.fill( row, true );
+        return element;
+    }
+
+    static boolean[][] cross( int tam )
+    {
+        int r = tam / 2;
+        boolean[][] element = new boolean[2 * r + 1][2 * r + 1];
+        for ( int k = 0; k <= 2 * r; k++ )
+            element[r][k] = element[k][r] = true;
+        return element;
+    }
+
+    public void testSquareMatchesBruteForce()
+    {
+        for ( int seed = 0; seed < 6; seed++ )
+        {
+            boolean[][] bw = LabelingTest.randomMask( 19, 23, 0.4 + seed * 0.08, seed );
+            for ( int tam : new int[]{ 1, 2, 3, 5, 8, 31 } )
+            {
+                assertTrue( Arrays.deepEquals( reference( bw, square( tam ), true ), Image.bwErode( bw, tam ) ) );
+                assertTrue( Arrays.deepEquals( reference( bw, square( tam ), false ), Image.bwDilate( bw, tam ) ) );
+                assertTrue( Arrays.deepEquals( reference( bw, cross( tam ), true ),
+                        Morphology.erode( bw, Morphology.Shape.CROSS, tam ) ) );
+                assertTrue( Arrays.deepEquals( reference( bw, cross( tam ), false ),
+                        Morphology.dilate( bw, Morphology.Shape.CROSS, tam ) ) );
+            }
+        }
+    }
+
+    public void testOpenCloseMatchComposition()
+    {
+        boolean[][] bw = LabelingTest.randomMask( 30, 27, 0.6, 42 );
+        for ( Morphology.Shape shape : Morphology.Shape.values() )
+        {
+            assertTrue( Arrays.deepEquals(
+                    Morphology.dilate( Morphology.erode( bw, shape, 7 ), shape, 7 ), Morphology.open( bw, shape, 7 ) ) );
+            assertTrue( Arrays.deepEquals(
+                    Morphology.erode( Morphology.dilate( bw, shape, 7 ), shape, 7 ), Morphology.close( bw, shape, 7 ) ) );
+        }
+        assertTrue( Arrays.deepEquals( reference( reference( bw, square( 5 ), true ), square( 5 ), false ),
+                Image.bwOpen( bw, 5 ) ) );
+    }
+
+    public void testDiskIsSymmetricOctagon()
+    {
+        boolean[][] bw = new boolean[41][41];
+        bw[20][20] = true;
+        boolean[][] disk = Morphology.dilate( bw, Morphology.Shape.DISK, 21 );
+        for ( int i = 0; i < 41; i++ )
+            for ( int j = 0; j < 41; j++ )
+            {
+                assertEquals( disk[i][j], disk[j][i] );
+                assertEquals( disk[i][j], disk[40 - i][j] );
+                double d = Math.hypot( i - 20, j - 20 );
+                if ( d <= 8 )
+                    assertTrue( disk[i][j] );
+                if ( d > 12 )
+                    assertFalse( disk[i][j] );
+            }
+        assertTrue( disk[20][30] );
+        assertFalse( disk[20][31] );
+
+        boolean[][] element = Image.imCrop( disk, 10, 10, 31, 31 );
+        boolean[][] mask = LabelingTest.randomMask( 25, 25, 0.7, 3 );
+        assertTrue( Arrays.deepEquals( reference( mask, element, true ),
+                Morphology.erode( mask, Morphology.Shape.DISK, 21 ) ) );
+    }
+}
@@ -0,0 +1,99 @@
+package dipas.eaj.ufrn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Neighbourhood and the bwEndPoints/bwBranchPoints/bwIsolatedPoints functions.
+ */
+public class NeighbourhoodTest
+    extends TestCase
+{
+    private static final int[] END_POINTS = { 1, 2, 4, 8, 16, 32, 64, 128, 3, 6, 12, 24, 48, 96, 192, 129 };
+
+    public NeighbourhoodTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( NeighbourhoodTest.class );
+    }
+
+    public void testCodeMatchesNeighbourWeight()
+    {
+        boolean[][] bw = LabelingTest.randomMask( 20, 20, 0.5, 1 );
+        for ( int i = 1; i < 19; i++ )
+            for ( int j = 1; j < 19; j++ )
+                assertEquals( Image.neighbourWeight( Image.neighbours( bw, i, j ) ), Neighbourhood.code( bw, i, j ) );
+    }
+
+    public void testEndPointsMatchLookup()
+    {
+        for ( int seed = 0; seed < 4; seed++ )
+        {
+            boolean[][] bw = LabelingTest.randomMask( 33, 47, 0.3, seed );
+            boolean[][] expected = new boolean[33][47];
+            ArrayList<int[]> list = new ArrayList<int[]>();
+            for ( int i = 1; i < 32; i++ )
+                for ( int j = 1; j < 46; j++ )
+                    if ( bw[i][j] )
+                    {
+                        int code = Image.neighbourWeight( Image.neighbours( bw, i, j ) );
+                        for ( int e : END_POINTS )
+                            if ( e == code )
+                            {
+                                expected[i][j] = true;
+                                list.add( new int[] { i, j } );
+                            }
+                    }
+            assertTrue( Arrays.deepEquals( expected, Image.bwEndPoints( bw ) ) );
+            assertTrue( Arrays.deepEquals( list.toArray(), Image.bwEndPointsArray( bw ).toArray() ) );
+        }
+    }
+
+    public void testBranchAndIsolatedPoints()
+    {
+        // Um "T" com um ponto isolado
+        boolean[][] bw = new boolean[9][9];
+        for ( int j = 1; j < 8; j++ )
+            bw[2][j] = true;
+        for ( int i = 3; i < 7; i++ )
+            bw[i][4] = true;
+        bw[7][1] = true;
+
+        boolean[][] branch = Image.bwBranchPoints( bw );
+        assertTrue( branch[2][4] );
+        int n = 0;
+        for ( boolean[] row : branch )
+            for ( boolean b : row )
+                if ( b ) n++;
+        assertEquals( 1, n );
+
+        assertTrue( Arrays.equals( new int[] { 7, 1 }, Neighbourhood.points( bw, Neighbourhood.Feature.ISOLATED_POINT ) ) );
+        assertTrue( Image.bwIsolatedPoints( bw )[7][1] );
+        assertTrue( Arrays.equals( new int[] { 2, 1, 2, 7, 6, 4 },
+                Neighbourhood.points( bw, Neighbourhood.Feature.END_POINT ) ) );
+    }
+
+    public void testLargeImageMatchesAcrossBands()
+    {
+        boolean[][] bw = LabelingTest.randomMask( 1100, 1000, 0.2, 9 );
+        boolean[][] mask = Neighbourhood.mask( bw, Neighbourhood.Feature.BRANCH_POINT );
+        int[] points = Neighbourhood.points( bw, Neighbourhood.Feature.BRANCH_POINT );
+        int n = 0;
+        for ( int i = 0; i < bw.length; i++ )
+            for ( int j = 0; j < bw[0].length; j++ )
+                if ( mask[i][j] )
+                {
+                    assertEquals( i, points[n++] );
+                    assertEquals( j, points[n++] );
+                }
+        assertEquals( points.length, n );
+    }
+}
@@ -0,0 +1,95 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for PackedImage and its Image overloads.
+ */
+public class PackedImageTest
+    extends TestCase
+{
+    public PackedImageTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( PackedImageTest.class );
+    }
+
+    static int[][][] randomRgb( int height, int width, long seed )
+    {
+        Random random = new Random( seed );
+        int[][][] im = new int[height][width][3];
+        for ( int[][] row : im )
+            for ( int[] px : row )
+                for ( int c = 0; c < 3; c++ )
+                    px[c] = random.nextInt( 256 );
+        return im;
+    }
+
+    public void testRoundTrip()
+    {
+        int[][][] im = randomRgb( 7, 5, 1 );
+        PackedImage packed = PackedImage.fromArray( im );
+        assertTrue( Arrays.deepEquals( im, packed.toArray3() ) );
+
+        PackedImage planar = packed.toLayout( PackedImage.Layout.PLANAR );
+        assertEquals( im[3][2][1], planar.get( 3, 2, 1 ) );
+        assertTrue( Arrays.deepEquals( im, planar.toArray3() ) );
+        assertTrue( Arrays.equals( packed.data, planar.toLayout( PackedImage.Layout.INTERLEAVED ).data ) );
+    }
+
+    public void testPaddedStride()
+    {
+        int[] data = { 1, 2, 0, 3, 4, 0 };
+        PackedImage im = new PackedImage( data, 2, 2, 1, 3, PackedImage.Layout.INTERLEAVED );
+        assertTrue( Arrays.deepEquals( new int[][]{ { 1, 2 }, { 3, 4 } }, im.toArray() ) );
+        assertTrue( Arrays.equals( new int[]{ 2, 4, 6, 8 }, Image.sum( im, im ).data ) );
+    }
+
+    public void testOverloadsMatchArrays()
+    {
+        int[][][] im = randomRgb( 9, 11, 2 );
+        PackedImage packed = PackedImage.fromArray( im ).toLayout( PackedImage.Layout.PLANAR );
+
+        assertTrue( Arrays.deepEquals( Image.rgb2gray( im ), Image.rgb2gray( packed ).toArray() ) );
+        assertTrue( Arrays.deepEquals( Image.rgb2cmyk( im ), Image.rgb2cmyk( packed ).toArray3() ) );
+        assertTrue( Arrays.deepEquals( Image.rgb2ycbcr( im ), Image.rgb2ycbcr( packed ).toArray3() ) );
+        assertTrue( Arrays.deepEquals( Image.imGaussian( im, 5 ), Image.imGaussian( packed, 5 ).toArray3() ) );
+        assertTrue( Arrays.deepEquals( Image.imCrop( im, 2, 1, 7, 9 ), Image.imCrop( packed, 2, 1, 7, 9 ).toArray3() ) );
+        assertTrue( Arrays.deepEquals( Image.imHist( im ), Image.imHist( packed ) ) );
+        assertTrue( Arrays.deepEquals( Image._imResize( im ), Image._imResize( packed ).toArray3() ) );
+        assertTrue( Arrays.deepEquals( Image._imResize( im ),
+                Image._imResize( PackedImage.fromArray( im ) ).toArray3() ) );
+
+        int[][] gray = Image.rgb2gray( im );
+        PackedImage packedGray = PackedImage.fromArray( gray );
+        assertTrue( Arrays.deepEquals( Image.im2bw( gray ), Image.im2bw( packedGray ).toBinary() ) );
+        assertTrue( Arrays.deepEquals( Image.logical( gray ), Image.logical( packedGray ).toBinary() ) );
+        assertEquals( Image.min( gray ), Image.min( packedGray ) );
+        assertEquals( Image.max( gray ), Image.max( packedGray ) );
+    }
+
+    public void testByteImage()
+    {
+        int[][][] im = randomRgb( 6, 7, 5 );
+        PackedImage planar = PackedImage.fromArray( im ).toLayout( PackedImage.Layout.PLANAR );
+        ByteImage bytes = ByteImage.of( planar );
+        assertEquals( 6 * 7 * 3, bytes.data.length );
+        assertEquals( im[4][5][2], bytes.get( 4, 5, 2 ) );
+        assertTrue( Arrays.deepEquals( im, bytes.toPacked().toArray3() ) );
+
+        PackedImage wide = PackedImage.wrap( new int[]{ -5, 300, 128 }, 1, 1, 3 );
+        assertTrue( Arrays.equals( new int[]{ 0, 255, 128 }, ByteImage.of( wide ).toPacked().data ) );
+        bytes.set( 0, 0, 0, 999 );
+        assertEquals( 255, bytes.get( 0, 0, 0 ) );
+        assertEquals( bytes.toPacked().data[0], RasterBridge.toArray( RasterBridge.toBufferedImage( bytes ) )[0][0][0] );
+    }
+}
@@ -0,0 +1,172 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Parallel: every routed operation must give the same result sequentially and in parallel.
+ */
+public class ParallelTest
+    extends TestCase
+{
+    public ParallelTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ParallelTest.class );
+    }
+
+    @Override
+    protected void setUp()
+    {
+        // Força a divisão mesmo em imagens pequenas
+        Parallel.setThreshold( 1 );
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        Parallel.setThreshold( Parallel.DEFAULT_THRESHOLD );
+    }
+
+    private static void assertSame( Supplier<Object> op )
+    {
+        Object sequential = Parallel.withParallelism( 1, op );
+        Object parallel = Parallel.withParallelism( 4, op );
+        assertTrue( Arrays.deepEquals( new Object[] { sequential }, new Object[] { parallel } ) );
+    }
+
+    public void testPointOperations()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 37, 41, 1 );
+        PackedImage packed = PackedImage.fromArray( rgb );
+        int[][] gray = BlurTest.randomGray( 37, 41, 2 );
+        boolean[][] a = LabelingTest.randomMask( 37, 41, 0.5, 3 ), b = LabelingTest.randomMask( 37, 41, 0.5, 4 );
+
+        assertSame( () -> Image.rgb2gray( rgb ) );
+        assertSame( () -> Image.rgb2gray( packed ).data );
+        assertSame( () -> Image.rgb2cmyk( rgb ) );
+        assertSame( () -> Image.rgb2cmyk( packed ).data );
+        assertSame( () -> Image.rgb2hsv( rgb ) );
+        assertSame( () -> Image.rgb2ycbcr( rgb ) );
+        assertSame( () -> Image.rgb2ycbcr( packed ).data );
+        assertSame( () -> Image.im2bw( gray ) );
+        assertSame( () -> Image.im2bw( Image.rgb2gray( packed ) ).data );
+        assertSame( () -> Image.sum( gray, gray ) );
+        assertSame( () -> Image.sub( rgb, rgb ) );
+        assertSame( () -> Image.sum( a, b ) );
+        assertSame( () -> Image.sub( a, b ) );
+        assertSame( () -> Image.sum( packed, packed ).data );
+    }
+
+    public void testNeighbourhoodOperations()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 53, 29, 5 );
+        int[][] gray = BlurTest.randomGray( 53, 29, 6 );
+        boolean[][] bw = LabelingTest.randomMask( 53, 29, 0.6, 7 );
+
+        assertSame( () -> Image.imGaussian( rgb, 5 ) );
+        assertSame( () -> Image.imGaussian( gray, 2.0, Border.REFLECT ) );
+        assertSame( () -> Image.imBoxFilter( gray, 7, Border.CLAMP ) );
+        assertSame( () -> Blur.gaussianBoxes( gray, 3.0, 3, Border.ZERO ) );
+        for ( Morphology.Shape shape : Morphology.Shape.values() )
+        {
+            assertSame( () -> Morphology.erode( bw, shape, 7 ) );
+            assertSame( () -> Morphology.dilate( bw, shape, 9 ) );
+            assertSame( () -> Morphology.open( bw, shape, 5 ) );
+            assertSame( () -> Morphology.close( bw, shape, 5 ) );
+        }
+        assertSame( () -> Morphology.erodeRect( bw, 5, 3 ) );
+        assertSame( () -> Neighbourhood.points( bw, Neighbourhood.Feature.END_POINT ) );
+        assertSame( () -> new long[] { Stats.of( gray ).sum, Stats.of( gray ).min, Stats.of( gray ).maxRow } );
+        // A variância depende da ordem em que as faixas são combinadas, apenas no arredondamento
+        assertEquals( Parallel.withParallelism( 1, () -> Stats.of( gray ) ).variance,
+                Parallel.withParallelism( 4, () -> Stats.of( gray ) ).variance, 1e-9 );
+        assertSame( () -> new IntegralImage( gray, true ).sumOfSquares( 3, 4, 40, 20 ) );
+    }
+
+    public void testParallelismSettings()
+    {
+        assertEquals( 3, (int) Parallel.withParallelism( 3, Parallel::getParallelism ) );
+        assertEquals( 1, (int) Parallel.withParallelism( 1, Parallel::getParallelism ) );
+        int global = Parallel.getParallelism();
+        Parallel.setParallelism( 2 );
+        try
+        {
+            assertEquals( 2, Parallel.getParallelism() );
+        }
+        finally
+        {
+            Parallel.setParallelism( global );
+        }
+        try
+        {
+            Parallel.setParallelism( 0 );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+    }
+
+    /**
+     * Pool de uma thread de trabalho que executa uma faixa.
+     */
+    private static ForkJoinPool workerPool()
+    {
+        return Parallel.reduceRows( 64, 64, ( from, to ) -> ForkJoinTask.getPool(), ( a, b ) -> a != null ? a : b );
+    }
+
+    public void testPoolsAreReusedAndRetired()
+    {
+        ForkJoinPool first = Parallel.withParallelism( 3, ParallelTest::workerPool );
+        assertNotNull( first );
+        assertTrue( first == Parallel.withParallelism( 3, ParallelTest::workerPool ) );
+        assertFalse( first.isShutdown() );
+
+        // Paralelismos diferentes do pool comum, que nunca é encerrado
+        int global = Parallel.getParallelism(), n = ForkJoinPool.getCommonPoolParallelism() + 2;
+        Parallel.setParallelism( n );
+        try
+        {
+            ForkJoinPool previous = workerPool();
+            Parallel.setParallelism( n );
+            assertTrue( previous == workerPool() );
+            // O pool substituído não é encerrado: operações que já o obtiveram continuam sendo aceitas
+            Parallel.setParallelism( n + 1 );
+            assertFalse( previous.isShutdown() );
+            assertTrue( previous != workerPool() );
+            assertEquals( n + 1, workerPool().getParallelism() );
+        }
+        finally
+        {
+            Parallel.setParallelism( global );
+        }
+    }
+
+    public void testTilesCoverImageOnce()
+    {
+        int[][] hits = new int[45][70];
+        AtomicInteger tiles = new AtomicInteger();
+        Parallel.withParallelism( 4, () -> Parallel.forTiles( 45, 70, 16, ( r0, c0, r1, c1 ) -> {
+            tiles.incrementAndGet();
+            for ( int i = r0; i < r1; i++ )
+                for ( int j = c0; j < c1; j++ )
+                    hits[i][j]++;
+        } ) );
+        assertEquals( 3 * 5, tiles.get() );
+        for ( int[] row : hits )
+            for ( int v : row )
+                assertEquals( 1, v );
+    }
+}
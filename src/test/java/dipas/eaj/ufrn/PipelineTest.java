@@ -0,0 +1,99 @@
+package dipas.eaj.ufrn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Pipeline: a lazy chain must give the same result as the eager Image calls.
+ */
+public class PipelineTest
+    extends TestCase
+{
+    public PipelineTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( PipelineTest.class );
+    }
+
+    public void testPointOperationsAreFused()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 30, 20, 1 );
+        int[] invert = new int[256];
+        for ( int v = 0; v < 256; v++ )
+            invert[v] = 255 - v;
+
+        int[][] expected = Image.rgb2gray( rgb );
+        for ( int[] row : expected )
+            for ( int j = 0; j < row.length; j++ )
+                row[j] = 255 - row[j];
+        assertTrue( Arrays.deepEquals( expected, Pipeline.of( rgb ).rgb2gray().lut( invert ).toArray() ) );
+        assertTrue( Arrays.deepEquals( Image.im2bw( Image.rgb2gray( rgb ), 100, true ),
+                Pipeline.of( PackedImage.fromArray( rgb ) ).rgb2gray().map( v -> v + 1 ).im2bw( 101 ).toBinary() ) );
+    }
+
+    public void testChainMatchesEagerCalls()
+    {
+        // Altura maior que uma faixa, para que as margens entre faixas sejam exercitadas
+        int[][][] rgb = PackedImageTest.randomRgb( 150, 40, 2 );
+        int[][] gray = Image.rgb2gray( rgb );
+
+        boolean[][] expected = Image.bwOpen( Image.im2bw( Image.imGaussian( gray, 5 ), 127, true ), 3 );
+        Pipeline pipeline = Pipeline.of( rgb ).rgb2gray().gaussian( 5 ).im2bw( 127 ).open( 3 );
+        assertTrue( Arrays.deepEquals( expected, pipeline.toBinary() ) );
+
+        int[][] blurred = Image.imGaussian( Image.imBoxFilter( gray, 3, Border.CLAMP ), 1.5, Border.REFLECT );
+        assertTrue( Arrays.deepEquals( blurred,
+                Pipeline.of( gray ).boxFilter( 3, Border.CLAMP ).gaussian( 1.5, Border.REFLECT ).toArray() ) );
+
+        boolean[][] bw = LabelingTest.randomMask( 150, 40, 0.6, 3 );
+        assertTrue( Arrays.deepEquals( Image.bwClose( Image.bwDilate( bw, 3 ), 5 ),
+                Pipeline.of( bw ).dilate( 3 ).close( 5 ).toBinary() ) );
+    }
+
+    public void testParallelBands()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 300, 50, 4 );
+        boolean[][] expected = Image.bwClose( Image.im2bw( Image.rgb2gray( rgb ), 120, true ), 5 );
+        Parallel.setThreshold( 1 );
+        try
+        {
+            boolean[][] result = Parallel.withParallelism( 4,
+                    () -> Pipeline.of( rgb ).rgb2gray().im2bw( 120 ).close( 5 ).toBinary() );
+            assertTrue( Arrays.deepEquals( expected, result ) );
+        }
+        finally
+        {
+            Parallel.setThreshold( Parallel.DEFAULT_THRESHOLD );
+        }
+    }
+
+    public void testRegionProps()
+    {
+        boolean[][] bw = LabelingTest.randomMask( 80, 80, 0.1, 5 );
+        ArrayList<Properties> expected = Image.regionProps( Image.bwDilate( bw, 3 ) );
+        ArrayList<Properties> actual = Pipeline.of( bw ).dilate( 3 ).regionProps();
+        assertEquals( expected.size(), actual.size() );
+        for ( int k = 0; k < expected.size(); k++ )
+            assertEquals( expected.get( k ).area, actual.get( k ).area );
+    }
+
+    public void testColorImageNeedsReduction()
+    {
+        try
+        {
+            Pipeline.of( PackedImageTest.randomRgb( 4, 4, 6 ) ).im2bw( 10 );
+            fail();
+        }
+        catch ( IllegalStateException expected )
+        {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package dipas.eaj.ufrn;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for RasterBridge.
+ */
+public class RasterBridgeTest
+    extends TestCase
+{
+    public RasterBridgeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( RasterBridgeTest.class );
+    }
+
+    public void testColorTypesMatchGetRGB()
+    {
+        int[] types = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR,
+                BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_USHORT_565_RGB };
+        int[][][] source = PackedImageTest.randomRgb( 6, 9, 3 );
+        for ( int type : types )
+        {
+            BufferedImage buff = new BufferedImage( 9, 6, type );
+            for ( int i = 0; i < 6; i++ )
+                for ( int j = 0; j < 9; j++ )
+                    buff.setRGB( j, i, 0xFF000000 | ( source[i][j][0] << 16 ) | ( source[i][j][1] << 8 ) | source[i][j][2] );
+
+            int[][][] im = RasterBridge.toArray( buff );
+            ByteImage bytes = RasterBridge.toByteImage( buff );
+            assertTrue( Arrays.deepEquals( im, bytes.toPacked().toArray3() ) );
+            for ( int i = 0; i < 6; i++ )
+                for ( int j = 0; j < 9; j++ )
+                {
+                    int rgb = buff.getRGB( j, i );
+                    assertEquals( ( rgb >>> 16 ) & 0xFF, im[i][j][0] );
+                    assertEquals( ( rgb >>> 8 ) & 0xFF, im[i][j][1] );
+                    assertEquals( rgb & 0xFF, im[i][j][2] );
+                }
+        }
+    }
+
+    public void testGrayReadsRasterSamples()
+    {
+        BufferedImage buff = new BufferedImage( 4, 3, BufferedImage.TYPE_BYTE_GRAY );
+        buff.getRaster().setSample( 3, 2, 0, 200 );
+        int[][][] im = RasterBridge.toArray( buff );
+        assertTrue( Arrays.equals( new int[]{ 200, 200, 200 }, im[2][3] ) );
+        assertEquals( 200, RasterBridge.toByteImage( buff ).get( 2, 3, 1 ) );
+    }
+
+    public void testWriteRoundTrip()
+    {
+        int[][][] source = PackedImageTest.randomRgb( 5, 8, 4 );
+        assertTrue( Arrays.deepEquals( source, RasterBridge.toArray( RasterBridge.toBufferedImage( source ) ) ) );
+
+        int[][] gray = { { -5, 0, 128 }, { 255, 300, 7 } };
+        BufferedImage buff = RasterBridge.toBufferedImage( gray );
+        assertEquals( 0xFF000000, buff.getRGB( 0, 0 ) );
+        assertEquals( 0xFFFFFFFF, buff.getRGB( 1, 1 ) );
+        assertEquals( -5, gray[0][0] );
+
+        boolean[][] bw = { { true, false } };
+        assertEquals( 0xFFFFFFFF, RasterBridge.toBufferedImage( bw ).getRGB( 0, 0 ) );
+    }
+
+    public void testTwoChannelsAreGray()
+    {
+        int[] data = { 10, 255, 20, 0, 30, 128, 40, 7 };
+        PackedImage packed = PackedImage.wrap( data, 2, 2, 2 );
+        for ( PackedImage im : new PackedImage[]{ packed, packed.toLayout( PackedImage.Layout.PLANAR ) } )
+        {
+            int[][][] rgb = RasterBridge.toArray( RasterBridge.toBufferedImage( im ) );
+            assertTrue( Arrays.equals( new int[]{ 40, 40, 40 }, rgb[1][1] ) );
+            assertTrue( Arrays.equals( new int[]{ 20, 20, 20 }, rgb[0][1] ) );
+        }
+        int[][][] rgb = RasterBridge.toArray( RasterBridge.toBufferedImage( ByteImage.of( packed ) ) );
+        assertTrue( Arrays.equals( new int[]{ 40, 40, 40 }, rgb[1][1] ) );
+        assertTrue( Arrays.equals( new int[]{ 10, 10, 10 }, rgb[0][0] ) );
+    }
+}
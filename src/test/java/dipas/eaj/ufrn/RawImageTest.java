@@ -0,0 +1,136 @@
+package dipas.eaj.ufrn;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for RawImage: the raw format must round-trip every image type without loss.
+ */
+public class RawImageTest
+    extends TestCase
+{
+    private File dir;
+
+    public RawImageTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( RawImageTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        dir = File.createTempFile( "raw", "" );
+        dir.delete();
+        dir.mkdir();
+    }
+
+    protected void tearDown()
+    {
+        for ( File f : dir.listFiles() )
+            f.delete();
+        dir.delete();
+    }
+
+    private String file( String name )
+    {
+        return new File( dir, name ).getPath();
+    }
+
+    public void testRoundTripChoosesSmallestDepth() throws IOException
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 31, 17, 1 );
+        RawImage.write( PackedImage.fromArray( rgb ), file( "rgb.imj" ) );
+        assertEquals( 8, RawImage.map( file( "rgb.imj" ), false ).depth );
+        assertTrue( Arrays.deepEquals( rgb, RawImage.read( file( "rgb.imj" ) ).toArray3() ) );
+
+        int[][] wide = { { 0, 1000, 65535 }, { 7, 300, 2 } };
+        RawImage.write( PackedImage.fromArray( wide ), file( "wide.imj" ) );
+        assertEquals( 16, RawImage.map( file( "wide.imj" ), false ).depth );
+        assertTrue( Arrays.deepEquals( wide, RawImage.read( file( "wide.imj" ) ).toArray() ) );
+
+        int[][] labels = { { -1, 70000 }, { Integer.MAX_VALUE, Integer.MIN_VALUE } };
+        RawImage.write( PackedImage.fromArray( labels ), file( "labels.imj" ) );
+        assertEquals( 32, RawImage.map( file( "labels.imj" ), false ).depth );
+        assertTrue( Arrays.deepEquals( labels, RawImage.read( file( "labels.imj" ) ).toArray() ) );
+    }
+
+    public void testPlanarLayoutIsKept() throws IOException
+    {
+        PackedImage planar = PackedImage.fromArray( PackedImageTest.randomRgb( 9, 12, 2 ) )
+                .toLayout( PackedImage.Layout.PLANAR );
+        RawImage.write( planar, file( "planar.imj" ) );
+        PackedImage read = RawImage.read( file( "planar.imj" ) );
+        assertEquals( PackedImage.Layout.PLANAR, read.layout );
+        assertTrue( Arrays.equals( planar.data, read.data ) );
+        assertEquals( planar.get( 4, 7, 2 ), RawImage.map( file( "planar.imj" ), false ).get( 4, 7, 2 ) );
+    }
+
+    public void testMappedWritesReachTheFile() throws IOException
+    {
+        RawImage raw = RawImage.create( file( "map.imj" ), 4, 5, 1, 16, PackedImage.Layout.INTERLEAVED );
+        raw.set( 2, 3, 0, 1234 );
+        raw.set( 0, 0, 0, 99999 );
+        raw.force();
+        RawImage again = RawImage.map( file( "map.imj" ), false );
+        assertEquals( 1234, again.get( 2, 3, 0 ) );
+        assertEquals( 65535, again.get( 0, 0, 0 ) );
+        assertEquals( 0, again.get( 3, 4, 0 ) );
+    }
+
+    public void testImReadAndImWriteUseTheExtension()
+    {
+        boolean[][] bw = LabelingTest.randomMask( 20, 25, 0.5, 3 );
+        Image.imWrite( bw, file( "bw.imj" ) );
+        assertTrue( Arrays.deepEquals( bw, Image.imReadPacked( file( "bw.imj" ) ).toBinary() ) );
+
+        int[][] gray = BlurTest.randomGray( 15, 10, 4 );
+        Image.imWrite( gray, file( "gray.IMJ" ) );
+        int[][][] rgb = Image.imRead( file( "gray.IMJ" ) );
+        assertEquals( 3, rgb[0][0].length );
+        for ( int i = 0; i < gray.length; i++ )
+            for ( int j = 0; j < gray[0].length; j++ )
+                assertTrue( Arrays.equals( new int[]{ gray[i][j], gray[i][j], gray[i][j] }, rgb[i][j] ) );
+    }
+
+    public void testInvalidFilesAreRejected() throws IOException
+    {
+        try ( RandomAccessFile f = new RandomAccessFile( file( "bad.imj" ), "rw" ) )
+        {
+            f.write( new byte[64] );
+        }
+        try
+        {
+            RawImage.read( file( "bad.imj" ) );
+            fail( "Expected IOException" );
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage().contains( "magic" ) );
+        }
+
+        RawImage.write( PackedImage.fromArray( new int[][]{ { 1, 2, 3 } } ), file( "short.imj" ) );
+        try ( RandomAccessFile f = new RandomAccessFile( file( "short.imj" ), "rw" ) )
+        {
+            f.setLength( RawImage.HEADER_SIZE + 1 );
+        }
+        try
+        {
+            RawImage.read( file( "short.imj" ) );
+            fail( "Expected IOException" );
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage().contains( "Truncated" ) );
+        }
+    }
+}
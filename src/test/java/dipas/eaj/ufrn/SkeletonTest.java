@@ -0,0 +1,108 @@
+package dipas.eaj.ufrn;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Skeleton and Image.skeletonize.
+ */
+public class SkeletonTest
+    extends TestCase
+{
+    private static final int[][] PHASES = {
+        { 3, 6, 7, 12, 14, 15, 24, 28, 30, 31, 48, 56, 60, 62, 63, 96, 112, 120, 124, 126, 127, 129, 131, 135,
+          143, 159, 191, 192, 193, 195, 199, 207, 223, 224, 225, 227, 231, 239, 240, 241, 243, 247, 248, 249,
+          251, 252, 253, 254 },
+        { 7, 14, 28, 56, 112, 131, 193, 224 },
+        { 7, 14, 15, 28, 30, 56, 60, 112, 120, 131, 135, 193, 195, 224, 225, 240 },
+        { 7, 14, 15, 28, 30, 31, 56, 60, 62, 112, 120, 124, 131, 135, 143, 193, 195, 199, 224, 225, 227, 240,
+          241, 248 },
+        { 7, 14, 15, 28, 30, 31, 56, 60, 62, 63, 112, 120, 124, 126, 131, 135, 143, 159, 193, 195, 199, 207,
+          224, 225, 227, 231, 240, 241, 243, 248, 249, 252 },
+        { 7, 14, 15, 28, 30, 31, 56, 60, 62, 63, 112, 120, 124, 126, 131, 135, 143, 159, 191, 193, 195, 199,
+          207, 224, 225, 227, 231, 239, 240, 241, 243, 248, 249, 251, 252, 254 }
+    };
+
+    public SkeletonTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( SkeletonTest.class );
+    }
+
+    /**
+     * Full-scan K3M, as the original skeletonize did it (with phase 0 starting at column 1).
+     */
+    static boolean[][] reference( boolean[][] bw )
+    {
+        boolean[][] output = Image.copy( bw );
+        boolean modified;
+        do
+        {
+            modified = false;
+            boolean[][] border = new boolean[output.length][output[0].length];
+            for ( int i = 1; i < output.length - 1; i++ )
+                for ( int j = 1; j < output[0].length - 1; j++ )
+                    if ( output[i][j] && contains( PHASES[0], Image.neighbourWeight( Image.neighbours( output, i, j ) ) ) )
+                        border[i][j] = true;
+            for ( int k = 1; k <= 5; k++ )
+                for ( int i = 0; i < output.length; i++ )
+                    for ( int j = 0; j < output[0].length; j++ )
+                        if ( border[i][j]
+                                && contains( PHASES[k], Image.neighbourWeight( Image.neighbours( output, i, j ) ) ) )
+                        {
+                            output[i][j] = false;
+                            border[i][j] = false;
+                            modified = true;
+                        }
+        }
+        while ( modified );
+        return output;
+    }
+
+    private static boolean contains( int[] values, int x )
+    {
+        for ( int v : values )
+            if ( v == x )
+                return true;
+        return false;
+    }
+
+    public void testMatchesFullScan()
+    {
+        for ( int seed = 0; seed < 6; seed++ )
+        {
+            boolean[][] bw = Image.bwDilate( LabelingTest.randomMask( 40, 50, 0.05, seed ), 5 );
+            assertTrue( Arrays.deepEquals( reference( bw ), Image.skeletonize( bw ) ) );
+        }
+        boolean[][] noise = LabelingTest.randomMask( 30, 30, 0.5, 7 );
+        assertTrue( Arrays.deepEquals( reference( noise ), Skeleton.thin( noise ) ) );
+    }
+
+    public void testThinsNearLeftEdge()
+    {
+        // Um retângulo colado à esquerda (colunas 1 a 8) também deve ser afinado
+        boolean[][] bw = new boolean[12][12];
+        for ( int i = 2; i < 10; i++ )
+            for ( int j = 1; j < 9; j++ )
+                bw[i][j] = true;
+        boolean[][] skeleton = Image.skeletonize( bw );
+        int area = 0;
+        for ( boolean[] row : skeleton )
+            for ( boolean b : row )
+                if ( b ) area++;
+        assertTrue( area > 0 && area < 20 );
+    }
+
+    public void testTinyImages()
+    {
+        boolean[][] bw = { { true, true }, { true, true } };
+        assertTrue( Arrays.deepEquals( bw, Image.skeletonize( bw ) ) );
+    }
+}
@@ -0,0 +1,115 @@
+package dipas.eaj.ufrn;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for Stats and the min/max functions.
+ */
+public class StatsTest
+    extends TestCase
+{
+    public StatsTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( StatsTest.class );
+    }
+
+    private static void assertMatches( int[][] im, Stats stats )
+    {
+        long n = 0, sum = 0;
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE, minRow = -1, minCol = -1, maxRow = -1, maxCol = -1;
+        for ( int i = 0; i < im.length; i++ )
+            for ( int j = 0; j < im[0].length; j++ )
+            {
+                int v = im[i][j];
+                n++;
+                sum += v;
+                if ( v < min ) { min = v; minRow = i; minCol = j; }
+                if ( v > max ) { max = v; maxRow = i; maxCol = j; }
+            }
+        double mean = sum / (double) n, m2 = 0;
+        for ( int[] row : im )
+            for ( int v : row )
+                m2 += ( v - mean ) * ( v - mean );
+
+        assertEquals( n, stats.count );
+        assertEquals( sum, stats.sum );
+        assertEquals( mean, stats.mean, 1e-9 );
+        assertEquals( m2 / n, stats.variance, 1e-6 );
+        assertEquals( min, stats.min );
+        assertEquals( max, stats.max );
+        assertEquals( minRow, stats.minRow );
+        assertEquals( minCol, stats.minCol );
+        assertEquals( maxRow, stats.maxRow );
+        assertEquals( maxCol, stats.maxCol );
+    }
+
+    public void testSmallImage()
+    {
+        int[][] im = BlurTest.randomGray( 17, 23, 1 );
+        assertMatches( im, Stats.of( im ) );
+        assertEquals( Stats.of( im ).min, Image.min( im ) );
+        assertEquals( Stats.of( im ).max, Image.max( im ) );
+    }
+
+    public void testLargeImageInParallel()
+    {
+        int[][] im = BlurTest.randomGray( 1200, 1000, 2 );
+        im[700][3] = -5;
+        im[900][999] = 300;
+        assertMatches( im, Stats.of( im ) );
+        assertEquals( -5, Image.min( im ) );
+        assertEquals( 300, Image.max( im ) );
+    }
+
+    public void testWideValues()
+    {
+        // Valores de mais de 16 bits seguem pela segunda leitura da linha
+        int[][] im = BlurTest.randomGray( 40, 50, 4 );
+        for ( int[] row : im )
+            for ( int j = 0; j < row.length; j++ )
+                row[j] = ( row[j] - 128 ) * 8000000;
+        Stats stats = Stats.of( im );
+        double mean = stats.sum / (double) stats.count, m2 = 0;
+        for ( int[] row : im )
+            for ( int v : row )
+                m2 += ( v - mean ) * ( v - mean );
+        assertEquals( m2 / stats.count, stats.variance, 1e-9 * stats.variance );
+
+        PackedImage packed = PackedImage.fromArray( im );
+        assertEquals( stats.min, Image.min( packed ) );
+        assertEquals( stats.max, Image.max( packed ) );
+    }
+
+    public void testChannels()
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 20, 30, 3 );
+        PackedImage packed = PackedImage.fromArray( rgb );
+        for ( int c = 0; c < 3; c++ )
+        {
+            int[][] plane = new int[20][30];
+            for ( int i = 0; i < 20; i++ )
+                for ( int j = 0; j < 30; j++ )
+                    plane[i][j] = rgb[i][j][c];
+            assertMatches( plane, Stats.of( rgb, c ) );
+            assertMatches( plane, Stats.of( packed.toLayout( PackedImage.Layout.PLANAR ), c ) );
+        }
+        assertEquals( 20 * 30 * 3, Stats.of( packed ).count );
+    }
+
+    public void testLogical()
+    {
+        int[][] im = { { 0, 10 }, { 4, 5 } };
+        boolean[][] bw = Image.logical( im );
+        assertFalse( bw[0][0] );
+        assertTrue( bw[0][1] );
+        assertFalse( bw[1][0] );
+        assertTrue( bw[1][1] );
+    }
+}
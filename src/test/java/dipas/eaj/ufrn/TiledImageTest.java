@@ -0,0 +1,231 @@
+package dipas.eaj.ufrn;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for TiledImage: processing tile by tile must give the same result as processing the whole image.
+ */
+public class TiledImageTest
+    extends TestCase
+{
+    private File dir;
+
+    public TiledImageTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( TiledImageTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        dir = File.createTempFile( "tiled", "" );
+        dir.delete();
+        dir.mkdir();
+    }
+
+    protected void tearDown()
+    {
+        for ( File f : dir.listFiles() )
+            f.delete();
+        dir.delete();
+    }
+
+    private String file( String name )
+    {
+        return new File( dir, name ).getPath();
+    }
+
+    public void testReadWriteRegion() throws IOException
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 37, 29, 1 );
+        try ( TiledImage tiled = TiledImage.fromPacked( file( "rgb.raw" ), PackedImage.fromArray( rgb ), 8, 16 ) )
+        {
+            assertTrue( Arrays.deepEquals( rgb, tiled.toPacked().toArray3() ) );
+            int[][][] region = tiled.read( 5, 7, 20, 25 ).toArray3();
+            assertEquals( 15, region.length );
+            assertEquals( 18, region[0].length );
+            assertTrue( Arrays.equals( rgb[12][10], region[7][3] ) );
+        }
+        try ( TiledImage reopened = TiledImage.open( file( "rgb.raw" ), 37, 29, 3, 8, 16 ) )
+        {
+            assertTrue( Arrays.deepEquals( rgb, reopened.toPacked().toArray3() ) );
+        }
+    }
+
+    public void testRawFilesKeepTheirHeader() throws IOException
+    {
+        int[][] gray = BlurTest.randomGray( 21, 34, 6 );
+        try ( TiledImage tiled = TiledImage.fromPacked( file( "gray.imj" ), PackedImage.fromArray( gray ), 16, 8 );
+              TiledImage out = tiled.imGaussian( file( "blur.imj" ), 3 ) )
+        {
+            assertTrue( Arrays.deepEquals( gray, RawImage.read( file( "gray.imj" ) ).toArray() ) );
+        }
+        assertTrue( Arrays.deepEquals( Image.imGaussian( gray, 3 ), RawImage.read( file( "blur.imj" ) ).toArray() ) );
+        try ( TiledImage reopened = TiledImage.open( file( "blur.imj" ), 8 ) )
+        {
+            assertEquals( 21, reopened.height );
+            assertEquals( 34, reopened.width );
+            assertEquals( 16, reopened.depth );
+        }
+    }
+
+    public void testDepthClampsSamples() throws IOException
+    {
+        PackedImage im = PackedImage.fromArray( new int[][]{ { -5, 300, 70000 } } );
+        try ( TiledImage t8 = TiledImage.fromPacked( file( "d8.raw" ), im, 8, 4 );
+              TiledImage t16 = TiledImage.fromPacked( file( "d16.raw" ), im, 16, 4 );
+              TiledImage t32 = TiledImage.fromPacked( file( "d32.raw" ), im, 32, 4 ) )
+        {
+            assertTrue( Arrays.equals( new int[]{ 0, 255, 255 }, t8.toPacked().toArray()[0] ) );
+            assertTrue( Arrays.equals( new int[]{ 0, 300, 65535 }, t16.toPacked().toArray()[0] ) );
+            assertTrue( Arrays.equals( new int[]{ -5, 300, 70000 }, t32.toPacked().toArray()[0] ) );
+        }
+    }
+
+    public void testGaussianMatchesWholeImage() throws IOException
+    {
+        int[][] gray = BlurTest.randomGray( 53, 41, 2 );
+        try ( TiledImage tiled = TiledImage.fromPacked( file( "gray.raw" ), PackedImage.fromArray( gray ), 8, 16 );
+              TiledImage out = tiled.imGaussian( file( "blur.raw" ), 5 ) )
+        {
+            assertTrue( Arrays.deepEquals( Image.imGaussian( gray, 5 ), out.toPacked().toArray() ) );
+        }
+    }
+
+    public void testMorphologyMatchesWholeImage() throws IOException
+    {
+        boolean[][] bw = LabelingTest.randomMask( 50, 47, 0.6, 3 );
+        try ( TiledImage tiled = TiledImage.fromPacked( file( "bw.raw" ), PackedImage.fromArray( bw ), 8, 16 );
+              TiledImage eroded = tiled.bwErode( file( "erode.raw" ), 5 );
+              TiledImage dilated = tiled.bwDilate( file( "dilate.raw" ), 3 );
+              TiledImage opened = tiled.bwOpen( file( "open.raw" ), 3 );
+              TiledImage closed = tiled.bwClose( file( "close.raw" ), 5 ) )
+        {
+            assertTrue( Arrays.deepEquals( Image.bwErode( bw, 5 ), eroded.toPacked().toBinary() ) );
+            assertTrue( Arrays.deepEquals( Image.bwDilate( bw, 3 ), dilated.toPacked().toBinary() ) );
+            assertTrue( Arrays.deepEquals( Image.bwOpen( bw, 3 ), opened.toPacked().toBinary() ) );
+            assertTrue( Arrays.deepEquals( Image.bwClose( bw, 5 ), closed.toPacked().toBinary() ) );
+        }
+    }
+
+    public void testParallelTilesMatchSequential() throws IOException
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 40, 40, 4 );
+        Parallel.setThreshold( 1 );
+        try ( TiledImage tiled = TiledImage.fromPacked( file( "rgb.raw" ), PackedImage.fromArray( rgb ), 8, 8 ) )
+        {
+            PackedImage gray = Parallel.withParallelism( 4, () -> {
+                try ( TiledImage out = tiled.rgb2gray( file( "gray.raw" ) ) )
+                {
+                    return out.toPacked();
+                }
+                catch ( IOException e )
+                {
+                    throw new AssertionError( e );
+                }
+            } );
+            assertTrue( Arrays.deepEquals( Image.rgb2gray( rgb ), gray.toArray() ) );
+        }
+        finally
+        {
+            Parallel.setThreshold( Parallel.DEFAULT_THRESHOLD );
+        }
+    }
+
+    public void testImportImageInBands() throws IOException
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 45, 30, 5 );
+        BufferedImage image = Image.image2BufferedImage( PackedImage.fromArray( rgb ) );
+        ImageIO.write( image, "png", new File( file( "in.png" ) ) );
+        try ( TiledImage tiled = TiledImage.importImage( file( "in.png" ), file( "in.raw" ), 16 ) )
+        {
+            assertEquals( 45, tiled.height );
+            assertEquals( 30, tiled.width );
+            assertTrue( Arrays.deepEquals( rgb, tiled.toPacked().toArray3() ) );
+        }
+        // Faixas de 7 linhas, independentes do lado dos blocos
+        try ( TiledImage tiled = TiledImage.importImage( file( "in.png" ), file( "small.raw" ), 16, 7 * 30 * 10 ) )
+        {
+            assertTrue( Arrays.deepEquals( rgb, tiled.toPacked().toArray3() ) );
+        }
+    }
+
+    public void testImportTiledTiff() throws IOException
+    {
+        int[][][] rgb = PackedImageTest.randomRgb( 45, 40, 6 );
+        BufferedImage image = new BufferedImage( 40, 45, BufferedImage.TYPE_3BYTE_BGR );
+        image.getGraphics().drawImage( Image.image2BufferedImage( PackedImage.fromArray( rgb ) ), 0, 0, null );
+        ImageWriter writer = ImageIO.getImageWritersByFormatName( "tiff" ).next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setTilingMode( ImageWriteParam.MODE_EXPLICIT );
+        param.setTiling( 16, 16, 0, 0 );
+        try ( ImageOutputStream out = ImageIO.createImageOutputStream( new File( file( "in.tif" ) ) ) )
+        {
+            writer.setOutput( out );
+            writer.write( null, new IIOImage( image, null, null ), param );
+        }
+        finally
+        {
+            writer.dispose();
+        }
+        try ( ImageInputStream in = ImageIO.createImageInputStream( new File( file( "in.tif" ) ) ) )
+        {
+            ImageReader reader = ImageIO.getImageReaders( in ).next();
+            reader.setInput( in );
+            assertTrue( reader.isImageTiled( 0 ) );
+            reader.dispose();
+        }
+        try ( TiledImage tiled = TiledImage.importImage( file( "in.tif" ), file( "tif.raw" ), 8 ) )
+        {
+            assertTrue( Arrays.deepEquals( rgb, tiled.toPacked().toArray3() ) );
+        }
+    }
+
+    public void testFailedOperationKeepsFilesUsable() throws IOException
+    {
+        try ( TiledImage tiled = TiledImage.fromPacked( file( "rgb.raw" ),
+                PackedImage.fromArray( PackedImageTest.randomRgb( 20, 20, 7 ) ), 8, 8 ) )
+        {
+            try
+            {
+                tiled.map( file( "out.raw" ), 3, 0, region -> {
+                    throw new IllegalStateException( "boom" );
+                } );
+                fail();
+            }
+            catch ( IllegalStateException e )
+            {
+                assertEquals( "boom", e.getMessage() );
+            }
+            try
+            {
+                TiledImage.open( file( "rgb.raw" ), 20, 20, 3, 12, 8 );
+                fail();
+            }
+            catch ( IllegalArgumentException e )
+            {
+                assertTrue( e.getMessage().startsWith( "Depth" ) );
+            }
+            assertTrue( new File( file( "out.raw" ) ).delete() );
+        }
+    }
+}